@@ -0,0 +1,103 @@
+package spring.boot.api.controleFin.config;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import spring.boot.api.controleFin.model.dto.MovimentacaoDTO;
+import spring.boot.api.controleFin.model.entities.Categoria;
+
+//Compara a escrita da resposta de um ano de movimentações (50 mil linhas) em cada formato aceito pela API, com os conversores que ela usa
+//O tamanho do corpo de cada formato é impresso no início da medição
+//mvn -Pbenchmark test-compile exec:exec -Djmh.filtro=FormatosRespostaBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class FormatosRespostaBenchmark {
+
+	private static final Type LISTA = new TypeReference<List<MovimentacaoDTO>>() {}.getType();
+
+	@Param({"json", "cbor", "smile", "protobuf"})
+	String formato;
+
+	@Param("50000")
+	int quantidade;
+
+	GenericHttpMessageConverter<Object> conversor;
+
+	MediaType tipo;
+
+	List<MovimentacaoDTO> movimentacoes;
+
+	@Setup
+	public void preparar() throws IOException {
+		switch (formato) {
+			case "json" -> {
+				//Como o ObjectMapper do Spring Boot: datas em texto (aaaa-mm-dd)
+				conversor = new MappingJackson2HttpMessageConverter(Jackson2ObjectMapperBuilder.json()
+						.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build());
+				tipo = MediaType.APPLICATION_JSON;
+			}
+			case "cbor" -> {
+				conversor = new MappingJackson2CborHttpMessageConverter(FormatosRespostaConfig.mapperCbor(Jackson2ObjectMapperBuilder.json()));
+				tipo = MediaType.APPLICATION_CBOR;
+			}
+			case "smile" -> {
+				conversor = new MappingJackson2SmileHttpMessageConverter(FormatosRespostaConfig.mapperSmile(Jackson2ObjectMapperBuilder.json()));
+				tipo = new MediaType("application", "x-jackson-smile");
+			}
+			case "protobuf" -> {
+				conversor = new ProtobufMovimentacaoHttpMessageConverter();
+				tipo = ProtobufMovimentacaoHttpMessageConverter.APPLICATION_PROTOBUF;
+			}
+			default -> throw new IllegalArgumentException("Formato desconhecido: " + formato);
+		}
+
+		Categoria[] categorias = Categoria.values();
+		movimentacoes = new ArrayList<>(quantidade);
+		for (int i = 0; i < quantidade; i++) {
+			movimentacoes.add(new MovimentacaoDTO(i % 3 == 0 ? "credito" : "debito", LocalDate.of(2024, 1, 1).plusDays(i % 366),
+					BigDecimal.valueOf(100 + (i * 7919L) % 500000, 2), categorias[i % categorias.length], 1L));
+		}
+
+		System.out.println();
+		System.out.println(formato + ": " + this.escrever().length + " bytes para " + quantidade + " movimentações");
+	}
+
+	@Benchmark
+	public byte[] escrever() throws IOException {
+		MockHttpOutputMessage saida = new MockHttpOutputMessage();
+		conversor.write(movimentacoes, LISTA, tipo, saida);
+		return saida.getBodyAsBytes();
+	}
+
+}
@@ -0,0 +1,111 @@
+package spring.boot.api.controleFin.controllers;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import spring.boot.api.controleFin.ControleFinApplication;
+import spring.boot.api.controleFin.model.dto.MovimentacaoDTO;
+import spring.boot.api.controleFin.model.entities.Categoria;
+import spring.boot.api.controleFin.model.entities.Usuario;
+import spring.boot.api.controleFin.model.repositories.UsuarioRepository;
+import spring.boot.api.controleFin.model.services.MovimentacaoService;
+
+//Teste de carga do GET /busca-por-mes com a aplicação inteira (Tomcat + H2 do profile de teste), com threads do sistema e com virtual threads
+//Mede a vazão e a distribuição da latência (SampleTime traz p50, p99 e p99.9) com mais clientes simultâneos que as 200 threads do Tomcat
+//As respostas 503 (pool de conexões esgotado depois do connection-timeout) não interrompem a medição, aparecem no contador "indisponivel"
+//mvn -Pbenchmark test-compile exec:exec -Djmh.filtro=BuscaPorMesCargaBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Threads(256)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class BuscaPorMesCargaBenchmark {
+
+	@Param({"false", "true"})
+	String virtualThreads;
+
+	ConfigurableApplicationContext contexto;
+
+	HttpClient cliente;
+
+	HttpRequest requisicao;
+
+	@Setup(Level.Trial)
+	public void subirAplicacao() {
+		contexto = new SpringApplication(ControleFinApplication.class).run(
+				"--spring.profiles.active=test",
+				"--server.port=0",
+				"--spring.threads.virtual.enabled=" + virtualThreads,
+				"--spring.datasource.hikari.connection-timeout=2000",
+				"--spring.jpa.properties.hibernate.generate_statistics=false",
+				"--logging.level.root=WARN");
+
+		//Um usuário com 50 movimentações em abril (as que a busca retorna) espalhadas em um ano de histórico
+		Long idUsuario = contexto.getBean(UsuarioRepository.class).save(new Usuario("Maria", "12345678900", new BigDecimal("1000.00"))).getId();
+		List<MovimentacaoDTO> lote = new ArrayList<>();
+		for (int i = 0; i < 600; i++) {
+			lote.add(new MovimentacaoDTO("credito", LocalDate.of(2024, 1, 1).plusDays(i % 366), new BigDecimal("1.00"), Categoria.EXTRA, idUsuario));
+		}
+		contexto.getBean(MovimentacaoService.class).adicionarMovimentacoes(lote);
+
+		int porta = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+		cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+		requisicao = HttpRequest.newBuilder(URI.create("http://localhost:" + porta
+				+ "/controle-fin/movimentacoes/busca-por-mes?mes=4&ano=2024&id=" + idUsuario)).GET().build();
+	}
+
+	@TearDown(Level.Trial)
+	public void derrubarAplicacao() {
+		contexto.close();
+	}
+
+	//Respostas de cada cliente, somadas pelo JMH no resultado de cada modo
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Respostas {
+		public long sucesso;
+		public long indisponivel;
+	}
+
+	@Benchmark
+	public int buscarPorMes(Respostas respostas) throws Exception {
+		HttpResponse<byte[]> resposta = cliente.send(requisicao, HttpResponse.BodyHandlers.ofByteArray());
+		if (resposta.statusCode() == 200) {
+			respostas.sucesso++;
+		} else if (resposta.statusCode() == 503) {
+			respostas.indisponivel++;
+		} else {
+			throw new IllegalStateException("Status " + resposta.statusCode());
+		}
+		return resposta.body().length;
+	}
+
+}
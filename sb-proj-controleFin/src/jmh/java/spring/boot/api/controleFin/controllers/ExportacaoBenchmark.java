@@ -0,0 +1,207 @@
+package spring.boot.api.controleFin.controllers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import spring.boot.api.controleFin.ControleFinApplication;
+import spring.boot.api.controleFin.model.entities.Categoria;
+import spring.boot.api.controleFin.model.entities.Usuario;
+import spring.boot.api.controleFin.model.repositories.UsuarioRepository;
+
+//GET /movimentacoes/export de um usuário com 1 milhão de movimentações, em CSV e NDJSON, com e sem gzip, com a aplicação inteira (Tomcat + H2 em outro processo)
+//O fork roda com o heap limitado em 64 MB: a exportação escreve cada linha e a descarta, então tem que caber nele com qualquer tamanho de histórico
+//O cliente lê a resposta no mesmo processo e confere o número de linhas: uma resposta cortada (OutOfMemoryError no meio do envio) falha a medição
+//mvn -Pbenchmark test-compile exec:exec -Djmh.filtro=ExportacaoBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx64m", "-XX:+ExitOnOutOfMemoryError"})
+public class ExportacaoBenchmark {
+
+	private static final LocalDate INICIO_HISTORICO = LocalDate.of(2020, 1, 1);
+
+	@Param({"1000000"})
+	int linhas;
+
+	@Param({"csv", "ndjson"})
+	String formato;
+
+	@Param({"false", "true"})
+	String gzip;
+
+	Path diretorio;
+
+	Process servidorBanco;
+
+	ConfigurableApplicationContext contexto;
+
+	HttpClient cliente;
+
+	HttpRequest requisicao;
+
+	@Setup(Level.Trial)
+	public void subirAplicacao() throws IOException {
+		diretorio = Files.createTempDirectory("exportacao-benchmark");
+
+		//O banco roda em outro processo (servidor TCP do H2), como o MySQL em produção: as páginas dele não entram nos 64 MB da aplicação
+		int portaBanco;
+		try (ServerSocket livre = new ServerSocket(0)) {
+			portaBanco = livre.getLocalPort();
+		}
+		servidorBanco = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(), "-Xmx512m",
+				"-cp", System.getProperty("java.class.path"), "org.h2.tools.Server",
+				"-tcp", "-tcpPort", String.valueOf(portaBanco), "-ifNotExists", "-baseDir", diretorio.toString())
+				.redirectErrorStream(true)
+				.start();
+		//O servidor avisa quando está ouvindo na porta
+		new BufferedReader(new InputStreamReader(servidorBanco.getInputStream(), StandardCharsets.UTF_8)).readLine();
+
+		contexto = new SpringApplication(ControleFinApplication.class).run(
+				"--spring.profiles.active=test",
+				"--server.port=0",
+				"--spring.datasource.url=jdbc:h2:tcp://localhost:" + portaBanco + "/banco;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+				"--spring.jpa.properties.hibernate.generate_statistics=false",
+				"--logging.level.root=WARN");
+		Long idUsuario = contexto.getBean(UsuarioRepository.class).save(new Usuario("Maria", "12345678900", new BigDecimal("1000.00"))).getId();
+
+		//Movimentações espalhadas pelos 5 anos, geradas no próprio banco (um INSERT ... SELECT, sem trafegar as linhas)
+		StringJoiner categorias = new StringJoiner(", ");
+		for (Categoria categoria : Categoria.values()) {
+			categorias.add("(" + categoria.ordinal() + ", '" + categoria.name() + "')");
+		}
+		contexto.getBean(JdbcTemplate.class).update("insert into movimentacoes (id, usuario_id, tipo, valor, data, categoria) "
+				+ "select r.x + 1, ?, case when mod(r.x, 3) = 0 then 'C' else 'D' end, cast((100 + mod(r.x * 7919, 500000)) / 100.0 as decimal(15, 2)), "
+				+ "dateadd(day, r.x * 1826 / ?, date '" + INICIO_HISTORICO + "'), c.nome "
+				+ "from system_range(0, ? - 1) r(x) join (values " + categorias + ") c(indice, nome) on c.indice = mod(r.x, " + Categoria.values().length + ")",
+				idUsuario, linhas, linhas);
+
+		int porta = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+		cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+		HttpRequest.Builder construtor = HttpRequest.newBuilder(URI.create("http://localhost:" + porta
+				+ "/controle-fin/movimentacoes/export?id=" + idUsuario + "&formato=" + formato)).GET();
+		if (Boolean.parseBoolean(gzip)) {
+			construtor.header("Accept-Encoding", "gzip");
+		}
+		requisicao = construtor.build();
+	}
+
+	@TearDown(Level.Trial)
+	public void derrubarAplicacao() throws IOException, InterruptedException {
+		contexto.close();
+		servidorBanco.destroy();
+		servidorBanco.waitFor();
+		try (Stream<Path> arquivos = Files.walk(diretorio)) {
+			arquivos.sorted(Comparator.reverseOrder()).forEach(arquivo -> arquivo.toFile().delete());
+		}
+	}
+
+	//Bytes recebidos (comprimidos, quando for gzip) em cada exportação
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Resposta {
+		public long bytes;
+	}
+
+	@Benchmark
+	public long exportar(Resposta resposta) throws IOException, InterruptedException {
+		HttpResponse<InputStream> recebida = cliente.send(requisicao, HttpResponse.BodyHandlers.ofInputStream());
+		if (recebida.statusCode() != 200) {
+			throw new IllegalStateException("Status " + recebida.statusCode());
+		}
+		ContadorBytes contador = new ContadorBytes(recebida.body());
+		long quebras = 0;
+		try (InputStream corpo = new BufferedInputStream(Boolean.parseBoolean(gzip) ? new GZIPInputStream(contador, 65536) : contador, 65536)) {
+			byte[] bloco = new byte[65536];
+			int lidos;
+			while ((lidos = corpo.read(bloco)) > 0) {
+				for (int i = 0; i < lidos; i++) {
+					if (bloco[i] == '\n') {
+						quebras++;
+					}
+				}
+			}
+		}
+		//O CSV tem o cabeçalho a mais
+		long esperadas = "csv".equals(formato) ? linhas + 1L : linhas;
+		if (quebras != esperadas) {
+			throw new IllegalStateException("Exportação com " + quebras + " linhas, esperadas " + esperadas);
+		}
+		resposta.bytes = contador.total;
+		return quebras;
+	}
+
+	//Conta os bytes que passam pela resposta antes da descompressão
+	static class ContadorBytes extends InputStream {
+
+		private final InputStream origem;
+
+		long total;
+
+		ContadorBytes(InputStream origem) {
+			this.origem = origem;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int lido = origem.read();
+			if (lido >= 0) {
+				total++;
+			}
+			return lido;
+		}
+
+		@Override
+		public int read(byte[] bloco, int inicio, int tamanho) throws IOException {
+			int lidos = origem.read(bloco, inicio, tamanho);
+			if (lidos > 0) {
+				total += lidos;
+			}
+			return lidos;
+		}
+
+		@Override
+		public void close() throws IOException {
+			origem.close();
+		}
+	}
+
+}
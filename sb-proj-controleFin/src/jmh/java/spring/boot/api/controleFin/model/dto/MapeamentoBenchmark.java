@@ -0,0 +1,59 @@
+package spring.boot.api.controleFin.model.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import spring.boot.api.controleFin.model.entities.Categoria;
+import spring.boot.api.controleFin.model.entities.Movimentacao;
+import spring.boot.api.controleFin.model.entities.TipoMovimentacao;
+import spring.boot.api.controleFin.model.entities.Usuario;
+
+//Mede a conversão de entidades em MovimentacaoDTO, a mesma que a busca paginada faz em cada página
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapeamentoBenchmark {
+
+	@Param({"1000", "10000", "100000"})
+	int quantidade;
+
+	List<Movimentacao> movimentacoes;
+
+	@Setup
+	public void preparar() {
+		Usuario usuario = new Usuario(1L, "Maria", "12345678900", new BigDecimal("100.00"));
+		Categoria[] categorias = Categoria.values();
+		movimentacoes = new ArrayList<>(quantidade);
+		for (int i = 0; i < quantidade; i++) {
+			movimentacoes.add(new Movimentacao((long) i, usuario, i % 3 == 0 ? TipoMovimentacao.CREDITO : TipoMovimentacao.DEBITO,
+					BigDecimal.valueOf(i % 10000, 2), LocalDate.of(2024, 1, 1).plusDays(i % 365), categorias[i % categorias.length]));
+		}
+	}
+
+	@Benchmark
+	public List<MovimentacaoDTO> paraDTO() {
+		return movimentacoes.stream()
+				.map(m -> new MovimentacaoDTO(m.getTipoMovimentacao(), m.getData(), m.getValor(), m.getCategoria(), m.getUsuario().getId()))
+				.collect(Collectors.toList());
+	}
+
+}
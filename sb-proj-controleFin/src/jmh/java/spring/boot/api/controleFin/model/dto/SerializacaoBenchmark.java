@@ -0,0 +1,59 @@
+package spring.boot.api.controleFin.model.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import spring.boot.api.controleFin.model.entities.Categoria;
+
+//Mede a serialização em JSON das respostas de listagem de movimentações, com o ObjectMapper configurado como o do Spring
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializacaoBenchmark {
+
+	@Param({"1000", "10000", "100000"})
+	int quantidade;
+
+	ObjectMapper objectMapper;
+
+	List<MovimentacaoDTO> movimentacoes;
+
+	@Setup
+	public void preparar() {
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		Categoria[] categorias = Categoria.values();
+		movimentacoes = new ArrayList<>(quantidade);
+		for (int i = 0; i < quantidade; i++) {
+			movimentacoes.add(new MovimentacaoDTO(i % 3 == 0 ? "credito" : "debito", LocalDate.of(2024, 1, 1).plusDays(i % 365),
+					BigDecimal.valueOf(i % 10000, 2), categorias[i % categorias.length], 1L));
+		}
+	}
+
+	@Benchmark
+	public byte[] serializar() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(movimentacoes);
+	}
+
+}
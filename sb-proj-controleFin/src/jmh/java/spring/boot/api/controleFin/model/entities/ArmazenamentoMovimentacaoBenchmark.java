@@ -0,0 +1,140 @@
+package spring.boot.api.controleFin.model.entities;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Compara o layout antigo da tabela movimentacoes (tipo em VARCHAR(255), valor em DECIMAL(38, 2)) com o atual (CHAR(1) e DECIMAL(15, 2))
+//e com o valor em centavos (BIGINT), em um H2 em arquivo com a mesma massa de dados e os mesmos índices
+//O tamanho de cada tabela (dados e índices) é impresso no fim da carga; o H2 não reaproveita o resultado anterior para a soma total não vir pronta
+//mvn -Pbenchmark test-compile exec:exec -Djmh.filtro=ArmazenamentoMovimentacaoBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class ArmazenamentoMovimentacaoBenchmark {
+
+	private static final int USUARIOS = 10000;
+
+	@Param({"texto", "compacto", "centavos"})
+	String layout;
+
+	@Param({"10000000"})
+	int linhas;
+
+	Path diretorio;
+
+	Connection conexao;
+
+	PreparedStatement somaPorUsuario;
+
+	PreparedStatement somaTotal;
+
+	long usuario;
+
+	@Setup(Level.Trial)
+	public void carregar() throws IOException, SQLException {
+		diretorio = Files.createTempDirectory("armazenamento-benchmark");
+		conexao = DriverManager.getConnection("jdbc:h2:file:" + diretorio.resolve("banco") + ";MODE=MySQL;OPTIMIZE_REUSE_RESULTS=FALSE");
+
+		//Colunas e expressões de cada layout: o texto é comparado com lower(), como nas queries antigas
+		String tipo, valor, credito, valorGerado;
+		switch (layout) {
+		    case "texto":
+		        tipo = "tipo_movimentacao VARCHAR(255)";
+		        valor = "valor DECIMAL(38, 2)";
+		        credito = "lower(tipo_movimentacao) = 'credito'";
+		        valorGerado = "CASE WHEN MOD(x, 3) = 0 THEN 'credito' ELSE 'debito' END, MOD(x, 100000) / 100.0";
+		        break;
+		    case "compacto":
+		        tipo = "tipo CHAR(1)";
+		        valor = "valor DECIMAL(15, 2)";
+		        credito = "tipo = 'C'";
+		        valorGerado = "CASE WHEN MOD(x, 3) = 0 THEN 'C' ELSE 'D' END, MOD(x, 100000) / 100.0";
+		        break;
+		    case "centavos":
+		        tipo = "tipo CHAR(1)";
+		        valor = "valor BIGINT";
+		        credito = "tipo = 'C'";
+		        valorGerado = "CASE WHEN MOD(x, 3) = 0 THEN 'C' ELSE 'D' END, MOD(x, 100000)";
+		        break;
+		    default:
+		        throw new IllegalArgumentException("Layout desconhecido: " + layout);
+		}
+
+		try (Statement comando = conexao.createStatement()) {
+			comando.execute("CREATE TABLE movimentacoes (id BIGINT NOT NULL AUTO_INCREMENT, usuario_id BIGINT, " + tipo + ", " + valor
+					+ ", data DATE, categoria VARCHAR(255), PRIMARY KEY (id))");
+			//Movimentações espalhadas pelos usuários e por 5 anos, na ordem em que seriam gravadas
+			comando.execute("INSERT INTO movimentacoes (usuario_id, " + tipo.split(" ")[0] + ", valor, data, categoria) "
+					+ "SELECT MOD(x, " + USUARIOS + ") + 1, " + valorGerado + ", DATEADD(DAY, x * 1826 / " + linhas + ", DATE '2020-01-01'), "
+					+ "CASE MOD(x, 5) WHEN 0 THEN 'SALARIO' WHEN 1 THEN 'CASA' WHEN 2 THEN 'LAZER' WHEN 3 THEN 'TRANSPORTE' ELSE 'SAUDE' END "
+					+ "FROM SYSTEM_RANGE(1, " + linhas + ")");
+			comando.execute("CREATE INDEX idx_movimentacoes_usuario_data ON movimentacoes (usuario_id, data, id)");
+			comando.execute("CREATE INDEX idx_movimentacoes_usuario_categoria ON movimentacoes (usuario_id, categoria, data)");
+			comando.execute("CHECKPOINT SYNC");
+			try (ResultSet tamanho = comando.executeQuery("CALL DISK_SPACE_USED('MOVIMENTACOES')")) {
+				tamanho.next();
+				System.out.printf("%n[%s] %d linhas ocupam %.1f MB%n", layout, linhas, tamanho.getLong(1) / 1048576.0);
+			}
+		}
+
+		//Saldo do período de um usuário pelo índice (usuario_id, data, id), como o resumo dos meses cortados
+		somaPorUsuario = conexao.prepareStatement("SELECT SUM(CASE WHEN " + credito + " THEN valor ELSE -valor END) FROM movimentacoes "
+				+ "WHERE usuario_id = ? AND data BETWEEN DATE '2021-01-01' AND DATE '2022-12-31'");
+		//Varredura da tabela inteira, como a reconstrução do resumo mensal
+		somaTotal = conexao.prepareStatement("SELECT SUM(CASE WHEN " + credito + " THEN valor ELSE -valor END) FROM movimentacoes");
+	}
+
+	@TearDown(Level.Trial)
+	public void apagar() throws IOException, SQLException {
+		conexao.close();
+		try (Stream<Path> arquivos = Files.walk(diretorio)) {
+			arquivos.sorted(Comparator.reverseOrder()).forEach(arquivo -> arquivo.toFile().delete());
+		}
+	}
+
+	@Benchmark
+	public Object somarPorUsuario() throws SQLException {
+		usuario = usuario % USUARIOS + 1;
+		somaPorUsuario.setLong(1, usuario);
+		try (ResultSet resultado = somaPorUsuario.executeQuery()) {
+			resultado.next();
+			return resultado.getObject(1);
+		}
+	}
+
+	@Benchmark
+	public Object somarTudo() throws SQLException {
+		try (ResultSet resultado = somaTotal.executeQuery()) {
+			resultado.next();
+			return resultado.getObject(1);
+		}
+	}
+
+}
@@ -0,0 +1,42 @@
+package spring.boot.api.controleFin.model.entities;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Mede a aritmética de BigDecimal do crédito e do débito no saldo do usuário
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SaldoBenchmark {
+
+	BigDecimal valor = new BigDecimal("12.34");
+
+	Usuario usuario;
+
+	@Setup
+	public void preparar() {
+		usuario = new Usuario(1L, "Maria", "12345678900", new BigDecimal("1000000.00"));
+	}
+
+	@Benchmark
+	public BigDecimal creditarEDebitar() {
+		usuario.creditar(valor);
+		usuario.debitar(valor);
+		return usuario.getSaldo();
+	}
+
+}
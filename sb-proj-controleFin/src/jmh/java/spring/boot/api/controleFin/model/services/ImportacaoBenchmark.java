@@ -0,0 +1,120 @@
+package spring.boot.api.controleFin.model.services;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import spring.boot.api.controleFin.ControleFinApplication;
+import spring.boot.api.controleFin.model.dto.ImportacaoEventoDTO;
+import spring.boot.api.controleFin.model.entities.Usuario;
+import spring.boot.api.controleFin.model.importacao.LeitorExtrato;
+import spring.boot.api.controleFin.model.repositories.UsuarioRepository;
+
+//Importação de um extrato CSV local com 1 milhão de linhas, do arquivo até o banco (H2 em arquivo, para os dados não ocuparem o heap)
+//O heap do fork é limitado em 256 MB: a importação só mantém um lote em memória, então não pode depender do tamanho do arquivo
+//mvn -Pbenchmark test-compile exec:exec -Djmh.filtro=ImportacaoBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx256m")
+public class ImportacaoBenchmark {
+
+	private static final String[] DESCRICOES = {"PAGAMENTO SALARIO", "UBER *TRIP", "SUPERMERCADO BOM", "DROGARIA SAO PAULO", "PIX RECEBIDO", "NETFLIX.COM"};
+
+	@Param({"1000000"})
+	int linhas;
+
+	Path diretorio;
+
+	Path extrato;
+
+	ConfigurableApplicationContext contexto;
+
+	ImportacaoService importacaoService;
+
+	Long idUsuario;
+
+	int usuarios;
+
+	@Setup(Level.Trial)
+	public void subirAplicacao() throws IOException {
+		diretorio = Files.createTempDirectory("importacao-benchmark");
+
+		//Extrato em ordem de data, como vem do banco: créditos e débitos alternados ao longo de 5 anos, com os créditos maiores para o saldo nunca faltar
+		extrato = diretorio.resolve("extrato.csv");
+		try (BufferedWriter escritor = Files.newBufferedWriter(extrato, StandardCharsets.UTF_8)) {
+			escritor.write("data;descricao;valor\n");
+			LocalDate inicio = LocalDate.of(2020, 1, 1);
+			for (int i = 0; i < linhas; i++) {
+				escritor.write(inicio.plusDays((long) i * 1826 / linhas).toString());
+				escritor.write(';');
+				escritor.write(DESCRICOES[i % DESCRICOES.length]);
+				escritor.write(i % 2 == 0 ? ";100,00\n" : ";-37,25\n");
+			}
+		}
+
+		contexto = new SpringApplication(ControleFinApplication.class).run(
+				"--spring.profiles.active=test",
+				"--spring.main.web-application-type=none",
+				"--spring.datasource.url=jdbc:h2:file:" + diretorio.resolve("banco") + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+				"--spring.jpa.properties.hibernate.generate_statistics=false",
+				"--logging.level.root=WARN");
+		importacaoService = contexto.getBean(ImportacaoService.class);
+	}
+
+	//Cada importação vai para um usuário novo, para o resultado não depender das anteriores
+	@Setup(Level.Iteration)
+	public void novoUsuario() {
+		idUsuario = contexto.getBean(UsuarioRepository.class)
+				.save(new Usuario("Maria", String.format("%011d", ++usuarios), new BigDecimal("1000.00"))).getId();
+	}
+
+	@TearDown(Level.Trial)
+	public void derrubarAplicacao() throws IOException {
+		contexto.close();
+		try (Stream<Path> arquivos = Files.walk(diretorio)) {
+			arquivos.sorted(Comparator.reverseOrder()).forEach(arquivo -> arquivo.toFile().delete());
+		}
+	}
+
+	@Benchmark
+	public long importarCsv() throws IOException {
+		InputStream entrada = Files.newInputStream(extrato);
+		ImportacaoEventoDTO concluido;
+		try (LeitorExtrato leitor = importacaoService.abrir(idUsuario, "csv", null, null, entrada)) {
+			concluido = importacaoService.importar(idUsuario, leitor, OutputStream.nullOutputStream());
+		}
+		if (concluido.getAceitas() != linhas) {
+			throw new IllegalStateException("Importadas " + concluido.getAceitas() + " de " + linhas);
+		}
+		return concluido.getAceitas();
+	}
+
+}
@@ -0,0 +1,126 @@
+package spring.boot.api.controleFin.model.services;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import spring.boot.api.controleFin.ControleFinApplication;
+import spring.boot.api.controleFin.model.dto.MovimentacaoDTO;
+import spring.boot.api.controleFin.model.entities.Categoria;
+import spring.boot.api.controleFin.model.entities.Usuario;
+import spring.boot.api.controleFin.model.repositories.MovimentacaoRepository;
+import spring.boot.api.controleFin.model.repositories.UsuarioRepository;
+
+//Compara as buscas por mês, por ano e por categoria de um usuário com 10 mil, 100 mil e 1 milhão de movimentações em 5 anos:
+//pela consulta do repositório (H2 em arquivo) e pelo índice do histórico em memória, já carregado no aquecimento
+//mvn -Pbenchmark test-compile exec:exec -Djmh.filtro=IndiceHistoricoBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class IndiceHistoricoBenchmark {
+
+	private static final int LOTE_INSERCAO = 10000;
+
+	private static final LocalDate INICIO_HISTORICO = LocalDate.of(2020, 1, 1);
+
+	@Param({"10000", "100000", "1000000"})
+	int linhas;
+
+	@Param({"repositorio", "indice"})
+	String caminho;
+
+	Path diretorio;
+
+	ConfigurableApplicationContext contexto;
+
+	MovimentacaoRepository movimentacaoRepository;
+
+	IndiceHistoricoService indiceHistorico;
+
+	Long idUsuario;
+
+	@Setup(Level.Trial)
+	public void subirAplicacao() throws IOException {
+		diretorio = Files.createTempDirectory("indice-benchmark");
+		contexto = new SpringApplication(ControleFinApplication.class).run(
+				"--spring.profiles.active=test",
+				"--spring.main.web-application-type=none",
+				"--spring.datasource.url=jdbc:h2:file:" + diretorio.resolve("banco") + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+				"--spring.jpa.properties.hibernate.generate_statistics=false",
+				"--controlefin.indice.habilitado=true",
+				"--logging.level.root=WARN");
+		movimentacaoRepository = contexto.getBean(MovimentacaoRepository.class);
+		indiceHistorico = contexto.getBean(IndiceHistoricoService.class);
+		idUsuario = contexto.getBean(UsuarioRepository.class).save(new Usuario("Maria", "12345678900", new BigDecimal("1000.00"))).getId();
+
+		//Movimentações espalhadas pelos 5 anos em ordem de data, direto na tabela (o saldo e o resumo não entram nas buscas medidas)
+		Categoria[] categorias = Categoria.values();
+		JdbcTemplate jdbc = contexto.getBean(JdbcTemplate.class);
+		for (int inicio = 0; inicio < linhas; inicio += LOTE_INSERCAO) {
+			List<Object[]> lote = new ArrayList<>(LOTE_INSERCAO);
+			for (int i = inicio; i < Math.min(linhas, inicio + LOTE_INSERCAO); i++) {
+				lote.add(new Object[] {i + 1L, idUsuario, i % 3 == 0 ? "C" : "D", BigDecimal.valueOf(100 + (i * 7919L) % 500000, 2),
+						Date.valueOf(INICIO_HISTORICO.plusDays((long) i * 1826 / linhas)), categorias[i % categorias.length].name()});
+			}
+			jdbc.batchUpdate("insert into movimentacoes (id, usuario_id, tipo, valor, data, categoria) values (?, ?, ?, ?, ?, ?)", lote);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void derrubarAplicacao() throws IOException {
+		contexto.close();
+		try (Stream<Path> arquivos = Files.walk(diretorio)) {
+			arquivos.sorted(Comparator.reverseOrder()).forEach(arquivo -> arquivo.toFile().delete());
+		}
+	}
+
+	private List<MovimentacaoDTO> periodo(LocalDate inicio, LocalDate fim) {
+		return "indice".equals(caminho) ? indiceHistorico.listar(idUsuario, inicio, fim)
+				: movimentacaoRepository.listarPorUsuarioEPeriodo(idUsuario, inicio, fim);
+	}
+
+	@Benchmark
+	public List<MovimentacaoDTO> buscarPorMes() {
+		return this.periodo(LocalDate.of(2022, 6, 1), LocalDate.of(2022, 6, 30));
+	}
+
+	@Benchmark
+	public List<MovimentacaoDTO> buscarPorAno() {
+		return this.periodo(LocalDate.of(2022, 1, 1), LocalDate.of(2022, 12, 31));
+	}
+
+	@Benchmark
+	public List<MovimentacaoDTO> buscarPorCategoria() {
+		return "indice".equals(caminho) ? indiceHistorico.listar(idUsuario, Categoria.CASA)
+				: movimentacaoRepository.listarPorUsuarioECategoria(idUsuario, Categoria.CASA);
+	}
+
+}
@@ -0,0 +1,138 @@
+package spring.boot.api.controleFin.model.services;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import spring.boot.api.controleFin.ControleFinApplication;
+import spring.boot.api.controleFin.model.dto.MovimentacaoDTO;
+import spring.boot.api.controleFin.model.dto.MovimentacaoExportacaoDTO;
+import spring.boot.api.controleFin.model.entities.Categoria;
+import spring.boot.api.controleFin.model.entities.TipoMovimentacao;
+import spring.boot.api.controleFin.model.entities.Usuario;
+import spring.boot.api.controleFin.model.repositories.UsuarioRepository;
+
+//Custo de aplicar uma gravação no índice do histórico de um usuário com 10 mil, 100 mil e 1 milhão de movimentações em 5 anos, já carregado no aquecimento
+//Os callbacks são chamados fora de transação, então a atualização roda na hora, como no afterCommit de quem gravou
+//"gravar" inclui uma movimentação em uma data do meio do histórico e apaga a mesma logo depois: o histórico volta ao tamanho de antes a cada chamada
+//"gravarEBuscarPorMes" inclui uma movimentação nova a cada chamada e busca um mês, como um usuário lançando e consultando o extrato
+//Rodar com -prof gc para ver o heap alocado por gravação (gc.alloc.rate.norm), que o exec:exec do perfil benchmark já passa
+//mvn -Pbenchmark test-compile exec:exec -Djmh.filtro=IndiceHistoricoGravacaoBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class IndiceHistoricoGravacaoBenchmark {
+
+	private static final int LOTE_INSERCAO = 10000;
+
+	private static final LocalDate INICIO_HISTORICO = LocalDate.of(2020, 1, 1);
+
+	@Param({"10000", "100000", "1000000"})
+	int linhas;
+
+	Path diretorio;
+
+	ConfigurableApplicationContext contexto;
+
+	IndiceHistoricoService indiceHistorico;
+
+	Long idUsuario;
+
+	long proximoId;
+
+	@Setup(Level.Trial)
+	public void subirAplicacao() throws IOException {
+		diretorio = Files.createTempDirectory("indice-gravacao-benchmark");
+		contexto = new SpringApplication(ControleFinApplication.class).run(
+				"--spring.profiles.active=test",
+				"--spring.main.web-application-type=none",
+				"--spring.datasource.url=jdbc:h2:file:" + diretorio.resolve("banco") + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+				"--spring.jpa.properties.hibernate.generate_statistics=false",
+				"--controlefin.indice.habilitado=true",
+				"--logging.level.root=WARN");
+		indiceHistorico = contexto.getBean(IndiceHistoricoService.class);
+		idUsuario = contexto.getBean(UsuarioRepository.class).save(new Usuario("Maria", "12345678900", new BigDecimal("1000.00"))).getId();
+
+		//Movimentações espalhadas pelos 5 anos em ordem de data, direto na tabela, como no IndiceHistoricoBenchmark
+		Categoria[] categorias = Categoria.values();
+		JdbcTemplate jdbc = contexto.getBean(JdbcTemplate.class);
+		for (int inicio = 0; inicio < linhas; inicio += LOTE_INSERCAO) {
+			List<Object[]> lote = new ArrayList<>(LOTE_INSERCAO);
+			for (int i = inicio; i < Math.min(linhas, inicio + LOTE_INSERCAO); i++) {
+				lote.add(new Object[] {i + 1L, idUsuario, i % 3 == 0 ? "C" : "D", BigDecimal.valueOf(100 + (i * 7919L) % 500000, 2),
+						Date.valueOf(INICIO_HISTORICO.plusDays((long) i * 1826 / linhas)), categorias[i % categorias.length].name()});
+			}
+			jdbc.batchUpdate("insert into movimentacoes (id, usuario_id, tipo, valor, data, categoria) values (?, ?, ?, ?, ?, ?)", lote);
+		}
+		proximoId = linhas + 1L;
+		this.buscarPorMes(); //Carrega o histórico no índice
+	}
+
+	@TearDown(Level.Trial)
+	public void derrubarAplicacao() throws IOException {
+		contexto.close();
+		try (Stream<Path> arquivos = Files.walk(diretorio)) {
+			arquivos.sorted(Comparator.reverseOrder()).forEach(arquivo -> arquivo.toFile().delete());
+		}
+	}
+
+	//Uma gravação que descartasse o histórico deixaria as seguintes sem nada para fazer: a medição não vale
+	@TearDown(Level.Iteration)
+	public void conferirIndice() {
+		if (!indiceHistorico.contem(idUsuario)) {
+			throw new IllegalStateException("Histórico descartado do índice durante a medição");
+		}
+	}
+
+	//Movimentação nova com id depois dos do histórico, em uma data qualquer dos 5 anos
+	private MovimentacaoExportacaoDTO nova() {
+		long id = proximoId++;
+		return new MovimentacaoExportacaoDTO(id, INICIO_HISTORICO.plusDays(id * 7919 % 1826), TipoMovimentacao.DEBITO, Categoria.CASA, new BigDecimal("12.34"));
+	}
+
+	private List<MovimentacaoDTO> buscarPorMes() {
+		return indiceHistorico.listar(idUsuario, LocalDate.of(2022, 6, 1), LocalDate.of(2022, 6, 30));
+	}
+
+	@Benchmark
+	public void gravar() {
+		List<MovimentacaoExportacaoDTO> gravadas = List.of(this.nova());
+		indiceHistorico.adicionarAposCommit(idUsuario, gravadas);
+		indiceHistorico.removerAposCommit(idUsuario, gravadas);
+	}
+
+	@Benchmark
+	public List<MovimentacaoDTO> gravarEBuscarPorMes() {
+		indiceHistorico.adicionarAposCommit(idUsuario, List.of(this.nova()));
+		return this.buscarPorMes();
+	}
+
+}
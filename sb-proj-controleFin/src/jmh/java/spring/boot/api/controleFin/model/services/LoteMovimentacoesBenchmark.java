@@ -0,0 +1,113 @@
+package spring.boot.api.controleFin.model.services;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import spring.boot.api.controleFin.ControleFinApplication;
+import spring.boot.api.controleFin.model.dto.LoteResultadoDTO;
+import spring.boot.api.controleFin.model.dto.MovimentacaoDTO;
+import spring.boot.api.controleFin.model.entities.Categoria;
+import spring.boot.api.controleFin.model.entities.Usuario;
+import spring.boot.api.controleFin.model.repositories.UsuarioRepository;
+
+//Tempo por movimentação gravando 1000 de uma vez, espalhadas por 1 e por 10 usuários e por 3 meses (H2 em arquivo)
+//"lote" chama MovimentacaoService.adicionarMovimentacoes (uma transação, um bloqueio por usuário e um ajuste de saldo e de resumo por usuário e mês)
+//"item a item" é o laço que o lote substitui: adicionarMovimentacao para cada uma, com uma transação e um UPDATE do saldo por movimentação
+//mvn -Pbenchmark test-compile exec:exec -Djmh.filtro=LoteMovimentacoesBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class LoteMovimentacoesBenchmark {
+
+	private static final int ITENS = 1000;
+
+	@Param({"lote", "item a item"})
+	String caminho;
+
+	@Param({"1", "10"})
+	int usuarios;
+
+	Path diretorio;
+
+	ConfigurableApplicationContext contexto;
+
+	MovimentacaoService movimentacaoService;
+
+	List<MovimentacaoDTO> movimentacoes;
+
+	@Setup(Level.Trial)
+	public void subirAplicacao() throws IOException {
+		diretorio = Files.createTempDirectory("lote-benchmark");
+		contexto = new SpringApplication(ControleFinApplication.class).run(
+				"--spring.profiles.active=test",
+				"--spring.main.web-application-type=none",
+				"--spring.datasource.url=jdbc:h2:file:" + diretorio.resolve("banco") + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+				"--spring.jpa.properties.hibernate.generate_statistics=false",
+				"--controlefin.sequenciador.habilitado=false",
+				"--logging.level.root=WARN");
+		movimentacaoService = contexto.getBean(MovimentacaoService.class);
+		UsuarioRepository usuarioRepository = contexto.getBean(UsuarioRepository.class);
+		List<Long> ids = new ArrayList<>();
+		for (int u = 0; u < usuarios; u++) {
+			ids.add(usuarioRepository.save(new Usuario("Usuario " + u, String.format("%011d", u), new BigDecimal("1000.00"))).getId());
+		}
+
+		//Créditos e débitos alternados, com os créditos maiores para o saldo nunca faltar e todas as movimentações serem aceitas nos dois caminhos
+		Categoria[] categorias = Categoria.values();
+		movimentacoes = new ArrayList<>(ITENS);
+		for (int i = 0; i < ITENS; i++) {
+			movimentacoes.add(i % 2 == 0
+					? new MovimentacaoDTO("credito", LocalDate.of(2024, 4 + i % 3, 1 + i % 28), new BigDecimal("2.00"), categorias[i % categorias.length], ids.get(i % usuarios))
+					: new MovimentacaoDTO("debito", LocalDate.of(2024, 4 + i % 3, 1 + i % 28), new BigDecimal("1.00"), categorias[i % categorias.length], ids.get(i % usuarios)));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void derrubarAplicacao() throws IOException {
+		contexto.close();
+		try (Stream<Path> arquivos = Files.walk(diretorio)) {
+			arquivos.sorted(Comparator.reverseOrder()).forEach(arquivo -> arquivo.toFile().delete());
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ITENS)
+	public LoteResultadoDTO gravar() {
+		if ("lote".equals(caminho)) {
+			return movimentacaoService.adicionarMovimentacoes(movimentacoes);
+		}
+		for (MovimentacaoDTO dto : movimentacoes) {
+			movimentacaoService.adicionarMovimentacao(dto);
+		}
+		return null;
+	}
+
+}
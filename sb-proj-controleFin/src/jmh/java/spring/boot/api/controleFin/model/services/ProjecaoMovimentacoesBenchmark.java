@@ -0,0 +1,132 @@
+package spring.boot.api.controleFin.model.services;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import spring.boot.api.controleFin.ControleFinApplication;
+import spring.boot.api.controleFin.model.dto.MovimentacaoDTO;
+import spring.boot.api.controleFin.model.entities.Categoria;
+import spring.boot.api.controleFin.model.entities.Movimentacao;
+import spring.boot.api.controleFin.model.entities.Usuario;
+import spring.boot.api.controleFin.model.repositories.MovimentacaoRepository;
+import spring.boot.api.controleFin.model.repositories.UsuarioRepository;
+
+//Busca de um mês com 10 mil movimentações de um usuário (H2 em arquivo, com mais 10 mil no mês anterior e 10 mil no seguinte)
+//"entidades" é a busca de antes: carrega as entidades Movimentacao no contexto de persistência e mapeia cada uma com m.getUsuario().getId()
+//"projecao" é o MovimentacaoRepository.listarPorUsuarioEPeriodo, que já monta os MovimentacaoDTO na consulta
+//Rodar com -prof gc para ver o heap alocado por busca (gc.alloc.rate.norm), que o exec:exec do perfil benchmark já passa
+//mvn -Pbenchmark test-compile exec:exec -Djmh.filtro=ProjecaoMovimentacoesBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class ProjecaoMovimentacoesBenchmark {
+
+	private static final LocalDate INICIO_MES = LocalDate.of(2022, 6, 1);
+
+	private static final LocalDate FIM_MES = LocalDate.of(2022, 6, 30);
+
+	@Param({"10000"})
+	int linhasNoMes;
+
+	@Param({"entidades", "projecao"})
+	String caminho;
+
+	Path diretorio;
+
+	ConfigurableApplicationContext contexto;
+
+	MovimentacaoRepository movimentacaoRepository;
+
+	EntityManager entityManager;
+
+	TransactionTemplate transacao;
+
+	Long idUsuario;
+
+	@Setup(Level.Trial)
+	public void subirAplicacao() throws IOException {
+		diretorio = Files.createTempDirectory("projecao-benchmark");
+		contexto = new SpringApplication(ControleFinApplication.class).run(
+				"--spring.profiles.active=test",
+				"--spring.main.web-application-type=none",
+				"--spring.datasource.url=jdbc:h2:file:" + diretorio.resolve("banco") + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+				"--spring.jpa.properties.hibernate.generate_statistics=false",
+				"--logging.level.root=WARN");
+		movimentacaoRepository = contexto.getBean(MovimentacaoRepository.class);
+		entityManager = contexto.getBean(EntityManager.class);
+		transacao = new TransactionTemplate(contexto.getBean(PlatformTransactionManager.class));
+		idUsuario = contexto.getBean(UsuarioRepository.class).save(new Usuario("Maria", "12345678900", new BigDecimal("1000.00"))).getId();
+
+		//Um mês cheio no meio de outros dois, direto na tabela
+		Categoria[] categorias = Categoria.values();
+		List<Object[]> lote = new ArrayList<>(linhasNoMes);
+		for (int mes = -1; mes <= 1; mes++) {
+			LocalDate inicio = INICIO_MES.plusMonths(mes);
+			lote.clear();
+			for (int i = 0; i < linhasNoMes; i++) {
+				long id = (mes + 1L) * linhasNoMes + i + 1;
+				lote.add(new Object[] {id, idUsuario, i % 3 == 0 ? "C" : "D", BigDecimal.valueOf(100 + (id * 7919L) % 500000, 2),
+						Date.valueOf(inicio.plusDays((long) i * inicio.lengthOfMonth() / linhasNoMes)), categorias[i % categorias.length].name()});
+			}
+			contexto.getBean(JdbcTemplate.class).batchUpdate("insert into movimentacoes (id, usuario_id, tipo, valor, data, categoria) values (?, ?, ?, ?, ?, ?)", lote);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void derrubarAplicacao() throws IOException {
+		contexto.close();
+		try (Stream<Path> arquivos = Files.walk(diretorio)) {
+			arquivos.sorted(Comparator.reverseOrder()).forEach(arquivo -> arquivo.toFile().delete());
+		}
+	}
+
+	@Benchmark
+	public List<MovimentacaoDTO> buscarPorMes() {
+		if ("entidades".equals(caminho)) {
+			//Mesma consulta e mesmo mapeamento do buscarPorMes antes da projeção, em uma transação comum (com as cópias para o dirty checking)
+			return transacao.execute(status -> entityManager
+					.createQuery("select m from Movimentacao m where m.usuario.id = :idUsuario and m.data between :inicio and :fim order by m.data, m.id", Movimentacao.class)
+					.setParameter("idUsuario", idUsuario)
+					.setParameter("inicio", INICIO_MES)
+					.setParameter("fim", FIM_MES)
+					.getResultList().stream()
+					.map(m -> new MovimentacaoDTO(m.getTipoMovimentacao(), m.getData(), m.getValor(), m.getCategoria(), m.getUsuario().getId()))
+					.collect(Collectors.toList()));
+		}
+		return movimentacaoRepository.listarPorUsuarioEPeriodo(idUsuario, INICIO_MES, FIM_MES);
+	}
+
+}
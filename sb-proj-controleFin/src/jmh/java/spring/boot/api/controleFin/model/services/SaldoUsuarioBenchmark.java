@@ -0,0 +1,124 @@
+package spring.boot.api.controleFin.model.services;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import spring.boot.api.controleFin.ControleFinApplication;
+import spring.boot.api.controleFin.model.entities.Categoria;
+import spring.boot.api.controleFin.model.entities.Usuario;
+import spring.boot.api.controleFin.model.repositories.UsuarioRepository;
+
+//Latência do saldo (GET /usuario/saldo) de um usuário com 100 mil movimentações (H2 em arquivo)
+//"antes" reproduz o findById com a lista de movimentações EAGER: o usuário vem do banco com todo o histórico para devolver só o saldo
+//"depois" é o UsuarioService.getSaldo com o cache desligado (só a coluna saldo) e "cache" é o mesmo método com o cache do saldo ligado
+//mvn -Pbenchmark test-compile exec:exec -Djmh.filtro=SaldoUsuarioBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class SaldoUsuarioBenchmark {
+
+	private static final int LOTE_INSERCAO = 10000;
+
+	private static final LocalDate INICIO_HISTORICO = LocalDate.of(2020, 1, 1);
+
+	@Param({"100000"})
+	int linhas;
+
+	@Param({"antes", "depois", "cache"})
+	String caminho;
+
+	Path diretorio;
+
+	ConfigurableApplicationContext contexto;
+
+	UsuarioService usuarioService;
+
+	EntityManager entityManager;
+
+	TransactionTemplate leitura;
+
+	Long idUsuario;
+
+	@Setup(Level.Trial)
+	public void subirAplicacao() throws IOException {
+		diretorio = Files.createTempDirectory("saldo-benchmark");
+		contexto = new SpringApplication(ControleFinApplication.class).run(
+				"--spring.profiles.active=test",
+				"--spring.main.web-application-type=none",
+				"--spring.datasource.url=jdbc:h2:file:" + diretorio.resolve("banco") + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+				"--spring.jpa.properties.hibernate.generate_statistics=false",
+				"--controlefin.cache.saldo.habilitado=" + "cache".equals(caminho),
+				"--logging.level.root=WARN");
+		usuarioService = contexto.getBean(UsuarioService.class);
+		entityManager = contexto.getBean(EntityManager.class);
+		leitura = new TransactionTemplate(contexto.getBean(PlatformTransactionManager.class));
+		leitura.setReadOnly(true);
+		idUsuario = contexto.getBean(UsuarioRepository.class).save(new Usuario("Maria", "12345678900", new BigDecimal("1000.00"))).getId();
+
+		//Movimentações espalhadas pelos 5 anos, direto na tabela (o saldo do usuário não muda durante a medição)
+		Categoria[] categorias = Categoria.values();
+		JdbcTemplate jdbc = contexto.getBean(JdbcTemplate.class);
+		for (int inicio = 0; inicio < linhas; inicio += LOTE_INSERCAO) {
+			List<Object[]> lote = new ArrayList<>(LOTE_INSERCAO);
+			for (int i = inicio; i < Math.min(linhas, inicio + LOTE_INSERCAO); i++) {
+				lote.add(new Object[] {i + 1L, idUsuario, i % 3 == 0 ? "C" : "D", BigDecimal.valueOf(100 + (i * 7919L) % 500000, 2),
+						Date.valueOf(INICIO_HISTORICO.plusDays((long) i * 1826 / linhas)), categorias[i % categorias.length].name()});
+			}
+			jdbc.batchUpdate("insert into movimentacoes (id, usuario_id, tipo, valor, data, categoria) values (?, ?, ?, ?, ?, ?)", lote);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void derrubarAplicacao() throws IOException {
+		contexto.close();
+		try (Stream<Path> arquivos = Files.walk(diretorio)) {
+			arquivos.sorted(Comparator.reverseOrder()).forEach(arquivo -> arquivo.toFile().delete());
+		}
+	}
+
+	@Benchmark
+	public BigDecimal buscarSaldo() {
+		if ("antes".equals(caminho)) {
+			//Mesmo SQL do findById com a lista EAGER (um left join com as movimentações), em um contexto de persistência novo a cada chamada
+			return leitura.execute(status -> entityManager
+					.createQuery("select u from Usuario u left join fetch u.movimentacoes where u.id = :id", Usuario.class)
+					.setParameter("id", idUsuario)
+					.getSingleResult()
+					.getSaldo());
+		}
+		return usuarioService.getSaldo(idUsuario);
+	}
+
+}
@@ -0,0 +1,121 @@
+package spring.boot.api.controleFin.model.services;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import spring.boot.api.controleFin.ControleFinApplication;
+import spring.boot.api.controleFin.model.dto.MovimentacaoDTO;
+import spring.boot.api.controleFin.model.entities.Categoria;
+import spring.boot.api.controleFin.model.entities.Usuario;
+import spring.boot.api.controleFin.model.repositories.UsuarioRepository;
+
+//Movimentações avulsas por segundo em um único usuário, com 1, 8 e 64 escritores ao mesmo tempo (cada um esperando a sua gravação, como uma requisição)
+//"direto" chama MovimentacaoService.adicionarMovimentacao (uma transação e um UPDATE do saldo por movimentação, todos disputando a linha do usuário)
+//"sequenciador" passa pelo SequenciadorMovimentacoesService, que grava os pedidos pendentes do usuário juntos
+//mvn -Pbenchmark test-compile exec:exec -Djmh.filtro=SequenciadorMovimentacoesBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+public class SequenciadorMovimentacoesBenchmark {
+
+	private static final int OPERACOES = 640;
+
+	@Param({"direto", "sequenciador"})
+	String modo;
+
+	@Param({"1", "8", "64"})
+	int escritores;
+
+	Path diretorio;
+
+	ConfigurableApplicationContext contexto;
+
+	MovimentacaoService movimentacaoService;
+
+	SequenciadorMovimentacoesService sequenciador;
+
+	ExecutorService executor;
+
+	Long idUsuario;
+
+	@Setup(Level.Trial)
+	public void subirAplicacao() throws IOException {
+		diretorio = Files.createTempDirectory("sequenciador-benchmark");
+		contexto = new SpringApplication(ControleFinApplication.class).run(
+				"--spring.profiles.active=test",
+				"--spring.main.web-application-type=none",
+				"--spring.datasource.url=jdbc:h2:file:" + diretorio.resolve("banco") + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+				"--spring.jpa.properties.hibernate.generate_statistics=false",
+				"--logging.level.root=WARN");
+		movimentacaoService = contexto.getBean(MovimentacaoService.class);
+		sequenciador = contexto.getBean(SequenciadorMovimentacoesService.class);
+		idUsuario = contexto.getBean(UsuarioRepository.class).save(new Usuario("Maria", "12345678900", new BigDecimal("1000.00"))).getId();
+		executor = Executors.newVirtualThreadPerTaskExecutor();
+	}
+
+	@TearDown(Level.Trial)
+	public void derrubarAplicacao() throws IOException {
+		executor.shutdown();
+		contexto.close();
+		try (Stream<Path> arquivos = Files.walk(diretorio)) {
+			arquivos.sorted(Comparator.reverseOrder()).forEach(arquivo -> arquivo.toFile().delete());
+		}
+	}
+
+	//Cada escritor grava a sua parte das operações, alternando crédito e débito para o saldo não acabar
+	@Benchmark
+	@OperationsPerInvocation(OPERACOES)
+	public void gravar() throws InterruptedException, ExecutionException {
+		List<Future<?>> tarefas = new ArrayList<>();
+		for (int e = 0; e < escritores; e++) {
+			tarefas.add(executor.submit(() -> {
+				for (int i = 0; i < OPERACOES / escritores; i++) {
+					MovimentacaoDTO dto = i % 2 == 0
+							? new MovimentacaoDTO("credito", LocalDate.of(2024, 4, 20), new BigDecimal("2.00"), Categoria.SALARIO, idUsuario)
+							: new MovimentacaoDTO("debito", LocalDate.of(2024, 4, 20), new BigDecimal("1.00"), Categoria.CASA, idUsuario);
+					if (modo.equals("direto")) {
+						movimentacaoService.adicionarMovimentacao(dto);
+					} else {
+						sequenciador.gravar(dto);
+					}
+				}
+			}));
+		}
+		for (Future<?> tarefa : tarefas) {
+			tarefa.get();
+		}
+	}
+
+}
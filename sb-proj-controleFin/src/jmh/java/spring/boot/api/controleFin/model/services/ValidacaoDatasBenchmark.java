@@ -0,0 +1,45 @@
+package spring.boot.api.controleFin.model.services;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+//Mede a validação dos parâmetros da busca personalizada, que roda em toda requisição antes da consulta
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidacaoDatasBenchmark {
+
+	MovimentacaoService service = new MovimentacaoService();
+
+	int anoIni = 2023;
+	int anoFim = 2024;
+
+	@Benchmark
+	public void validarPeriodoValido() {
+		service.validarParametrosDeData(anoIni, anoFim, 3, 2, 15, 29);
+	}
+
+	//Caminho de erro: a exceção com a mensagem também entra na conta
+	@Benchmark
+	public void validarPeriodoInvalido(Blackhole blackhole) {
+		try {
+			service.validarParametrosDeData(anoIni, anoFim, 3, 2, 15, 30);
+		} catch (RuntimeException e) {
+			blackhole.consume(e);
+		}
+	}
+
+}
@@ -2,8 +2,10 @@ package spring.boot.api.controleFin;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ControleFinApplication {
 
 	public static void main(String[] args) {
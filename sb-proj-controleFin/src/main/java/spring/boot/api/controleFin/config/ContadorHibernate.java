@@ -0,0 +1,101 @@
+package spring.boot.api.controleFin.config;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.hibernate.HibernateException;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+//Conta os comandos SQL, as entidades carregadas e as coleções inicializadas pelo Hibernate em cada requisição
+//As estatísticas do Hibernate são globais; este contador separa o que cada requisição fez. A thread da requisição soma nos contadores dela,
+//e as threads que fazem parte do trabalho dela (o escritor do sequenciador, o corpo assíncrono da exportação e da importação) são vinculadas aos mesmos contadores
+public class ContadorHibernate implements StatementInspector, PostLoadEventListener, InitializeCollectionEventListener {
+
+	private static final long serialVersionUID = 1L;
+
+	static final int COMANDOS = 0;
+	static final int ENTIDADES = 1;
+	static final int COLECOES = 2;
+
+	//Atributo da requisição com os contadores dela, para o corpo assíncrono da resposta somar neles
+	static final String ATRIBUTO_REQUISICAO = ContadorHibernate.class.getName() + ".contadores";
+
+	//Contadores a que a thread está vinculada (nenhum fora de uma requisição: o que ela fizer não é contado)
+	private static final ThreadLocal<Contadores> ATUAIS = new ThreadLocal<>();
+
+	//Contadores de uma requisição, somados por todas as threads vinculadas a ela
+	public static final class Contadores {
+
+		private final AtomicLongArray valores = new AtomicLongArray(3);
+
+		long get(int contador) {
+			return valores.get(contador);
+		}
+
+		//Divide o que foi contado entre os destinos (o resto da divisão vai para os primeiros), para a soma deles ser o total
+		public void repartirEntre(List<Contadores> destinos) {
+			if (destinos.isEmpty()) {
+				return;
+			}
+			for (int contador = 0; contador < valores.length(); contador++) {
+				long total = valores.get(contador);
+				long parte = total / destinos.size();
+				long resto = total % destinos.size();
+				for (int i = 0; i < destinos.size(); i++) {
+					destinos.get(i).valores.addAndGet(contador, parte + (i < resto ? 1 : 0));
+				}
+			}
+		}
+	}
+
+	//Vincula a thread a contadores novos no início da requisição
+	static Contadores iniciar() {
+		Contadores contadores = new Contadores();
+		ATUAIS.set(contadores);
+		return contadores;
+	}
+
+	//Contadores da requisição que a thread está atendendo, ou null
+	public static Contadores atuais() {
+		return ATUAIS.get();
+	}
+
+	//Passa a somar nos contadores informados (null desvincula a thread) e retorna os anteriores, para quem vinculou restaurar depois
+	public static Contadores vincular(Contadores contadores) {
+		Contadores anteriores = ATUAIS.get();
+		if (contadores == null) {
+			ATUAIS.remove();
+		} else {
+			ATUAIS.set(contadores);
+		}
+		return anteriores;
+	}
+
+	private static void somar(int contador) {
+		Contadores contadores = ATUAIS.get();
+		if (contadores != null) {
+			contadores.valores.incrementAndGet(contador);
+		}
+	}
+
+	@Override
+	public String inspect(String sql) {
+		somar(COMANDOS);
+		return sql;
+	}
+
+	@Override
+	public void onPostLoad(PostLoadEvent event) {
+		somar(ENTIDADES);
+	}
+
+	@Override
+	public void onInitializeCollection(InitializeCollectionEvent event) throws HibernateException {
+		somar(COLECOES);
+	}
+
+}
@@ -0,0 +1,64 @@
+package spring.boot.api.controleFin.config;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.data.domain.Slice;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+//Registra quantas linhas cada método de repositório retornou (ou alterou, nos UPDATE/DELETE com @Modifying)
+//O tempo de cada chamada já é medido pelo Spring Boot na métrica spring.data.repository.invocations
+public class ContadorLinhasRepositorio implements MethodInterceptor {
+
+	private final MeterRegistry registry;
+
+	private final String repositorio;
+
+	public ContadorLinhasRepositorio(MeterRegistry registry, Class<?> repositorio) {
+		this.registry = registry;
+		this.repositorio = repositorio.getSimpleName();
+	}
+
+	@Override
+	public Object invoke(MethodInvocation invocation) throws Throwable {
+		Object resultado = invocation.proceed();
+
+		Long linhas = this.contar(resultado, invocation.getMethod().getReturnType());
+		if (linhas != null) {
+			DistributionSummary.builder("controlefin.repositorio.linhas")
+					.description("Linhas retornadas ou alteradas por chamada de repositório")
+					.tag("repository", repositorio)
+					.tag("method", invocation.getMethod().getName())
+					.register(registry)
+					.record(linhas);
+		}
+		return resultado;
+	}
+
+	//Streams não são contados (seriam consumidos aqui) e booleanos como o existsById não representam linhas
+	private Long contar(Object resultado, Class<?> tipo) {
+		if (resultado instanceof Collection<?> colecao) {
+			return (long) colecao.size();
+		}
+		if (resultado instanceof Slice<?> pagina) {
+			return (long) pagina.getNumberOfElements();
+		}
+		if (resultado instanceof Optional<?> opcional) {
+			return opcional.isPresent() ? 1L : 0L;
+		}
+		if (resultado instanceof Integer alteradas && (tipo == int.class || tipo == Integer.class)) {
+			return alteradas.longValue();
+		}
+		if (tipo == void.class || tipo == boolean.class || tipo == Boolean.class || tipo == long.class || tipo == Long.class
+				|| resultado instanceof Stream<?> || resultado instanceof Iterable<?>) {
+			return null;
+		}
+		return resultado == null ? 0L : 1L;
+	}
+
+}
@@ -0,0 +1,28 @@
+package spring.boot.api.controleFin.config;
+
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class DataSourceConfig {
+
+	//Conexões da reserva de blocos de ids (tabela sequencias), separadas do pool principal: a reserva roda fora da transação corrente,
+	//e com todas as conexões do principal presas em transações esperando o mesmo bloco de ids nenhuma andaria
+	//Só o GeradorIdsComReserva usa este pool; as outras segundas conexões (REQUIRES_NEW, TransactionTemplate) continuam no principal
+	@Bean(destroyMethod = "close")
+	public PoolReservaIds poolReservaIds(DataSource dataSource, ObjectProvider<MeterRegistry> registry,
+			@Value("${controlefin.datasource.reserva.tamanho:4}") int tamanho) throws SQLException {
+		return new PoolReservaIds(dataSource.unwrap(HikariDataSource.class), tamanho, registry.getIfAvailable());
+	}
+
+}
@@ -0,0 +1,54 @@
+package spring.boot.api.controleFin.config;
+
+import java.util.List;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+@Configuration
+public class FormatosRespostaConfig implements WebMvcConfigurer {
+
+	//Formatos binários escolhidos pelo Accept da requisição; sem Accept (ou com */*) a resposta continua em JSON, que fica antes na lista de conversores
+	//CBOR e Smile usam o ObjectMapper do Spring Boot (mesmos módulos e propriedades spring.jackson.*) com outra fábrica, e substituem os conversores padrão no mesmo lugar da lista
+	//Nos dois o BigDecimal já é gravado em binário; as datas vão como números ([2024,1,15]) e não como texto
+	@Bean
+	public MappingJackson2CborHttpMessageConverter conversorCbor(Jackson2ObjectMapperBuilder builder) {
+		return new MappingJackson2CborHttpMessageConverter(mapperCbor(builder));
+	}
+
+	//No Smile os textos repetidos (tipo e categoria de cada movimentação) viram referências para a primeira ocorrência
+	@Bean
+	public MappingJackson2SmileHttpMessageConverter conversorSmile(Jackson2ObjectMapperBuilder builder) {
+		return new MappingJackson2SmileHttpMessageConverter(mapperSmile(builder));
+	}
+
+	//O Protobuf entra no fim da lista: só é usado quando pedido no Accept (ou no Content-Type), e só para as movimentações
+	@Override
+	public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+		converters.add(new ProtobufMovimentacaoHttpMessageConverter());
+	}
+
+	public static ObjectMapper mapperCbor(Jackson2ObjectMapperBuilder builder) {
+		return builder.factory(new CBORFactory())
+				.featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+				.build();
+	}
+
+	public static ObjectMapper mapperSmile(Jackson2ObjectMapperBuilder builder) {
+		return builder.factory(SmileFactory.builder().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES).build())
+				.featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+				.build();
+	}
+
+}
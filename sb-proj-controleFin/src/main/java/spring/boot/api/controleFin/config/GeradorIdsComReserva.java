@@ -0,0 +1,155 @@
+package spring.boot.api.controleFin.config;
+
+import java.lang.reflect.Member;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Properties;
+
+import javax.sql.DataSource;
+
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.boot.model.relational.SqlStringGenerationContext;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.TableGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import spring.boot.api.controleFin.model.entities.IdEmBlocos;
+
+//TableGenerator que reserva os blocos de ids (tabela sequencias) com uma conexão do pool de reserva (PoolReservaIds), e não do pool principal
+//A reserva roda fora da transação corrente, em uma segunda conexão: vinda do pool principal, com todas as conexões presas em transações
+//esperando o mesmo bloco de ids, nenhuma andaria. Sem o pool de reserva nas configurações do Hibernate, funciona como o TableGenerator
+public class GeradorIdsComReserva extends TableGenerator {
+
+	private static final long serialVersionUID = 1L;
+
+	//Chave das configurações do Hibernate com o DataSource do pool de reserva
+	public static final String POOL_RESERVA = "controlefin.ids.pool-reserva";
+
+	private final IdEmBlocos anotacao;
+
+	private transient DataSource reserva;
+
+	private boolean guardaUltimoUsado;
+
+	private String consultaBloco;
+
+	private String atualizacaoBloco;
+
+	private String insercaoBloco;
+
+	public GeradorIdsComReserva(IdEmBlocos anotacao, Member membro, CustomIdGeneratorCreationContext contexto) {
+		this.anotacao = anotacao;
+	}
+
+	@Override
+	public void configure(Type type, Properties parametros, ServiceRegistry serviceRegistry) throws MappingException {
+		parametros.put(TABLE_PARAM, "sequencias");
+		parametros.put(SEGMENT_COLUMN_PARAM, "nome");
+		parametros.put(VALUE_COLUMN_PARAM, "valor");
+		parametros.put(SEGMENT_VALUE_PARAM, anotacao.segmento());
+		parametros.put(INCREMENT_PARAM, String.valueOf(anotacao.tamanhoBloco()));
+		super.configure(type, parametros, serviceRegistry);
+
+		ConfigurationService configuracoes = serviceRegistry.requireService(ConfigurationService.class);
+		reserva = (DataSource) configuracoes.getSettings().get(POOL_RESERVA);
+		guardaUltimoUsado = configuracoes.getSetting(AvailableSettings.TABLE_GENERATOR_STORE_LAST_USED, StandardConverters.BOOLEAN, true);
+	}
+
+	//Guarda os comandos montados pelo TableGenerator (com o lock do dialeto no select) para rodar na conexão da reserva
+	@Override
+	protected String buildSelectQuery(String tabela, SqlStringGenerationContext contexto) {
+		return consultaBloco = super.buildSelectQuery(tabela, contexto);
+	}
+
+	@Override
+	protected String buildUpdateQuery(String tabela, SqlStringGenerationContext contexto) {
+		return atualizacaoBloco = super.buildUpdateQuery(tabela, contexto);
+	}
+
+	@Override
+	protected String buildInsertQuery(String tabela, SqlStringGenerationContext contexto) {
+		return insercaoBloco = super.buildInsertQuery(tabela, contexto);
+	}
+
+	@Override
+	public Object generate(SharedSessionContractImplementor session, Object objeto) {
+		if (reserva == null) {
+			return super.generate(session, objeto);
+		}
+		return this.getOptimizer().generate(new AccessCallback() {
+			@Override
+			public IntegralDataTypeHolder getNextValue() {
+				return proximoBloco();
+			}
+
+			@Override
+			public String getTenantIdentifier() {
+				return session.getTenantIdentifier();
+			}
+		});
+	}
+
+	//Lê e avança o valor do segmento em uma transação própria na conexão da reserva, com as mesmas regras do TableGenerator
+	private IntegralDataTypeHolder proximoBloco() {
+		try (Connection conexao = reserva.getConnection()) {
+			conexao.setAutoCommit(false);
+			try {
+				IntegralDataTypeHolder valor = this.lerEAvancar(conexao);
+				conexao.commit();
+				return valor;
+			} catch (SQLException | RuntimeException e) {
+				conexao.rollback();
+				throw e;
+			}
+		} catch (SQLException e) {
+			throw new HibernateException("Não foi possível reservar um bloco de ids de " + this.getSegmentValue(), e);
+		}
+	}
+
+	private IntegralDataTypeHolder lerEAvancar(Connection conexao) throws SQLException {
+		IntegralDataTypeHolder valor = IdentifierGeneratorHelper.getIntegralDataTypeHolder(this.getIdentifierType().getReturnedClass());
+		int atualizadas;
+		do {
+			try (PreparedStatement consulta = conexao.prepareStatement(consultaBloco)) {
+				consulta.setString(1, this.getSegmentValue());
+				try (ResultSet resultado = consulta.executeQuery()) {
+					if (resultado.next()) {
+						valor.initialize(resultado, guardaUltimoUsado ? 0 : 1);
+					} else {
+						valor.initialize(guardaUltimoUsado ? this.getInitialValue() - 1 : this.getInitialValue());
+						try (PreparedStatement insercao = conexao.prepareStatement(insercaoBloco)) {
+							insercao.setString(1, this.getSegmentValue());
+							valor.bind(insercao, 2);
+							insercao.executeUpdate();
+						}
+					}
+				}
+			}
+			try (PreparedStatement atualizacao = conexao.prepareStatement(atualizacaoBloco)) {
+				IntegralDataTypeHolder proximo = valor.copy();
+				if (this.getOptimizer().applyIncrementSizeToSourceValues()) {
+					proximo.add(this.getIncrementSize());
+				} else {
+					proximo.increment();
+				}
+				proximo.bind(atualizacao, 1);
+				valor.bind(atualizacao, 2);
+				atualizacao.setString(3, this.getSegmentValue());
+				atualizadas = atualizacao.executeUpdate();
+			}
+		} while (atualizadas == 0);
+		return guardaUltimoUsado ? valor.increment() : valor;
+	}
+
+}
@@ -0,0 +1,42 @@
+package spring.boot.api.controleFin.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+import spring.boot.api.controleFin.model.entities.Categoria;
+
+//Configuração da importação de extratos (controlefin.importacao.* no application.properties)
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "controlefin.importacao")
+public class ImportacaoProperties {
+
+	private int tamanhoLote = 1000; // Movimentações gravadas por transação
+
+	private Categoria categoriaPadrao = Categoria.EXTRA; // Categoria quando nenhuma regra casa com a descrição
+
+	private List<Regra> regras = new ArrayList<>(); // Regras de categoria, testadas em ordem: vale a primeira que casar
+
+	//Regra de categoria: expressão regular procurada na descrição do extrato, sem diferenciar maiúsculas e minúsculas
+	@Getter
+	public static class Regra {
+
+		private Pattern padrao;
+
+		@Setter
+		private Categoria categoria;
+
+		public void setPadrao(String padrao) {
+			this.padrao = Pattern.compile(padrao, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+		}
+
+	}
+
+}
@@ -0,0 +1,65 @@
+package spring.boot.api.controleFin.config;
+
+import java.util.concurrent.Callable;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class MetricasConfig implements WebMvcConfigurer {
+
+	//Conta os comandos SQL de cada requisição (ver MetricasHibernateFilter)
+	@Bean
+	public HibernatePropertiesCustomizer contadorDeComandos() {
+		return propriedades -> propriedades.put(AvailableSettings.STATEMENT_INSPECTOR, new ContadorHibernate());
+	}
+
+	//Adiciona o contador de linhas em todos os repositórios
+	//É static e recebe o MeterRegistry por ObjectProvider para não antecipar a criação dos beans de métricas
+	@Bean
+	public static BeanPostProcessor contadorDeLinhasNosRepositorios(ObjectProvider<MeterRegistry> registry) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) {
+				if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> repositorio) {
+					repositorio.addRepositoryFactoryCustomizer(fabrica -> fabrica.addRepositoryProxyPostProcessor((proxy, informacoes) ->
+							proxy.addAdvice(new ContadorLinhasRepositorio(registry.getObject(), informacoes.getRepositoryInterface()))));
+				}
+				return bean;
+			}
+		};
+	}
+
+	//O corpo assíncrono das respostas (StreamingResponseBody da exportação e da importação) roda em outra thread, depois que o MetricasHibernateFilter já saiu:
+	//a thread é vinculada aos contadores da requisição enquanto o corpo é escrito
+	@Override
+	public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+		configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+			@Override
+			public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+				Object contadores = request.getAttribute(ContadorHibernate.ATRIBUTO_REQUISICAO, RequestAttributes.SCOPE_REQUEST);
+				if (contadores instanceof ContadorHibernate.Contadores daRequisicao) {
+					ContadorHibernate.vincular(daRequisicao);
+				}
+			}
+
+			@Override
+			public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+				ContadorHibernate.vincular(null);
+			}
+		});
+	}
+
+}
@@ -0,0 +1,96 @@
+package spring.boot.api.controleFin.config;
+
+import java.io.IOException;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+//Registra, por endpoint, quantos comandos SQL, entidades e coleções o Hibernate usou em cada requisição
+//Inclui o trabalho feito para a requisição em outras threads: o escritor do sequenciador e o corpo assíncrono da resposta (ver ContadorHibernate)
+@Component
+public class MetricasHibernateFilter extends OncePerRequestFilter {
+
+	private final MeterRegistry registry;
+
+	public MetricasHibernateFilter(MeterRegistry registry, EntityManagerFactory entityManagerFactory) {
+		this.registry = registry;
+
+		//Os listeners de carga de entidade e de coleção são somados aos padrões do Hibernate (o de comandos SQL entra pela propriedade statement_inspector)
+		ContadorHibernate contador = new ContadorHibernate();
+		EventListenerRegistry listeners = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+				.getServiceRegistry().getService(EventListenerRegistry.class);
+		listeners.appendListeners(EventType.POST_LOAD, contador);
+		listeners.appendListeners(EventType.INIT_COLLECTION, contador);
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		ContadorHibernate.Contadores contadores = ContadorHibernate.iniciar();
+		request.setAttribute(ContadorHibernate.ATRIBUTO_REQUISICAO, contadores);
+		try {
+			chain.doFilter(request, response);
+		} finally {
+			ContadorHibernate.vincular(null);
+
+			//Mesma tag "uri" das métricas http.server.requests (o padrão do mapeamento, não a URL com os parâmetros)
+			Object padrao = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+			String uri = padrao == null ? "UNKNOWN" : padrao.toString();
+			String metodo = request.getMethod();
+
+			//Resposta assíncrona (exportação e importação): o corpo ainda vai rodar em outra thread, os contadores são registrados quando ela terminar
+			if (request.isAsyncStarted()) {
+				request.getAsyncContext().addListener(new AsyncListener() {
+					@Override
+					public void onComplete(AsyncEvent event) {
+						registrar(metodo, uri, contadores);
+					}
+
+					@Override
+					public void onTimeout(AsyncEvent event) {
+					}
+
+					@Override
+					public void onError(AsyncEvent event) {
+					}
+
+					@Override
+					public void onStartAsync(AsyncEvent event) {
+					}
+				});
+			} else {
+				this.registrar(metodo, uri, contadores);
+			}
+		}
+	}
+
+	private void registrar(String metodo, String uri, ContadorHibernate.Contadores contadores) {
+		this.registrar("controlefin.requisicao.hibernate.comandos", "Comandos SQL executados por requisição", metodo, uri, contadores.get(ContadorHibernate.COMANDOS));
+		this.registrar("controlefin.requisicao.hibernate.entidades", "Entidades carregadas por requisição", metodo, uri, contadores.get(ContadorHibernate.ENTIDADES));
+		this.registrar("controlefin.requisicao.hibernate.colecoes", "Coleções inicializadas por requisição", metodo, uri, contadores.get(ContadorHibernate.COLECOES));
+	}
+
+	private void registrar(String nome, String descricao, String metodo, String uri, long valor) {
+		DistributionSummary.builder(nome)
+				.description(descricao)
+				.tag("method", metodo)
+				.tag("uri", uri)
+				.register(registry)
+				.record(valor);
+	}
+
+}
@@ -0,0 +1,66 @@
+package spring.boot.api.controleFin.config;
+
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+//Detecta virtual threads presas à thread do sistema (pinning) pelo evento jdk.VirtualThreadPinned do JFR
+//Só é criado quando spring.threads.virtual.enabled=true
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class MonitorThreadsPresas implements InitializingBean, DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(MonitorThreadsPresas.class);
+
+	private final Counter presas;
+
+	private final Duration limite;
+
+	private RecordingStream gravacao;
+
+	public MonitorThreadsPresas(MeterRegistry registry, @Value("${controlefin.threads.virtuais.limite-preso:20ms}") Duration limite) {
+		this.limite = limite;
+		this.presas = Counter.builder("controlefin.threads.virtuais.presas")
+				.description("Vezes em que uma virtual thread ficou presa à thread do sistema por mais que o limite")
+				.register(registry);
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		gravacao = new RecordingStream();
+		gravacao.enable("jdk.VirtualThreadPinned").withThreshold(limite).withStackTrace();
+		gravacao.onEvent("jdk.VirtualThreadPinned", this::registrar);
+		gravacao.startAsync();
+	}
+
+	private void registrar(RecordedEvent evento) {
+		presas.increment();
+		if (log.isWarnEnabled()) {
+			RecordedFrame topo = evento.getStackTrace() == null || evento.getStackTrace().getFrames().isEmpty()
+					? null : evento.getStackTrace().getFrames().get(0);
+			log.warn("Virtual thread presa por {} ms em {}", evento.getDuration().toMillis(),
+					topo == null ? "?" : topo.getMethod().getType().getName() + "." + topo.getMethod().getName());
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if (gravacao != null) {
+			gravacao.close();
+		}
+	}
+
+}
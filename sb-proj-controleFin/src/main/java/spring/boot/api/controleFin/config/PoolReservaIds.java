@@ -0,0 +1,48 @@
+package spring.boot.api.controleFin.config;
+
+import java.io.Closeable;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+//Pool pequeno, com a mesma configuração do pool principal, usado só pelo GeradorIdsComReserva para reservar os blocos de ids
+//Entra nas configurações do Hibernate (o gerador lê o DataSource de lá) e publica as mesmas métricas hikaricp.* do principal, com o nome "<pool>-reserva"
+public class PoolReservaIds implements HibernatePropertiesCustomizer, Closeable {
+
+	private final HikariDataSource pool;
+
+	public PoolReservaIds(HikariDataSource principal, int tamanho, MeterRegistry registry) {
+		HikariConfig configuracao = new HikariConfig();
+		principal.copyStateTo(configuracao);
+		configuracao.setPoolName((principal.getPoolName() != null ? principal.getPoolName() : "dataSource") + "-reserva"); //O principal pode ainda não ter iniciado
+		configuracao.setMaximumPoolSize(tamanho);
+		configuracao.setMinimumIdle(0);
+		if (registry != null) {
+			configuracao.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+		}
+		pool = new HikariDataSource(configuracao);
+	}
+
+	public DataSource getDataSource() {
+		return pool;
+	}
+
+	@Override
+	public void customize(Map<String, Object> propriedades) {
+		propriedades.put(GeradorIdsComReserva.POOL_RESERVA, pool);
+	}
+
+	@Override
+	public void close() {
+		pool.close();
+	}
+
+}
@@ -0,0 +1,237 @@
+package spring.boot.api.controleFin.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+
+import spring.boot.api.controleFin.model.dto.MovimentacaoDTO;
+import spring.boot.api.controleFin.model.dto.PaginaMovimentacaoDTO;
+import spring.boot.api.controleFin.model.entities.Categoria;
+import spring.boot.api.controleFin.model.entities.TipoMovimentacao;
+
+//Lê e escreve MovimentacaoDTO, List<MovimentacaoDTO> e PaginaMovimentacaoDTO em Protobuf (application/x-protobuf), no formato de src/main/resources/proto/movimentacoes.proto
+//Os campos são codificados direto dos DTOs com o CodedOutputStream, sem classes geradas pelo protoc: a resposta não precisa ser copiada para outro objeto
+//A data vai como dias desde 1970-01-01 e o valor em centavos, os dois como varint, no lugar do texto do JSON
+public class ProtobufMovimentacaoHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+	public static final MediaType APPLICATION_PROTOBUF = new MediaType("application", "x-protobuf");
+
+	//Números dos campos das mensagens do movimentacoes.proto
+	private static final int LISTA_MOVIMENTACOES = 1;
+	private static final int PAGINA_NEXT_CURSOR = 2;
+	private static final int MOVIMENTACAO_TIPO = 1;
+	private static final int MOVIMENTACAO_DATA = 2;
+	private static final int MOVIMENTACAO_VALOR_CENTAVOS = 3;
+	private static final int MOVIMENTACAO_CATEGORIA = 4;
+	private static final int MOVIMENTACAO_ID_USUARIO = 5;
+
+	private static final int TAMANHO_BUFFER = 8192;
+
+	//Os enums do schema são a posição no enum da API mais um (o zero é "não informado")
+	private static final TipoMovimentacao[] TIPOS = TipoMovimentacao.values();
+
+	private static final Categoria[] CATEGORIAS = Categoria.values();
+
+	public ProtobufMovimentacaoHttpMessageConverter() {
+		super(APPLICATION_PROTOBUF);
+	}
+
+	@Override
+	protected boolean supports(Class<?> clazz) {
+		return MovimentacaoDTO.class == clazz || PaginaMovimentacaoDTO.class == clazz;
+	}
+
+	//Listas só com o tipo genérico declarado (List<MovimentacaoDTO>): uma lista de outro DTO não tem mensagem no schema
+	private static boolean listaDeMovimentacoes(Type type) {
+		ResolvableType tipo = ResolvableType.forType(type);
+		return List.class.isAssignableFrom(tipo.toClass()) && tipo.asCollection().resolveGeneric(0) == MovimentacaoDTO.class;
+	}
+
+	//O Spring pergunta os tipos de mídia pela classe da resposta (ArrayList) depois de conferir o tipo genérico em canWrite
+	@Override
+	public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+		return this.supports(clazz) || List.class.isAssignableFrom(clazz) ? this.getSupportedMediaTypes() : List.of();
+	}
+
+	@Override
+	public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+		return (type == MovimentacaoDTO.class || listaDeMovimentacoes(type)) && this.canRead(mediaType);
+	}
+
+	@Override
+	public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+		boolean suportado = type == null || type instanceof Class<?> ? this.supports(clazz) : listaDeMovimentacoes(type);
+		return suportado && this.canWrite(mediaType);
+	}
+
+	@Override
+	protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+		return this.read(clazz, null, inputMessage);
+	}
+
+	@Override
+	public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+		CodedInputStream entrada = CodedInputStream.newInstance(inputMessage.getBody(), TAMANHO_BUFFER);
+		try {
+			if (type == MovimentacaoDTO.class) {
+				return lerMovimentacao(entrada);
+			}
+			return lerLista(entrada);
+		} catch (InvalidProtocolBufferException e) {
+			throw new HttpMessageNotReadableException("Protobuf inválido: " + e.getMessage(), e, inputMessage);
+		}
+	}
+
+	//Lê uma mensagem Movimentacoes (também usado pelo cache dos meses fechados, que guarda cada mês nesse formato)
+	public static List<MovimentacaoDTO> decodificar(InputStream entrada) throws IOException {
+		return lerLista(CodedInputStream.newInstance(entrada, TAMANHO_BUFFER));
+	}
+
+	//Escreve uma mensagem Movimentacoes; valores com mais de duas casas decimais lançam ArithmeticException
+	public static void codificar(List<MovimentacaoDTO> movimentacoes, OutputStream destino) throws IOException {
+		CodedOutputStream saida = CodedOutputStream.newInstance(destino, TAMANHO_BUFFER);
+		escreverLista(saida, movimentacoes);
+		saida.flush();
+	}
+
+	private static List<MovimentacaoDTO> lerLista(CodedInputStream entrada) throws IOException {
+		List<MovimentacaoDTO> movimentacoes = new ArrayList<>();
+		int tag;
+		while ((tag = entrada.readTag()) != 0) {
+			if (WireFormat.getTagFieldNumber(tag) == LISTA_MOVIMENTACOES && WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+				int limite = entrada.pushLimit(entrada.readRawVarint32());
+				movimentacoes.add(lerMovimentacao(entrada));
+				entrada.popLimit(limite);
+			} else {
+				entrada.skipField(tag);
+			}
+		}
+		return movimentacoes;
+	}
+
+	//Lê os campos de uma Movimentacao até o fim da mensagem (ou do limite da mensagem aninhada); campos ausentes ficam nulos e são recusados pelo service
+	private static MovimentacaoDTO lerMovimentacao(CodedInputStream entrada) throws IOException {
+		String tipo = null;
+		LocalDate data = null;
+		BigDecimal valor = null;
+		Categoria categoria = null;
+		Long idUsuario = null;
+		int tag;
+		while ((tag = entrada.readTag()) != 0) {
+			switch (WireFormat.getTagFieldNumber(tag)) {
+				case MOVIMENTACAO_TIPO -> {
+					int numero = entrada.readEnum();
+					tipo = numero >= 1 && numero <= TIPOS.length ? TIPOS[numero - 1].getDescricao() : null;
+				}
+				case MOVIMENTACAO_DATA -> data = LocalDate.ofEpochDay(entrada.readSInt32());
+				case MOVIMENTACAO_VALOR_CENTAVOS -> valor = BigDecimal.valueOf(entrada.readSInt64(), 2);
+				case MOVIMENTACAO_CATEGORIA -> {
+					int numero = entrada.readEnum();
+					categoria = numero >= 1 && numero <= CATEGORIAS.length ? CATEGORIAS[numero - 1] : null;
+				}
+				case MOVIMENTACAO_ID_USUARIO -> idUsuario = entrada.readInt64();
+				default -> entrada.skipField(tag);
+			}
+		}
+		return new MovimentacaoDTO(tipo, data, valor, categoria, idUsuario);
+	}
+
+	@Override
+	protected void writeInternal(Object objeto, Type type, HttpOutputMessage outputMessage) throws IOException {
+		CodedOutputStream saida = CodedOutputStream.newInstance(outputMessage.getBody(), TAMANHO_BUFFER);
+		try {
+			if (objeto instanceof MovimentacaoDTO movimentacao) {
+				escreverCampos(saida, movimentacao);
+			} else if (objeto instanceof PaginaMovimentacaoDTO pagina) {
+				escreverLista(saida, pagina.getMovimentacoes());
+				if (pagina.getNextCursor() != null) {
+					saida.writeString(PAGINA_NEXT_CURSOR, pagina.getNextCursor());
+				}
+			} else {
+				@SuppressWarnings("unchecked")
+				List<MovimentacaoDTO> movimentacoes = (List<MovimentacaoDTO>) objeto;
+				escreverLista(saida, movimentacoes);
+			}
+		} catch (ArithmeticException e) {
+			throw new HttpMessageNotWritableException("Valor de movimentação sem representação em centavos", e);
+		}
+		saida.flush();
+	}
+
+	//Cada movimentação da lista é uma mensagem aninhada: o tamanho dela vai antes dos campos
+	private static void escreverLista(CodedOutputStream saida, List<MovimentacaoDTO> movimentacoes) throws IOException {
+		if (movimentacoes == null) {
+			return;
+		}
+		for (MovimentacaoDTO movimentacao : movimentacoes) {
+			saida.writeTag(LISTA_MOVIMENTACOES, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+			saida.writeUInt32NoTag(tamanho(movimentacao));
+			escreverCampos(saida, movimentacao);
+		}
+	}
+
+	private static void escreverCampos(CodedOutputStream saida, MovimentacaoDTO movimentacao) throws IOException {
+		TipoMovimentacao tipo = TipoMovimentacao.de(movimentacao.getTipoMovimentacao());
+		if (tipo != null) {
+			saida.writeEnum(MOVIMENTACAO_TIPO, tipo.ordinal() + 1);
+		}
+		if (movimentacao.getData() != null) {
+			saida.writeSInt32(MOVIMENTACAO_DATA, Math.toIntExact(movimentacao.getData().toEpochDay()));
+		}
+		if (movimentacao.getValor() != null) {
+			saida.writeSInt64(MOVIMENTACAO_VALOR_CENTAVOS, centavos(movimentacao.getValor()));
+		}
+		if (movimentacao.getCategoria() != null) {
+			saida.writeEnum(MOVIMENTACAO_CATEGORIA, movimentacao.getCategoria().ordinal() + 1);
+		}
+		if (movimentacao.getIdUsuario() != null) {
+			saida.writeInt64(MOVIMENTACAO_ID_USUARIO, movimentacao.getIdUsuario());
+		}
+	}
+
+	//Tamanho em bytes dos campos escritos por escreverCampos
+	private static int tamanho(MovimentacaoDTO movimentacao) {
+		int tamanho = 0;
+		TipoMovimentacao tipo = TipoMovimentacao.de(movimentacao.getTipoMovimentacao());
+		if (tipo != null) {
+			tamanho += CodedOutputStream.computeEnumSize(MOVIMENTACAO_TIPO, tipo.ordinal() + 1);
+		}
+		if (movimentacao.getData() != null) {
+			tamanho += CodedOutputStream.computeSInt32Size(MOVIMENTACAO_DATA, Math.toIntExact(movimentacao.getData().toEpochDay()));
+		}
+		if (movimentacao.getValor() != null) {
+			tamanho += CodedOutputStream.computeSInt64Size(MOVIMENTACAO_VALOR_CENTAVOS, centavos(movimentacao.getValor()));
+		}
+		if (movimentacao.getCategoria() != null) {
+			tamanho += CodedOutputStream.computeEnumSize(MOVIMENTACAO_CATEGORIA, movimentacao.getCategoria().ordinal() + 1);
+		}
+		if (movimentacao.getIdUsuario() != null) {
+			tamanho += CodedOutputStream.computeInt64Size(MOVIMENTACAO_ID_USUARIO, movimentacao.getIdUsuario());
+		}
+		return tamanho;
+	}
+
+	//Os valores vêm da coluna DECIMAL(15,2): mais de duas casas decimais não tem representação exata em centavos
+	private static long centavos(BigDecimal valor) {
+		return valor.movePointRight(2).longValueExact();
+	}
+
+}
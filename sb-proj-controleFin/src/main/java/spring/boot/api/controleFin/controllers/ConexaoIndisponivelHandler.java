@@ -0,0 +1,25 @@
+package spring.boot.api.controleFin.controllers;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+public class ConexaoIndisponivelHandler {
+
+	//Quando o pool de conexões está cheio (ou o banco fora), a requisição desiste depois do connection-timeout do Hikari
+	//Responde 503 com Retry-After em vez de 500, para o cliente tentar de novo em vez de enfileirar mais requisições
+	@ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+	public ResponseEntity<ProblemDetail> conexaoIndisponivel(RuntimeException e) {
+		ProblemDetail problema = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, "Banco de dados sobrecarregado, tente novamente");
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, "1")
+				.body(problema);
+	}
+
+}
@@ -1,20 +1,42 @@
 package spring.boot.api.controleFin.controllers;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import spring.boot.api.controleFin.model.dto.LoteResultadoDTO;
 import spring.boot.api.controleFin.model.dto.MovimentacaoDTO;
+import spring.boot.api.controleFin.model.dto.PaginaMovimentacaoDTO;
+import spring.boot.api.controleFin.model.dto.ReconstrucaoResumoDTO;
+import spring.boot.api.controleFin.model.dto.ResumoMovimentacaoDTO;
 import spring.boot.api.controleFin.model.entities.Categoria;
+import spring.boot.api.controleFin.model.importacao.LeitorExtrato;
+import spring.boot.api.controleFin.model.services.ExportacaoService;
+import spring.boot.api.controleFin.model.services.IdempotenciaService;
+import spring.boot.api.controleFin.model.services.ImportacaoService;
 import spring.boot.api.controleFin.model.services.MovimentacaoService;
+import spring.boot.api.controleFin.model.services.ResumoMensalService;
+import spring.boot.api.controleFin.model.services.SequenciadorMovimentacoesService;
 
 @RestController
 @RequestMapping("/controle-fin/movimentacoes")
@@ -23,18 +45,63 @@ public class MovimentacaoController {
 	@Autowired
 	MovimentacaoService service;
 	
+	@Autowired
+	ResumoMensalService resumoMensalService;
+	
+	@Autowired
+	ExportacaoService exportacaoService;
+	
+	@Autowired
+	ImportacaoService importacaoService;
+	
+	@Autowired
+	IdempotenciaService idempotenciaService;
+	
+	@Autowired
+	SequenciadorMovimentacoesService sequenciador;
+	
 	//Recebe um DTO de movimentação como requisição e salva no banco de dados
+	//Sem Idempotency-Key a movimentação passa pela fila do usuário (SequenciadorMovimentacoesService) e a resposta sai depois que ela for gravada
+	//Com o header Idempotency-Key, uma repetição da mesma requisição (retry do cliente) não grava de novo e responde com Idempotent-Replayed
+	//Nesse caso a gravação é direta, porque precisa rodar na mesma transação que guarda a chave
 	@PostMapping
-	public ResponseEntity<Void> adicionarMovimentacao(@RequestBody	MovimentacaoDTO dto){
-		service.adicionarMovimentacao(dto);
+	public ResponseEntity<Void> adicionarMovimentacao(@RequestBody	MovimentacaoDTO dto,
+			@RequestHeader(value = "Idempotency-Key", required = false) String chaveIdempotencia){
+		if (chaveIdempotencia == null) {
+			sequenciador.gravar(dto);
+			return ResponseEntity.ok().build();
+		}
+		if (!idempotenciaService.executar(dto.getIdUsuario(), chaveIdempotencia, dto, () -> service.adicionarMovimentacao(dto))) {
+			return ResponseEntity.ok().header("Idempotent-Replayed", "true").build();
+		}
 		return ResponseEntity.ok().build();
 	}
 	
-	//Recebe uma lista de movimentações para ser adicionada no banco de dados
+	//Recebe uma lista de movimentações para ser adicionada no banco de dados em uma única transação
+	//Retorna o resultado de cada movimentação (aceita ou rejeitada com o motivo)
 	@PostMapping("/lote")
-	public ResponseEntity<Void> adicionarMovimentacoes(@RequestBody List<MovimentacaoDTO> movimentacoes) {
-	    movimentacoes.forEach(service::adicionarMovimentacao);
-	    return ResponseEntity.ok().build();
+	public ResponseEntity<LoteResultadoDTO> adicionarMovimentacoes(@RequestBody List<MovimentacaoDTO> movimentacoes) {
+	    return ResponseEntity.ok(service.adicionarMovimentacoes(movimentacoes));
+	}
+	
+	//Importa um extrato bancário (CSV ou OFX) enviado como multipart, gravando as movimentações em lotes
+	//A resposta é NDJSON: um evento por linha recusada, um de progresso por lote gravado e um de conclusão no fim
+	@PostMapping(value = "/importar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+	public ResponseEntity<StreamingResponseBody> importar(
+			@RequestParam Long id,
+			@RequestParam MultipartFile arquivo,
+			@RequestParam(required = false) String formato,
+			@RequestParam(required = false) String charset) throws IOException {
+		LeitorExtrato leitor = importacaoService.abrir(id, formato, arquivo.getOriginalFilename(), charset, arquivo.getInputStream());
+		
+		StreamingResponseBody corpo = saida -> {
+			try (leitor) {
+				importacaoService.importar(id, leitor, saida);
+			}
+		};
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.body(corpo);
 	}
 	
 	//Deleta uma movimentação
@@ -46,17 +113,69 @@ public class MovimentacaoController {
 		return ResponseEntity.ok().build();
 	}
 	
-	//Busca as movimentações de cada usuário
+	//Deleta uma lista de movimentações do usuário em uma única transação, desfazendo o efeito delas no saldo de uma vez
+	//Retorna o resultado de cada id (apagado ou recusado com o motivo)
+	@DeleteMapping("/lote")
+	public ResponseEntity<LoteResultadoDTO> deletarMovimentacoes(
+			@RequestParam Long idUsuario,
+			@RequestBody List<Long> idsMovimentacoes){
+		return ResponseEntity.ok(service.deletarMovimentacoes(idUsuario, idsMovimentacoes));
+	}
+	
+	//Busca as movimentações de cada usuário, paginadas por cursor (o nextCursor da resposta é passado na próxima chamada)
 	@GetMapping
-	public ResponseEntity<List<MovimentacaoDTO>> buscarPorIdUsuario(@RequestParam Long id) {
-		return ResponseEntity.ok(service.buscarPorIdUsuario(id));
+	public ResponseEntity<PaginaMovimentacaoDTO> buscarPorIdUsuario(
+			@RequestParam Long id,
+			@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = "100") int tamanho,
+			WebRequest requisicao) {
+		if (this.naoModificado(requisicao, id, "pagina", cursor, tamanho)) {
+			return null;
+		}
+		return ResponseEntity.ok(service.buscarPorIdUsuario(id, cursor, tamanho));
+	}
+	
+	//Exporta todas as movimentações do usuário em CSV ou NDJSON (um JSON por linha), escrevendo a resposta enquanto lê do banco
+	//Se o cliente aceitar gzip (Accept-Encoding), a resposta vai comprimida
+	@GetMapping("/export")
+	public ResponseEntity<StreamingResponseBody> exportar(
+			@RequestParam Long id,
+			@RequestParam(defaultValue = "csv") String formato,
+			@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding){
+		ExportacaoService.Formato formatoExportacao = exportacaoService.validarExportacao(id, formato);
+		boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+		
+		StreamingResponseBody corpo = saida -> {
+			if (gzip) {
+				//O finish escreve o final do gzip sem fechar a saída do servidor
+				GZIPOutputStream saidaComprimida = new GZIPOutputStream(saida, 8192);
+				exportacaoService.exportar(id, formatoExportacao, saidaComprimida);
+				saidaComprimida.finish();
+			} else {
+				exportacaoService.exportar(id, formatoExportacao, saida);
+			}
+		};
+		
+		ResponseEntity.BodyBuilder resposta = ResponseEntity.ok()
+				.header(HttpHeaders.CONTENT_TYPE, formatoExportacao.getContentType())
+				.header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+						.filename("movimentacoes-" + id + "." + formatoExportacao.getExtensao()).build().toString())
+				.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		if (gzip) {
+			resposta.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+		}
+		return resposta.body(corpo);
 	}
 	
 	//Busca a movimentação do id passado do usuário passado
 	@GetMapping("/busca-por-id")
 	public ResponseEntity<MovimentacaoDTO> buscarPorId(
 			@RequestParam Long idMovimentacao, 
-			@RequestParam Long idUsuario){
+			@RequestParam Long idUsuario,
+			WebRequest requisicao){
+		if (this.naoModificado(requisicao, idUsuario, "busca-por-id", idMovimentacao)) {
+			return null;
+		}
 		return ResponseEntity.ok(service.buscarPorId(idMovimentacao, idUsuario));
 	}
 	
@@ -65,7 +184,11 @@ public class MovimentacaoController {
 	public ResponseEntity<List<MovimentacaoDTO>> buscarPorMes (
 			@RequestParam int mes,
 			@RequestParam int ano,
-			@RequestParam Long id){
+			@RequestParam Long id,
+			WebRequest requisicao){
+		if (this.naoModificado(requisicao, id, "busca-por-mes", mes, ano)) {
+			return null;
+		}
 		return ResponseEntity.ok(service.buscarPorMes(mes, ano, id));
 	}
 	
@@ -73,7 +196,11 @@ public class MovimentacaoController {
 	@GetMapping("/busca-por-ano")
 	public ResponseEntity<List<MovimentacaoDTO>> buscarPorAno (
 			@RequestParam int ano,
-			@RequestParam Long id){
+			@RequestParam Long id,
+			WebRequest requisicao){
+		if (this.naoModificado(requisicao, id, "busca-por-ano", ano)) {
+			return null;
+		}
 		return ResponseEntity.ok(service.buscarPorAno(ano, id));
 	}
 	
@@ -81,10 +208,33 @@ public class MovimentacaoController {
 	@GetMapping("/busca-por-categoria")
 	public ResponseEntity<List<MovimentacaoDTO>> buscarPorCategoria (
 			@RequestParam Long id,
-			@RequestParam Categoria categoria){
+			@RequestParam Categoria categoria,
+			WebRequest requisicao){
+		if (this.naoModificado(requisicao, id, "busca-por-categoria", categoria)) {
+			return null;
+		}
 		return ResponseEntity.ok(service.buscarPorCategoria(id, categoria));
 	}
 	
+	//Retorna os totais de crédito e débito do usuário agrupados por mês e por categoria, entre as datas passadas (aaaa-mm-dd)
+	@GetMapping("/resumo")
+	public ResponseEntity<List<ResumoMovimentacaoDTO>> resumir (
+			@RequestParam Long id,
+			@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+			@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim,
+			WebRequest requisicao){
+		if (this.naoModificado(requisicao, id, "resumo", inicio, fim)) {
+			return null;
+		}
+		return ResponseEntity.ok(service.resumir(id, inicio, fim));
+	}
+	
+	//Recalcula o resumo mensal de todos os usuários a partir das movimentações e retorna as divergências encontradas
+	@PostMapping("/resumo/reconstruir")
+	public ResponseEntity<ReconstrucaoResumoDTO> reconstruirResumo(){
+		return ResponseEntity.ok(resumoMensalService.reconstruir());
+	}
+	
 	//Busca as movimentações de cada usuário pelas datas especificadas na requisição
 	@GetMapping("/busca-personalizada")
 	public ResponseEntity<List<MovimentacaoDTO>> buscarPersonalizada (
@@ -94,8 +244,25 @@ public class MovimentacaoController {
 			@RequestParam int mesFim,
 			@RequestParam int diaIni,
 			@RequestParam int diaFim,
-			@RequestParam Long id){
+			@RequestParam Long id,
+			WebRequest requisicao){
+		if (this.naoModificado(requisicao, id, "busca-personalizada", anoIni, anoFim, mesIni, mesFim, diaIni, diaFim)) {
+			return null;
+		}
 		return ResponseEntity.ok(service.buscarPersonalizada(anoIni, anoFim, mesIni, mesFim, diaIni, diaFim, id));
 	}
 	
+	//Monta a ETag da busca com o usuário, a versão das movimentações dele e os parâmetros, e responde 304 se ela bater com o If-None-Match
+	//Só a versão é consultada: com 304 a busca das movimentações não roda. Usuário inexistente segue para a busca, que responde o erro
+	//A versão é lida antes da busca: se uma gravação acontecer no meio, a resposta leva os dados novos com a ETag antiga e o cliente só busca de novo na próxima vez
+	//O Accept entra na ETag: a mesma busca em JSON, CBOR, Smile ou Protobuf são representações diferentes
+	private boolean naoModificado(WebRequest requisicao, Long idUsuario, Object... parametros) {
+		Long versao = service.buscarVersao(idUsuario);
+		if (versao == null) {
+			return false;
+		}
+		String assinatura = Arrays.toString(parametros) + requisicao.getHeader(HttpHeaders.ACCEPT);
+		return requisicao.checkNotModified("\"" + idUsuario + "-" + versao + "-" + Integer.toHexString(assinatura.hashCode()) + "\"");
+	}
+	
 }
@@ -0,0 +1,28 @@
+package spring.boot.api.controleFin.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import spring.boot.api.controleFin.model.dto.TransferenciaDTO;
+import spring.boot.api.controleFin.model.services.MovimentacaoService;
+
+@RestController
+@RequestMapping("/controle-fin/transferencias")
+public class TransferenciaController {
+
+	@Autowired
+	MovimentacaoService service;
+	
+	//Transfere um valor entre dois usuários: grava o débito na origem e o crédito no destino e altera os dois saldos em uma única transação
+	//No lugar de duas chamadas ao POST /movimentacoes, que não são atômicas (o débito podia ficar gravado sem o crédito)
+	@PostMapping
+	public ResponseEntity<Void> transferir(@RequestBody TransferenciaDTO dto) {
+		service.transferir(dto);
+		return ResponseEntity.ok().build();
+	}
+	
+}
@@ -1,10 +1,13 @@
 package spring.boot.api.controleFin.controllers;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -12,6 +15,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 import spring.boot.api.controleFin.model.dto.UsuarioDTO;
@@ -31,17 +35,30 @@ public class UsuarioController {
 		return ResponseEntity.status(HttpStatus.OK).body(resultado);
 	}
 	
-	//Retorna uma lista dos usuários cadastrados
+	//Retorna uma página da lista dos usuários cadastrados (no máximo 100 por página)
 	@GetMapping
-	public ResponseEntity<List<UsuarioDTO>> getUsuario() {
-		List<UsuarioDTO> usuarios = service.getUsuarios();
+	public ResponseEntity<List<UsuarioDTO>> getUsuario(
+			@RequestParam(defaultValue = "0") int pagina,
+			@RequestParam(defaultValue = "20") int tamanho,
+			@RequestParam(defaultValue = "nome") String ordenarPor,
+			@RequestParam(defaultValue = "asc") String direcao) {
+		List<UsuarioDTO> usuarios = service.getUsuarios(pagina, tamanho, ordenarPor, direcao);
 		return ResponseEntity.ok(usuarios);
 	}
 	
-	//Retorna o saldo de um usuário específico
+	//Exporta todos os usuários cadastrados em um único JSON, escrito aos poucos na resposta
+	@GetMapping("/export")
+	public ResponseEntity<StreamingResponseBody> exportarUsuarios() {
+		StreamingResponseBody corpo = service::exportarUsuarios;
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(corpo);
+	}
+	
+	//Retorna o saldo de um usuário específico, ou o saldo no fim do dia passado em "data" (aaaa-mm-dd)
 	@GetMapping("/saldo")
-	public BigDecimal getSaldo(@RequestParam Long id) {
-		return service.getSaldo(id);
+	public BigDecimal getSaldo(
+			@RequestParam Long id,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate data) {
+		return data == null ? service.getSaldo(id) : service.getSaldo(id, data);
 	}
 	
 	
@@ -0,0 +1,37 @@
+package spring.boot.api.controleFin.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+//Evento da importação de extrato, enviado ao cliente como uma linha de NDJSON
+//"erro" traz a linha recusada e o motivo, "progresso" é enviado depois de cada lote gravado e "concluido" no fim do arquivo
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportacaoEventoDTO {
+
+	private String evento; // erro, progresso ou concluido
+	
+	private Long linha; // Linha do arquivo (só nos erros)
+	
+	private String motivo; // Motivo da recusa (só nos erros)
+	
+	private Long linhasLidas; // Movimentações lidas do arquivo até aqui
+	
+	private Long aceitas; // Movimentações gravadas até aqui
+	
+	private Long rejeitadas; // Movimentações recusadas até aqui
+	
+	public static ImportacaoEventoDTO erro(long linha, String motivo) {
+		return new ImportacaoEventoDTO("erro", linha, motivo, null, null, null);
+	}
+	
+	public static ImportacaoEventoDTO progresso(String evento, long linhasLidas, long aceitas, long rejeitadas) {
+		return new ImportacaoEventoDTO(evento, null, null, linhasLidas, aceitas, rejeitadas);
+	}
+	
+}
@@ -0,0 +1,18 @@
+package spring.boot.api.controleFin.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+public class ItemLoteDTO {
+
+	private int indice; // Posição da movimentação na lista recebida
+	
+	private boolean aceito; // Se a movimentação foi gravada ou não
+	
+	private String motivo; // Motivo da rejeição (nulo quando a movimentação foi aceita)
+	
+}
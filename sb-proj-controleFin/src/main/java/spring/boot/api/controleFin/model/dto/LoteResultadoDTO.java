@@ -0,0 +1,20 @@
+package spring.boot.api.controleFin.model.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+public class LoteResultadoDTO {
+
+	private int aceitas; // Quantidade de movimentações gravadas
+	
+	private int rejeitadas; // Quantidade de movimentações recusadas
+	
+	private List<ItemLoteDTO> itens; // Resultado de cada movimentação, na mesma ordem da requisição
+	
+}
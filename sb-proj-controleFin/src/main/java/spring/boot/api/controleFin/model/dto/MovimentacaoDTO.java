@@ -10,6 +10,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import spring.boot.api.controleFin.model.entities.Categoria;
+import spring.boot.api.controleFin.model.entities.TipoMovimentacao;
 
 
 @NoArgsConstructor
@@ -33,4 +34,8 @@ public class MovimentacaoDTO {
 	@NotNull
 	private Long idUsuario;
 	
+	public MovimentacaoDTO (TipoMovimentacao tipo, LocalDate data, BigDecimal valor, Categoria categoria, Long idUsuario) { //Construtor usado pelas consultas e pelo mapeamento da entidade
+		this(tipo == null ? null : tipo.getDescricao(), data, valor, categoria, idUsuario);
+	}
+	
 }
@@ -0,0 +1,27 @@
+package spring.boot.api.controleFin.model.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import spring.boot.api.controleFin.model.entities.Categoria;
+import spring.boot.api.controleFin.model.entities.TipoMovimentacao;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+public class MovimentacaoExportacaoDTO {
+
+	private Long id; // Id da movimentação
+	
+	private LocalDate data; // Data da movimentação
+	
+	private TipoMovimentacao tipoMovimentacao; // Tipo da movimentação (crédito ou débito)
+	
+	private Categoria categoria; // Categoria da movimentação
+	
+	private BigDecimal valor; // Valor da movimentação
+	
+}
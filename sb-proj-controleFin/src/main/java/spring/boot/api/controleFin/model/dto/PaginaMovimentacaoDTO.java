@@ -0,0 +1,18 @@
+package spring.boot.api.controleFin.model.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+public class PaginaMovimentacaoDTO {
+
+	private List<MovimentacaoDTO> movimentacoes; // Movimentações da página, ordenadas por data e id
+	
+	private String nextCursor; // Cursor para buscar a próxima página (nulo quando não houver mais movimentações)
+	
+}
@@ -0,0 +1,20 @@
+package spring.boot.api.controleFin.model.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+public class ReconstrucaoResumoDTO {
+
+	private int usuariosVerificados; // Quantidade de usuários recalculados
+	
+	private int linhasCorrigidas; // Quantidade de linhas do resumo que estavam diferentes das movimentações
+	
+	private List<Long> usuariosComDivergencia; // Usuários que tinham alguma linha diferente, em ordem de id
+	
+}
@@ -0,0 +1,25 @@
+package spring.boot.api.controleFin.model.dto;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import spring.boot.api.controleFin.model.entities.Categoria;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+public class ResumoMovimentacaoDTO {
+
+	private Integer ano; // Ano das movimentações somadas
+	
+	private Integer mes; // Mês das movimentações somadas
+	
+	private Categoria categoria; // Categoria das movimentações somadas
+	
+	private BigDecimal totalCreditos; // Soma das movimentações de crédito do mês e categoria
+	
+	private BigDecimal totalDebitos; // Soma das movimentações de débito do mês e categoria
+	
+}
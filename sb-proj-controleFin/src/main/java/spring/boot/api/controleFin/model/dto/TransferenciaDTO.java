@@ -0,0 +1,23 @@
+package spring.boot.api.controleFin.model.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+public class TransferenciaDTO {
+
+	private Long idOrigem; // Usuário que envia o valor (recebe o débito)
+	
+	private Long idDestino; // Usuário que recebe o valor (recebe o crédito)
+	
+	private BigDecimal valor; // Valor transferido
+	
+	private LocalDate data; // Data das duas movimentações; sem data, a transferência é de hoje
+	
+}
@@ -11,5 +11,6 @@ public enum Categoria {
 	SALARIO,
 	EXTRA,
 	SAUDE,
-	COMISSAO;
+	COMISSAO,
+	TRANSFERENCIA;
 }
@@ -0,0 +1,35 @@
+package spring.boot.api.controleFin.model.entities;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name="chaves_idempotencia")
+public class ChaveIdempotencia {
+
+	/*
+	 * Requisição já aplicada com uma Idempotency-Key.
+	 * A linha é gravada na mesma transação da movimentação, então só existe se a movimentação foi gravada.
+	 */
+	
+	@EmbeddedId
+	private ChaveIdempotenciaId id; // Usuário e chave
+	
+	@Column(length = 64)
+	private String hashRequisicao; // SHA-256 do corpo da requisição, para recusar a mesma chave com outro conteúdo
+	
+	private LocalDateTime criadoEm; // Quando a requisição foi aplicada (a chave expira a partir daqui)
+	
+}
@@ -0,0 +1,27 @@
+package spring.boot.api.controleFin.model.entities;
+
+import java.io.Serializable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@Embeddable
+public class ChaveIdempotenciaId implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	@Column(name = "usuario_id")
+	private Long usuarioId; // Usuário da requisição (a mesma chave pode ser usada por usuários diferentes)
+	
+	@Column(length = 100)
+	private String chave; // Valor do header Idempotency-Key
+	
+}
@@ -0,0 +1,23 @@
+package spring.boot.api.controleFin.model.entities;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import spring.boot.api.controleFin.config.GeradorIdsComReserva;
+
+//Id gerado a partir da tabela sequencias (linha "segmento"), reservado em blocos pelo pool de reserva de conexões (ver GeradorIdsComReserva)
+//Com os ids reservados em blocos os inserts entram nos lotes JDBC (hibernate.jdbc.batch_size), o que não acontece com IDENTITY
+@IdGeneratorType(GeradorIdsComReserva.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface IdEmBlocos {
+
+	String segmento(); // Valor da coluna nome na tabela sequencias
+
+	int tamanhoBloco() default 50; // Ids reservados por leitura da tabela, o mesmo tamanho do lote JDBC
+
+}
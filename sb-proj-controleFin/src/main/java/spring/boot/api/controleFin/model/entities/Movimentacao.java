@@ -7,8 +7,7 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -33,14 +32,16 @@ public class Movimentacao {
 	 */
 	
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@IdEmBlocos(segmento = "movimentacoes")
 	private Long id; // id da movimentaçao
 	
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	private Usuario usuario; // O usuário que pertence a esta movimentação (1 usuário pode ter várias movimentações e uma movimentação pertence a 1 usuário)
 	
-	private String tipoMovimentacao; // Tipo da movimentação (crédito ou débito)
+	@Column(name = "tipo", length = 1)
+	private TipoMovimentacao tipoMovimentacao; // Tipo da movimentação (crédito ou débito), gravado como 'C' ou 'D'
 	
+	@Column(precision = 15, scale = 2)
 	private BigDecimal valor; // Valor da movimentação
 	
 	private LocalDate data; // Data da movimentação
@@ -0,0 +1,39 @@
+package spring.boot.api.controleFin.model.entities;
+
+import java.math.BigDecimal;
+
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name="resumo_mensal")
+public class ResumoMensal {
+
+	/*
+	 * Totais das movimentações de um usuário por mês, categoria e tipo.
+	 * É mantido junto com cada inclusão e exclusão de movimentação, para que os resumos não precisem varrer o histórico.
+	 */
+	
+	@EmbeddedId
+	private ResumoMensalId id; // Usuário, ano, mês, categoria e tipo
+	
+	private BigDecimal total; // Soma dos valores das movimentações
+	
+	private Long quantidade; // Quantidade de movimentações somadas
+	
+	public ResumoMensal (Long usuarioId, Integer ano, Integer mes, Categoria categoria, TipoMovimentacao tipo, BigDecimal total, Long quantidade) { //Construtor usado pelas consultas que recalculam o resumo a partir das movimentações
+		this.id = new ResumoMensalId(usuarioId, ano, mes, categoria, tipo);
+		this.total = total;
+		this.quantidade = quantidade;
+	}
+	
+}
@@ -0,0 +1,36 @@
+package spring.boot.api.controleFin.model.entities;
+
+import java.io.Serializable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@Embeddable
+public class ResumoMensalId implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	@Column(name = "usuario_id")
+	private Long usuarioId; // Usuário dono das movimentações somadas
+	
+	private Integer ano; // Ano das movimentações somadas
+	
+	private Integer mes; // Mês das movimentações somadas
+	
+	@Enumerated(EnumType.STRING)
+	private Categoria categoria; // Categoria das movimentações somadas
+	
+	@Column(length = 1)
+	private TipoMovimentacao tipo; // Tipo das movimentações somadas
+	
+}
@@ -0,0 +1,33 @@
+package spring.boot.api.controleFin.model.entities;
+
+import java.math.BigDecimal;
+
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name="saldo_mensal")
+public class SaldoMensal {
+
+	/*
+	 * Checkpoint do saldo de um usuário no fim de um mês que teve movimentação.
+	 * Só existe linha para os meses com movimentação, então o saldo de qualquer data sai de um checkpoint mais as movimentações de no máximo um mês.
+	 */
+	
+	@EmbeddedId
+	private SaldoMensalId id; // Usuário, ano e mês
+	
+	private BigDecimal saldo; // Saldo no último dia do mês
+	
+	private BigDecimal movimento; // Créditos menos débitos do mês (saldo - movimento é o saldo no início do mês)
+	
+}
@@ -0,0 +1,28 @@
+package spring.boot.api.controleFin.model.entities;
+
+import java.io.Serializable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@Embeddable
+public class SaldoMensalId implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	@Column(name = "usuario_id")
+	private Long usuarioId; // Usuário do checkpoint
+	
+	private Integer ano; // Ano do checkpoint
+	
+	private Integer mes; // Mês do checkpoint
+	
+}
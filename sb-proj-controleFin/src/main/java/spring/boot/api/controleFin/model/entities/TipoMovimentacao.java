@@ -0,0 +1,55 @@
+package spring.boot.api.controleFin.model.entities;
+
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+public enum TipoMovimentacao {
+	CREDITO('C', "credito"),
+	DEBITO('D', "debito");
+
+	private final char codigo; // Valor gravado na coluna tipo (CHAR(1))
+
+	private final String descricao; // Como o tipo aparece na API
+
+	TipoMovimentacao(char codigo, String descricao) {
+		this.codigo = codigo;
+		this.descricao = descricao;
+	}
+
+	public char getCodigo() {
+		return codigo;
+	}
+
+	@JsonValue
+	public String getDescricao() {
+		return descricao;
+	}
+
+	//Efeito da movimentação no saldo: o valor para crédito e o valor negativo para débito
+	public BigDecimal efeito(BigDecimal valor) {
+		return this == DEBITO ? valor.negate() : valor;
+	}
+
+	//Converte o tipo recebido na API, sem diferenciar maiúsculas e minúsculas ("credito", "Debito"...), ou retorna null se não for válido
+	public static TipoMovimentacao de(String texto) {
+		if (CREDITO.descricao.equalsIgnoreCase(texto)) {
+			return CREDITO;
+		}
+		if (DEBITO.descricao.equalsIgnoreCase(texto)) {
+			return DEBITO;
+		}
+		return null;
+	}
+
+	public static TipoMovimentacao doCodigo(char codigo) {
+		switch (codigo) {
+		    case 'C':
+		        return CREDITO;
+		    case 'D':
+		        return DEBITO;
+		    default:
+		        throw new IllegalArgumentException("Código de tipo de movimentação desconhecido: " + codigo);
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package spring.boot.api.controleFin.model.entities;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+//Grava o TipoMovimentacao como um caractere ('C' ou 'D') em todas as entidades
+@Converter(autoApply = true)
+public class TipoMovimentacaoConverter implements AttributeConverter<TipoMovimentacao, Character> {
+
+	@Override
+	public Character convertToDatabaseColumn(TipoMovimentacao tipo) {
+		return tipo == null ? null : tipo.getCodigo();
+	}
+
+	@Override
+	public TipoMovimentacao convertToEntityAttribute(Character codigo) {
+		return codigo == null ? null : TipoMovimentacao.doCodigo(codigo);
+	}
+
+}
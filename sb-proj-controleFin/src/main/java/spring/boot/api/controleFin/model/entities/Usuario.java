@@ -6,8 +6,6 @@ import java.util.List;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
@@ -33,7 +31,7 @@ public class Usuario {
 	 */
 	
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@IdEmBlocos(segmento = "usuarios")
 	private Long id; //id do usuário
 	
 	@Column(length = 50)
@@ -42,11 +40,18 @@ public class Usuario {
 	@Column(length = 11, unique = true)
 	private String doc; //documento do usuário
 	
-	@OneToMany(mappedBy = "usuario", fetch = FetchType.EAGER)
-	private List<Movimentacao> movimentacoes; //Lista de movimentações (1 usuário pode ter mais de uma movimentação)
+	@OneToMany(mappedBy = "usuario", fetch = FetchType.LAZY)
+	private List<Movimentacao> movimentacoes; //Lista de movimentações (1 usuário pode ter mais de uma movimentação). Carregada só sob demanda, as buscas são feitas pelo MovimentacaoRepository
 	
 	private BigDecimal saldo; //Saldo do usuário
 	
+	@Column(nullable = false)
+	private long versao; //Versão das movimentações do usuário, incrementada a cada inclusão ou exclusão (usada na ETag das buscas)
+	
+	public Usuario (Long id, String nome, String doc, List<Movimentacao> movimentacoes, BigDecimal saldo) { //Construtor com todos os campos menos a versão, que começa em 0
+		this(id, nome, doc, movimentacoes, saldo, 0L);
+	}
+	
 	public Usuario (String nome, String doc, BigDecimal saldo) { //Construtor que recebe o nome, documento e saldo do DTO
 		this.nome = nome;
 		this.doc = doc;
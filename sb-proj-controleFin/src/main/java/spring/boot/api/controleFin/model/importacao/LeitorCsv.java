@@ -0,0 +1,173 @@
+package spring.boot.api.controleFin.model.importacao;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import spring.boot.api.controleFin.model.entities.Categoria;
+
+//Lê um extrato em CSV linha a linha
+//A primeira linha é o cabeçalho: data, descricao e valor são obrigatórias, tipo e categoria são opcionais, em qualquer ordem
+//O separador (vírgula ou ponto e vírgula) é o que aparecer no cabeçalho
+public class LeitorCsv implements LeitorExtrato {
+
+	private static final DateTimeFormatter DATA_BRASILEIRA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+	private final BufferedReader leitor;
+	private final char separador;
+	private long numeroLinha = 1;
+
+	private int colunaData = -1;
+	private int colunaDescricao = -1;
+	private int colunaValor = -1;
+	private int colunaTipo = -1;
+	private int colunaCategoria = -1;
+
+	public LeitorCsv(Reader reader) throws IOException {
+		this.leitor = new BufferedReader(reader);
+		String cabecalho = leitor.readLine();
+		if (cabecalho == null) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "O arquivo está vazio!");
+		}
+		if (!cabecalho.isEmpty() && cabecalho.charAt(0) == '\uFEFF') { //BOM que alguns bancos colocam no início do arquivo
+			cabecalho = cabecalho.substring(1);
+		}
+		this.separador = cabecalho.indexOf(';') >= 0 ? ';' : ',';
+
+		List<String> colunas = separar(cabecalho);
+		for (int i = 0; i < colunas.size(); i++) {
+			switch (colunas.get(i).trim().toLowerCase(Locale.ROOT)) {
+			    case "data" -> colunaData = i;
+			    case "descricao", "descrição", "historico", "histórico" -> colunaDescricao = i;
+			    case "valor" -> colunaValor = i;
+			    case "tipo" -> colunaTipo = i;
+			    case "categoria" -> colunaCategoria = i;
+			    default -> { } //Colunas extras do banco (saldo, documento...) são ignoradas
+			}
+		}
+		if (colunaData < 0 || colunaDescricao < 0 || colunaValor < 0) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "O CSV precisa das colunas data, descricao e valor no cabeçalho!");
+		}
+	}
+
+	@Override
+	public LinhaExtrato proxima() throws IOException {
+		String texto;
+		do {
+			texto = leitor.readLine();
+			numeroLinha++;
+			if (texto == null) {
+				return null;
+			}
+		} while (texto.isBlank());
+
+		List<String> campos = separar(texto);
+		if (campos.size() <= Math.max(colunaData, Math.max(colunaDescricao, colunaValor))) {
+			return LinhaExtrato.comErro(numeroLinha, "Quantidade de colunas menor que a do cabeçalho");
+		}
+
+		LocalDate data;
+		try {
+			data = lerData(campos.get(colunaData).trim());
+		} catch (DateTimeParseException e) {
+			return LinhaExtrato.comErro(numeroLinha, "Data inválida: " + campos.get(colunaData));
+		}
+
+		BigDecimal valor;
+		try {
+			valor = lerValor(campos.get(colunaValor));
+		} catch (NumberFormatException e) {
+			return LinhaExtrato.comErro(numeroLinha, "Valor inválido: " + campos.get(colunaValor));
+		}
+
+		Categoria categoria = null;
+		String textoCategoria = campo(campos, colunaCategoria);
+		if (!textoCategoria.isEmpty()) {
+			try {
+				categoria = Categoria.valueOf(textoCategoria.toUpperCase(Locale.ROOT));
+			} catch (IllegalArgumentException e) {
+				return LinhaExtrato.comErro(numeroLinha, "Categoria inválida: " + textoCategoria);
+			}
+		}
+
+		//Com a coluna tipo o valor vale sem sinal, sem ela o sinal do valor decide
+		String tipo = campo(campos, colunaTipo).toLowerCase(Locale.ROOT);
+		switch (tipo) {
+		    case "":
+		        break;
+		    case "credito", "crédito", "c":
+		        valor = valor.abs();
+		        break;
+		    case "debito", "débito", "d":
+		        valor = valor.abs().negate();
+		        break;
+		    default:
+		        return LinhaExtrato.comErro(numeroLinha, "Tipo de movimentação inválido: " + tipo);
+		}
+
+		return LinhaExtrato.peloSinal(numeroLinha, data, valor, campos.get(colunaDescricao).trim(), categoria);
+	}
+
+	@Override
+	public void close() throws IOException {
+		leitor.close();
+	}
+
+	private String campo(List<String> campos, int coluna) {
+		return coluna < 0 || coluna >= campos.size() ? "" : campos.get(coluna).trim();
+	}
+
+	//Aceita 2024-04-20 e 20/04/2024
+	private LocalDate lerData(String texto) {
+		return texto.indexOf('/') >= 0 ? LocalDate.parse(texto, DATA_BRASILEIRA) : LocalDate.parse(texto);
+	}
+
+	//Aceita "1234.56", "-1.234,56" e "R$ 10,00": com vírgula, ela é o separador decimal e os pontos são de milhar
+	static BigDecimal lerValor(String texto) {
+		String valor = texto.replace("R$", "").replace(" ", "").trim();
+		if (valor.indexOf(',') >= 0) {
+			valor = valor.replace(".", "").replace(',', '.');
+		}
+		return new BigDecimal(valor);
+	}
+
+	//Separa os campos da linha, respeitando aspas (um campo entre aspas pode ter o separador, e "" dentro dele é uma aspa)
+	private List<String> separar(String linha) {
+		List<String> campos = new ArrayList<>();
+		StringBuilder campo = new StringBuilder();
+		boolean entreAspas = false;
+		for (int i = 0; i < linha.length(); i++) {
+			char c = linha.charAt(i);
+			if (entreAspas) {
+				if (c == '"' && i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+					campo.append('"');
+					i++;
+				} else if (c == '"') {
+					entreAspas = false;
+				} else {
+					campo.append(c);
+				}
+			} else if (c == '"') {
+				entreAspas = true;
+			} else if (c == separador) {
+				campos.add(campo.toString());
+				campo.setLength(0);
+			} else {
+				campo.append(c);
+			}
+		}
+		campos.add(campo.toString());
+		return campos;
+	}
+
+}
@@ -0,0 +1,12 @@
+package spring.boot.api.controleFin.model.importacao;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+//Leitura incremental de um extrato bancário: cada chamada lê do arquivo só o necessário para a próxima movimentação
+public interface LeitorExtrato extends Closeable {
+
+	//Retorna a próxima movimentação do extrato (ou o erro da linha), ou null quando o arquivo termina
+	LinhaExtrato proxima() throws IOException;
+
+}
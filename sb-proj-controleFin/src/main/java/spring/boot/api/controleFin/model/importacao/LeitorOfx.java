@@ -0,0 +1,126 @@
+package spring.boot.api.controleFin.model.importacao;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+//Lê as transações (<STMTTRN>) de um extrato OFX, tag por tag
+//Funciona com o OFX 1.x (SGML, tags sem fechamento e às vezes tudo numa linha só) e com o OFX 2.x (XML)
+//O cabeçalho e as outras tags do arquivo (conta, saldo...) são ignorados
+public class LeitorOfx implements LeitorExtrato {
+
+	//Limite do texto de uma tag, para um arquivo malformado não encher a memória
+	private static final int TAMANHO_MAXIMO_TEXTO = 1024;
+
+	private final BufferedReader leitor;
+	private long numeroLinha = 1;
+
+	public LeitorOfx(Reader reader) {
+		this.leitor = new BufferedReader(reader);
+	}
+
+	@Override
+	public LinhaExtrato proxima() throws IOException {
+		Map<String, String> campos = null;
+		long linhaInicio = 0;
+		String tag;
+		while ((tag = proximaTag()) != null) {
+			if (tag.equals("STMTTRN")) {
+				campos = new HashMap<>();
+				linhaInicio = numeroLinha;
+			} else if (tag.equals("/STMTTRN") && campos != null) {
+				return montar(linhaInicio, campos);
+			} else if (campos != null && !tag.startsWith("/")) {
+				campos.put(tag, textoAteProximaTag());
+			}
+		}
+		return campos == null ? null : LinhaExtrato.comErro(linhaInicio, "Transação sem o fechamento </STMTTRN>");
+	}
+
+	@Override
+	public void close() throws IOException {
+		leitor.close();
+	}
+
+	private LinhaExtrato montar(long linha, Map<String, String> campos) {
+		String textoData = campos.get("DTPOSTED");
+		String textoValor = campos.get("TRNAMT");
+		if (textoData == null || textoValor == null) {
+			return LinhaExtrato.comErro(linha, "Transação sem DTPOSTED ou TRNAMT");
+		}
+
+		//DTPOSTED vem como AAAAMMDD seguido opcionalmente de hora e fuso (20240420120000[-3:BRT]), só a data interessa
+		LocalDate data;
+		try {
+			data = LocalDate.parse(textoData.substring(0, Math.min(8, textoData.length())), DateTimeFormatter.BASIC_ISO_DATE);
+		} catch (DateTimeParseException e) {
+			return LinhaExtrato.comErro(linha, "Data inválida: " + textoData);
+		}
+
+		BigDecimal valor;
+		try {
+			valor = LeitorCsv.lerValor(textoValor);
+		} catch (NumberFormatException e) {
+			return LinhaExtrato.comErro(linha, "Valor inválido: " + textoValor);
+		}
+
+		String descricao = campos.getOrDefault("MEMO", campos.getOrDefault("NAME", ""));
+		return LinhaExtrato.peloSinal(linha, data, valor, descricao, null);
+	}
+
+	//Avança até o próximo "<" e retorna o nome da tag em maiúsculas ("/NOME" para fechamento), ou null no fim do arquivo
+	private String proximaTag() throws IOException {
+		int c;
+		while ((c = ler()) != '<') {
+			if (c < 0) {
+				return null;
+			}
+		}
+		StringBuilder nome = new StringBuilder();
+		while ((c = ler()) != '>') {
+			if (c < 0) {
+				return null;
+			}
+			if (nome.length() < TAMANHO_MAXIMO_TEXTO) {
+				nome.append((char) c);
+			}
+		}
+		return nome.toString().trim().toUpperCase(Locale.ROOT);
+	}
+
+	//Lê o texto da tag até o próximo "<", sem consumi-lo
+	private String textoAteProximaTag() throws IOException {
+		StringBuilder texto = new StringBuilder();
+		while (true) {
+			leitor.mark(1);
+			int c = ler();
+			if (c < 0) {
+				break;
+			}
+			if (c == '<') {
+				leitor.reset();
+				break;
+			}
+			if (texto.length() < TAMANHO_MAXIMO_TEXTO) {
+				texto.append((char) c);
+			}
+		}
+		return texto.toString().trim();
+	}
+
+	private int ler() throws IOException {
+		int c = leitor.read();
+		if (c == '\n') {
+			numeroLinha++;
+		}
+		return c;
+	}
+
+}
@@ -0,0 +1,37 @@
+package spring.boot.api.controleFin.model.importacao;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import spring.boot.api.controleFin.model.entities.Categoria;
+
+@AllArgsConstructor
+@Getter
+public class LinhaExtrato {
+
+	private long linha; // Linha do arquivo onde a movimentação começa
+	
+	private LocalDate data; // Data da movimentação
+	
+	private String tipoMovimentacao; // "credito" ou "debito", pelo sinal do valor ou pela coluna tipo
+	
+	private BigDecimal valor; // Valor sem sinal
+	
+	private String descricao; // Descrição do banco, usada nas regras de categoria
+	
+	private Categoria categoria; // Categoria informada no próprio arquivo (nula quando vem das regras)
+	
+	private String erro; // Motivo quando a linha não pôde ser lida (os outros campos ficam nulos)
+	
+	public static LinhaExtrato comErro(long linha, String erro) {
+		return new LinhaExtrato(linha, null, null, null, null, null, erro);
+	}
+	
+	//Monta a linha a partir do valor com sinal: negativo é débito, zero ou positivo é crédito
+	public static LinhaExtrato peloSinal(long linha, LocalDate data, BigDecimal valor, String descricao, Categoria categoria) {
+		return new LinhaExtrato(linha, data, valor.signum() < 0 ? "debito" : "credito", valor.abs(), descricao, categoria, null);
+	}
+	
+}
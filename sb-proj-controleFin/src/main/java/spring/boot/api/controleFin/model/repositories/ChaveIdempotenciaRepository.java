@@ -0,0 +1,28 @@
+package spring.boot.api.controleFin.model.repositories;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import spring.boot.api.controleFin.model.entities.ChaveIdempotencia;
+import spring.boot.api.controleFin.model.entities.ChaveIdempotenciaId;
+
+public interface ChaveIdempotenciaRepository extends JpaRepository<ChaveIdempotencia, ChaveIdempotenciaId> {
+
+	//INSERT direto, executado na hora (o save faria um SELECT antes e só inseriria no flush do commit)
+	//Se outra transação já inseriu a mesma chave e ainda não terminou, o banco segura este INSERT até ela terminar:
+	//depois do commit dela ele falha com chave duplicada, depois de um rollback ele grava normalmente
+	@Modifying
+	@Query(value = "insert into chaves_idempotencia (usuario_id, chave, hash_requisicao, criado_em) "
+			+ "values (:idUsuario, :chave, :hash, :criadoEm)", nativeQuery = true)
+	public int inserir(@Param("idUsuario") Long idUsuario, @Param("chave") String chave, @Param("hash") String hash, @Param("criadoEm") LocalDateTime criadoEm);
+	
+	//Apaga as chaves criadas antes do limite, usando o índice de criado_em
+	@Modifying
+	@Query("delete from ChaveIdempotencia c where c.criadoEm < :limite")
+	public int apagarCriadasAntes(@Param("limite") LocalDateTime limite);
+	
+}
@@ -1,23 +1,89 @@
 package spring.boot.api.controleFin.model.repositories;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import jakarta.persistence.QueryHint;
+import spring.boot.api.controleFin.model.dto.MovimentacaoDTO;
+import spring.boot.api.controleFin.model.dto.MovimentacaoExportacaoDTO;
+import spring.boot.api.controleFin.model.dto.ResumoMovimentacaoDTO;
 import spring.boot.api.controleFin.model.entities.Categoria;
 import spring.boot.api.controleFin.model.entities.Movimentacao;
 
 public interface MovimentacaoRepository extends JpaRepository<Movimentacao, Long> {
 
+	//Início das queries que já retornam o DTO: o id do usuário vem da coluna usuario_id, sem join e sem carregar entidades
+	String SELECT_DTO = "select new spring.boot.api.controleFin.model.dto.MovimentacaoDTO("
+			+ "m.tipoMovimentacao, m.data, m.valor, m.categoria, m.usuario.id) from Movimentacao m ";
+
 	//Query de busca por usuário entre uma data inicial e uma data final
-	public List<Movimentacao> findByUsuarioIdAndDataBetween(Long idUsuario, LocalDate inicio, LocalDate fim);
+	@Query(SELECT_DTO + "where m.usuario.id = :idUsuario and m.data between :inicio and :fim order by m.data, m.id")
+	public List<MovimentacaoDTO> listarPorUsuarioEPeriodo(@Param("idUsuario") Long idUsuario, @Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+	
+	//Query de busca por usuário e pela categoria
+	@Query(SELECT_DTO + "where m.usuario.id = :idUsuario and m.categoria = :categoria order by m.data, m.id")
+	public List<MovimentacaoDTO> listarPorUsuarioECategoria(@Param("idUsuario") Long idUsuario, @Param("categoria") Categoria categoria);
+	
+	//Query de busca por usuário e movimentação expecífica, já como DTO
+	@Query(SELECT_DTO + "where m.id = :idMovimentacao and m.usuario.id = :idUsuario")
+	public Optional<MovimentacaoDTO> buscarPorIdEUsuario(@Param("idMovimentacao") Long idMovimentacao, @Param("idUsuario") Long idUsuario);
+	
+	//Tipos usados nas queries (a coluna guarda 'C' e 'D', o conversor do TipoMovimentacao traduz as constantes)
+	String CREDITO = "spring.boot.api.controleFin.model.entities.TipoMovimentacao.CREDITO";
+	String DEBITO = "spring.boot.api.controleFin.model.entities.TipoMovimentacao.DEBITO";
+
+	//Query que soma créditos e débitos do usuário por mês e categoria dentro do período, em um único GROUP BY
+	@Query("select new spring.boot.api.controleFin.model.dto.ResumoMovimentacaoDTO("
+			+ "year(m.data), month(m.data), m.categoria, "
+			+ "sum(case when m.tipoMovimentacao = " + CREDITO + " then m.valor else 0 end), "
+			+ "sum(case when m.tipoMovimentacao = " + DEBITO + " then m.valor else 0 end)) "
+			+ "from Movimentacao m where m.usuario.id = :idUsuario and m.data between :inicio and :fim "
+			+ "group by year(m.data), month(m.data), m.categoria "
+			+ "order by year(m.data), month(m.data), m.categoria")
+	public List<ResumoMovimentacaoDTO> resumirPorMesECategoria(@Param("idUsuario") Long idUsuario, @Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+	
+	//Query que soma o efeito no saldo (créditos menos débitos) das movimentações do usuário entre as datas, usando o índice (usuario_id, data, id)
+	@Query("select coalesce(sum(case when m.tipoMovimentacao = " + CREDITO + " then m.valor else -m.valor end), 0) "
+			+ "from Movimentacao m where m.usuario.id = :idUsuario and m.data between :inicio and :fim")
+	public BigDecimal somarEfeitoNoPeriodo(@Param("idUsuario") Long idUsuario, @Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+	
+	//Query que busca só o que é preciso para desfazer o efeito das movimentações do usuário (saldo, resumo mensal e checkpoints), sem carregar entidades
+	@Query("select new spring.boot.api.controleFin.model.dto.MovimentacaoExportacaoDTO(m.id, m.data, m.tipoMovimentacao, m.categoria, m.valor) "
+			+ "from Movimentacao m where m.usuario.id = :idUsuario and m.id in :ids")
+	public List<MovimentacaoExportacaoDTO> buscarParaRemocao(@Param("idUsuario") Long idUsuario, @Param("ids") Collection<Long> ids);
+	
+	//Deleta direto no banco as movimentações do usuário, em um único DELETE (retorna quantas linhas foram apagadas)
+	@Modifying
+	@Query("delete from Movimentacao m where m.usuario.id = :idUsuario and m.id in :ids")
+	public int removerPorUsuario(@Param("idUsuario") Long idUsuario, @Param("ids") Collection<Long> ids);
+	
+	//Query da primeira página de movimentações do usuário, ordenadas por data e id (paginação por cursor)
+	@Query("select m from Movimentacao m where m.usuario.id = :idUsuario order by m.data, m.id")
+	public List<Movimentacao> buscarPrimeiraPagina(@Param("idUsuario") Long idUsuario, Limit limite);
 	
-	//Query de usca por usuário e pela categoria
-	public List<Movimentacao> findByUsuarioIdAndCategoria(Long idUsuario, Categoria categoria);
+	//Query das páginas seguintes: continua a partir da última (data, id) retornada, sem OFFSET
+	//O "m.data >= :data" é redundante na lógica, mas deixa a condição em forma de intervalo para o índice (usuario_id, data, id)
+	@Query("select m from Movimentacao m where m.usuario.id = :idUsuario "
+			+ "and m.data >= :data and (m.data > :data or m.id > :id) order by m.data, m.id")
+	public List<Movimentacao> buscarPaginaApos(@Param("idUsuario") Long idUsuario, @Param("data") LocalDate data, @Param("id") Long id, Limit limite);
 	
-	//Query de busca por usuário e movimentação expecífica
-	public Optional<Movimentacao> findByIdAndUsuarioId(Long idMovimentacao, Long idUsuario);
+	//Query da exportação: todas as movimentações do usuário em ordem de data, lidas do banco aos poucos (fetch size) e sem entidades gerenciadas
+	//O Stream precisa ser consumido e fechado dentro da transação
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+	@Query("select new spring.boot.api.controleFin.model.dto.MovimentacaoExportacaoDTO(m.id, m.data, m.tipoMovimentacao, m.categoria, m.valor) "
+			+ "from Movimentacao m where m.usuario.id = :idUsuario order by m.data, m.id")
+	public Stream<MovimentacaoExportacaoDTO> exportarPorUsuario(@Param("idUsuario") Long idUsuario);
 	
 }
@@ -0,0 +1,45 @@
+package spring.boot.api.controleFin.model.repositories;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import spring.boot.api.controleFin.model.dto.ResumoMovimentacaoDTO;
+import spring.boot.api.controleFin.model.entities.ResumoMensal;
+import spring.boot.api.controleFin.model.entities.ResumoMensalId;
+
+public interface ResumoMensalRepository extends JpaRepository<ResumoMensal, ResumoMensalId> {
+
+	//Soma o valor e a quantidade na linha do resumo (retorna 0 quando a linha ainda não existe)
+	@Modifying
+	@Query("update ResumoMensal r set r.total = r.total + :valor, r.quantidade = r.quantidade + :quantidade where r.id = :id")
+	public int somar(@Param("id") ResumoMensalId id, @Param("valor") BigDecimal valor, @Param("quantidade") long quantidade);
+	
+	//Query do resumo por mês e categoria a partir do resumo mensal, entre dois meses (ano * 100 + mês) inteiros
+	@Query("select new spring.boot.api.controleFin.model.dto.ResumoMovimentacaoDTO("
+			+ "r.id.ano, r.id.mes, r.id.categoria, "
+			+ "sum(case when r.id.tipo = " + MovimentacaoRepository.CREDITO + " then r.total else 0 end), "
+			+ "sum(case when r.id.tipo = " + MovimentacaoRepository.DEBITO + " then r.total else 0 end)) "
+			+ "from ResumoMensal r where r.id.usuarioId = :idUsuario and r.quantidade > 0 "
+			+ "and r.id.ano * 100 + r.id.mes between :mesInicial and :mesFinal "
+			+ "group by r.id.ano, r.id.mes, r.id.categoria "
+			+ "order by r.id.ano, r.id.mes, r.id.categoria")
+	public List<ResumoMovimentacaoDTO> resumirPorMesECategoria(@Param("idUsuario") Long idUsuario, @Param("mesInicial") int mesInicial, @Param("mesFinal") int mesFinal);
+	
+	//Query que recalcula o resumo dos usuários passados direto das movimentações (usada pela reconstrução)
+	@Query("select new spring.boot.api.controleFin.model.entities.ResumoMensal("
+			+ "m.usuario.id, year(m.data), month(m.data), m.categoria, m.tipoMovimentacao, sum(m.valor), count(m)) "
+			+ "from Movimentacao m where m.usuario.id in :ids and m.data is not null and m.categoria is not null and m.tipoMovimentacao is not null "
+			+ "group by m.usuario.id, year(m.data), month(m.data), m.categoria, m.tipoMovimentacao")
+	public List<ResumoMensal> calcularPelasMovimentacoes(@Param("ids") Collection<Long> ids);
+	
+	//Query das linhas atuais do resumo dos usuários passados
+	@Query("select r from ResumoMensal r where r.id.usuarioId in :ids")
+	public List<ResumoMensal> buscarPorUsuarios(@Param("ids") Collection<Long> ids);
+	
+}
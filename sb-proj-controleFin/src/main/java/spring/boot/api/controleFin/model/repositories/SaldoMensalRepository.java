@@ -0,0 +1,39 @@
+package spring.boot.api.controleFin.model.repositories;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import spring.boot.api.controleFin.model.entities.SaldoMensal;
+import spring.boot.api.controleFin.model.entities.SaldoMensalId;
+
+public interface SaldoMensalRepository extends JpaRepository<SaldoMensal, SaldoMensalId> {
+
+	//Soma o valor no saldo e no movimento do checkpoint do mês (retorna 0 quando o mês ainda não tem checkpoint)
+	@Modifying
+	@Query("update SaldoMensal s set s.saldo = s.saldo + :valor, s.movimento = s.movimento + :valor where s.id = :id")
+	public int somarNoMes(@Param("id") SaldoMensalId id, @Param("valor") BigDecimal valor);
+	
+	//Soma o valor no saldo dos checkpoints depois do mês passado (ano * 100 + mês), que também incluem a movimentação
+	@Modifying
+	@Query("update SaldoMensal s set s.saldo = s.saldo + :valor where s.id.usuarioId = :idUsuario and s.id.ano * 100 + s.id.mes > :mes")
+	public int somarNosMesesSeguintes(@Param("idUsuario") Long idUsuario, @Param("mes") int mes, @Param("valor") BigDecimal valor);
+	
+	//Soma o movimento dos checkpoints depois do mês passado (ano * 100 + mês)
+	@Query("select coalesce(sum(s.movimento), 0) from SaldoMensal s where s.id.usuarioId = :idUsuario and s.id.ano * 100 + s.id.mes > :mes")
+	public BigDecimal somarMovimentoApos(@Param("idUsuario") Long idUsuario, @Param("mes") int mes);
+	
+	//Último checkpoint até o mês passado (ano * 100 + mês), inclusive
+	@Query("select s from SaldoMensal s where s.id.usuarioId = :idUsuario and s.id.ano * 100 + s.id.mes <= :mes order by s.id.ano desc, s.id.mes desc")
+	public List<SaldoMensal> buscarUltimoAte(@Param("idUsuario") Long idUsuario, @Param("mes") int mes, Limit limite);
+	
+	//Primeiro checkpoint depois do mês passado (ano * 100 + mês)
+	@Query("select s from SaldoMensal s where s.id.usuarioId = :idUsuario and s.id.ano * 100 + s.id.mes > :mes order by s.id.ano, s.id.mes")
+	public List<SaldoMensal> buscarPrimeiroApos(@Param("idUsuario") Long idUsuario, @Param("mes") int mes, Limit limite);
+	
+}
@@ -1,7 +1,24 @@
 package spring.boot.api.controleFin.model.repositories;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import spring.boot.api.controleFin.model.dto.UsuarioDTO;
 import spring.boot.api.controleFin.model.entities.Usuario;
 
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
@@ -9,4 +26,41 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
 	// Query de busca para retornar um true ou false se existe ou não um dacumento na base de dados
 	boolean existsByDoc(String documento);
 
+	// Query que lista apenas nome, documento e saldo dos usuários já como DTO, uma página por vez (Slice não executa o count)
+	@Query("select new spring.boot.api.controleFin.model.dto.UsuarioDTO(u.nome, u.doc, u.saldo) from Usuario u")
+	Slice<UsuarioDTO> listarUsuarios(Pageable pageable);
+
+	// Mesma projeção da listagem, lida aos poucos do banco para a exportação completa
+	@QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"))
+	@Query("select new spring.boot.api.controleFin.model.dto.UsuarioDTO(u.nome, u.doc, u.saldo) from Usuario u order by u.id")
+	Stream<UsuarioDTO> exportarUsuarios();
+
+	// Query que busca apenas o saldo do usuário, sem carregar a entidade
+	@Query("select u.saldo from Usuario u where u.id = :id")
+	Optional<BigDecimal> buscarSaldo(@Param("id") Long id);
+
+	// Query que busca apenas a versão das movimentações do usuário (usada na ETag das buscas)
+	@Query("select u.versao from Usuario u where u.id = :id")
+	Optional<Long> buscarVersao(@Param("id") Long id);
+
+	// Debita o valor direto no banco, de forma atômica, apenas se o saldo for suficiente (retorna 0 quando não altera nenhuma linha)
+	// Os dois UPDATEs de saldo incrementam a versão: toda inclusão e exclusão de movimentação passa por um deles
+	@Modifying
+	@Query("update Usuario u set u.saldo = u.saldo - :valor, u.versao = u.versao + 1 where u.id = :id and u.saldo >= :valor")
+	int debitarSaldo(@Param("id") Long id, @Param("valor") BigDecimal valor);
+
+	// Soma o valor (positivo ou negativo) no saldo direto no banco, de forma atômica
+	@Modifying
+	@Query("update Usuario u set u.saldo = u.saldo + :valor, u.versao = u.versao + 1 where u.id = :id")
+	int ajustarSaldo(@Param("id") Long id, @Param("valor") BigDecimal valor);
+
+	// Query que lista apenas os ids dos usuários, em ordem (usada para dividir a reconstrução do resumo mensal)
+	@Query("select u.id from Usuario u order by u.id")
+	List<Long> listarIds();
+
+	// Bloqueia as linhas dos usuários passados até o fim da transação, sempre na ordem do id para não gerar deadlock
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select u from Usuario u where u.id in :ids order by u.id")
+	List<Usuario> bloquearPorIds(@Param("ids") Collection<Long> ids);
+
 }
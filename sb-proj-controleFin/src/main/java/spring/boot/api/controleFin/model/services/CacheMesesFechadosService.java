@@ -0,0 +1,202 @@
+package spring.boot.api.controleFin.model.services;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import spring.boot.api.controleFin.config.ProtobufMovimentacaoHttpMessageConverter;
+import spring.boot.api.controleFin.model.dto.MovimentacaoDTO;
+import spring.boot.api.controleFin.model.repositories.MovimentacaoRepository;
+
+@Service
+public class CacheMesesFechadosService {
+
+	/*
+	 * Cache das movimentações dos meses que já terminaram, por usuário e mês, usado pelas buscas por mês, por ano e personalizada.
+	 * Cada mês fica guardado já serializado (mensagem Movimentacoes do movimentacoes.proto) e comprimido com deflate, e o cache é limitado pelo total de bytes.
+	 * O mês corrente (e os seguintes) sempre vem do banco. Uma movimentação gravada ou apagada com data em um mês fechado tira só aquele mês do cache, depois do commit.
+	 * Enquanto um mês carrega, o cache guarda um marcador no lugar dele e o resultado só entra se o marcador ainda estiver lá:
+	 * uma invalidação que chegar durante a consulta remove o marcador, e o resultado lido antes do commit não fica no cache.
+	 * Para isso a consulta de cada mês roda na própria transação, aberta depois do marcador, então estes métodos não devem ser chamados dentro de outra transação.
+	 */
+
+	@Value("${controlefin.cache.meses.habilitado:true}")
+	boolean habilitado;
+
+	@Value("${controlefin.cache.meses.tamanho-maximo:64MB}")
+	DataSize tamanhoMaximo;
+
+	@Autowired
+	MovimentacaoRepository movimentacaoRepository;
+
+	@Autowired(required = false)
+	MeterRegistry registry;
+
+	private Cache<Chave, Mes> cache;
+
+	private record Chave(Long idUsuario, YearMonth mes) {
+	}
+
+	//Mês guardado no cache; com "comprimido" nulo é o marcador de um mês que está sendo carregado
+	//Não é record: o replace e o remove do cache comparam com equals, e cada marcador só pode ser igual a ele mesmo
+	private static final class Mes {
+
+		private final byte[] comprimido;
+
+		Mes(byte[] comprimido) {
+			this.comprimido = comprimido;
+		}
+
+		byte[] comprimido() {
+			return comprimido;
+		}
+	}
+
+	@PostConstruct
+	void criarCache() {
+		if (!habilitado) {
+			return;
+		}
+		cache = Caffeine.newBuilder()
+				.maximumWeight(tamanhoMaximo.toBytes())
+				.weigher((Chave chave, Mes mes) -> mes.comprimido() == null ? 0 : mes.comprimido().length)
+				.recordStats()
+				.build();
+		if (registry != null) {
+			CaffeineCacheMetrics.monitor(registry, cache, "meses-fechados"); //Métricas cache.gets (hit/miss), cache.evictions e cache.size
+		}
+	}
+
+	//Movimentações do usuário entre as datas, ordenadas por data e id
+	//Os meses fechados vêm do cache (os que faltam são buscados juntos, em uma consulta por sequência de meses seguidos) e o mês corrente com uma consulta ao banco
+	public List<MovimentacaoDTO> listar(Long idUsuario, LocalDate inicio, LocalDate fim) {
+		if (cache == null || inicio.isAfter(fim)) {
+			return movimentacaoRepository.listarPorUsuarioEPeriodo(idUsuario, inicio, fim);
+		}
+
+		YearMonth atual = YearMonth.now();
+		YearMonth ultimoFechado = YearMonth.from(fim).isBefore(atual) ? YearMonth.from(fim) : atual.minusMonths(1);
+		List<MovimentacaoDTO> resultado = new ArrayList<>();
+
+		//Os meses são percorridos em ordem, então a lista já sai ordenada por data e id
+		YearMonth inicioFaltando = null;
+		for (YearMonth mes = YearMonth.from(inicio); !mes.isAfter(ultimoFechado); mes = mes.plusMonths(1)) {
+			Mes guardado = cache.getIfPresent(new Chave(idUsuario, mes));
+			if (guardado == null || guardado.comprimido() == null) {
+				if (inicioFaltando == null) {
+					inicioFaltando = mes;
+				}
+				continue;
+			}
+			if (inicioFaltando != null) {
+				this.carregar(idUsuario, inicioFaltando, mes.minusMonths(1), inicio, fim, resultado);
+				inicioFaltando = null;
+			}
+			adicionarNoPeriodo(descomprimir(guardado.comprimido()), inicio, fim, resultado);
+		}
+		if (inicioFaltando != null) {
+			this.carregar(idUsuario, inicioFaltando, ultimoFechado, inicio, fim, resultado);
+		}
+
+		if (!fim.isBefore(atual.atDay(1))) {
+			LocalDate inicioAberto = inicio.isAfter(atual.atDay(1)) ? inicio : atual.atDay(1);
+			resultado.addAll(movimentacaoRepository.listarPorUsuarioEPeriodo(idUsuario, inicioAberto, fim));
+		}
+		return resultado;
+	}
+
+	//Busca os meses fechados de "primeiro" a "ultimo" com uma consulta, guarda cada um no cache e adiciona no resultado as movimentações dentro do período pedido
+	private void carregar(Long idUsuario, YearMonth primeiro, YearMonth ultimo, LocalDate inicio, LocalDate fim, List<MovimentacaoDTO> resultado) {
+		Map<Chave, Mes> marcadores = new LinkedHashMap<>();
+		for (YearMonth mes = primeiro; !mes.isAfter(ultimo); mes = mes.plusMonths(1)) {
+			Chave chave = new Chave(idUsuario, mes);
+			Mes marcador = new Mes(null);
+			if (cache.asMap().putIfAbsent(chave, marcador) == null) { //Se outra requisição já está carregando o mês, o resultado desta não é guardado
+				marcadores.put(chave, marcador);
+			}
+		}
+		try {
+			List<MovimentacaoDTO> movimentacoes = movimentacaoRepository.listarPorUsuarioEPeriodo(idUsuario, primeiro.atDay(1), ultimo.atEndOfMonth());
+			adicionarNoPeriodo(movimentacoes, inicio, fim, resultado);
+
+			Map<YearMonth, List<MovimentacaoDTO>> porMes = new LinkedHashMap<>();
+			for (MovimentacaoDTO movimentacao : movimentacoes) {
+				porMes.computeIfAbsent(YearMonth.from(movimentacao.getData()), m -> new ArrayList<>()).add(movimentacao);
+			}
+			//Meses sem movimentações também são guardados, como uma lista vazia
+			marcadores.forEach((chave, marcador) -> cache.asMap().replace(chave, marcador, new Mes(comprimir(porMes.getOrDefault(chave.mes(), List.of())))));
+		} finally {
+			marcadores.forEach((chave, marcador) -> cache.asMap().remove(chave, marcador)); //Só sobra marcador se a consulta falhou
+		}
+	}
+
+	//Tira do cache os meses do usuário quando a transação atual fizer commit (ou na hora, se não houver transação)
+	public void invalidarAposCommit(Long idUsuario, Collection<YearMonth> meses) {
+		if (cache == null || meses.isEmpty()) {
+			return;
+		}
+		List<Chave> chaves = meses.stream().map(mes -> new Chave(idUsuario, mes)).toList();
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					cache.invalidateAll(chaves);
+				}
+			});
+		} else {
+			cache.invalidateAll(chaves);
+		}
+	}
+
+	private static void adicionarNoPeriodo(List<MovimentacaoDTO> movimentacoes, LocalDate inicio, LocalDate fim, List<MovimentacaoDTO> resultado) {
+		for (MovimentacaoDTO movimentacao : movimentacoes) {
+			if (!movimentacao.getData().isBefore(inicio) && !movimentacao.getData().isAfter(fim)) {
+				resultado.add(movimentacao);
+			}
+		}
+	}
+
+	private static byte[] comprimir(List<MovimentacaoDTO> movimentacoes) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (OutputStream saida = new DeflaterOutputStream(bytes)) {
+			ProtobufMovimentacaoHttpMessageConverter.codificar(movimentacoes, saida);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static List<MovimentacaoDTO> descomprimir(byte[] comprimido) {
+		try (InputStream entrada = new InflaterInputStream(new ByteArrayInputStream(comprimido))) {
+			return ProtobufMovimentacaoHttpMessageConverter.decodificar(entrada);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
@@ -0,0 +1,103 @@
+package spring.boot.api.controleFin.model.services;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+
+@Service
+public class CacheSaldoService {
+
+	/*
+	 * Cache do saldo dos usuários, limitado por tamanho e por tempo.
+	 * O cache guarda um futuro por usuário: a primeira leitura coloca no cache um futuro vazio e consulta o banco na própria thread, fora do lock do mapa
+	 * (uma consulta dentro do compute do ConcurrentHashMap prenderia a virtual thread à thread do sistema); as leituras simultâneas esperam o mesmo futuro.
+	 * As escritas invalidam o saldo do usuário depois do commit. A invalidação tira do cache também um futuro que ainda está carregando,
+	 * e o Caffeine não guarda de volta um futuro que já saiu do cache, então um saldo lido antes do commit nunca fica no cache depois da invalidação.
+	 */
+
+	@Value("${controlefin.cache.saldo.habilitado:true}")
+	boolean habilitado;
+
+	@Value("${controlefin.cache.saldo.tamanho-maximo:10000}")
+	long tamanhoMaximo;
+
+	@Value("${controlefin.cache.saldo.expiracao:30s}")
+	Duration expiracao;
+
+	@Autowired(required = false)
+	MeterRegistry registry;
+
+	private AsyncCache<Long, BigDecimal> cache;
+
+	@PostConstruct
+	void criarCache() {
+		if (!habilitado) {
+			return;
+		}
+		cache = Caffeine.newBuilder()
+				.maximumSize(tamanhoMaximo)
+				.expireAfterWrite(expiracao)
+				.recordStats()
+				.buildAsync();
+		if (registry != null) {
+			CaffeineCacheMetrics.monitor(registry, cache.synchronous(), "saldo"); //Métricas cache.gets (hit/miss), cache.evictions e cache.size
+		}
+	}
+
+	//Retorna o saldo do cache ou carrega pelo método passado (exceções da carga não são guardadas)
+	public BigDecimal buscar(Long idUsuario, Supplier<BigDecimal> carregar) {
+		if (cache == null) {
+			return carregar.get();
+		}
+		CompletableFuture<BigDecimal> carga = new CompletableFuture<>();
+		CompletableFuture<BigDecimal> saldo = cache.get(idUsuario, (id, executor) -> carga); //Só cria o futuro dentro do lock do mapa
+		if (saldo == carga) {
+			try {
+				carga.complete(carregar.get()); //Um saldo nulo ou uma exceção tira o futuro do cache
+			} catch (Throwable e) { //Também com um Error, para as leituras que esperam o futuro não ficarem presas
+				carga.completeExceptionally(e);
+			}
+		}
+		try {
+			return saldo.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof Error erro) {
+				throw erro;
+			}
+			throw e.getCause() instanceof RuntimeException causa ? causa : e;
+		}
+	}
+
+	//Tira o saldo do usuário do cache quando a transação atual fizer commit (ou na hora, se não houver transação)
+	public void invalidarAposCommit(Long idUsuario) {
+		if (cache == null) {
+			return;
+		}
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					cache.synchronous().invalidate(idUsuario);
+				}
+			});
+		} else {
+			cache.synchronous().invalidate(idUsuario);
+		}
+	}
+
+}
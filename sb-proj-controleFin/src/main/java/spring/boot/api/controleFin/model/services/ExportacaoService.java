@@ -0,0 +1,136 @@
+package spring.boot.api.controleFin.model.services;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import io.micrometer.core.annotation.Timed;
+import spring.boot.api.controleFin.model.dto.MovimentacaoExportacaoDTO;
+import spring.boot.api.controleFin.model.repositories.MovimentacaoRepository;
+import spring.boot.api.controleFin.model.repositories.UsuarioRepository;
+
+@Service
+@Timed(value = "controlefin.servico", description = "Tempo dos métodos dos services")
+public class ExportacaoService {
+
+	//Formatos aceitos na exportação, com o content type da resposta e a extensão do arquivo
+	public enum Formato {
+		CSV("text/csv;charset=UTF-8", "csv"),
+		NDJSON("application/x-ndjson", "ndjson");
+
+		private final String contentType;
+		private final String extensao;
+
+		Formato(String contentType, String extensao) {
+			this.contentType = contentType;
+			this.extensao = extensao;
+		}
+
+		public String getContentType() {
+			return contentType;
+		}
+
+		public String getExtensao() {
+			return extensao;
+		}
+	}
+
+	//Tamanho do buffer de escrita: a resposta é enviada ao cliente em blocos, sem montar o arquivo inteiro em memória
+	private static final int TAMANHO_BUFFER = 64 * 1024;
+
+	private static final String CABECALHO_CSV = "id,data,tipoMovimentacao,categoria,valor\n";
+
+	@Autowired
+	MovimentacaoRepository movimentacaoRepository;
+
+	@Autowired
+	UsuarioRepository usuarioRepository;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	//Valida o usuário e o formato antes de começar a resposta (depois que o envio começa não dá mais para responder 400)
+	@Transactional(readOnly = true)
+	public Formato validarExportacao(Long idUsuario, String formato) {
+		if (!usuarioRepository.existsById(idUsuario)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Usuário não encontrado!");
+		}
+		for (Formato f : Formato.values()) {
+			if (f.getExtensao().equalsIgnoreCase(formato)) {
+				return f;
+			}
+		}
+		throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Formato de exportação inválido! Use csv ou ndjson");
+	}
+
+	//Escreve todas as movimentações do usuário na saída, uma linha por movimentação, e retorna quantas foram escritas
+	//As linhas vêm de um Stream do banco e cada uma é escrita e descartada, então a memória não cresce com o número de movimentações
+	//A saída não é fechada aqui, quem abriu (o controller) é que fecha
+	@Transactional(readOnly = true)
+	public long exportar(Long idUsuario, Formato formato, OutputStream saida) throws IOException {
+		Writer escritor = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), TAMANHO_BUFFER);
+		long linhas;
+		try (Stream<MovimentacaoExportacaoDTO> movimentacoes = movimentacaoRepository.exportarPorUsuario(idUsuario)) {
+			linhas = formato == Formato.CSV
+					? escreverCsv(movimentacoes.iterator(), escritor)
+					: escreverNdjson(movimentacoes.iterator(), escritor);
+		}
+		escritor.flush();
+		return linhas;
+	}
+
+	private long escreverCsv(Iterator<MovimentacaoExportacaoDTO> movimentacoes, Writer escritor) throws IOException {
+		long linhas = 0;
+		escritor.write(CABECALHO_CSV);
+		while (movimentacoes.hasNext()) {
+			MovimentacaoExportacaoDTO m = movimentacoes.next();
+			escritor.write(String.valueOf(m.getId()));
+			escritor.write(',');
+			escritor.write(String.valueOf(m.getData()));
+			escritor.write(',');
+			escritor.write(m.getTipoMovimentacao() == null ? "" : m.getTipoMovimentacao().getDescricao());
+			escritor.write(',');
+			escritor.write(String.valueOf(m.getCategoria()));
+			escritor.write(',');
+			escritor.write(m.getValor() == null ? "" : m.getValor().toPlainString());
+			escritor.write('\n');
+			linhas++;
+		}
+		return linhas;
+	}
+
+	private long escreverNdjson(Iterator<MovimentacaoExportacaoDTO> movimentacoes, Writer escritor) throws IOException {
+		long linhas = 0;
+		//Um objeto JSON por linha: sem separador entre os valores de raiz do Jackson, a quebra de linha é escrita depois de cada um
+		//O gerador não fecha o escritor e não faz flush a cada linha (o flush fica com o buffer)
+		ObjectWriter escritorJson = objectMapper.writerFor(MovimentacaoExportacaoDTO.class)
+				.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		try (JsonGenerator gerador = objectMapper.getFactory().createGenerator(escritor)) {
+			gerador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			gerador.setRootValueSeparator(null);
+			while (movimentacoes.hasNext()) {
+				escritorJson.writeValue(gerador, movimentacoes.next());
+				gerador.writeRaw('\n');
+				linhas++;
+			}
+		}
+		return linhas;
+	}
+
+}
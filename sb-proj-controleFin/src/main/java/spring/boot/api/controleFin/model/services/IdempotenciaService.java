@@ -0,0 +1,149 @@
+package spring.boot.api.controleFin.model.services;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import spring.boot.api.controleFin.model.entities.ChaveIdempotencia;
+import spring.boot.api.controleFin.model.entities.ChaveIdempotenciaId;
+import spring.boot.api.controleFin.model.repositories.ChaveIdempotenciaRepository;
+
+@Service
+@Timed(value = "controlefin.servico", description = "Tempo dos métodos dos services")
+public class IdempotenciaService {
+
+	/*
+	 * Garante que uma requisição com Idempotency-Key seja aplicada uma vez só por usuário e chave.
+	 * A chave é inserida no começo da mesma transação da ação: se duas requisições iguais chegam juntas, o banco segura o INSERT da segunda
+	 * até a primeira terminar, e ela só é aplicada se a primeira tiver sido desfeita. Requisições recusadas não guardam a chave.
+	 * As chaves aplicadas ficam também em um cache em memória, então uma repetição comum não chega ao banco.
+	 */
+
+	private static final int TAMANHO_MAXIMO_CHAVE = 100;
+
+	@Value("${controlefin.idempotencia.validade:24h}")
+	Duration validade;
+
+	@Value("${controlefin.idempotencia.cache.tamanho-maximo:10000}")
+	long tamanhoMaximoCache;
+
+	@Value("${controlefin.idempotencia.cache.expiracao:10m}")
+	Duration expiracaoCache;
+
+	@Autowired
+	ChaveIdempotenciaRepository chaveIdempotenciaRepository;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@Autowired(required = false)
+	MeterRegistry registry;
+
+	private Cache<ChaveIdempotenciaId, String> cache;
+
+	private TransactionTemplate transacao;
+
+	@PostConstruct
+	void criarCache() {
+		cache = Caffeine.newBuilder()
+				.maximumSize(tamanhoMaximoCache)
+				.expireAfterWrite(expiracaoCache)
+				.recordStats()
+				.build();
+		if (registry != null) {
+			CaffeineCacheMetrics.monitor(registry, cache, "idempotencia");
+		}
+		transacao = new TransactionTemplate(transactionManager);
+	}
+
+	//Executa a ação na primeira vez que a chave aparece para o usuário e retorna true
+	//Nas repetições a ação não roda e o retorno é false; a mesma chave com outra requisição é recusada com 422
+	public boolean executar(Long idUsuario, String chave, Object requisicao, Runnable acao) {
+
+		if (idUsuario == null) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Usuário não encontrado!");
+		}
+		if (chave.isBlank() || chave.length() > TAMANHO_MAXIMO_CHAVE) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Idempotency-Key inválida! Use até " + TAMANHO_MAXIMO_CHAVE + " caracteres");
+		}
+
+		ChaveIdempotenciaId id = new ChaveIdempotenciaId(idUsuario, chave);
+		String hash = this.hash(requisicao);
+
+		String hashAplicado = cache.getIfPresent(id);
+		if (hashAplicado != null) {
+			return this.repeticao(hashAplicado, hash);
+		}
+
+		Boolean executada = transacao.execute(status -> {
+			try {
+				chaveIdempotenciaRepository.inserir(idUsuario, chave, hash, LocalDateTime.now());
+			} catch (DataIntegrityViolationException e) { //Chave já aplicada por outra transação
+				status.setRollbackOnly();
+				return false;
+			}
+			acao.run();
+			return true;
+		});
+
+		if (Boolean.TRUE.equals(executada)) {
+			cache.put(id, hash);
+			return true;
+		}
+
+		//A chave já estava no banco: confere se é a mesma requisição e guarda no cache para as próximas repetições
+		ChaveIdempotencia aplicada = chaveIdempotenciaRepository.findById(id)
+				.orElseThrow(() -> new ResponseStatusException(HttpStatus.CONFLICT, "Requisição com esta Idempotency-Key em andamento, tente novamente"));
+		cache.put(id, aplicada.getHashRequisicao());
+		return this.repeticao(aplicada.getHashRequisicao(), hash);
+	}
+
+	//Apaga as chaves mais antigas que a validade
+	@Scheduled(initialDelayString = "${controlefin.idempotencia.limpeza:1h}", fixedDelayString = "${controlefin.idempotencia.limpeza:1h}")
+	@Transactional
+	public int apagarExpiradas() {
+		return chaveIdempotenciaRepository.apagarCriadasAntes(LocalDateTime.now().minus(validade));
+	}
+
+	private boolean repeticao(String hashAplicado, String hash) {
+		if (!hashAplicado.equals(hash)) {
+			throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency-Key já usada em outra requisição!");
+		}
+		return false;
+	}
+
+	//SHA-256 da requisição serializada em JSON
+	private String hash(Object requisicao) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(requisicao)));
+		} catch (JsonProcessingException | NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,163 @@
+package spring.boot.api.controleFin.model.services;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import io.micrometer.core.annotation.Timed;
+import spring.boot.api.controleFin.config.ImportacaoProperties;
+import spring.boot.api.controleFin.model.dto.ImportacaoEventoDTO;
+import spring.boot.api.controleFin.model.dto.ItemLoteDTO;
+import spring.boot.api.controleFin.model.dto.LoteResultadoDTO;
+import spring.boot.api.controleFin.model.dto.MovimentacaoDTO;
+import spring.boot.api.controleFin.model.entities.Categoria;
+import spring.boot.api.controleFin.model.importacao.LeitorCsv;
+import spring.boot.api.controleFin.model.importacao.LeitorExtrato;
+import spring.boot.api.controleFin.model.importacao.LeitorOfx;
+import spring.boot.api.controleFin.model.importacao.LinhaExtrato;
+import spring.boot.api.controleFin.model.repositories.UsuarioRepository;
+
+@Service
+@Timed(value = "controlefin.servico", description = "Tempo dos métodos dos services")
+public class ImportacaoService {
+
+	@Autowired
+	MovimentacaoService movimentacaoService;
+
+	@Autowired
+	UsuarioRepository usuarioRepository;
+
+	@Autowired
+	ImportacaoProperties propriedades;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	//Valida o usuário e o formato (csv ou ofx, pelo parâmetro ou pela extensão do arquivo) e abre o leitor do extrato
+	//No CSV o cabeçalho já é lido aqui, então um arquivo sem as colunas obrigatórias é recusado com 400 antes da importação começar
+	public LeitorExtrato abrir(Long idUsuario, String formato, String nomeArquivo, String charset, InputStream entrada) throws IOException {
+		try {
+			if (!usuarioRepository.existsById(idUsuario)) {
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Usuário não encontrado!");
+			}
+			if (formato == null || formato.isBlank()) {
+				formato = nomeArquivo == null || nomeArquivo.lastIndexOf('.') < 0 ? "" : nomeArquivo.substring(nomeArquivo.lastIndexOf('.') + 1);
+			}
+			Charset codificacao;
+			try {
+				codificacao = charset == null || charset.isBlank() ? StandardCharsets.UTF_8 : Charset.forName(charset);
+			} catch (IllegalArgumentException e) {
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Charset inválido!");
+			}
+
+			InputStreamReader leitor = new InputStreamReader(entrada, codificacao);
+			switch (formato.toLowerCase(Locale.ROOT)) {
+			    case "csv":
+			        return new LeitorCsv(leitor);
+			    case "ofx":
+			        return new LeitorOfx(leitor);
+			    default:
+			        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Formato de importação inválido! Use csv ou ofx");
+			}
+		} catch (RuntimeException | IOException e) {
+			entrada.close();
+			throw e;
+		}
+	}
+
+	//Importa o extrato em lotes de tamanho fixo, cada lote em uma transação (com as mesmas regras de saldo do cadastro em lote)
+	//Os eventos (erros por linha, progresso por lote e o resumo final) são escritos na saída em NDJSON à medida que acontecem
+	//Só um lote fica em memória por vez, então o consumo não depende do tamanho do arquivo
+	//Se a importação for interrompida, os lotes já informados no último "progresso" estão gravados
+	public ImportacaoEventoDTO importar(Long idUsuario, LeitorExtrato leitor, OutputStream saida) throws IOException {
+		int tamanhoLote = propriedades.getTamanhoLote();
+		List<MovimentacaoDTO> lote = new ArrayList<>(tamanhoLote);
+		long[] linhasDoLote = new long[tamanhoLote];
+		long[] totais = new long[3]; // lidas, aceitas e rejeitadas
+
+		Writer escritor = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+		ObjectWriter escritorJson = objectMapper.writerFor(ImportacaoEventoDTO.class)
+				.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		ImportacaoEventoDTO concluido;
+		try (JsonGenerator gerador = objectMapper.getFactory().createGenerator(escritor)) {
+			gerador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			gerador.setRootValueSeparator(null);
+
+			LinhaExtrato linha;
+			while ((linha = leitor.proxima()) != null) {
+				totais[0]++;
+				if (linha.getErro() != null) {
+					totais[2]++;
+					escrever(gerador, escritorJson, ImportacaoEventoDTO.erro(linha.getLinha(), linha.getErro()));
+					continue;
+				}
+				linhasDoLote[lote.size()] = linha.getLinha();
+				lote.add(new MovimentacaoDTO(linha.getTipoMovimentacao(), linha.getData(), linha.getValor(), this.categorizar(linha), idUsuario));
+				if (lote.size() == tamanhoLote) {
+					this.gravar(lote, linhasDoLote, totais, gerador, escritorJson);
+				}
+			}
+			if (!lote.isEmpty()) {
+				this.gravar(lote, linhasDoLote, totais, gerador, escritorJson);
+			}
+
+			concluido = ImportacaoEventoDTO.progresso("concluido", totais[0], totais[1], totais[2]);
+			escrever(gerador, escritorJson, concluido);
+		}
+		escritor.flush();
+		return concluido;
+	}
+
+	//Grava o lote em uma transação, informa as linhas recusadas e o progresso, e esvazia o lote
+	private void gravar(List<MovimentacaoDTO> lote, long[] linhasDoLote, long[] totais, JsonGenerator gerador, ObjectWriter escritorJson) throws IOException {
+		LoteResultadoDTO resultado = movimentacaoService.adicionarMovimentacoes(lote);
+		totais[1] += resultado.getAceitas();
+		totais[2] += resultado.getRejeitadas();
+		for (ItemLoteDTO item : resultado.getItens()) {
+			if (!item.isAceito()) {
+				escrever(gerador, escritorJson, ImportacaoEventoDTO.erro(linhasDoLote[item.getIndice()], item.getMotivo()));
+			}
+		}
+		escrever(gerador, escritorJson, ImportacaoEventoDTO.progresso("progresso", totais[0], totais[1], totais[2]));
+		gerador.flush(); //O cliente recebe o progresso assim que o lote é gravado
+		lote.clear();
+	}
+
+	private void escrever(JsonGenerator gerador, ObjectWriter escritorJson, ImportacaoEventoDTO evento) throws IOException {
+		escritorJson.writeValue(gerador, evento);
+		gerador.writeRaw('\n');
+	}
+
+	//A categoria do próprio arquivo tem prioridade, depois a primeira regra que casar com a descrição, e por fim a categoria padrão
+	private Categoria categorizar(LinhaExtrato linha) {
+		if (linha.getCategoria() != null) {
+			return linha.getCategoria();
+		}
+		for (ImportacaoProperties.Regra regra : propriedades.getRegras()) {
+			if (regra.getPadrao() != null && regra.getPadrao().matcher(linha.getDescricao()).find()) {
+				return regra.getCategoria();
+			}
+		}
+		return propriedades.getCategoriaPadrao();
+	}
+
+}
@@ -0,0 +1,525 @@
+package spring.boot.api.controleFin.model.services;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import spring.boot.api.controleFin.model.dto.MovimentacaoDTO;
+import spring.boot.api.controleFin.model.dto.MovimentacaoExportacaoDTO;
+import spring.boot.api.controleFin.model.entities.Categoria;
+import spring.boot.api.controleFin.model.entities.TipoMovimentacao;
+import spring.boot.api.controleFin.model.repositories.MovimentacaoRepository;
+
+@Service
+public class IndiceHistoricoService {
+
+	/*
+	 * Índice em memória do histórico de movimentações de cada usuário, usado pelas buscas por mês, por ano, personalizada e por categoria no lugar do banco.
+	 * Cada usuário tem as movimentações em colunas de tipos primitivos (dia desde 1970-01-01, valor em centavos, categoria, tipo e id), ordenadas por data e id:
+	 * um período é encontrado com busca binária nos dias e uma categoria com uma passada pelo array de categorias, sem consulta ao banco.
+	 * O histórico do usuário é carregado na primeira busca (uma consulta com todas as movimentações dele) e o cache é limitado pela memória das colunas.
+	 * Depois do commit, as movimentações gravadas e apagadas são aplicadas no histórico que já estiver no cache sem copiar as colunas carregadas:
+	 * as incluídas ficam em colunas pequenas à parte, as apagadas em uma lista de posições, e as buscas intercalam as duas com as colunas carregadas.
+	 * Cada gravação copia só essas alterações, dentro do lock do cache; a partir de COMPACTAR_COM alterações, a próxima busca junta tudo em colunas novas
+	 * fora do lock, e um histórico que chega a DESCARTAR_COM alterações sem nenhuma busca no meio é descartado.
+	 * As buscas leem as colunas sem bloqueio, então um histórico nunca é alterado depois de entrar no cache.
+	 * Enquanto um histórico carrega, o cache guarda um marcador no lugar dele (como no CacheMesesFechadosService): uma gravação que fizer commit durante a carga
+	 * remove o marcador e o resultado não entra no cache. A consulta roda na própria transação, aberta depois do marcador,
+	 * então as buscas não devem ser chamadas dentro de outra transação.
+	 * Aplicar as gravações pode repetir uma movimentação que a carga já leu; por isso elas são aplicadas pelo id: uma movimentação que já está no índice não entra de novo.
+	 * Os callbacks de commit de transações diferentes podem rodar fora de ordem (a remoção antes da inclusão da mesma movimentação):
+	 * uma remoção que não encontra uma das movimentações descarta o histórico do usuário, que é carregado de novo na próxima busca.
+	 * Os callbacks rodam depois do commit e não podem falhar a requisição: se a atualização do histórico der erro, ele também é descartado.
+	 */
+
+	private static final Logger log = LoggerFactory.getLogger(IndiceHistoricoService.class);
+
+	//Valores das colunas para os campos nulos de movimentações antigas: o dia nulo fica antes de todos, como no "order by m.data" do banco
+	private static final int SEM_DATA = Integer.MIN_VALUE;
+	private static final long SEM_VALOR = Long.MIN_VALUE;
+	private static final byte SEM_ENUM = -1;
+
+	//Memória de cada movimentação nas colunas (int, long, byte, byte e long) e o custo fixo de um histórico (objeto e cabeçalhos dos arrays)
+	private static final int BYTES_POR_MOVIMENTACAO = 22;
+	private static final int BYTES_POR_HISTORICO = 128;
+
+	//Alterações guardadas fora das colunas carregadas: a partir da primeira quantidade a busca compacta o histórico, a partir da segunda a gravação o descarta
+	//A cópia feita a cada gravação fica limitada a DESCARTAR_COM movimentações (uns 180 KB), em vez do histórico inteiro (22 MB com 1 milhão)
+	static final int COMPACTAR_COM = 1024;
+	static final int DESCARTAR_COM = 8192;
+
+	private static final TipoMovimentacao[] TIPOS = TipoMovimentacao.values();
+
+	private static final Categoria[] CATEGORIAS = Categoria.values();
+
+	private static final Comparator<MovimentacaoExportacaoDTO> POR_DATA_E_ID = Comparator
+			.comparingInt(IndiceHistoricoService::dia).thenComparing(MovimentacaoExportacaoDTO::getId);
+
+	@Value("${controlefin.indice.habilitado:false}")
+	boolean habilitado;
+
+	@Value("${controlefin.indice.memoria-maxima:256MB}")
+	DataSize memoriaMaxima;
+
+	@Autowired
+	MovimentacaoRepository movimentacaoRepository;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Autowired(required = false)
+	MeterRegistry registry;
+
+	private Cache<Long, Historico> cache;
+
+	private TransactionTemplate transacao;
+
+	//Colunas de movimentações ordenadas por data e id
+	//As colunas só são alteradas enquanto são montadas, antes de entrar em um histórico
+	private static final class Colunas {
+
+		private static final Colunas VAZIAS = new Colunas(0);
+
+		private int[] dias;
+		private long[] centavos;
+		private byte[] categorias;
+		private byte[] tipos;
+		private long[] ids;
+		private int tamanho;
+
+		private Colunas(int capacidade) {
+			dias = new int[capacidade];
+			centavos = new long[capacidade];
+			categorias = new byte[capacidade];
+			tipos = new byte[capacidade];
+			ids = new long[capacidade];
+		}
+
+		int capacidade() {
+			return dias.length;
+		}
+
+		void adicionar(MovimentacaoExportacaoDTO movimentacao) {
+			if (tamanho == dias.length) {
+				this.redimensionar(Math.max(16, tamanho + (tamanho >> 1)));
+			}
+			dias[tamanho] = dia(movimentacao);
+			centavos[tamanho] = movimentacao.getValor() == null ? SEM_VALOR : movimentacao.getValor().setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+			categorias[tamanho] = movimentacao.getCategoria() == null ? SEM_ENUM : (byte) movimentacao.getCategoria().ordinal();
+			tipos[tamanho] = movimentacao.getTipoMovimentacao() == null ? SEM_ENUM : (byte) movimentacao.getTipoMovimentacao().ordinal();
+			ids[tamanho] = movimentacao.getId();
+			tamanho++;
+		}
+
+		//Copia as posições [de, ate) de outras colunas para o fim destas
+		void copiar(Colunas origem, int de, int ate) {
+			int quantidade = ate - de;
+			System.arraycopy(origem.dias, de, dias, tamanho, quantidade);
+			System.arraycopy(origem.centavos, de, centavos, tamanho, quantidade);
+			System.arraycopy(origem.categorias, de, categorias, tamanho, quantidade);
+			System.arraycopy(origem.tipos, de, tipos, tamanho, quantidade);
+			System.arraycopy(origem.ids, de, ids, tamanho, quantidade);
+			tamanho += quantidade;
+		}
+
+		//Copia uma posição de outras colunas para o fim destas, que já têm capacidade para ela
+		void acrescentar(Colunas origem, int i) {
+			dias[tamanho] = origem.dias[i];
+			centavos[tamanho] = origem.centavos[i];
+			categorias[tamanho] = origem.categorias[i];
+			tipos[tamanho] = origem.tipos[i];
+			ids[tamanho] = origem.ids[i];
+			tamanho++;
+		}
+
+		void redimensionar(int capacidade) {
+			dias = Arrays.copyOf(dias, capacidade);
+			centavos = Arrays.copyOf(centavos, capacidade);
+			categorias = Arrays.copyOf(categorias, capacidade);
+			tipos = Arrays.copyOf(tipos, capacidade);
+			ids = Arrays.copyOf(ids, capacidade);
+		}
+
+		//Primeira posição com (dia, id) maior ou igual ao informado
+		int posicao(int dia, long id) {
+			int baixo = 0;
+			int alto = tamanho;
+			while (baixo < alto) {
+				int meio = (baixo + alto) >>> 1;
+				if (dias[meio] < dia || (dias[meio] == dia && ids[meio] < id)) {
+					baixo = meio + 1;
+				} else {
+					alto = meio;
+				}
+			}
+			return baixo;
+		}
+
+		//Indica se a movimentação do id está na posição devolvida por posicao
+		boolean contem(int posicao, long id) {
+			return posicao < tamanho && ids[posicao] == id;
+		}
+
+		//Indica se a posição i destas colunas vem antes da posição j das outras na ordem de data e id
+		boolean antes(int i, Colunas outras, int j) {
+			return dias[i] < outras.dias[j] || (dias[i] == outras.dias[j] && ids[i] < outras.ids[j]);
+		}
+
+		MovimentacaoDTO movimentacao(int i, Long idUsuario) {
+			return new MovimentacaoDTO(tipos[i] == SEM_ENUM ? null : TIPOS[tipos[i]],
+					dias[i] == SEM_DATA ? null : LocalDate.ofEpochDay(dias[i]),
+					centavos[i] == SEM_VALOR ? null : BigDecimal.valueOf(centavos[i], 2),
+					categorias[i] == SEM_ENUM ? null : CATEGORIAS[categorias[i]],
+					idUsuario);
+		}
+
+		//Novas colunas com as movimentações inseridas na ordem (as que já estão nas colunas são ignoradas)
+		Colunas comInseridas(List<MovimentacaoExportacaoDTO> novas) {
+			Colunas resultado = new Colunas(tamanho + novas.size());
+			int copiadas = 0;
+			for (MovimentacaoExportacaoDTO nova : novas) {
+				int posicao = this.posicao(dia(nova), nova.getId());
+				resultado.copiar(this, copiadas, posicao);
+				copiadas = posicao;
+				if (!this.contem(posicao, nova.getId())) {
+					resultado.adicionar(nova);
+				}
+			}
+			resultado.copiar(this, copiadas, tamanho);
+			resultado.compactar();
+			return resultado;
+		}
+
+		//Novas colunas sem as posições informadas, que estão em ordem
+		Colunas semPosicoes(int[] posicoes, int quantidade) {
+			Colunas resultado = new Colunas(tamanho - quantidade);
+			int copiadas = 0;
+			for (int i = 0; i < quantidade; i++) {
+				resultado.copiar(this, copiadas, posicoes[i]);
+				copiadas = posicoes[i] + 1;
+			}
+			resultado.copiar(this, copiadas, tamanho);
+			return resultado;
+		}
+
+		//Deixa as colunas do tamanho exato antes de entrar no cache, para o peso ser a memória ocupada
+		void compactar() {
+			if (dias.length != tamanho) {
+				this.redimensionar(tamanho);
+			}
+		}
+	}
+
+	//Recebe cada movimentação percorrida no histórico, pelas colunas e a posição dela
+	private interface Visita {
+		void aceitar(Colunas colunas, int posicao);
+	}
+
+	//Histórico de um usuário: as colunas carregadas do banco, as posições delas apagadas depois e as colunas das movimentações incluídas depois
+	//Sem colunas é o marcador de um histórico que está sendo carregado
+	//Não é record: o replace e o remove do cache comparam com equals, e cada histórico só pode ser igual a ele mesmo
+	//Um histórico não muda depois de criado: a gravação cria outro com as mesmas colunas carregadas e cópias das alterações
+	private static final class Historico {
+
+		private static final int[] NENHUMA = new int[0];
+
+		private final Colunas base;
+		private final int[] removidas;
+		private final Colunas inseridas;
+
+		private Historico(Colunas base, int[] removidas, Colunas inseridas) {
+			this.base = base;
+			this.removidas = removidas;
+			this.inseridas = inseridas;
+		}
+
+		static Historico marcador() {
+			return new Historico(null, null, null);
+		}
+
+		static Historico de(Colunas base) {
+			return new Historico(base, NENHUMA, Colunas.VAZIAS);
+		}
+
+		boolean carregado() {
+			return base != null;
+		}
+
+		int alteracoes() {
+			return removidas.length + inseridas.tamanho;
+		}
+
+		int bytes() {
+			return base == null ? 0 : BYTES_POR_HISTORICO + (base.capacidade() + inseridas.capacidade()) * BYTES_POR_MOVIMENTACAO + removidas.length * Integer.BYTES;
+		}
+
+		private boolean removida(int posicao) {
+			return Arrays.binarySearch(removidas, posicao) >= 0;
+		}
+
+		//Percorre na ordem de data e id as posições [deBase, ateBase) das colunas carregadas, sem as apagadas, e [deInseridas, ateInseridas) das incluídas
+		private void percorrer(int deBase, int ateBase, int deInseridas, int ateInseridas, Visita visita) {
+			int removida = Arrays.binarySearch(removidas, deBase);
+			if (removida < 0) {
+				removida = -removida - 1;
+			}
+			int i = deBase;
+			int j = deInseridas;
+			while (i < ateBase || j < ateInseridas) {
+				if (i < ateBase && removida < removidas.length && removidas[removida] == i) {
+					i++;
+					removida++;
+				} else if (j == ateInseridas || (i < ateBase && base.antes(i, inseridas, j))) {
+					visita.aceitar(base, i++);
+				} else {
+					visita.aceitar(inseridas, j++);
+				}
+			}
+		}
+
+		//Movimentações com o dia entre os informados (inclusive)
+		List<MovimentacaoDTO> listar(int primeiroDia, int ultimoDia, Long idUsuario) {
+			int deBase = base.posicao(primeiroDia, Long.MIN_VALUE);
+			int ateBase = base.posicao(ultimoDia + 1, Long.MIN_VALUE);
+			int deInseridas = inseridas.posicao(primeiroDia, Long.MIN_VALUE);
+			int ateInseridas = inseridas.posicao(ultimoDia + 1, Long.MIN_VALUE);
+			List<MovimentacaoDTO> resultado = new ArrayList<>(Math.max(0, ateBase - deBase + ateInseridas - deInseridas));
+			this.percorrer(deBase, ateBase, deInseridas, ateInseridas, (colunas, i) -> resultado.add(colunas.movimentacao(i, idUsuario)));
+			return resultado;
+		}
+
+		//Movimentações da categoria, em uma passada pelo histórico
+		List<MovimentacaoDTO> listar(byte categoria, Long idUsuario) {
+			List<MovimentacaoDTO> resultado = new ArrayList<>();
+			this.percorrer(0, base.tamanho, 0, inseridas.tamanho, (colunas, i) -> {
+				if (colunas.categorias[i] == categoria) {
+					resultado.add(colunas.movimentacao(i, idUsuario));
+				}
+			});
+			return resultado;
+		}
+
+		//Novo histórico com as movimentações inseridas na ordem (as que já estão no índice são ignoradas)
+		Historico comInseridas(List<MovimentacaoExportacaoDTO> novas) {
+			List<MovimentacaoExportacaoDTO> foraDaBase = new ArrayList<>(novas.size());
+			for (MovimentacaoExportacaoDTO nova : novas) {
+				int posicao = base.posicao(dia(nova), nova.getId());
+				if (!base.contem(posicao, nova.getId()) || this.removida(posicao)) {
+					foraDaBase.add(nova);
+				}
+			}
+			return new Historico(base, removidas, inseridas.comInseridas(foraDaBase));
+		}
+
+		//Novo histórico sem as movimentações apagadas, que estão na ordem, ou nulo se alguma delas não estiver no índice
+		//(a inclusão dela ainda não foi aplicada: o histórico não sabe mais o que o banco tem)
+		Historico semApagadas(List<MovimentacaoExportacaoDTO> apagadas) {
+			int[] naBase = new int[apagadas.size()];
+			int[] nasInseridas = new int[apagadas.size()];
+			int quantidadeNaBase = 0;
+			int quantidadeNasInseridas = 0;
+			for (MovimentacaoExportacaoDTO apagada : apagadas) {
+				int posicao = base.posicao(dia(apagada), apagada.getId());
+				if (base.contem(posicao, apagada.getId()) && !this.removida(posicao)) {
+					if (quantidadeNaBase == 0 || naBase[quantidadeNaBase - 1] != posicao) { //A mesma movimentação duas vezes na lista
+						naBase[quantidadeNaBase++] = posicao;
+					}
+					continue;
+				}
+				posicao = inseridas.posicao(dia(apagada), apagada.getId());
+				if (!inseridas.contem(posicao, apagada.getId())) {
+					return null;
+				}
+				if (quantidadeNasInseridas == 0 || nasInseridas[quantidadeNasInseridas - 1] != posicao) {
+					nasInseridas[quantidadeNasInseridas++] = posicao;
+				}
+			}
+			return new Historico(base, unir(removidas, naBase, quantidadeNaBase),
+					quantidadeNasInseridas == 0 ? inseridas : inseridas.semPosicoes(nasInseridas, quantidadeNasInseridas));
+		}
+
+		//Junta as alterações em colunas novas, do tamanho exato
+		Historico compactado() {
+			Colunas colunas = new Colunas(base.tamanho - removidas.length + inseridas.tamanho);
+			this.percorrer(0, base.tamanho, 0, inseridas.tamanho, colunas::acrescentar);
+			return Historico.de(colunas);
+		}
+
+		//Posições em ordem com as de dois arrays em ordem
+		private static int[] unir(int[] posicoes, int[] novas, int quantidade) {
+			if (quantidade == 0) {
+				return posicoes;
+			}
+			int[] resultado = new int[posicoes.length + quantidade];
+			int i = 0;
+			int j = 0;
+			for (int k = 0; k < resultado.length; k++) {
+				resultado[k] = j == quantidade || (i < posicoes.length && posicoes[i] < novas[j]) ? posicoes[i++] : novas[j++];
+			}
+			return resultado;
+		}
+	}
+
+	@PostConstruct
+	void criarCache() {
+		if (!habilitado) {
+			return;
+		}
+		cache = Caffeine.newBuilder()
+				.maximumWeight(memoriaMaxima.toBytes())
+				.weigher((Long idUsuario, Historico historico) -> historico.bytes())
+				.recordStats()
+				.build();
+		if (registry != null) {
+			CaffeineCacheMetrics.monitor(registry, cache, "indice-historico"); //Métricas cache.gets (hit/miss), cache.evictions e cache.size
+		}
+		transacao = new TransactionTemplate(transactionManager);
+		transacao.setReadOnly(true);
+	}
+
+	public boolean isHabilitado() {
+		return cache != null;
+	}
+
+	//Indica se o histórico do usuário já está no índice (e, como usuários não são apagados, que o usuário existe)
+	public boolean contem(Long idUsuario) {
+		if (cache == null || idUsuario == null) {
+			return false;
+		}
+		Historico historico = cache.asMap().get(idUsuario); //Sem contar nas métricas de hit e miss
+		return historico != null && historico.carregado();
+	}
+
+	//Movimentações do usuário entre as datas, ordenadas por data e id, como a consulta listarPorUsuarioEPeriodo
+	public List<MovimentacaoDTO> listar(Long idUsuario, LocalDate inicio, LocalDate fim) {
+		return this.historico(idUsuario).listar(Math.toIntExact(inicio.toEpochDay()), Math.toIntExact(fim.toEpochDay()), idUsuario);
+	}
+
+	//Movimentações do usuário na categoria, ordenadas por data e id, como a consulta listarPorUsuarioECategoria
+	public List<MovimentacaoDTO> listar(Long idUsuario, Categoria categoria) {
+		return this.historico(idUsuario).listar((byte) categoria.ordinal(), idUsuario);
+	}
+
+	//Histórico do usuário no cache ou carregado do banco
+	private Historico historico(Long idUsuario) {
+		Historico historico = cache.getIfPresent(idUsuario);
+		if (historico != null && historico.carregado()) {
+			return historico.alteracoes() < COMPACTAR_COM ? historico : this.compactar(idUsuario, historico);
+		}
+
+		Historico marcador = Historico.marcador();
+		Historico atual = cache.asMap().putIfAbsent(idUsuario, marcador);
+		if (atual != null && atual.carregado()) { //Outra requisição terminou a carga nesse meio tempo
+			return atual;
+		}
+		boolean guardar = atual == null; //Se outra requisição já está carregando o histórico, o resultado desta não é guardado
+		try {
+			Historico carregado = this.carregar(idUsuario);
+			if (guardar) {
+				cache.asMap().replace(idUsuario, marcador, carregado);
+			}
+			return carregado;
+		} finally {
+			if (guardar) {
+				cache.asMap().remove(idUsuario, marcador); //Só sobra marcador se a consulta falhou
+			}
+		}
+	}
+
+	//Junta as alterações do histórico em colunas novas, fora do lock do cache
+	//Se uma gravação trocou o histórico do cache nesse meio tempo, o replace não faz nada e o compactado serve só para esta busca
+	private Historico compactar(Long idUsuario, Historico historico) {
+		Historico compactado = historico.compactado();
+		cache.asMap().replace(idUsuario, historico, compactado);
+		return compactado;
+	}
+
+	//Lê todas as movimentações do usuário aos poucos (fetch size), sem montar uma lista com todas elas antes das colunas
+	private Historico carregar(Long idUsuario) {
+		return transacao.execute(status -> {
+			Colunas colunas = new Colunas(16);
+			try (Stream<MovimentacaoExportacaoDTO> movimentacoes = movimentacaoRepository.exportarPorUsuario(idUsuario)) {
+				movimentacoes.forEach(colunas::adicionar);
+			}
+			colunas.compactar();
+			return Historico.de(colunas);
+		});
+	}
+
+	//Aplica as movimentações gravadas no histórico do usuário, se ele estiver no cache, quando a transação atual fizer commit (ou na hora, se não houver transação)
+	public void adicionarAposCommit(Long idUsuario, List<MovimentacaoExportacaoDTO> novas) {
+		if (cache == null || novas.isEmpty()) {
+			return;
+		}
+		List<MovimentacaoExportacaoDTO> ordenadas = novas.stream().sorted(POR_DATA_E_ID).toList();
+		this.aposCommit(() -> this.atualizar(idUsuario, historico -> historico.comInseridas(ordenadas)));
+	}
+
+	//Tira as movimentações apagadas do histórico do usuário, se ele estiver no cache, quando a transação atual fizer commit
+	//A data de cada uma acha a posição dela no histórico com busca binária
+	public void removerAposCommit(Long idUsuario, List<MovimentacaoExportacaoDTO> apagadas) {
+		if (cache == null || apagadas.isEmpty()) {
+			return;
+		}
+		List<MovimentacaoExportacaoDTO> ordenadas = apagadas.stream().sorted(POR_DATA_E_ID).toList();
+		this.aposCommit(() -> this.atualizar(idUsuario, historico -> historico.semApagadas(ordenadas)));
+	}
+
+	//Troca o histórico do cache pelo atualizado; um marcador é removido, para a carga em andamento (que pode não ter visto o commit) não ser guardada
+	//Uma alteração que devolve nulo, chega a DESCARTAR_COM alterações ou falha tira o histórico do cache, sem lançar a exceção para quem fez o commit
+	private void atualizar(Long idUsuario, UnaryOperator<Historico> alteracao) {
+		try {
+			cache.asMap().computeIfPresent(idUsuario, (id, historico) -> {
+				if (!historico.carregado()) {
+					return null;
+				}
+				Historico alterado = alteracao.apply(historico);
+				return alterado == null || alterado.alteracoes() >= DESCARTAR_COM ? null : alterado;
+			});
+		} catch (RuntimeException e) {
+			log.warn("Histórico do usuário {} descartado do índice depois de erro ao aplicar uma gravação", idUsuario, e);
+			cache.invalidate(idUsuario);
+		}
+	}
+
+	private void aposCommit(Runnable acao) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					acao.run();
+				}
+			});
+		} else {
+			acao.run();
+		}
+	}
+
+	private static int dia(MovimentacaoExportacaoDTO movimentacao) {
+		return movimentacao.getData() == null ? SEM_DATA : Math.toIntExact(movimentacao.getData().toEpochDay());
+	}
+
+}
@@ -1,101 +1,398 @@
 package spring.boot.api.controleFin.model.services;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import spring.boot.api.controleFin.model.dto.ItemLoteDTO;
+import spring.boot.api.controleFin.model.dto.LoteResultadoDTO;
 import spring.boot.api.controleFin.model.dto.MovimentacaoDTO;
+import spring.boot.api.controleFin.model.dto.MovimentacaoExportacaoDTO;
+import spring.boot.api.controleFin.model.dto.PaginaMovimentacaoDTO;
+import spring.boot.api.controleFin.model.dto.ResumoMovimentacaoDTO;
+import spring.boot.api.controleFin.model.dto.TransferenciaDTO;
 import spring.boot.api.controleFin.model.entities.Categoria;
 import spring.boot.api.controleFin.model.entities.Movimentacao;
 import spring.boot.api.controleFin.model.entities.Usuario;
+import spring.boot.api.controleFin.model.entities.ResumoMensalId;
+import spring.boot.api.controleFin.model.entities.TipoMovimentacao;
 import spring.boot.api.controleFin.model.repositories.MovimentacaoRepository;
+import spring.boot.api.controleFin.model.repositories.ResumoMensalRepository;
 import spring.boot.api.controleFin.model.repositories.UsuarioRepository;
 
 @Service
+@Timed(value = "controlefin.servico", description = "Tempo dos métodos dos services")
 public class MovimentacaoService {
 
+	//Limite de movimentações por página na busca por usuário
+	private static final int TAMANHO_MAXIMO_PAGINA = 500;
+
+	//Precisão e escala da coluna movimentacoes.valor, DECIMAL(15,2)
+	private static final int DIGITOS_VALOR = 15;
+	private static final int CASAS_DECIMAIS_VALOR = 2;
+
 	@Autowired
 	MovimentacaoRepository movimentacaoRepository;
 
 	@Autowired
 	UsuarioRepository usuarioRepository;
+
+	@Autowired
+	ResumoMensalRepository resumoMensalRepository;
+
+	@Autowired
+	ResumoMensalService resumoMensalService;
+
+	@Autowired
+	SaldoMensalService saldoMensalService;
+
+	@Autowired
+	CacheSaldoService cacheSaldo;
+
+	@Autowired
+	CacheMesesFechadosService cacheMeses;
+
+	@Autowired
+	IndiceHistoricoService indiceHistorico;
+
+	@PersistenceContext
+	EntityManager entityManager;
 	
 	//Méetodo que adiciona uma movimentação
+	@Transactional
 	public void adicionarMovimentacao(MovimentacaoDTO dto) {
 		
-		Usuario usuario = this.validarUsuario(dto.getIdUsuario());
+		this.validarUsuario(dto.getIdUsuario());
+		BigDecimal valor = validarValor(dto.getValor());
+		
+		//Data e categoria fazem parte da chave do resumo mensal
+		if (dto.getData() == null) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A data da movimentação é obrigatória");
+		}
+		if (dto.getCategoria() == null) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A categoria da movimentação é obrigatória");
+		}
 		
 		Movimentacao movimentacao = new Movimentacao();
 		
 		movimentacao.setCategoria(dto.getCategoria());
 		movimentacao.setData(dto.getData());
-		movimentacao.setTipoMovimentacao(dto.getTipoMovimentacao());
-		movimentacao.setValor(dto.getValor());
-		movimentacao.setUsuario(usuario);
+		movimentacao.setValor(valor);
+		movimentacao.setUsuario(usuarioRepository.getReferenceById(dto.getIdUsuario())); //Referência sem consulta, o usuário já foi validado
 		
-		String tipo = dto.getTipoMovimentacao().toLowerCase();
+		TipoMovimentacao tipo = TipoMovimentacao.de(dto.getTipoMovimentacao());
+		if (tipo == null) {
+		    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Tipo de movimentação inválido");
+		}
+		movimentacao.setTipoMovimentacao(tipo);
 		// Validação para debitar o valor da movimentação se o tipo for "debito", e creditar se for "credito"
+		// O saldo é alterado direto no banco com um UPDATE atômico, assim dois débitos simultâneos não sobrescrevem um ao outro
 		switch (tipo) {
-		    case "debito":
-		        usuario.debitar(movimentacao.getValor());
-		        if (usuario.getSaldo().compareTo(BigDecimal.ZERO) < 0) { //Validação para negar uma operação de débito que deixe o saldo negativo
-		            usuario.creditar(movimentacao.getValor());
+		    case DEBITO:
+		        if (usuarioRepository.debitarSaldo(dto.getIdUsuario(), movimentacao.getValor()) == 0) { //O UPDATE só altera a linha se o saldo não ficar negativo
 		            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Saldo insuficiente para esta operação");
 		        }
 		        break;
-		    case "credito":
-		        usuario.creditar(movimentacao.getValor());
+		    case CREDITO:
+		        usuarioRepository.ajustarSaldo(dto.getIdUsuario(), movimentacao.getValor());
 		        break;
-		    default:
-		        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Tipo de movimentação inválido");
 		}
 		
 		movimentacaoRepository.save(movimentacao);
-		usuarioRepository.save(usuario);
+		resumoMensalService.registrar(dto.getIdUsuario(), movimentacao.getData(), movimentacao.getCategoria(), tipo, movimentacao.getValor(), 1);
+		saldoMensalService.registrar(dto.getIdUsuario(), Map.of(YearMonth.from(movimentacao.getData()), this.efeitoNoSaldo(movimentacao)));
+		cacheSaldo.invalidarAposCommit(dto.getIdUsuario());
+		cacheMeses.invalidarAposCommit(dto.getIdUsuario(), Set.of(YearMonth.from(movimentacao.getData())));
+		indiceHistorico.adicionarAposCommit(dto.getIdUsuario(), List.of(this.paraIndice(movimentacao)));
 		
 	}
 	
+	//Método que adiciona uma lista de movimentações em uma única transação
+	//Cada usuário é carregado e bloqueado uma vez só, as movimentações são validadas em ordem contra o saldo bloqueado e o saldo final de cada usuário é gravado uma única vez
+	@Transactional
+	public LoteResultadoDTO adicionarMovimentacoes(List<MovimentacaoDTO> dtos) {
+
+		ItemLoteDTO[] itens = new ItemLoteDTO[dtos.size()];
+
+		//Agrupa as posições da lista pelo id do usuário, mantendo a ordem em que chegaram
+		//Os usuários são percorridos em ordem de id: o UPDATE do saldo bloqueia a linha, e as transferências bloqueiam os usuários na mesma ordem
+		Map<Long, List<Integer>> indicesPorUsuario = new TreeMap<>();
+		for (int i = 0; i < dtos.size(); i++) {
+			Long idUsuario = dtos.get(i).getIdUsuario();
+			if (idUsuario == null) {
+				itens[i] = new ItemLoteDTO(i, false, "Usuário não encontrado!");
+			} else {
+				indicesPorUsuario.computeIfAbsent(idUsuario, id -> new ArrayList<>()).add(i);
+			}
+		}
+
+		//Busca e bloqueia todos os usuários do lote em uma consulta só, em ordem de id (como nas transferências)
+		//Com as linhas bloqueadas o saldo lido não muda até o commit: cada movimentação é julgada contra o saldo real do usuário
+		Map<Long, Usuario> usuarios = indicesPorUsuario.isEmpty() ? Map.of() : usuarioRepository.bloquearPorIds(indicesPorUsuario.keySet()).stream()
+				.collect(Collectors.toMap(Usuario::getId, Function.identity()));
+
+		List<Movimentacao> novas = new ArrayList<>();
+
+		indicesPorUsuario.forEach((idUsuario, indices) -> {
+			Usuario usuario = usuarios.get(idUsuario);
+			if (usuario == null) {
+				indices.forEach(i -> itens[i] = new ItemLoteDTO(i, false, "Usuário não encontrado!"));
+				return;
+			}
+
+			//Saldo corrente do usuário, atualizado a cada movimentação aceita
+			BigDecimal saldo = usuario.getSaldo();
+
+			for (int i : indices) {
+				MovimentacaoDTO dto = dtos.get(i);
+
+				BigDecimal valor;
+				try {
+					valor = validarValor(dto.getValor());
+				} catch (ResponseStatusException e) {
+					itens[i] = new ItemLoteDTO(i, false, e.getReason());
+					continue;
+				}
+				if (dto.getData() == null || dto.getCategoria() == null) {
+					itens[i] = new ItemLoteDTO(i, false, "Data e categoria da movimentação são obrigatórias");
+					continue;
+				}
+
+				TipoMovimentacao tipo = TipoMovimentacao.de(dto.getTipoMovimentacao());
+				if (tipo == null) {
+				    itens[i] = new ItemLoteDTO(i, false, "Tipo de movimentação inválido");
+				    continue;
+				}
+				BigDecimal novoSaldo = saldo.add(tipo.efeito(valor));
+
+				if (novoSaldo.compareTo(BigDecimal.ZERO) < 0) { //Mesma regra do método unitário: débito não pode deixar o saldo negativo
+					itens[i] = new ItemLoteDTO(i, false, "Saldo insuficiente para esta operação");
+					continue;
+				}
+
+				saldo = novoSaldo;
+				novas.add(new Movimentacao(null, usuario, tipo, valor, dto.getData(), dto.getCategoria()));
+				itens[i] = new ItemLoteDTO(i, true, null);
+			}
+
+			//Aplica o saldo líquido do lote de uma vez, com os mesmos UPDATEs do método unitário
+			//A linha está bloqueada desde a leitura do saldo, então o débito líquido sempre cabe nele
+			BigDecimal delta = saldo.subtract(usuario.getSaldo());
+			if (delta.signum() < 0) {
+				if (usuarioRepository.debitarSaldo(idUsuario, delta.negate()) == 0) {
+					throw new IllegalStateException("Saldo do usuário " + idUsuario + " alterado com a linha bloqueada");
+				}
+			} else if (indices.stream().anyMatch(i -> itens[i].isAceito())) {
+				//Também com o saldo líquido zero: o UPDATE bloqueia a linha do usuário antes do resumo mensal e incrementa a versão
+				usuarioRepository.ajustarSaldo(idUsuario, delta);
+			}
+		});
+
+		movimentacaoRepository.saveAll(novas);
+		//Grava as movimentações e tira elas do contexto: senão cada UPDATE do resumo e dos checkpoints faria o Hibernate conferir o lote inteiro antes de executar
+		entityManager.flush();
+		entityManager.clear();
+
+		//Soma o lote no resumo mensal com um UPDATE por mês, categoria e tipo, e não um por movimentação
+		Map<ResumoMensalId, List<Movimentacao>> porResumo = novas.stream()
+				.collect(Collectors.groupingBy(m -> new ResumoMensalId(m.getUsuario().getId(), m.getData().getYear(), m.getData().getMonthValue(),
+						m.getCategoria(), m.getTipoMovimentacao()), LinkedHashMap::new, Collectors.toList()));
+		porResumo.forEach((chave, movimentacoes) -> resumoMensalService.registrar(chave.getUsuarioId(), movimentacoes.get(0).getData(), chave.getCategoria(), chave.getTipo(),
+				movimentacoes.stream().map(Movimentacao::getValor).reduce(BigDecimal.ZERO, BigDecimal::add), movimentacoes.size()));
+
+		//Atualiza os checkpoints de saldo com o efeito do lote somado por usuário e mês
+		Map<Long, Map<YearMonth, BigDecimal>> efeitos = new LinkedHashMap<>();
+		for (Movimentacao m : novas) {
+			efeitos.computeIfAbsent(m.getUsuario().getId(), id -> new TreeMap<>())
+					.merge(YearMonth.from(m.getData()), this.efeitoNoSaldo(m), BigDecimal::add);
+		}
+		efeitos.forEach(saldoMensalService::registrar);
+		efeitos.keySet().forEach(cacheSaldo::invalidarAposCommit);
+		efeitos.forEach((idUsuario, meses) -> cacheMeses.invalidarAposCommit(idUsuario, meses.keySet()));
+		novas.stream()
+				.collect(Collectors.groupingBy(m -> m.getUsuario().getId(), LinkedHashMap::new, Collectors.mapping(this::paraIndice, Collectors.toList())))
+				.forEach(indiceHistorico::adicionarAposCommit);
+
+		return new LoteResultadoDTO(novas.size(), dtos.size() - novas.size(), Arrays.asList(itens));
+	}
+
+	//Método que transfere um valor entre dois usuários: um débito na origem e um crédito no destino, gravados na mesma transação
+	//Os dois usuários são bloqueados juntos, em ordem de id (como na reconstrução do resumo): transferências em sentidos opostos (A→B e B→A) esperam uma pela outra, sem deadlock
+	@Transactional
+	public void transferir(TransferenciaDTO dto) {
+
+		if (dto.getIdOrigem() == null || dto.getIdDestino() == null) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Usuário não encontrado!");
+		}
+		if (dto.getIdOrigem().equals(dto.getIdDestino())) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A origem e o destino da transferência devem ser usuários diferentes");
+		}
+		if (dto.getValor() == null || dto.getValor().signum() <= 0) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "O valor da transferência deve ser maior que zero");
+		}
+		BigDecimal valor = validarValor(dto.getValor()); //As duas pernas são movimentações: mesmo limite de casas e dígitos
+
+		//Com as linhas bloqueadas o saldo lido da origem não muda até o commit
+		Map<Long, Usuario> usuarios = usuarioRepository.bloquearPorIds(List.of(dto.getIdOrigem(), dto.getIdDestino())).stream()
+				.collect(Collectors.toMap(Usuario::getId, Function.identity()));
+		Usuario origem = usuarios.get(dto.getIdOrigem());
+		Usuario destino = usuarios.get(dto.getIdDestino());
+		if (origem == null || destino == null) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Usuário não encontrado!");
+		}
+		if (origem.getSaldo().compareTo(valor) < 0) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Saldo insuficiente para esta operação");
+		}
+
+		//Os saldos mudam pelos mesmos UPDATEs das movimentações, que também incrementam a versão dos dois usuários
+		usuarioRepository.debitarSaldo(origem.getId(), valor);
+		usuarioRepository.ajustarSaldo(destino.getId(), valor);
+
+		LocalDate data = dto.getData() != null ? dto.getData() : LocalDate.now();
+		List<Movimentacao> pernas = List.of(
+				new Movimentacao(null, origem, TipoMovimentacao.DEBITO, valor, data, Categoria.TRANSFERENCIA),
+				new Movimentacao(null, destino, TipoMovimentacao.CREDITO, valor, data, Categoria.TRANSFERENCIA));
+		movimentacaoRepository.saveAll(pernas);
+
+		for (Movimentacao movimentacao : pernas) {
+			Long idUsuario = movimentacao.getUsuario().getId();
+			resumoMensalService.registrar(idUsuario, data, Categoria.TRANSFERENCIA, movimentacao.getTipoMovimentacao(), valor, 1);
+			saldoMensalService.registrar(idUsuario, Map.of(YearMonth.from(data), this.efeitoNoSaldo(movimentacao)));
+			cacheSaldo.invalidarAposCommit(idUsuario);
+			cacheMeses.invalidarAposCommit(idUsuario, Set.of(YearMonth.from(data)));
+			indiceHistorico.adicionarAposCommit(idUsuario, List.of(this.paraIndice(movimentacao)));
+		}
+	}
+
 	//Método para deletar uma movimentação
+	//Nenhuma entidade é carregada: busca só tipo, valor, data e categoria, apaga com um DELETE condicional e desfaz o efeito no saldo com um UPDATE atômico
+	@Transactional
 	public void deletarMovimentacao(Long idUsuario, Long idMovimentacao) {
-		
-	    Usuario usuario = this.validarUsuario(idUsuario);
 
-	    //Valida se o id da movimentação existe dentro do usuário expecífico e salva na variável
-	    Movimentacao movimentacao = this.validarMovimentacao(idMovimentacao, idUsuario);
+	    List<MovimentacaoExportacaoDTO> encontradas = movimentacaoRepository.buscarParaRemocao(idUsuario, List.of(idMovimentacao));
+	    if (encontradas.isEmpty()) {
+	    	this.validarUsuario(idUsuario); //Só consulta o usuário para diferenciar a mensagem de erro
+	    	throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Movimentação não encontrada ou não pertence a este usuário!");
+	    }
+	    MovimentacaoExportacaoDTO movimentacao = encontradas.get(0);
+
+		if (movimentacao.getTipoMovimentacao() == null) { //Movimentações antigas com tipo fora de "credito" e "debito" ficaram sem tipo na migração
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Tipo de movimentação inválido");
+		}
+
+	    //O DELETE bloqueia a linha: se outra requisição apagou a mesma movimentação nesse meio tempo, ele não apaga nada e o saldo não é ajustado duas vezes
+	    if (movimentacaoRepository.removerPorUsuario(idUsuario, List.of(idMovimentacao)) == 0) {
+	    	throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Movimentação não encontrada ou não pertence a este usuário!");
+	    }
+	    this.desfazerEfeito(idUsuario, encontradas);
+	}
+
+	//Método que deleta várias movimentações do mesmo usuário em uma única transação
+	//As movimentações são apagadas com um único DELETE e o efeito líquido delas no saldo é desfeito com um único UPDATE
+	@Transactional
+	public LoteResultadoDTO deletarMovimentacoes(Long idUsuario, List<Long> idsMovimentacoes) {
+
+		if (idsMovimentacoes == null || idsMovimentacoes.isEmpty()) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Informe ao menos uma movimentação para deletar");
+		}
+
+		Set<Long> ids = idsMovimentacoes.stream().filter(Objects::nonNull).collect(Collectors.toCollection(LinkedHashSet::new));
+		Map<Long, MovimentacaoExportacaoDTO> encontradas = ids.isEmpty() ? Map.of() : movimentacaoRepository.buscarParaRemocao(idUsuario, ids).stream()
+				.collect(Collectors.toMap(MovimentacaoExportacaoDTO::getId, Function.identity()));
+		if (encontradas.isEmpty()) {
+			this.validarUsuario(idUsuario);
+		}
+
+		//Resultado de cada id, na ordem da requisição: ids repetidos contam uma vez só
+		ItemLoteDTO[] itens = new ItemLoteDTO[idsMovimentacoes.size()];
+		List<MovimentacaoExportacaoDTO> removidas = new ArrayList<>();
+		Set<Long> vistos = new HashSet<>();
+		for (int i = 0; i < itens.length; i++) {
+			MovimentacaoExportacaoDTO movimentacao = encontradas.get(idsMovimentacoes.get(i));
+			if (movimentacao == null) {
+				itens[i] = new ItemLoteDTO(i, false, "Movimentação não encontrada ou não pertence a este usuário!");
+			} else if (!vistos.add(movimentacao.getId())) {
+				itens[i] = new ItemLoteDTO(i, false, "Movimentação repetida no lote");
+			} else if (movimentacao.getTipoMovimentacao() == null) {
+				itens[i] = new ItemLoteDTO(i, false, "Tipo de movimentação inválido");
+			} else {
+				removidas.add(movimentacao);
+				itens[i] = new ItemLoteDTO(i, true, null);
+			}
+		}
+
+		if (!removidas.isEmpty()) {
+			//Se outra requisição apagou alguma delas nesse meio tempo, o DELETE apaga menos linhas que o esperado e nada é gravado
+			List<Long> idsRemovidos = removidas.stream().map(MovimentacaoExportacaoDTO::getId).collect(Collectors.toList());
+			if (movimentacaoRepository.removerPorUsuario(idUsuario, idsRemovidos) != idsRemovidos.size()) {
+				throw new ResponseStatusException(HttpStatus.CONFLICT, "Movimentações alteradas por outra requisição, tente novamente");
+			}
+			this.desfazerEfeito(idUsuario, removidas);
+		}
 
-	    //Aqui ajusta o saldo do usuário quando deletar a movimentação: Caso for de "debito", credita o valor no saldo, caso for de "credito", debita o valor no saldo
+		return new LoteResultadoDTO(removidas.size(), itens.length - removidas.size(), Arrays.asList(itens));
+	}
 
-		String tipo = movimentacao.getTipoMovimentacao().toLowerCase();
+	//Desfaz o efeito das movimentações apagadas: um UPDATE no saldo com o efeito líquido, um no resumo mensal por mês, categoria e tipo e os checkpoints por mês
+	//Movimentações antigas sem data ou categoria nunca entraram no resumo nem nos checkpoints
+	private void desfazerEfeito(Long idUsuario, List<MovimentacaoExportacaoDTO> removidas) {
 
-		switch (tipo){
-			case "debito":
-				usuario.creditar(movimentacao.getValor());
-				break;
-			case "credito":
-				usuario.debitar(movimentacao.getValor());
-				break;
-			default:
-				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Tipo de movimentação inválido");
+		BigDecimal efeito = removidas.stream().map(m -> m.getTipoMovimentacao().efeito(m.getValor())).reduce(BigDecimal.ZERO, BigDecimal::add);
+		usuarioRepository.ajustarSaldo(idUsuario, efeito.negate());
+		cacheSaldo.invalidarAposCommit(idUsuario);
+		indiceHistorico.removerAposCommit(idUsuario, removidas);
+
+		List<MovimentacaoExportacaoDTO> resumidas = removidas.stream()
+				.filter(m -> m.getData() != null && m.getCategoria() != null)
+				.collect(Collectors.toList());
+		if (resumidas.isEmpty()) {
+			return;
 		}
 
-	    movimentacaoRepository.deleteById(idMovimentacao);
-	    //Remove da lista de movimentações do objeto Usuário para não haver uma falta de compatibilidade com o banco de dados
-	    usuario.getMovimentacoes().removeIf(m -> m.getId().equals(idMovimentacao)); 
-	    usuarioRepository.save(usuario);
+		Map<ResumoMensalId, List<MovimentacaoExportacaoDTO>> porResumo = resumidas.stream()
+				.collect(Collectors.groupingBy(m -> new ResumoMensalId(idUsuario, m.getData().getYear(), m.getData().getMonthValue(),
+						m.getCategoria(), m.getTipoMovimentacao()), LinkedHashMap::new, Collectors.toList()));
+		porResumo.forEach((chave, movimentacoes) -> resumoMensalService.registrar(idUsuario, movimentacoes.get(0).getData(), chave.getCategoria(), chave.getTipo(),
+				movimentacoes.stream().map(MovimentacaoExportacaoDTO::getValor).reduce(BigDecimal.ZERO, BigDecimal::add).negate(), -movimentacoes.size()));
+
+		Map<YearMonth, BigDecimal> efeitos = new TreeMap<>();
+		for (MovimentacaoExportacaoDTO m : resumidas) {
+			efeitos.merge(YearMonth.from(m.getData()), m.getTipoMovimentacao().efeito(m.getValor()).negate(), BigDecimal::add);
+		}
+		saldoMensalService.registrar(idUsuario, efeitos);
+		cacheMeses.invalidarAposCommit(idUsuario, efeitos.keySet());
 	}
 	
 	//Método que retorna as movimentações de um mês específico, recebendo o mês, o ano e o id do usuário
+	//As buscas por mês, por ano e personalizada não abrem transação: os meses fechados vêm do CacheMesesFechadosService, que consulta cada mês na própria transação
+	//Com o índice do histórico habilitado, as quatro buscas são respondidas por ele (IndiceHistoricoService), que também carrega o usuário na própria transação
 	public List<MovimentacaoDTO> buscarPorMes(int mes, int ano, Long idUsuario) {
 
 		//Verifica se o usuário é válido
-		Usuario usuario = this.validarUsuario(idUsuario);
+		this.validarUsuario(idUsuario);
 
 		if(mes <= 0 || mes > 12){// Valida o mês passado pelo usuário
 			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "O mês deve ser entre 1 (Janeiro) e 12 (Dezembro)");
@@ -108,11 +405,9 @@ public class MovimentacaoService {
 		//Data do fim da busca, pegando o ultimo dia do mês que especificamos na data de início
 		LocalDate fim = inicio.withDayOfMonth(inicio.lengthOfMonth());
 		
-		//Utilizamos a Query que fizemos no UsuarioRepository para fazer a busca no banco de dados
-		//É feito uma stream para mapear cada movimentação trazida da consulta do banco e transforma-las em DTO, depois coletar cada uma e retornar como uma lista de DTO
-		return movimentacaoRepository.findByUsuarioIdAndDataBetween(idUsuario, inicio, fim).stream()
-				.map(m -> new MovimentacaoDTO(m.getTipoMovimentacao(), m.getData(), m.getValor(), m.getCategoria(), m.getUsuario().getId()))
-				.collect(Collectors.toList());
+		//Mês fechado vem do cache; o mês corrente, da Query que fizemos no MovimentacaoRepository
+		//A própria consulta já monta os DTOs, então nenhuma entidade é carregada no contexto de persistência
+		return this.listarPeriodo(idUsuario, inicio, fim);
 		
 	}
 	
@@ -120,7 +415,7 @@ public class MovimentacaoService {
 	public List<MovimentacaoDTO> buscarPorAno(int ano, Long idUsuario) {
 
 		//Verifica se o usuário é válido
-		Usuario usuario = this.validarUsuario(idUsuario);
+		this.validarUsuario(idUsuario);
 
 		if(ano > LocalDate.now().getYear()){// Valida o ano passado pelo usuário
 			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "O ano não pode ser maior que o ano atual!");
@@ -131,10 +426,8 @@ public class MovimentacaoService {
 		//Data do fim, com o mês 12 e dia 31
 		LocalDate fim = LocalDate.of(ano, 12, 31);
 		
-		//Mesmo retorno do método acima, mudando apenas as datas para consulta no banco.
-		return movimentacaoRepository.findByUsuarioIdAndDataBetween(idUsuario, inicio, fim).stream()
-					.map(m -> new MovimentacaoDTO(m.getTipoMovimentacao(), m.getData(), m.getValor(), m.getCategoria(), m.getUsuario().getId()))
-					.collect(Collectors.toList());
+		//Mesmo retorno do método acima, mudando apenas as datas: os meses fechados do ano vêm do cache e o corrente do banco
+		return this.listarPeriodo(idUsuario, inicio, fim);
 		
 	}
 	
@@ -142,66 +435,179 @@ public class MovimentacaoService {
 	public List<MovimentacaoDTO> buscarPersonalizada(int anoIni, int anoFim, int mesIni, int mesFim, int diaIni, int diaFim, Long idUsuario) {
 
 		//Verifica se o usuário é válido
-		Usuario usuario = this.validarUsuario(idUsuario);
+		this.validarUsuario(idUsuario);
 
 		validarParametrosDeData(anoIni, anoFim, mesIni, mesFim, diaIni, diaFim);
 
 		LocalDate inicio = LocalDate.of(anoIni, mesIni, diaIni);
 		LocalDate fim = LocalDate.of(anoFim, mesFim, diaFim);
 		
-		return movimentacaoRepository.findByUsuarioIdAndDataBetween(idUsuario, inicio, fim).stream()
-				.map(m -> new MovimentacaoDTO(m.getTipoMovimentacao(), m.getData(), m.getValor(), m.getCategoria(), m.getUsuario().getId()))
-				.collect(Collectors.toList());
+		return this.listarPeriodo(idUsuario, inicio, fim);
 		
 	}
 	
 	//Método que retorna as movimentações por categoria de cada usuário
+	//Sem transação, como as buscas acima: a consulta (ou a carga do índice) abre a própria
 	public List<MovimentacaoDTO> buscarPorCategoria(Long idUsuario, Categoria categoria){
 
 		//Verifica se o usuário é válido
-		Usuario usuario = this.validarUsuario(idUsuario);
+		this.validarUsuario(idUsuario);
 
-		//Utilizamos a query que fizemos no UsuariorRepository
-		return movimentacaoRepository.findByUsuarioIdAndCategoria(idUsuario, categoria).stream()
-				.map(m -> new MovimentacaoDTO(m.getTipoMovimentacao(), m.getData(), m.getValor(), m.getCategoria(), m.getUsuario().getId()))
-				.collect(Collectors.toList());
+		if (indiceHistorico.isHabilitado()) {
+			return indiceHistorico.listar(idUsuario, categoria);
+		}
+		//Utilizamos a query que fizemos no MovimentacaoRepository
+		return movimentacaoRepository.listarPorUsuarioECategoria(idUsuario, categoria);
+	}
+
+	//Movimentações do período, do índice do histórico quando habilitado ou do cache dos meses fechados e do banco
+	private List<MovimentacaoDTO> listarPeriodo(Long idUsuario, LocalDate inicio, LocalDate fim) {
+		if (indiceHistorico.isHabilitado()) {
+			return indiceHistorico.listar(idUsuario, inicio, fim);
+		}
+		return cacheMeses.listar(idUsuario, inicio, fim);
 	}
 	
 	//Método que busca uma movimentação específica por sua id de cada usuário
+	@Transactional(readOnly = true)
 	public MovimentacaoDTO buscarPorId(Long idMovimentacao, Long idUsuario) {
 
 		//Verifica se o usuário é válido
-		Usuario usuario = this.validarUsuario(idUsuario);
-		Movimentacao movimentacao = this.validarMovimentacao(idMovimentacao, idUsuario);
+		this.validarUsuario(idUsuario);
 		
-		return new MovimentacaoDTO(
-				movimentacao.getTipoMovimentacao(), 
-				movimentacao.getData(), 
-				movimentacao.getValor(), 
-				movimentacao.getCategoria(), 
-				movimentacao.getUsuario().getId());
+		return movimentacaoRepository.buscarPorIdEUsuario(idMovimentacao, idUsuario)
+				.orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Movimentação não encontrada ou não pertence a este usuário!"));
 		
 	}
 	
-	//Método que retorna todas as movimentações de cada usuário
-	public List<MovimentacaoDTO> buscarPorIdUsuario(Long idUsuario) {
+	//Método que retorna o total de créditos e débitos do usuário por mês e por categoria dentro do período
+	//Os meses inteiros vêm do resumo mensal (uma linha por mês, categoria e tipo), só os meses cortados pelas datas são somados a partir das movimentações
+	@Transactional(readOnly = true)
+	public List<ResumoMovimentacaoDTO> resumir(Long idUsuario, LocalDate inicio, LocalDate fim) {
+
+		this.validarUsuario(idUsuario);
+
+		if (inicio.isAfter(fim)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A data inicial não pode ser maior que a data final!");
+		}
+
+		YearMonth mesInicial = YearMonth.from(inicio);
+		YearMonth mesFinal = YearMonth.from(fim);
+		boolean inicioCortado = inicio.getDayOfMonth() != 1;
+		boolean fimCortado = !fim.equals(mesFinal.atEndOfMonth());
+
+		//Período dentro de um único mês que não é o mês inteiro
+		if (mesInicial.equals(mesFinal) && (inicioCortado || fimCortado)) {
+			return movimentacaoRepository.resumirPorMesECategoria(idUsuario, inicio, fim);
+		}
+
+		List<ResumoMovimentacaoDTO> resumo = new ArrayList<>();
+		if (inicioCortado) {
+			resumo.addAll(movimentacaoRepository.resumirPorMesECategoria(idUsuario, inicio, mesInicial.atEndOfMonth()));
+			mesInicial = mesInicial.plusMonths(1);
+		}
+		if (fimCortado) {
+			mesFinal = mesFinal.minusMonths(1);
+		}
+		if (!mesInicial.isAfter(mesFinal)) {
+			resumo.addAll(resumoMensalRepository.resumirPorMesECategoria(idUsuario,
+					mesInicial.getYear() * 100 + mesInicial.getMonthValue(), mesFinal.getYear() * 100 + mesFinal.getMonthValue()));
+		}
+		if (fimCortado) {
+			resumo.addAll(movimentacaoRepository.resumirPorMesECategoria(idUsuario, fim.withDayOfMonth(1), fim));
+		}
+		return resumo;
+	}
+	
+	//Método que retorna as movimentações de cada usuário, uma página por vez
+	//A paginação é feita por cursor (data e id da última movimentação retornada), então o custo não cresce com o histórico do usuário
+	@Transactional(readOnly = true)
+	public PaginaMovimentacaoDTO buscarPorIdUsuario(Long idUsuario, String cursor, int tamanho) {
 		
-		Usuario usuario = this.validarUsuario(idUsuario);
+		this.validarUsuario(idUsuario);
+
+		if (tamanho < 1) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "O tamanho da página deve ser maior que 0!");
+		}
+		int tamanhoPagina = Math.min(tamanho, TAMANHO_MAXIMO_PAGINA);
+
+		//Busca um registro a mais para saber se existe uma próxima página
+		Limit limite = Limit.of(tamanhoPagina + 1);
+		List<Movimentacao> movimentacoes;
+		if (cursor == null || cursor.isBlank()) {
+			movimentacoes = movimentacaoRepository.buscarPrimeiraPagina(idUsuario, limite);
+		} else {
+			String[] partes = cursor.split("_");
+			LocalDate data;
+			Long id;
+			try {
+				data = LocalDate.parse(partes[0]);
+				id = Long.valueOf(partes[1]);
+			} catch (RuntimeException e) { //Cursor fora do formato data_id
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor inválido!");
+			}
+			movimentacoes = movimentacaoRepository.buscarPaginaApos(idUsuario, data, id, limite);
+		}
+
+		String nextCursor = null;
+		if (movimentacoes.size() > tamanhoPagina) {
+			movimentacoes = movimentacoes.subList(0, tamanhoPagina);
+			Movimentacao ultima = movimentacoes.get(tamanhoPagina - 1);
+			nextCursor = ultima.getData() + "_" + ultima.getId();
+		}
 		
-		return usuario.getMovimentacoes().stream()
+		return new PaginaMovimentacaoDTO(movimentacoes.stream()
 				.map(m -> new MovimentacaoDTO(m.getTipoMovimentacao(), m.getData(), m.getValor(), m.getCategoria(), m.getUsuario().getId()))
-				.collect(Collectors.toList());
+				.collect(Collectors.toList()), nextCursor);
+	}
+
+	//Versão das movimentações do usuário, usada na ETag das buscas (nulo quando o usuário não existe)
+	@Transactional(readOnly = true)
+	public Long buscarVersao(Long idUsuario) {
+		return usuarioRepository.buscarVersao(idUsuario).orElse(null);
+	}
+
+	//Valor da movimentação, com a mesma regra no método unitário, no lote e na fila do sequenciador
+	//Devolve o valor com 2 casas decimais, como ele volta da coluna: um valor que o banco arredondaria ou não conseguiria gravar é recusado antes
+	static BigDecimal validarValor(BigDecimal valor) {
+		if (valor == null || valor.signum() < 0) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Valor da movimentação inválido");
+		}
+		BigDecimal normalizado;
+		try {
+			normalizado = valor.setScale(CASAS_DECIMAIS_VALOR, RoundingMode.UNNECESSARY); //Zeros à direita (10.500) não contam como casa decimal
+		} catch (ArithmeticException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "O valor da movimentação deve ter no máximo 2 casas decimais");
+		}
+		if (normalizado.precision() > DIGITOS_VALOR) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "O valor da movimentação deve ter no máximo 13 dígitos antes da vírgula");
+		}
+		return normalizado;
 	}
 
-	private Usuario validarUsuario(Long idUsuario){
-		return usuarioRepository.findById(idUsuario).orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Usuário não encontrado!"));
+	//Efeito da movimentação no saldo: o valor para crédito e o valor negativo para débito
+	private BigDecimal efeitoNoSaldo(Movimentacao movimentacao) {
+		return movimentacao.getTipoMovimentacao().efeito(movimentacao.getValor());
 	}
 
-	private Movimentacao validarMovimentacao(Long idMovimentacao, Long idUsuario){
-		return movimentacaoRepository.findByIdAndUsuarioId(idMovimentacao, idUsuario).orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Movimentação não encontrada ou não pertence a este usuário!"));
+	//Movimentação gravada no formato aplicado no índice do histórico
+	private MovimentacaoExportacaoDTO paraIndice(Movimentacao movimentacao) {
+		return new MovimentacaoExportacaoDTO(movimentacao.getId(), movimentacao.getData(), movimentacao.getTipoMovimentacao(), movimentacao.getCategoria(), movimentacao.getValor());
+	}
+
+	//Valida apenas a existência do usuário, sem carregar a entidade
+	//Usuário com o histórico no índice não precisa de consulta: usuários não são apagados
+	private void validarUsuario(Long idUsuario){
+		if (indiceHistorico.contem(idUsuario)) {
+			return;
+		}
+		if (!usuarioRepository.existsById(idUsuario)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Usuário não encontrado!");
+		}
 	}
 
-	private void validarParametrosDeData(int anoIni, int anoFim, int mesIni, int mesFim, int diaIni, int diaFim) {
+	//Valida as datas da busca personalizada (visível no pacote para os benchmarks)
+	void validarParametrosDeData(int anoIni, int anoFim, int mesIni, int mesFim, int diaIni, int diaFim) {
 
 		if (mesIni < 1 || mesIni > 12) {
 			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "O mês inicial deve ser entre 1 e 12!");
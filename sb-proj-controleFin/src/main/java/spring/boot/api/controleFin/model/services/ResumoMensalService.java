@@ -0,0 +1,150 @@
+package spring.boot.api.controleFin.model.services;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import spring.boot.api.controleFin.model.dto.ReconstrucaoResumoDTO;
+import spring.boot.api.controleFin.model.entities.Categoria;
+import spring.boot.api.controleFin.model.entities.ResumoMensal;
+import spring.boot.api.controleFin.model.entities.ResumoMensalId;
+import spring.boot.api.controleFin.model.entities.TipoMovimentacao;
+import spring.boot.api.controleFin.model.entities.Usuario;
+import spring.boot.api.controleFin.model.repositories.ResumoMensalRepository;
+import spring.boot.api.controleFin.model.repositories.UsuarioRepository;
+
+@Service
+@Timed(value = "controlefin.servico", description = "Tempo dos métodos dos services")
+public class ResumoMensalService {
+
+	//Quantidade de usuários recalculados em cada transação da reconstrução
+	private static final int USUARIOS_POR_LOTE = 200;
+
+	//Quantidade de lotes recalculados ao mesmo tempo
+	private static final int LOTES_EM_PARALELO = 4;
+
+	@Autowired
+	ResumoMensalRepository resumoMensalRepository;
+
+	@Autowired
+	UsuarioRepository usuarioRepository;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@PersistenceContext
+	EntityManager entityManager;
+
+	//Soma o valor e a quantidade na linha do resumo do mês, categoria e tipo da movimentação
+	//Deve ser chamado na mesma transação e depois do UPDATE do saldo: a linha do usuário já está bloqueada, então duas transações nunca tentam criar a mesma linha ao mesmo tempo
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void registrar(Long idUsuario, LocalDate data, Categoria categoria, TipoMovimentacao tipo, BigDecimal valor, long quantidade) {
+
+		ResumoMensalId id = new ResumoMensalId(idUsuario, data.getYear(), data.getMonthValue(), categoria, tipo);
+
+		//Primeiro tenta somar na linha existente, só cria a linha quando o mês ainda não tinha movimentação desse tipo e categoria
+		if (resumoMensalRepository.somar(id, valor, quantidade) == 0) {
+			entityManager.persist(new ResumoMensal(id, valor, quantidade));
+		}
+	}
+
+	//Recalcula o resumo mensal de todos os usuários a partir das movimentações e corrige as linhas divergentes
+	//Os usuários são divididos em lotes, cada lote roda em paralelo na sua própria transação
+	public ReconstrucaoResumoDTO reconstruir() {
+
+		List<Long> ids = usuarioRepository.listarIds();
+
+		List<List<Long>> lotes = new ArrayList<>();
+		for (int i = 0; i < ids.size(); i += USUARIOS_POR_LOTE) {
+			lotes.add(ids.subList(i, Math.min(i + USUARIOS_POR_LOTE, ids.size())));
+		}
+
+		TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+		ExecutorService executor = Executors.newFixedThreadPool(LOTES_EM_PARALELO);
+		try {
+			List<Future<List<ResumoMensal>>> resultados = new ArrayList<>();
+			for (List<Long> lote : lotes) {
+				resultados.add(executor.submit(() -> transacao.execute(status -> this.reconstruirLote(lote))));
+			}
+
+			List<ResumoMensal> divergentes = new ArrayList<>();
+			for (Future<List<ResumoMensal>> resultado : resultados) {
+				divergentes.addAll(resultado.get());
+			}
+
+			List<Long> usuariosComDivergencia = divergentes.stream()
+					.map(r -> r.getId().getUsuarioId())
+					.distinct()
+					.sorted()
+					.collect(Collectors.toList());
+
+			return new ReconstrucaoResumoDTO(ids.size(), divergentes.size(), usuariosComDivergencia);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Reconstrução do resumo mensal interrompida", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Falha na reconstrução do resumo mensal", e.getCause());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	//Recalcula um lote de usuários e retorna as linhas do resumo que precisaram ser corrigidas
+	private List<ResumoMensal> reconstruirLote(List<Long> ids) {
+
+		//Bloqueia os usuários do lote: inclusões e exclusões desses usuários esperam o lote terminar, então o resumo não muda durante a comparação
+		List<Usuario> usuarios = usuarioRepository.bloquearPorIds(ids);
+
+		Map<ResumoMensalId, ResumoMensal> calculado = resumoMensalRepository.calcularPelasMovimentacoes(ids).stream()
+				.collect(Collectors.toMap(ResumoMensal::getId, Function.identity()));
+
+		List<ResumoMensal> divergentes = new ArrayList<>();
+
+		//Linhas gravadas: corrige as que estão diferentes e zera as que não existem mais nas movimentações
+		for (ResumoMensal gravado : resumoMensalRepository.buscarPorUsuarios(ids)) {
+			ResumoMensal certo = calculado.remove(gravado.getId());
+			BigDecimal total = certo == null ? BigDecimal.ZERO : certo.getTotal();
+			long quantidade = certo == null ? 0L : certo.getQuantidade();
+
+			if (gravado.getTotal().compareTo(total) != 0 || gravado.getQuantidade() != quantidade) {
+				gravado.setTotal(total);
+				gravado.setQuantidade(quantidade);
+				divergentes.add(gravado);
+			}
+		}
+
+		//O que sobrou no cálculo não tinha linha gravada
+		for (ResumoMensal faltando : calculado.values()) {
+			entityManager.persist(faltando);
+			divergentes.add(faltando);
+		}
+
+		//O resumo dos usuários corrigidos mudou: incrementa a versão para as buscas com ETag não responderem 304 com o resumo antigo
+		Set<Long> corrigidos = divergentes.stream().map(r -> r.getId().getUsuarioId()).collect(Collectors.toSet());
+		usuarios.stream()
+				.filter(u -> corrigidos.contains(u.getId()))
+				.forEach(u -> u.setVersao(u.getVersao() + 1));
+
+		return divergentes;
+	}
+
+}
@@ -0,0 +1,109 @@
+package spring.boot.api.controleFin.model.services;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import spring.boot.api.controleFin.model.entities.SaldoMensal;
+import spring.boot.api.controleFin.model.entities.SaldoMensalId;
+import spring.boot.api.controleFin.model.repositories.MovimentacaoRepository;
+import spring.boot.api.controleFin.model.repositories.SaldoMensalRepository;
+import spring.boot.api.controleFin.model.repositories.UsuarioRepository;
+
+@Service
+@Timed(value = "controlefin.servico", description = "Tempo dos métodos dos services")
+public class SaldoMensalService {
+
+	@Autowired
+	SaldoMensalRepository saldoMensalRepository;
+
+	@Autowired
+	MovimentacaoRepository movimentacaoRepository;
+
+	@Autowired
+	UsuarioRepository usuarioRepository;
+
+	@PersistenceContext
+	EntityManager entityManager;
+
+	//Aplica nos checkpoints o efeito das movimentações gravadas de um usuário, somado por mês (positivo para crédito, negativo para débito, invertido na exclusão)
+	//Deve ser chamado na mesma transação e depois do UPDATE do saldo do usuário, que já bloqueia a linha dele e já contém todos os efeitos passados
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void registrar(Long idUsuario, Map<YearMonth, BigDecimal> efeitos) {
+
+		//Efeitos que ainda não estão nos checkpoints (o saldo do usuário já contém todos)
+		BigDecimal pendente = efeitos.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+		BigDecimal saldoAtual = null;
+
+		for (Map.Entry<YearMonth, BigDecimal> efeito : efeitos.entrySet()) {
+			YearMonth mes = efeito.getKey();
+			BigDecimal valor = efeito.getValue();
+			SaldoMensalId id = new SaldoMensalId(idUsuario, mes.getYear(), mes.getMonthValue());
+
+			//O mês ainda não tinha checkpoint: o saldo no fim dele é o saldo que os checkpoints conhecem menos o movimento dos meses seguintes
+			if (saldoMensalRepository.somarNoMes(id, valor) == 0) {
+				if (saldoAtual == null) {
+					saldoAtual = usuarioRepository.buscarSaldo(idUsuario).orElseThrow();
+				}
+				BigDecimal saldoNoFimDoMes = saldoAtual.subtract(pendente).subtract(saldoMensalRepository.somarMovimentoApos(idUsuario, this.chave(mes)));
+				entityManager.persist(new SaldoMensal(id, saldoNoFimDoMes.add(valor), valor));
+			}
+
+			//Movimentação com data passada: os checkpoints dos meses seguintes também mudam (um UPDATE só)
+			saldoMensalRepository.somarNosMesesSeguintes(idUsuario, this.chave(mes), valor);
+			pendente = pendente.subtract(valor);
+		}
+	}
+
+	//Retorna o saldo do usuário no fim do dia passado
+	//Parte do último checkpoint até o mês da data e desconta só as movimentações desse mês depois da data
+	@Transactional(readOnly = true)
+	public BigDecimal saldoEm(Long idUsuario, LocalDate data) {
+
+		BigDecimal saldoAtual = usuarioRepository.buscarSaldo(idUsuario)
+				.orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Usuário não encontrado"));
+
+		YearMonth mesDaData = YearMonth.from(data);
+		int mes = this.chave(mesDaData);
+
+		List<SaldoMensal> anterior = saldoMensalRepository.buscarUltimoAte(idUsuario, mes, Limit.of(1));
+		if (!anterior.isEmpty()) {
+			SaldoMensal checkpoint = anterior.get(0);
+			if (checkpoint.getId().getAno() != data.getYear() || checkpoint.getId().getMes() != data.getMonthValue()) {
+				return checkpoint.getSaldo(); //Nenhuma movimentação entre o fim desse mês e a data
+			}
+			if (data.equals(mesDaData.atEndOfMonth())) {
+				return checkpoint.getSaldo();
+			}
+			return checkpoint.getSaldo().subtract(movimentacaoRepository.somarEfeitoNoPeriodo(idUsuario, data.plusDays(1), mesDaData.atEndOfMonth()));
+		}
+
+		//A data é anterior a todas as movimentações: o saldo é o do início do primeiro mês com movimentação
+		List<SaldoMensal> seguinte = saldoMensalRepository.buscarPrimeiroApos(idUsuario, mes, Limit.of(1));
+		if (!seguinte.isEmpty()) {
+			return seguinte.get(0).getSaldo().subtract(seguinte.get(0).getMovimento());
+		}
+
+		//Usuário sem movimentações
+		return saldoAtual;
+	}
+
+	//Ano e mês no formato aaaamm, usado nas comparações entre checkpoints
+	private int chave(YearMonth mes) {
+		return mes.getYear() * 100 + mes.getMonthValue();
+	}
+
+}
@@ -0,0 +1,223 @@
+package spring.boot.api.controleFin.model.services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import spring.boot.api.controleFin.config.ContadorHibernate;
+import spring.boot.api.controleFin.model.dto.ItemLoteDTO;
+import spring.boot.api.controleFin.model.dto.LoteResultadoDTO;
+import spring.boot.api.controleFin.model.dto.MovimentacaoDTO;
+import spring.boot.api.controleFin.model.entities.TipoMovimentacao;
+
+@Service
+@Timed(value = "controlefin.servico", description = "Tempo dos métodos dos services")
+public class SequenciadorMovimentacoesService {
+
+	/*
+	 * Fila de escrita das movimentações avulsas (POST /movimentacoes), com um único escritor por usuário.
+	 * Os usuários são divididos em faixas pelo id, cada faixa tem a sua fila e uma thread que grava os pedidos dela.
+	 * A thread pega tudo que estiver pendente na fila e grava os pedidos de cada usuário juntos, em uma transação com um único UPDATE do saldo
+	 * (MovimentacaoService.adicionarMovimentacoes): um usuário muito movimentado passa a bloquear a linha dele uma vez por lote, e não uma vez por movimentação.
+	 * Os pedidos de um usuário são aplicados na ordem em que entraram na fila, com as mesmas regras do método unitário.
+	 */
+
+	//Quantidade máxima de pedidos tirados da fila de uma vez
+	private static final int TAMANHO_MAXIMO_LOTE = 500;
+
+	//Intervalo em que a thread de cada faixa confere se a aplicação está parando
+	private static final Duration ESPERA_FILA = Duration.ofMillis(100);
+
+	@Value("${controlefin.sequenciador.habilitado:true}")
+	boolean habilitado;
+
+	@Value("${controlefin.sequenciador.faixas:16}")
+	int faixas;
+
+	@Value("${controlefin.sequenciador.capacidade:1000}")
+	int capacidade;
+
+	@Autowired
+	MovimentacaoService movimentacaoService;
+
+	@Autowired(required = false)
+	MeterRegistry registry;
+
+	private List<BlockingQueue<Pedido>> filas;
+
+	private List<Thread> escritores;
+
+	private DistributionSummary tamanhoLote;
+
+	private volatile boolean ativo;
+
+	//contadores: os da requisição que enviou o pedido (MetricasHibernateFilter), que recebem a parte dela nos comandos do lote
+	private record Pedido(MovimentacaoDTO dto, CompletableFuture<Void> resultado, ContadorHibernate.Contadores contadores) {
+	}
+
+	@PostConstruct
+	void iniciar() {
+		if (!habilitado) {
+			return;
+		}
+		ativo = true;
+		filas = new ArrayList<>();
+		escritores = new ArrayList<>();
+		for (int i = 0; i < faixas; i++) {
+			BlockingQueue<Pedido> fila = new LinkedBlockingQueue<>(capacidade);
+			filas.add(fila);
+			escritores.add(Thread.ofVirtual().name("sequenciador-movimentacoes-" + i).start(() -> this.escrever(fila)));
+		}
+		if (registry != null) {
+			Gauge.builder("controlefin.sequenciador.fila", filas, f -> f.stream().mapToInt(BlockingQueue::size).sum())
+					.description("Movimentações esperando para serem gravadas")
+					.register(registry);
+			tamanhoLote = DistributionSummary.builder("controlefin.sequenciador.lote")
+					.description("Movimentações do mesmo usuário gravadas em cada transação")
+					.publishPercentiles(0.5, 0.99)
+					.register(registry);
+		}
+	}
+
+	//Coloca a movimentação na fila do usuário; o futuro termina quando ela for gravada (ou com a ResponseStatusException que o método unitário lançaria)
+	//Com o sequenciador desligado a movimentação é gravada na hora, pelo método unitário
+	public CompletableFuture<Void> enviar(MovimentacaoDTO dto) {
+
+		if (!habilitado) {
+			movimentacaoService.adicionarMovimentacao(dto);
+			return CompletableFuture.completedFuture(null);
+		}
+
+		//Validações que não dependem do banco, com as mesmas mensagens do método unitário, antes de ocupar a fila
+		if (dto.getIdUsuario() == null) {
+			return CompletableFuture.failedFuture(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Usuário não encontrado!"));
+		}
+		try {
+			MovimentacaoService.validarValor(dto.getValor());
+		} catch (ResponseStatusException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+		if (dto.getData() == null) {
+			return CompletableFuture.failedFuture(new ResponseStatusException(HttpStatus.BAD_REQUEST, "A data da movimentação é obrigatória"));
+		}
+		if (dto.getCategoria() == null) {
+			return CompletableFuture.failedFuture(new ResponseStatusException(HttpStatus.BAD_REQUEST, "A categoria da movimentação é obrigatória"));
+		}
+		if (TipoMovimentacao.de(dto.getTipoMovimentacao()) == null) {
+			return CompletableFuture.failedFuture(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Tipo de movimentação inválido"));
+		}
+
+		Pedido pedido = new Pedido(dto, new CompletableFuture<>(), ContadorHibernate.atuais());
+		if (!ativo || !filas.get(Math.floorMod(Long.hashCode(dto.getIdUsuario()), faixas)).offer(pedido)) {
+			return CompletableFuture.failedFuture(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Fila de movimentações cheia, tente novamente"));
+		}
+		return pedido.resultado();
+	}
+
+	//Envia a movimentação e espera ela ser gravada, lançando a mesma exceção que o método unitário lançaria
+	//As requisições rodam em virtual threads, então a espera não prende uma thread do sistema
+	public void gravar(MovimentacaoDTO dto) {
+		try {
+			this.enviar(dto).join();
+		} catch (CompletionException e) {
+			throw e.getCause() instanceof RuntimeException causa ? causa : e;
+		}
+	}
+
+	//Laço da thread de cada faixa: espera o primeiro pedido, junta os outros que já estiverem na fila e grava por usuário
+	private void escrever(BlockingQueue<Pedido> fila) {
+		List<Pedido> pendentes = new ArrayList<>();
+		while (ativo) {
+			try {
+				Pedido primeiro = fila.poll(ESPERA_FILA.toMillis(), TimeUnit.MILLISECONDS);
+				if (primeiro == null) {
+					continue;
+				}
+				pendentes.add(primeiro);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			//Deixa rodar as requisições que acabaram de receber a resposta do lote anterior, para os próximos pedidos delas entrarem neste lote
+			Thread.yield();
+			fila.drainTo(pendentes, TAMANHO_MAXIMO_LOTE - 1);
+
+			try {
+				Map<Long, List<Pedido>> porUsuario = pendentes.stream()
+						.collect(Collectors.groupingBy(p -> p.dto().getIdUsuario(), LinkedHashMap::new, Collectors.toList()));
+				porUsuario.values().forEach(this::gravarLote);
+			} finally {
+				pendentes.clear();
+			}
+		}
+	}
+
+	//Grava os pedidos do usuário em uma transação e termina o futuro de cada um com o resultado dele
+	//Os comandos SQL do lote são repartidos entre as requisições dos pedidos antes de elas receberem a resposta
+	private void gravarLote(List<Pedido> pedidos) {
+		if (tamanhoLote != null) {
+			tamanhoLote.record(pedidos.size());
+		}
+		ContadorHibernate.Contadores doLote = new ContadorHibernate.Contadores();
+		ContadorHibernate.Contadores anteriores = ContadorHibernate.vincular(doLote);
+		try {
+			LoteResultadoDTO resultado;
+			try {
+				resultado = movimentacaoService.adicionarMovimentacoes(pedidos.stream().map(Pedido::dto).collect(Collectors.toList()));
+			} finally {
+				ContadorHibernate.vincular(anteriores);
+				doLote.repartirEntre(pedidos.stream().map(Pedido::contadores).filter(Objects::nonNull).toList());
+			}
+			for (ItemLoteDTO item : resultado.getItens()) {
+				CompletableFuture<Void> futuro = pedidos.get(item.getIndice()).resultado();
+				if (item.isAceito()) {
+					futuro.complete(null);
+				} else {
+					futuro.completeExceptionally(new ResponseStatusException(HttpStatus.BAD_REQUEST, item.getMotivo()));
+				}
+			}
+		} catch (Throwable e) { //A transação foi desfeita: nenhum pedido do lote foi gravado
+			//Também com um Error: quem espera no gravar() recebe a falha, e a thread da faixa continua atendendo a fila
+			//Os futuros que já tinham terminado com o resultado do item não mudam
+			pedidos.forEach(p -> p.resultado().completeExceptionally(e));
+		}
+	}
+
+	//Espera as threads terminarem o lote atual e recusa o que ainda estava na fila
+	@PreDestroy
+	void parar() throws InterruptedException {
+		if (!habilitado) {
+			return;
+		}
+		ativo = false;
+		for (Thread escritor : escritores) {
+			escritor.join();
+		}
+		List<Pedido> restantes = new ArrayList<>();
+		filas.forEach(fila -> fila.drainTo(restantes));
+		restantes.forEach(p -> p.resultado().completeExceptionally(
+				new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Aplicação em desligamento, tente novamente")));
+	}
+
+}
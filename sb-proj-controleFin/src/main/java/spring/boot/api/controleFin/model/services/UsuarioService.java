@@ -1,24 +1,53 @@
 package spring.boot.api.controleFin.model.services;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.annotation.Timed;
+
 import spring.boot.api.controleFin.model.dto.UsuarioDTO;
 import spring.boot.api.controleFin.model.entities.Usuario;
 import spring.boot.api.controleFin.model.repositories.UsuarioRepository;
 
 @Service
+@Timed(value = "controlefin.servico", description = "Tempo dos métodos dos services")
 public class UsuarioService {
 
+	//Limite de usuários por página na listagem
+	private static final int TAMANHO_MAXIMO_PAGINA = 100;
+
+	//Campos aceitos para ordenar a listagem
+	private static final Set<String> CAMPOS_ORDENACAO = Set.of("nome", "doc", "saldo");
+
 	@Autowired
 	UsuarioRepository repository;
 
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@Autowired
+	SaldoMensalService saldoMensalService;
+
+	@Autowired
+	CacheSaldoService cacheSaldo;
+
 	//Método para criar um usuário
 	public UsuarioDTO criarUsuario(UsuarioDTO dto) {
 		
@@ -35,18 +64,51 @@ public class UsuarioService {
 		return new UsuarioDTO(usuario.getNome(), usuario.getDoc(), usuario.getSaldo());
 	}
 	
-	//Método para fazer uma busca dos usuários cadastrados
-	public List<UsuarioDTO> getUsuarios() {
-	    return repository.findAll().stream()
-	            .map(u -> new UsuarioDTO(u.getNome(), u.getDoc(), u.getSaldo()))
-	            .collect(Collectors.toList());
+	//Método para fazer uma busca paginada dos usuários cadastrados
+	//A consulta já retorna o DTO, sem carregar as entidades, e o tamanho da página é limitado
+	public List<UsuarioDTO> getUsuarios(int pagina, int tamanho, String ordenarPor, String direcao) {
+
+		if (pagina < 0) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A página não pode ser negativa!");
+		}
+		if (tamanho < 1) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "O tamanho da página deve ser maior que 0!");
+		}
+		if (!CAMPOS_ORDENACAO.contains(ordenarPor)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Campo de ordenação inválido! Use: nome, doc ou saldo");
+		}
+
+		Sort.Direction sentido = Sort.Direction.fromOptionalString(direcao)
+				.orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Direção de ordenação inválida! Use: asc ou desc"));
+
+		//O id desempata a ordenação para que as páginas não repitam nem pulem usuários
+		Sort ordem = Sort.by(sentido, ordenarPor).and(Sort.by("id"));
+
+		return repository.listarUsuarios(PageRequest.of(pagina, Math.min(tamanho, TAMANHO_MAXIMO_PAGINA), ordem)).getContent();
+	}
+
+	//Método que escreve todos os usuários em JSON direto na saída, um por vez, para exportações administrativas
+	@Transactional(readOnly = true)
+	public void exportarUsuarios(OutputStream saida) throws IOException {
+		try (Stream<UsuarioDTO> usuarios = repository.exportarUsuarios();
+				JsonGenerator gerador = objectMapper.getFactory().createGenerator(saida)) {
+			gerador.writeStartArray();
+			for (Iterator<UsuarioDTO> it = usuarios.iterator(); it.hasNext();) {
+				gerador.writeObject(it.next());
+			}
+			gerador.writeEndArray();
+		}
 	}
 	
 	//Método que retorna o saldo de um usuário expecífico
+	//Passa pelo cache de saldos, que é invalidado a cada movimentação gravada ou excluída
 	public BigDecimal getSaldo(Long id) {
-		Usuario usuario = repository.findById(id)
-				.orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Usuário não encontrado"));
-		
-		return usuario.getSaldo();
+		return cacheSaldo.buscar(id, () -> repository.buscarSaldo(id)
+				.orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Usuário não encontrado")));
+	}
+
+	//Método que retorna o saldo do usuário no fim do dia passado, calculado a partir dos checkpoints mensais
+	public BigDecimal getSaldo(Long id, LocalDate data) {
+		return saldoMensalService.saldoEm(id, data);
 	}
 }
@@ -0,0 +1,9 @@
+-- Iguala à V1 as colunas dos bancos que receberam o baseline, antes das migrations que dependem delas (a V6 converte tipo_movimentacao).
+-- Nesses bancos o schema veio do ddl-auto do Hibernate no MySQL, que cria um @Enumerated(STRING) como ENUM com as constantes da época:
+-- categoria ficava como ENUM('ALIMENTACAO', ...), e uma categoria nova só seria aceita nos bancos criados pela V1.
+-- Nos bancos criados pela V1 as colunas já são VARCHAR(255) e nada muda.
+-- A V1 reproduz as tabelas que o Hibernate gerava, mas não o tipo exato dessas duas colunas no MySQL; o arquivo dela não muda para não alterar o checksum nos bancos criados por ela.
+
+ALTER TABLE movimentacoes MODIFY categoria VARCHAR(255);
+
+ALTER TABLE movimentacoes MODIFY tipo_movimentacao VARCHAR(255);
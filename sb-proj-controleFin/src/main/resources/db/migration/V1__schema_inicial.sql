@@ -0,0 +1,21 @@
+-- Schema criado até então pelo ddl-auto do Hibernate.
+-- Bancos que já existiam recebem o baseline nesta versão (spring.flyway.baseline-on-migrate) e seguem a partir da V2.
+
+CREATE TABLE usuarios (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    nome VARCHAR(50),
+    doc VARCHAR(11),
+    saldo DECIMAL(38, 2),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE movimentacoes (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    usuario_id BIGINT,
+    tipo_movimentacao VARCHAR(255),
+    valor DECIMAL(38, 2),
+    data DATE,
+    categoria VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_movimentacoes_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id)
+);
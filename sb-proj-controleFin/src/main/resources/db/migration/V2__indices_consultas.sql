@@ -0,0 +1,10 @@
+-- Índices para os formatos de consulta do MovimentacaoRepository e do UsuarioRepository.
+
+-- Busca por período (busca-por-mes, busca-por-ano, busca-personalizada) e paginação por cursor (data, id)
+CREATE INDEX idx_movimentacoes_usuario_data ON movimentacoes (usuario_id, data, id);
+
+-- Busca por categoria, já ordenada por data
+CREATE INDEX idx_movimentacoes_usuario_categoria ON movimentacoes (usuario_id, categoria, data);
+
+-- Documento único por usuário (usado também pelo existsByDoc)
+CREATE UNIQUE INDEX uk_usuarios_doc ON usuarios (doc);
@@ -0,0 +1,21 @@
+-- Resumo mensal das movimentações por usuário, categoria e tipo, mantido a cada inclusão e exclusão.
+
+CREATE TABLE resumo_mensal (
+    usuario_id BIGINT NOT NULL,
+    ano INT NOT NULL,
+    mes INT NOT NULL,
+    categoria VARCHAR(255) NOT NULL,
+    tipo VARCHAR(10) NOT NULL,
+    total DECIMAL(38, 2) NOT NULL,
+    quantidade BIGINT NOT NULL,
+    PRIMARY KEY (usuario_id, ano, mes, categoria, tipo),
+    CONSTRAINT fk_resumo_mensal_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id)
+);
+
+-- Carga inicial a partir das movimentações já existentes
+INSERT INTO resumo_mensal (usuario_id, ano, mes, categoria, tipo, total, quantidade)
+SELECT usuario_id, YEAR(data), MONTH(data), categoria, LOWER(tipo_movimentacao), SUM(valor), COUNT(*)
+FROM movimentacoes
+WHERE usuario_id IS NOT NULL AND data IS NOT NULL AND categoria IS NOT NULL
+  AND LOWER(tipo_movimentacao) IN ('credito', 'debito')
+GROUP BY usuario_id, YEAR(data), MONTH(data), categoria, LOWER(tipo_movimentacao);
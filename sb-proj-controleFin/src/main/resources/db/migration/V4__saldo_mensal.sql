@@ -0,0 +1,22 @@
+-- Checkpoint do saldo de cada usuário no fim de cada mês com movimentação, usado para consultar o saldo em uma data passada.
+
+CREATE TABLE saldo_mensal (
+    usuario_id BIGINT NOT NULL,
+    ano INT NOT NULL,
+    mes INT NOT NULL,
+    saldo DECIMAL(38, 2) NOT NULL,
+    movimento DECIMAL(38, 2) NOT NULL,
+    PRIMARY KEY (usuario_id, ano, mes),
+    CONSTRAINT fk_saldo_mensal_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id)
+);
+
+-- Carga inicial a partir do resumo mensal: o saldo no fim do mês é o saldo atual menos o movimento dos meses seguintes
+INSERT INTO saldo_mensal (usuario_id, ano, mes, saldo, movimento)
+SELECT r.usuario_id, r.ano, r.mes,
+       u.saldo - COALESCE((SELECT SUM(CASE WHEN p.tipo = 'credito' THEN p.total ELSE -p.total END)
+                           FROM resumo_mensal p
+                           WHERE p.usuario_id = r.usuario_id AND p.ano * 100 + p.mes > r.ano * 100 + r.mes), 0),
+       SUM(CASE WHEN r.tipo = 'credito' THEN r.total ELSE -r.total END)
+FROM resumo_mensal r
+JOIN usuarios u ON u.id = r.usuario_id
+GROUP BY r.usuario_id, r.ano, r.mes, u.saldo;
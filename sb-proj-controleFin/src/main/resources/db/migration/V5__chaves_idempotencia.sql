@@ -0,0 +1,13 @@
+-- Chaves de idempotência do POST /movimentacoes: cada linha é uma requisição já aplicada, guardada até expirar.
+-- Sem chave estrangeira para usuarios: a chave é gravada antes da validação do usuário, e uma requisição recusada desfaz a linha junto.
+
+CREATE TABLE chaves_idempotencia (
+    usuario_id BIGINT NOT NULL,
+    chave VARCHAR(100) NOT NULL,
+    hash_requisicao VARCHAR(64) NOT NULL,
+    criado_em TIMESTAMP NOT NULL,
+    PRIMARY KEY (usuario_id, chave)
+);
+
+-- Limpeza das chaves expiradas
+CREATE INDEX idx_chaves_idempotencia_criado_em ON chaves_idempotencia (criado_em);
@@ -0,0 +1,17 @@
+-- Tipo da movimentação como um caractere ('C' crédito, 'D' débito) no lugar do texto livre, e valor com a precisão que a aplicação usa.
+-- Movimentações antigas com tipo fora de "credito" e "debito" (sem diferenciar maiúsculas) ficam com tipo nulo: já eram recusadas na exclusão e nunca entraram no resumo mensal.
+-- DECIMAL(15, 2) vai até 9.999.999.999.999,99 e ocupa 7 bytes no MySQL, contra 17 do DECIMAL(38, 2).
+
+ALTER TABLE movimentacoes ADD COLUMN tipo CHAR(1);
+
+UPDATE movimentacoes
+SET tipo = CASE LOWER(tipo_movimentacao) WHEN 'credito' THEN 'C' WHEN 'debito' THEN 'D' END;
+
+ALTER TABLE movimentacoes DROP COLUMN tipo_movimentacao;
+
+ALTER TABLE movimentacoes MODIFY valor DECIMAL(15, 2);
+
+-- O resumo mensal já só tinha "credito" e "debito" em minúsculas
+UPDATE resumo_mensal SET tipo = CASE tipo WHEN 'credito' THEN 'C' ELSE 'D' END;
+
+ALTER TABLE resumo_mensal MODIFY tipo CHAR(1) NOT NULL;
@@ -0,0 +1,13 @@
+-- Ids de usuarios e movimentacoes gerados pelo Hibernate a partir desta tabela (TableGenerator com otimizador pooled), e não mais pelo AUTO_INCREMENT.
+-- Com IDENTITY cada insert ia sozinho ao banco para devolver o id; com os ids reservados em blocos os inserts entram nos lotes JDBC (hibernate.jdbc.batch_size).
+-- O Hibernate guarda o último valor usado e reserva os ids de (valor - 48) a (valor + 1) a cada leitura, em blocos de 50 (o allocationSize das entidades):
+-- a carga com o maior id existente + 49 faz o primeiro bloco começar logo depois dele.
+
+CREATE TABLE sequencias (
+    nome VARCHAR(255) NOT NULL,
+    valor BIGINT,
+    PRIMARY KEY (nome)
+);
+
+INSERT INTO sequencias (nome, valor) SELECT 'usuarios', COALESCE(MAX(id), 0) + 49 FROM usuarios;
+INSERT INTO sequencias (nome, valor) SELECT 'movimentacoes', COALESCE(MAX(id), 0) + 49 FROM movimentacoes;
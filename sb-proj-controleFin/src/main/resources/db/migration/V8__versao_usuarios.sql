@@ -0,0 +1,4 @@
+-- Versão das movimentações de cada usuário: incrementada no mesmo UPDATE que altera o saldo, a cada inclusão ou exclusão de movimentação.
+-- As buscas de movimentações usam a versão na ETag e respondem 304 sem consultar as movimentações quando ela não mudou.
+
+ALTER TABLE usuarios ADD COLUMN versao BIGINT NOT NULL DEFAULT 0;
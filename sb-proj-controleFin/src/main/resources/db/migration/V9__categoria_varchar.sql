@@ -0,0 +1,5 @@
+-- Categoria das movimentações como texto, igual à V1, também nos bancos que receberam o baseline.
+-- Nesses bancos a coluna veio do ddl-auto do Hibernate no MySQL, que cria um @Enumerated(STRING) como ENUM('ALIMENTACAO', ...) com as categorias de então:
+-- uma categoria nova (TRANSFERENCIA) era recusada pelo banco ("Data truncated for column 'categoria'"). Nos bancos criados pela V1 nada muda.
+
+ALTER TABLE movimentacoes MODIFY categoria VARCHAR(255);
@@ -0,0 +1,139 @@
+package spring.boot.api.controleFin.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import spring.boot.api.controleFin.model.dto.MovimentacaoDTO;
+import spring.boot.api.controleFin.model.entities.Categoria;
+import spring.boot.api.controleFin.model.entities.Usuario;
+import spring.boot.api.controleFin.model.repositories.UsuarioRepository;
+import spring.boot.api.controleFin.model.services.MovimentacaoService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+@DirtiesContext
+class MetricasIntegrationTest {
+
+    private static final String URI = "/controle-fin/movimentacoes/busca-por-mes";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private MovimentacaoService movimentacaoService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @DisplayName("Deve registrar latência, chamadas de repositório, linhas e comandos do Hibernate da busca por mês e expor no formato do Prometheus")
+    void deveRegistrarMetricasDaBuscaPorMes() throws Exception {
+        Long idUsuario = usuarioRepository.save(new Usuario("Maria", "12345678900", new BigDecimal("100.00"))).getId();
+        movimentacaoService.adicionarMovimentacao(new MovimentacaoDTO("credito", LocalDate.parse("2024-04-20"), new BigDecimal("10.00"), Categoria.SALARIO, idUsuario));
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get(URI)
+                            .param("mes", "4")
+                            .param("ano", "2024")
+                            .param("id", idUsuario.toString()))
+                    .andExpect(status().isOk());
+        }
+
+        Assertions.assertEquals(2, registry.get("http.server.requests").tag("uri", URI).timer().count());
+        Assertions.assertEquals(2, registry.get("controlefin.servico")
+                .tag("class", MovimentacaoService.class.getName()).tag("method", "buscarPorMes").timer().count());
+        //Abril de 2024 é um mês encerrado: a segunda requisição recebe o mês do cache, sem consultar as movimentações
+        Assertions.assertEquals(1, registry.get("spring.data.repository.invocations")
+                .tag("repository", "MovimentacaoRepository").tag("method", "listarPorUsuarioEPeriodo").timer().count());
+        Assertions.assertEquals(1, registry.get("cache.gets").tag("cache", "meses-fechados").tag("result", "hit").functionCounter().count());
+
+        //Uma movimentação no mês: uma linha na consulta
+        DistributionSummary linhas = registry.get("controlefin.repositorio.linhas")
+                .tag("repository", "MovimentacaoRepository").tag("method", "listarPorUsuarioEPeriodo").summary();
+        Assertions.assertEquals(1, linhas.count());
+        Assertions.assertEquals(1, linhas.totalAmount());
+
+        //Cada requisição lê a versão do usuário para a ETag e faz o existsById; só a primeira faz a consulta do mês. Nenhuma carrega entidades
+        DistributionSummary comandos = registry.get("controlefin.requisicao.hibernate.comandos").tag("uri", URI).summary();
+        Assertions.assertEquals(2, comandos.count());
+        Assertions.assertEquals(5, comandos.totalAmount());
+        Assertions.assertEquals(0, registry.get("controlefin.requisicao.hibernate.entidades").tag("uri", URI).summary().totalAmount());
+        Assertions.assertEquals(0, registry.get("controlefin.requisicao.hibernate.colecoes").tag("uri", URI).summary().totalAmount());
+
+        Assertions.assertNotNull(registry.get("hibernate.statements").functionCounter());
+        Assertions.assertNotNull(registry.get("hikaricp.connections.active").gauge());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("uri=\"" + URI + "\",quantile=\"0.999\"")))
+                .andExpect(content().string(containsString("controlefin_repositorio_linhas_count")))
+                .andExpect(content().string(containsString("controlefin_requisicao_hibernate_comandos_sum")))
+                .andExpect(content().string(containsString("hikaricp_connections_pending")))
+                .andExpect(content().string(containsString("hibernate_statements_total")));
+    }
+
+    @Test
+    @DisplayName("Deve contar no POST /movimentacoes os comandos SQL que o sequenciador executa na thread dele para gravar a movimentação")
+    void deveContarComandosDoSequenciadorNoPost() throws Exception {
+        Long idUsuario = usuarioRepository.save(new Usuario("Joao", "98765432100", new BigDecimal("100.00"))).getId();
+
+        mockMvc.perform(post("/controle-fin/movimentacoes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new MovimentacaoDTO(
+                                "credito", LocalDate.parse("2024-04-20"), new BigDecimal("10.00"), Categoria.SALARIO, idUsuario))))
+                .andExpect(status().isOk());
+
+        DistributionSummary comandos = registry.get("controlefin.requisicao.hibernate.comandos")
+                .tag("method", "POST").tag("uri", "/controle-fin/movimentacoes").summary();
+        Assertions.assertEquals(1, comandos.count());
+        Assertions.assertTrue(comandos.totalAmount() > 0, "Comandos do POST: " + comandos.totalAmount());
+    }
+
+    @Test
+    @DisplayName("Deve contar na exportação os comandos SQL do corpo da resposta, que roda em outra thread depois do filtro")
+    void deveContarComandosDoCorpoAssincrono() throws Exception {
+        Long idUsuario = usuarioRepository.save(new Usuario("Ana", "11122233344", new BigDecimal("100.00"))).getId();
+
+        MvcResult resultado = mockMvc.perform(get("/controle-fin/movimentacoes/export").param("id", idUsuario.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(resultado)).andExpect(status().isOk());
+
+        //O existsById da validação, na thread da requisição, e a consulta da exportação, na thread do corpo
+        DistributionSummary comandos = registry.get("controlefin.requisicao.hibernate.comandos")
+                .tag("method", "GET").tag("uri", "/controle-fin/movimentacoes/export").summary();
+        Assertions.assertEquals(1, comandos.count());
+        Assertions.assertEquals(2, comandos.totalAmount());
+    }
+}
@@ -0,0 +1,75 @@
+package spring.boot.api.controleFin.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring.boot.api.controleFin.model.entities.Usuario;
+import spring.boot.api.controleFin.model.repositories.UsuarioRepository;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// O teste segura uma das duas conexões do pool principal e a transação fica com a outra: a reserva dos blocos de ids tem que vir do pool de reserva
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.connection-timeout=1000",
+        "controlefin.sequenciador.habilitado=false"})
+@ActiveProfiles("test")
+@DirtiesContext
+class PoolReservaIdsTest {
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PoolReservaIds poolReservaIds;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    @DisplayName("Deve reservar os blocos de ids pelo pool de reserva enquanto a transação ocupa a única conexão do pool principal, " +
+            "e publicar as métricas do pool de reserva")
+    void blocosDeIdsPeloPoolDeReserva() throws SQLException {
+        List<Usuario> salvos;
+        try (Connection presa = dataSource.getConnection()) {
+            salvos = new TransactionTemplate(transactionManager).execute(status -> {
+                List<Usuario> usuarios = new ArrayList<>();
+                for (int i = 0; i < 120; i++) { // 3 blocos de 50
+                    usuarios.add(new Usuario("Usuario " + i, String.format("%011d", i), new BigDecimal("10.00")));
+                }
+                return usuarioRepository.saveAll(usuarios);
+            });
+        }
+
+        Set<Long> ids = new HashSet<>();
+        salvos.forEach(u -> ids.add(u.getId()));
+        Assertions.assertEquals(120, ids.size());
+        Assertions.assertEquals(120, usuarioRepository.count());
+
+        String nomeReserva = ((HikariDataSource) poolReservaIds.getDataSource()).getPoolName();
+        Assertions.assertTrue(nomeReserva.endsWith("-reserva"));
+        Assertions.assertEquals(4.0, registry.get("hikaricp.connections.max").tag("pool", nomeReserva).gauge().value());
+        Assertions.assertTrue(registry.get("hikaricp.connections.acquire").tag("pool", nomeReserva).timer().count() >= 3);
+    }
+}
@@ -0,0 +1,117 @@
+package spring.boot.api.controleFin.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import spring.boot.api.controleFin.model.dto.MovimentacaoDTO;
+import spring.boot.api.controleFin.model.entities.Categoria;
+import spring.boot.api.controleFin.model.entities.Usuario;
+import spring.boot.api.controleFin.model.repositories.MovimentacaoRepository;
+import spring.boot.api.controleFin.model.repositories.UsuarioRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "controlefin.indice.habilitado=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class IndiceHistoricoIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private MovimentacaoRepository movimentacaoRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("Deve responder as buscas pelo índice do histórico, sem consultar as movimentações, e mostrar as gravadas e apagadas depois da carga")
+    void deveBuscarPeloIndice() throws Exception {
+        Usuario maria = usuarioRepository.save(new Usuario("Maria", "12345678900", new BigDecimal("100.00")));
+        mockMvc.perform(post("/controle-fin/movimentacoes/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(
+                                new MovimentacaoDTO("credito", LocalDate.parse("2024-04-20"), new BigDecimal("50.00"), Categoria.SALARIO, maria.getId()),
+                                new MovimentacaoDTO("debito", LocalDate.parse("2024-04-02"), new BigDecimal("30.00"), Categoria.CASA, maria.getId()),
+                                new MovimentacaoDTO("debito", LocalDate.parse("2024-05-02"), new BigDecimal("10.00"), Categoria.CASA, maria.getId())))))
+                .andExpect(status().isOk());
+
+        // A primeira busca carrega o histórico; nas seguintes só a versão do usuário (ETag) é consultada
+        mockMvc.perform(get("/controle-fin/movimentacoes/busca-por-mes")
+                        .param("mes", "4").param("ano", "2024").param("id", maria.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estatisticas.clear();
+        mockMvc.perform(get("/controle-fin/movimentacoes/busca-por-ano")
+                        .param("ano", "2024").param("id", maria.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].data").value("2024-04-02"))
+                .andExpect(jsonPath("$[1].valor").value(50.00))
+                .andExpect(jsonPath("$[1].tipoMovimentacao").value("credito"))
+                .andExpect(jsonPath("$[2].categoria").value("CASA"));
+        mockMvc.perform(get("/controle-fin/movimentacoes/busca-por-categoria")
+                        .param("categoria", "CASA").param("id", maria.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].data").value("2024-05-02"));
+        assertEquals(2, estatisticas.getQueryExecutionCount());
+
+        mockMvc.perform(post("/controle-fin/movimentacoes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new MovimentacaoDTO(
+                                "debito", LocalDate.parse("2024-04-25"), new BigDecimal("5.00"), Categoria.CASA, maria.getId()))))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/controle-fin/movimentacoes/busca-por-categoria")
+                        .param("categoria", "CASA").param("id", maria.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[1].data").value("2024-04-25"));
+
+        Long idCredito = movimentacaoRepository.buscarPrimeiraPagina(maria.getId(), Limit.of(10)).get(1).getId();
+        mockMvc.perform(delete("/controle-fin/movimentacoes/lote")
+                        .param("idUsuario", maria.getId().toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(idCredito))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.aceitas").value(1));
+        mockMvc.perform(get("/controle-fin/movimentacoes/busca-personalizada")
+                        .param("anoIni", "2024").param("mesIni", "4").param("diaIni", "1")
+                        .param("anoFim", "2024").param("mesFim", "4").param("diaFim", "30")
+                        .param("id", maria.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].data").value("2024-04-02"))
+                .andExpect(jsonPath("$[1].data").value("2024-04-25"));
+    }
+
+}
@@ -0,0 +1,578 @@
+package spring.boot.api.controleFin.controllers;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.UnknownFieldSet;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import spring.boot.api.controleFin.config.FormatosRespostaConfig;
+import spring.boot.api.controleFin.config.ProtobufMovimentacaoHttpMessageConverter;
+import spring.boot.api.controleFin.model.dto.MovimentacaoDTO;
+import spring.boot.api.controleFin.model.dto.TransferenciaDTO;
+import spring.boot.api.controleFin.model.entities.Categoria;
+import spring.boot.api.controleFin.model.entities.Usuario;
+import spring.boot.api.controleFin.model.repositories.MovimentacaoRepository;
+import spring.boot.api.controleFin.model.repositories.UsuarioRepository;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class MovimentacaoControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private MovimentacaoRepository movimentacaoRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("Deve gravar um lote e retornar as movimentações do mês ordenadas por data")
+    void deveBuscarPorMes() throws Exception {
+        Usuario maria = usuarioRepository.save(new Usuario("Maria", "12345678900", new BigDecimal("100.00")));
+
+        List<MovimentacaoDTO> lote = List.of(
+                new MovimentacaoDTO("credito", LocalDate.parse("2024-04-20"), new BigDecimal("50.00"), Categoria.SALARIO, maria.getId()),
+                new MovimentacaoDTO("debito", LocalDate.parse("2024-04-02"), new BigDecimal("30.00"), Categoria.CASA, maria.getId()),
+                new MovimentacaoDTO("debito", LocalDate.parse("2024-05-02"), new BigDecimal("10.00"), Categoria.LAZER, maria.getId()));
+
+        mockMvc.perform(post("/controle-fin/movimentacoes/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(lote)))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.aceitas").value(3));
+
+        mockMvc.perform(get("/controle-fin/movimentacoes/busca-por-mes")
+                        .param("mes", "4")
+                        .param("ano", "2024")
+                        .param("id", maria.getId().toString()))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].data").value("2024-04-02"))
+                .andExpect(jsonPath("$[0].idUsuario").value(maria.getId()))
+                .andExpect(jsonPath("$[1].tipoMovimentacao").value("credito"));
+
+        mockMvc.perform(get("/controle-fin/usuario/saldo")
+                        .param("id", maria.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value(110.00));
+    }
+
+    @Test
+    @DisplayName("Deve retornar os totais de crédito e débito agrupados por mês e categoria")
+    void deveResumirPorMesECategoria() throws Exception {
+        Usuario maria = usuarioRepository.save(new Usuario("Maria", "12345678900", new BigDecimal("1000.00")));
+
+        List<MovimentacaoDTO> lote = List.of(
+                new MovimentacaoDTO("credito", LocalDate.parse("2024-01-05"), new BigDecimal("500.00"), Categoria.SALARIO, maria.getId()),
+                new MovimentacaoDTO("debito", LocalDate.parse("2024-01-10"), new BigDecimal("30.00"), Categoria.CASA, maria.getId()),
+                new MovimentacaoDTO("Debito", LocalDate.parse("2024-01-20"), new BigDecimal("20.00"), Categoria.CASA, maria.getId()),
+                new MovimentacaoDTO("debito", LocalDate.parse("2024-02-02"), new BigDecimal("10.00"), Categoria.LAZER, maria.getId()),
+                new MovimentacaoDTO("debito", LocalDate.parse("2025-02-02"), new BigDecimal("10.00"), Categoria.LAZER, maria.getId()));
+
+        mockMvc.perform(post("/controle-fin/movimentacoes/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(lote)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/controle-fin/movimentacoes/resumo")
+                        .param("id", maria.getId().toString())
+                        .param("inicio", "2024-01-01")
+                        .param("fim", "2024-12-31"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].mes").value(1))
+                .andExpect(jsonPath("$[0].categoria").value("CASA"))
+                .andExpect(jsonPath("$[0].totalDebitos").value(50.00))
+                .andExpect(jsonPath("$[0].totalCreditos").value(0))
+                .andExpect(jsonPath("$[1].categoria").value("SALARIO"))
+                .andExpect(jsonPath("$[1].totalCreditos").value(500.00))
+                .andExpect(jsonPath("$[2].mes").value(2))
+                .andExpect(jsonPath("$[2].totalDebitos").value(10.00));
+    }
+
+    @Test
+    @DisplayName("Deve exportar as movimentações em CSV comprimido com gzip, ordenadas por data")
+    void deveExportarCsvComGzip() throws Exception {
+        Usuario maria = usuarioRepository.save(new Usuario("Maria", "12345678900", new BigDecimal("100.00")));
+
+        List<MovimentacaoDTO> lote = List.of(
+                new MovimentacaoDTO("credito", LocalDate.parse("2024-04-20"), new BigDecimal("50.00"), Categoria.SALARIO, maria.getId()),
+                new MovimentacaoDTO("debito", LocalDate.parse("2023-04-02"), new BigDecimal("30.00"), Categoria.CASA, maria.getId()));
+
+        mockMvc.perform(post("/controle-fin/movimentacoes/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(lote)))
+                .andExpect(status().isOk());
+
+        MvcResult resultado = mockMvc.perform(get("/controle-fin/movimentacoes/export")
+                        .param("id", maria.getId().toString())
+                        .param("formato", "csv")
+                        .header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] corpo = mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        String csv;
+        try (GZIPInputStream entrada = new GZIPInputStream(new ByteArrayInputStream(corpo))) {
+            csv = new String(entrada.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        String[] linhas = csv.split("\n");
+
+        assertEquals(3, linhas.length);
+        assertEquals("id,data,tipoMovimentacao,categoria,valor", linhas[0]);
+        assertEquals(",2023-04-02,debito,CASA,30.00", linhas[1].substring(linhas[1].indexOf(',')));
+        assertEquals(",2024-04-20,credito,SALARIO,50.00", linhas[2].substring(linhas[2].indexOf(',')));
+    }
+
+    @Test
+    @DisplayName("Deve exportar as movimentações em NDJSON, um objeto por linha, e recusar formato inválido")
+    void deveExportarNdjson() throws Exception {
+        Usuario maria = usuarioRepository.save(new Usuario("Maria", "12345678900", new BigDecimal("100.00")));
+
+        mockMvc.perform(post("/controle-fin/movimentacoes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new MovimentacaoDTO(
+                                "credito", LocalDate.parse("2024-04-20"), new BigDecimal("50.00"), Categoria.SALARIO, maria.getId()))))
+                .andExpect(status().isOk());
+
+        MvcResult resultado = mockMvc.perform(get("/controle-fin/movimentacoes/export")
+                        .param("id", maria.getId().toString())
+                        .param("formato", "ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String ndjson = mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(header().string("Content-Type", "application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        assertEquals(1, ndjson.split("\n").length);
+        assertEquals('\n', ndjson.charAt(ndjson.length() - 1));
+        assertEquals("2024-04-20", objectMapper.readTree(ndjson).get("data").asText());
+        assertEquals(0, new BigDecimal("50.00").compareTo(objectMapper.readTree(ndjson).get("valor").decimalValue()));
+
+        mockMvc.perform(get("/controle-fin/movimentacoes/export")
+                        .param("id", maria.getId().toString())
+                        .param("formato", "xlsx"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Deve importar um extrato CSV, categorizar pelas regras e informar as linhas recusadas")
+    void deveImportarExtratoCsv() throws Exception {
+        Usuario maria = usuarioRepository.save(new Usuario("Maria", "12345678900", new BigDecimal("100.00")));
+
+        String csv = "data;descricao;valor;saldo\n"
+                + "05/04/2024;PAGAMENTO SALARIO;1.000,00;1100,00\n"
+                + "06/04/2024;UBER *TRIP;-25,50;1074,50\n"
+                + "07/04/2024;LOJA QUALQUER;abc;0\n"
+                + "\n"
+                + "08/04/2024;CONDOMINIO;-5000,00;0\n"
+                + "2024-04-09;\"Mercado Bom; Preço\";-74,50;1000,00\n";
+
+        MvcResult resultado = mockMvc.perform(multipart("/controle-fin/movimentacoes/importar")
+                        .file(new MockMultipartFile("arquivo", "extrato.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8)))
+                        .param("id", maria.getId().toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String[] eventos = mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8).split("\\n");
+
+        assertEquals(4, eventos.length);
+        assertEquals("erro", objectMapper.readTree(eventos[0]).get("evento").asText());
+        assertEquals(4, objectMapper.readTree(eventos[0]).get("linha").asLong());
+        assertEquals(6, objectMapper.readTree(eventos[1]).get("linha").asLong());
+        assertEquals("Saldo insuficiente para esta operação", objectMapper.readTree(eventos[1]).get("motivo").asText());
+        assertEquals("progresso", objectMapper.readTree(eventos[2]).get("evento").asText());
+        assertEquals("concluido", objectMapper.readTree(eventos[3]).get("evento").asText());
+        assertEquals(5, objectMapper.readTree(eventos[3]).get("linhasLidas").asLong());
+        assertEquals(3, objectMapper.readTree(eventos[3]).get("aceitas").asLong());
+        assertEquals(2, objectMapper.readTree(eventos[3]).get("rejeitadas").asLong());
+
+        mockMvc.perform(get("/controle-fin/movimentacoes/busca-por-mes")
+                        .param("mes", "4")
+                        .param("ano", "2024")
+                        .param("id", maria.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].categoria").value("SALARIO"))
+                .andExpect(jsonPath("$[0].tipoMovimentacao").value("credito"))
+                .andExpect(jsonPath("$[1].categoria").value("TRANSPORTE"))
+                .andExpect(jsonPath("$[1].valor").value(25.50))
+                .andExpect(jsonPath("$[2].categoria").value("ALIMENTACAO"));
+
+        mockMvc.perform(get("/controle-fin/usuario/saldo")
+                        .param("id", maria.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value(1000.00));
+
+        mockMvc.perform(multipart("/controle-fin/movimentacoes/importar")
+                        .file(new MockMultipartFile("arquivo", "extrato.csv", "text/csv", "data,valor\n".getBytes(StandardCharsets.UTF_8)))
+                        .param("id", maria.getId().toString()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Deve responder a repetição com a mesma Idempotency-Key sem debitar de novo")
+    void deveRepetirComIdempotencyKey() throws Exception {
+        Usuario maria = usuarioRepository.save(new Usuario("Maria", "12345678900", new BigDecimal("100.00")));
+        String corpo = objectMapper.writeValueAsString(new MovimentacaoDTO(
+                "debito", LocalDate.parse("2024-04-20"), new BigDecimal("30.00"), Categoria.CASA, maria.getId()));
+
+        mockMvc.perform(post("/controle-fin/movimentacoes")
+                        .header("Idempotency-Key", "3f1c2a")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(corpo))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"));
+
+        mockMvc.perform(post("/controle-fin/movimentacoes")
+                        .header("Idempotency-Key", "3f1c2a")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(corpo))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"));
+
+        mockMvc.perform(get("/controle-fin/usuario/saldo")
+                        .param("id", maria.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value(70.00));
+    }
+
+    @Test
+    @DisplayName("Deve deletar um lote de movimentações, recusar as de outro usuário e desfazer o efeito no saldo e no resumo")
+    void deveDeletarLote() throws Exception {
+        Usuario maria = usuarioRepository.save(new Usuario("Maria", "12345678900", new BigDecimal("100.00")));
+        Usuario joao = usuarioRepository.save(new Usuario("Joao", "98765432100", new BigDecimal("100.00")));
+
+        List<MovimentacaoDTO> lote = List.of(
+                new MovimentacaoDTO("credito", LocalDate.parse("2024-04-20"), new BigDecimal("50.00"), Categoria.SALARIO, maria.getId()),
+                new MovimentacaoDTO("debito", LocalDate.parse("2024-04-21"), new BigDecimal("30.00"), Categoria.CASA, maria.getId()),
+                new MovimentacaoDTO("debito", LocalDate.parse("2024-04-22"), new BigDecimal("10.00"), Categoria.CASA, maria.getId()),
+                new MovimentacaoDTO("credito", LocalDate.parse("2024-04-20"), new BigDecimal("5.00"), Categoria.EXTRA, joao.getId()));
+        mockMvc.perform(post("/controle-fin/movimentacoes/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(lote)))
+                .andExpect(status().isOk());
+
+        List<Long> idsMaria = movimentacaoRepository.buscarPrimeiraPagina(maria.getId(), Limit.of(10)).stream().map(m -> m.getId()).toList();
+        Long idJoao = movimentacaoRepository.buscarPrimeiraPagina(joao.getId(), Limit.of(10)).get(0).getId();
+
+        // Apaga o crédito e o primeiro débito da Maria: o saldo volta de 110 para 90
+        mockMvc.perform(delete("/controle-fin/movimentacoes/lote")
+                        .param("idUsuario", maria.getId().toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(idsMaria.get(0), idsMaria.get(1), idJoao))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.aceitas").value(2))
+                .andExpect(jsonPath("$.rejeitadas").value(1))
+                .andExpect(jsonPath("$.itens[2].motivo").value("Movimentação não encontrada ou não pertence a este usuário!"));
+
+        mockMvc.perform(get("/controle-fin/usuario/saldo")
+                        .param("id", maria.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value(90.00));
+        mockMvc.perform(get("/controle-fin/usuario/saldo")
+                        .param("id", joao.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value(105.00));
+        mockMvc.perform(get("/controle-fin/movimentacoes/resumo")
+                        .param("id", maria.getId().toString())
+                        .param("inicio", "2024-04-01")
+                        .param("fim", "2024-04-30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].categoria").value("CASA"))
+                .andExpect(jsonPath("$[0].totalDebitos").value(10.00));
+    }
+
+    @Test
+    @DisplayName("Deve responder 304 sem consultar as movimentações enquanto a versão do usuário não mudar, e 200 com ETag nova depois de uma gravação")
+    void deveResponderNaoModificadoPelaVersao() throws Exception {
+        Usuario maria = usuarioRepository.save(new Usuario("Maria", "12345678900", new BigDecimal("100.00")));
+        mockMvc.perform(post("/controle-fin/movimentacoes/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(
+                                new MovimentacaoDTO("credito", LocalDate.parse("2024-04-20"), new BigDecimal("50.00"), Categoria.SALARIO, maria.getId())))))
+                .andExpect(status().isOk());
+
+        String etag = mockMvc.perform(get("/controle-fin/movimentacoes/busca-por-mes")
+                        .param("mes", "4").param("ano", "2024").param("id", maria.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Mesma busca com a ETag: só a versão do usuário é consultada
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estatisticas.clear();
+        mockMvc.perform(get("/controle-fin/movimentacoes/busca-por-mes")
+                        .param("mes", "4").param("ano", "2024").param("id", maria.getId().toString())
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        assertEquals(1, estatisticas.getQueryExecutionCount());
+
+        // Outros parâmetros, outra ETag
+        mockMvc.perform(get("/controle-fin/movimentacoes/busca-por-mes")
+                        .param("mes", "5").param("ano", "2024").param("id", maria.getId().toString())
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/controle-fin/movimentacoes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new MovimentacaoDTO(
+                                "debito", LocalDate.parse("2024-04-25"), new BigDecimal("10.00"), Categoria.CASA, maria.getId()))))
+                .andExpect(status().isOk());
+
+        String novaEtag = mockMvc.perform(get("/controle-fin/movimentacoes/busca-por-mes")
+                        .param("mes", "4").param("ano", "2024").param("id", maria.getId().toString())
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(etag, novaEtag);
+    }
+
+    @Test
+    @DisplayName("Deve responder em JSON por padrão e em CBOR, Smile ou Protobuf conforme o Accept, com os mesmos dados")
+    void deveResponderEmFormatosBinarios() throws Exception {
+        Usuario maria = usuarioRepository.save(new Usuario("Maria", "12345678900", new BigDecimal("100.00")));
+        mockMvc.perform(post("/controle-fin/movimentacoes/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(
+                                new MovimentacaoDTO("credito", LocalDate.parse("2024-04-02"), new BigDecimal("50.00"), Categoria.SALARIO, maria.getId()),
+                                new MovimentacaoDTO("debito", LocalDate.parse("2024-04-20"), new BigDecimal("30.15"), Categoria.CASA, maria.getId())))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/controle-fin/movimentacoes/busca-por-ano")
+                        .param("ano", "2024").param("id", maria.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[1].valor").value(30.15));
+
+        String[] binarios = {"application/cbor", "application/x-jackson-smile"};
+        ObjectMapper[] leitores = {
+                FormatosRespostaConfig.mapperCbor(Jackson2ObjectMapperBuilder.json()),
+                FormatosRespostaConfig.mapperSmile(Jackson2ObjectMapperBuilder.json())};
+        for (int i = 0; i < binarios.length; i++) {
+            byte[] corpo = mockMvc.perform(get("/controle-fin/movimentacoes/busca-por-ano")
+                            .param("ano", "2024").param("id", maria.getId().toString())
+                            .accept(binarios[i]))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith(binarios[i]))
+                    .andReturn().getResponse().getContentAsByteArray();
+            List<MovimentacaoDTO> movimentacoes = leitores[i].readValue(corpo, new TypeReference<List<MovimentacaoDTO>>() {});
+            assertMovimentacoes(maria.getId(), movimentacoes);
+        }
+
+        byte[] protobuf = mockMvc.perform(get("/controle-fin/movimentacoes/busca-por-ano")
+                        .param("ano", "2024").param("id", maria.getId().toString())
+                        .accept(ProtobufMovimentacaoHttpMessageConverter.APPLICATION_PROTOBUF))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(ProtobufMovimentacaoHttpMessageConverter.APPLICATION_PROTOBUF))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Confere os números e os tipos dos campos do movimentacoes.proto lendo a mensagem sem o schema
+        UnknownFieldSet lista = UnknownFieldSet.parseFrom(protobuf);
+        assertEquals(2, lista.getField(1).getLengthDelimitedList().size());
+        UnknownFieldSet debito = UnknownFieldSet.parseFrom(lista.getField(1).getLengthDelimitedList().get(1));
+        assertEquals(List.of(2L), debito.getField(1).getVarintList());
+        assertEquals(LocalDate.parse("2024-04-20").toEpochDay(), CodedInputStream.decodeZigZag64(debito.getField(2).getVarintList().get(0)));
+        assertEquals(3015L, CodedInputStream.decodeZigZag64(debito.getField(3).getVarintList().get(0)));
+        assertEquals(List.of((long) Categoria.CASA.ordinal() + 1), debito.getField(4).getVarintList());
+        assertEquals(List.of(maria.getId()), debito.getField(5).getVarintList());
+
+        @SuppressWarnings("unchecked")
+        List<MovimentacaoDTO> movimentacoes = (List<MovimentacaoDTO>) new ProtobufMovimentacaoHttpMessageConverter().read(
+                new TypeReference<List<MovimentacaoDTO>>() {}.getType(), null, new MockHttpInputMessage(protobuf));
+        assertMovimentacoes(maria.getId(), movimentacoes);
+
+        // O resumo não tem mensagem no schema
+        mockMvc.perform(get("/controle-fin/movimentacoes/resumo")
+                        .param("id", maria.getId().toString())
+                        .param("inicio", "2024-01-01")
+                        .param("fim", "2024-12-31")
+                        .accept(ProtobufMovimentacaoHttpMessageConverter.APPLICATION_PROTOBUF))
+                .andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    @DisplayName("Deve gravar um lote recebido em Protobuf")
+    void deveGravarLoteEmProtobuf() throws Exception {
+        Usuario maria = usuarioRepository.save(new Usuario("Maria", "12345678900", new BigDecimal("100.00")));
+        List<MovimentacaoDTO> lote = List.of(
+                new MovimentacaoDTO("credito", LocalDate.parse("2024-04-02"), new BigDecimal("50.00"), Categoria.SALARIO, maria.getId()),
+                new MovimentacaoDTO("debito", LocalDate.parse("2024-04-20"), new BigDecimal("30.15"), Categoria.CASA, maria.getId()));
+        MockHttpOutputMessage corpo = new MockHttpOutputMessage();
+        new ProtobufMovimentacaoHttpMessageConverter().write(lote, new TypeReference<List<MovimentacaoDTO>>() {}.getType(),
+                ProtobufMovimentacaoHttpMessageConverter.APPLICATION_PROTOBUF, corpo);
+
+        mockMvc.perform(post("/controle-fin/movimentacoes/lote")
+                        .contentType(ProtobufMovimentacaoHttpMessageConverter.APPLICATION_PROTOBUF)
+                        .content(corpo.getBodyAsBytes()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.aceitas").value(2));
+
+        mockMvc.perform(get("/controle-fin/usuario/saldo")
+                        .param("id", maria.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value(119.85));
+    }
+
+    @Test
+    @DisplayName("Deve responder um mês encerrado do cache e mostrar uma movimentação retroativa gravada ou apagada nele")
+    void deveInvalidarMesEncerradoComMovimentacaoRetroativa() throws Exception {
+        Usuario maria = usuarioRepository.save(new Usuario("Maria", "12345678900", new BigDecimal("100.00")));
+        mockMvc.perform(post("/controle-fin/movimentacoes/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(
+                                new MovimentacaoDTO("credito", LocalDate.parse("2024-04-02"), new BigDecimal("50.00"), Categoria.SALARIO, maria.getId())))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/controle-fin/movimentacoes/busca-por-mes")
+                        .param("mes", "4").param("ano", "2024").param("id", maria.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+
+        // Com o mês no cache só a versão e a existência do usuário são consultadas
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estatisticas.clear();
+        mockMvc.perform(get("/controle-fin/movimentacoes/busca-por-mes")
+                        .param("mes", "4").param("ano", "2024").param("id", maria.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+        assertEquals(2, estatisticas.getQueryExecutionCount());
+
+        mockMvc.perform(post("/controle-fin/movimentacoes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new MovimentacaoDTO(
+                                "debito", LocalDate.parse("2024-04-25"), new BigDecimal("10.00"), Categoria.CASA, maria.getId()))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/controle-fin/movimentacoes/busca-por-ano")
+                        .param("ano", "2024").param("id", maria.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].data").value("2024-04-25"));
+
+        Long idDebito = movimentacaoRepository.buscarPrimeiraPagina(maria.getId(), Limit.of(10)).get(1).getId();
+        mockMvc.perform(delete("/controle-fin/movimentacoes")
+                        .param("idUsuario", maria.getId().toString())
+                        .param("idMovimentacao", idDebito.toString()))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/controle-fin/movimentacoes/busca-personalizada")
+                        .param("anoIni", "2024").param("mesIni", "4").param("diaIni", "1")
+                        .param("anoFim", "2024").param("mesFim", "4").param("diaFim", "30")
+                        .param("id", maria.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].data").value("2024-04-02"));
+    }
+
+    @Test
+    @DisplayName("Deve transferir entre dois usuários em uma chamada, com o débito e o crédito gravados e os dois saldos alterados")
+    void deveTransferirEntreUsuarios() throws Exception {
+        Usuario maria = usuarioRepository.save(new Usuario("Maria", "12345678900", new BigDecimal("100.00")));
+        Usuario joao = usuarioRepository.save(new Usuario("Joao", "98765432100", new BigDecimal("10.00")));
+
+        mockMvc.perform(post("/controle-fin/transferencias")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new TransferenciaDTO(maria.getId(), joao.getId(), new BigDecimal("30.00"), LocalDate.parse("2024-04-20")))))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/controle-fin/transferencias")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new TransferenciaDTO(maria.getId(), joao.getId(), new BigDecimal("70.01"), null))))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/controle-fin/usuario/saldo").param("id", maria.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value(70.00));
+        mockMvc.perform(get("/controle-fin/usuario/saldo").param("id", joao.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value(40.00));
+        mockMvc.perform(get("/controle-fin/movimentacoes/busca-por-categoria")
+                        .param("categoria", "TRANSFERENCIA").param("id", joao.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].tipoMovimentacao").value("credito"))
+                .andExpect(jsonPath("$[0].valor").value(30.00));
+        mockMvc.perform(get("/controle-fin/movimentacoes/busca-por-mes")
+                        .param("mes", "4").param("ano", "2024").param("id", maria.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].tipoMovimentacao").value("debito"));
+    }
+
+    private static void assertMovimentacoes(Long idUsuario, List<MovimentacaoDTO> movimentacoes) {
+        assertEquals(2, movimentacoes.size());
+        assertEquals("credito", movimentacoes.get(0).getTipoMovimentacao());
+        assertEquals(LocalDate.parse("2024-04-02"), movimentacoes.get(0).getData());
+        assertEquals(new BigDecimal("50.00"), movimentacoes.get(0).getValor());
+        assertEquals(Categoria.SALARIO, movimentacoes.get(0).getCategoria());
+        assertEquals("debito", movimentacoes.get(1).getTipoMovimentacao());
+        assertEquals(new BigDecimal("30.15"), movimentacoes.get(1).getValor());
+        assertEquals(Categoria.CASA, movimentacoes.get(1).getCategoria());
+        assertEquals(idUsuario, movimentacoes.get(1).getIdUsuario());
+    }
+}
@@ -1,6 +1,10 @@
 package spring.boot.api.controleFin.controllers;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -9,10 +13,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
+import spring.boot.api.controleFin.config.FormatosRespostaConfig;
+import spring.boot.api.controleFin.config.ProtobufMovimentacaoHttpMessageConverter;
+import spring.boot.api.controleFin.model.dto.UsuarioDTO;
 import spring.boot.api.controleFin.model.entities.Usuario;
 import spring.boot.api.controleFin.model.repositories.MovimentacaoRepository;
 import spring.boot.api.controleFin.model.repositories.UsuarioRepository;
@@ -22,9 +31,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -45,6 +58,9 @@ public class UsuarioControllerIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Test
     @DisplayName("Deve criar o usuário com sucesso")
     @Transactional
@@ -123,6 +139,74 @@ public class UsuarioControllerIntegrationTest {
         Assertions.assertEquals("12345678901", usuarios.get(1).getDoc());
     }
 
+    @Test
+    @DisplayName("Deve retornar a página pedida executando um único comando SQL")
+    @Transactional
+    void deveRetornarPaginaComUmaConsulta() throws Exception {
+        usuarioRepository.save(new Usuario("João", "12345678900", new BigDecimal("100.00")));
+        usuarioRepository.save(new Usuario("Maria", "12345678901", new BigDecimal("200.00")));
+        usuarioRepository.save(new Usuario("Ana", "12345678902", new BigDecimal("300.00")));
+        usuarioRepository.flush();
+
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estatisticas.clear();
+
+        mockMvc.perform(get("/controle-fin/usuario")
+                        .param("pagina", "0")
+                        .param("tamanho", "2")
+                        .param("ordenarPor", "nome"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].nome").value("Ana"))
+                .andExpect(jsonPath("$[1].nome").value("João"));
+
+        Assertions.assertEquals(1, estatisticas.getPrepareStatementCount());
+        Assertions.assertEquals(0, estatisticas.getEntityLoadCount());
+    }
+
+    @Test
+    @DisplayName("Deve retornar a lista de usuários em CBOR quando pedido no Accept")
+    @Transactional
+    void deveRetornarListaUsuariosEmCbor() throws Exception {
+        usuarioRepository.save(new Usuario("João", "12345678900", new BigDecimal("100.00")));
+        usuarioRepository.save(new Usuario("Maria", "12345678901", new BigDecimal("200.50")));
+
+        byte[] corpo = mockMvc.perform(get("/controle-fin/usuario")
+                        .accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/cbor"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        List<UsuarioDTO> usuarios = FormatosRespostaConfig.mapperCbor(Jackson2ObjectMapperBuilder.json())
+                .readValue(corpo, new TypeReference<List<UsuarioDTO>>() {});
+        Assertions.assertEquals(2, usuarios.size());
+        Assertions.assertEquals("Maria", usuarios.get(1).getNome());
+        Assertions.assertEquals(new BigDecimal("200.50"), usuarios.get(1).getSaldo());
+
+        // Protobuf só existe para as movimentações
+        mockMvc.perform(get("/controle-fin/usuario")
+                        .accept(ProtobufMovimentacaoHttpMessageConverter.APPLICATION_PROTOBUF))
+                .andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    @DisplayName("Deve exportar todos os usuários em um único JSON escrito aos poucos")
+    void deveExportarUsuarios() throws Exception {
+        usuarioRepository.save(new Usuario("João", "12345678900", new BigDecimal("100.00")));
+        usuarioRepository.save(new Usuario("Maria", "12345678901", new BigDecimal("200.00")));
+
+        MvcResult resultado = mockMvc.perform(get("/controle-fin/usuario/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(resultado))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].doc").value("12345678901"));
+    }
+
     @Test
     @DisplayName("Deve retornar 200 e uma lista vazia caso não tenha usuários cadastrados")
     @Transactional
@@ -0,0 +1,93 @@
+package spring.boot.api.controleFin.model.importacao;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+import spring.boot.api.controleFin.model.entities.Categoria;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+class LeitorExtratoTest {
+
+    @Test
+    @DisplayName("Deve ler as transações de um OFX 1.x com tags sem fechamento, inclusive com tudo em uma linha")
+    void ofxSgmlCase1() throws IOException {
+        String ofx = "OFXHEADER:100\nDATA:OFXSGML\nVERSION:102\nCHARSET:1252\n\n"
+                + "<OFX><BANKMSGSRSV1><STMTTRNRS><STMTRS><CURDEF>BRL<BANKTRANLIST>\n"
+                + "<STMTTRN>\n<TRNTYPE>DEBIT\n<DTPOSTED>20240420120000[-3:BRT]\n<TRNAMT>-30.00\n<FITID>1\n<MEMO>UBER *TRIP\n</STMTTRN>\n"
+                + "<STMTTRN><TRNTYPE>CREDIT<DTPOSTED>20240421<TRNAMT>1500,00<NAME>SALARIO</STMTTRN>\n"
+                + "<STMTTRN><TRNTYPE>DEBIT<DTPOSTED>2024-04<TRNAMT>-1<MEMO>X</STMTTRN>\n"
+                + "</BANKTRANLIST><LEDGERBAL><BALAMT>1470.00</LEDGERBAL></STMTRS></STMTTRNRS></BANKMSGSRSV1></OFX>\n";
+
+        try (LeitorOfx leitor = new LeitorOfx(new StringReader(ofx))) {
+            LinhaExtrato debito = leitor.proxima();
+            Assertions.assertEquals(7, debito.getLinha());
+            Assertions.assertEquals("debito", debito.getTipoMovimentacao());
+            Assertions.assertEquals(0, new BigDecimal("30.00").compareTo(debito.getValor()));
+            Assertions.assertEquals(LocalDate.parse("2024-04-20"), debito.getData());
+            Assertions.assertEquals("UBER *TRIP", debito.getDescricao());
+
+            LinhaExtrato credito = leitor.proxima();
+            Assertions.assertEquals("credito", credito.getTipoMovimentacao());
+            Assertions.assertEquals(0, new BigDecimal("1500.00").compareTo(credito.getValor()));
+            Assertions.assertEquals("SALARIO", credito.getDescricao());
+
+            Assertions.assertEquals("Data inválida: 2024-04", leitor.proxima().getErro());
+            Assertions.assertNull(leitor.proxima());
+        }
+    }
+
+    @Test
+    @DisplayName("Deve ler um OFX 2.x em XML")
+    void ofxXmlCase2() throws IOException {
+        String ofx = "<?xml version=\"1.0\"?>\n<?OFX OFXHEADER=\"200\" VERSION=\"211\"?>\n<OFX><STMTTRN>"
+                + "<TRNTYPE>DEBIT</TRNTYPE><DTPOSTED>20240102</DTPOSTED><TRNAMT>-12.34</TRNAMT><MEMO>Farmácia</MEMO>"
+                + "</STMTTRN></OFX>";
+
+        try (LeitorOfx leitor = new LeitorOfx(new StringReader(ofx))) {
+            LinhaExtrato linha = leitor.proxima();
+            Assertions.assertEquals("Farmácia", linha.getDescricao());
+            Assertions.assertEquals(0, new BigDecimal("12.34").compareTo(linha.getValor()));
+            Assertions.assertNull(leitor.proxima());
+        }
+    }
+
+    @Test
+    @DisplayName("Deve ler o CSV pelas colunas do cabeçalho, com a coluna tipo e a categoria do próprio arquivo")
+    void csvCase3() throws IOException {
+        String csv = "\uFEFFValor,Tipo,Data,Descricao,Categoria\n"
+                + "10.00,D,2024-01-05,Cinema,\n"
+                + "-5.00,credito,2024-01-06,Estorno,lazer\n"
+                + "5.00,x,2024-01-07,Outro,\n"
+                + "5.00,,2024-01-08,Outro,VIAGEM\n";
+
+        try (LeitorCsv leitor = new LeitorCsv(new StringReader(csv))) {
+            LinhaExtrato debito = leitor.proxima();
+            Assertions.assertEquals(2, debito.getLinha());
+            Assertions.assertEquals("debito", debito.getTipoMovimentacao());
+            Assertions.assertNull(debito.getCategoria());
+
+            LinhaExtrato credito = leitor.proxima();
+            Assertions.assertEquals("credito", credito.getTipoMovimentacao());
+            Assertions.assertEquals(0, new BigDecimal("5.00").compareTo(credito.getValor()));
+            Assertions.assertEquals(Categoria.LAZER, credito.getCategoria());
+
+            Assertions.assertEquals("Tipo de movimentação inválido: x", leitor.proxima().getErro());
+            Assertions.assertEquals("Categoria inválida: VIAGEM", leitor.proxima().getErro());
+            Assertions.assertNull(leitor.proxima());
+        }
+    }
+
+    @Test
+    @DisplayName("Deve recusar o CSV sem as colunas obrigatórias no cabeçalho")
+    void csvCase4() {
+        ResponseStatusException e = Assertions.assertThrows(ResponseStatusException.class,
+                () -> new LeitorCsv(new StringReader("data;historico\n2024-01-01;x\n")));
+        Assertions.assertEquals("O CSV precisa das colunas data, descricao e valor no cabeçalho!", e.getReason());
+    }
+
+}
@@ -0,0 +1,111 @@
+package spring.boot.api.controleFin.model.repositories;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Roda EXPLAIN no H2 (modo MySQL) para o SQL de cada consulta dos repositórios
+ * e confere se o plano usa o índice criado pelas migrations do Flyway.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext
+class IndicesConsultasTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setup() {
+        jdbcTemplate.update("delete from movimentacoes");
+        jdbcTemplate.update("delete from usuarios");
+        // Alguns usuários com histórico de vários anos, para o otimizador ter estatísticas parecidas com as de produção
+        String[] categorias = {"SALARIO", "CASA", "LAZER", "TRANSPORTE", "SAUDE"};
+        List<Object[]> movimentacoes = new ArrayList<>();
+        for (long usuario = 1; usuario <= 5; usuario++) {
+            jdbcTemplate.update("insert into usuarios (id, nome, doc, saldo) values (?, ?, ?, 100.00)",
+                    usuario, "Usuario " + usuario, String.format("%011d", usuario));
+            for (int i = 0; i < 400; i++) {
+                movimentacoes.add(new Object[]{usuario, i % 2 == 0 ? "C" : "D", 10.00,
+                        Date.valueOf(LocalDate.of(2020, 1, 1).plusDays(i * 5L)), categorias[i % categorias.length]});
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into movimentacoes (usuario_id, tipo, valor, data, categoria) "
+                + "values (?, ?, ?, ?, ?)", movimentacoes);
+        jdbcTemplate.execute("analyze");
+    }
+
+    @Test
+    @DisplayName("listarPorUsuarioEPeriodo deve usar o índice (usuario_id, data, id)")
+    void listarPorUsuarioEPeriodo() {
+        assertUsaIndice("idx_movimentacoes_usuario_data",
+                "select m.tipo, m.data, m.valor, m.categoria, m.usuario_id from movimentacoes m "
+                        + "where m.usuario_id = 1 and m.data between DATE '2024-04-01' and DATE '2024-04-30' order by m.data, m.id");
+    }
+
+    @Test
+    @DisplayName("listarPorUsuarioECategoria deve usar o índice (usuario_id, categoria, data)")
+    void listarPorUsuarioECategoria() {
+        assertUsaIndice("idx_movimentacoes_usuario_categoria",
+                "select m.tipo, m.data, m.valor, m.categoria, m.usuario_id from movimentacoes m "
+                        + "where m.usuario_id = 1 and m.categoria = 'SALARIO' order by m.data, m.id");
+    }
+
+    @Test
+    @DisplayName("buscarPrimeiraPagina e buscarPaginaApos devem usar o índice (usuario_id, data, id)")
+    void paginasPorCursor() {
+        // Na primeira página só existe a igualdade em usuario_id, então qualquer índice que comece por ela serve
+        assertUsaIndice("usuario_id = ",
+                "select m.* from movimentacoes m where m.usuario_id = 1 order by m.data, m.id limit 101");
+        assertUsaIndice("idx_movimentacoes_usuario_data",
+                "select m.* from movimentacoes m where m.usuario_id = 1 and m.data >= DATE '2024-04-20' "
+                        + "and (m.data > DATE '2024-04-20' or m.id > 5) order by m.data, m.id limit 101");
+    }
+
+    @Test
+    @DisplayName("buscarPorIdEUsuario deve usar a chave primária")
+    void buscarPorIdEUsuario() {
+        assertUsaIndice("primary_key",
+                "select m.* from movimentacoes m where m.id = 1 and m.usuario_id = 1");
+    }
+
+    @Test
+    @DisplayName("buscarParaRemocao e removerPorUsuario devem usar a chave primária")
+    void removerPorUsuario() {
+        assertUsaIndice("primary_key",
+                "select m.id, m.data, m.tipo, m.categoria, m.valor from movimentacoes m where m.usuario_id = 1 and m.id in (1, 2, 3)");
+        assertUsaIndice("primary_key", "delete from movimentacoes where usuario_id = 1 and id in (1, 2, 3)");
+    }
+
+    @Test
+    @DisplayName("existsByDoc deve usar o índice único de usuarios.doc")
+    void existsByDoc() {
+        assertUsaIndice("uk_usuarios_doc",
+                "select u.id from usuarios u where u.doc = '00000000001' fetch first 1 rows only");
+    }
+
+    @Test
+    @DisplayName("buscarSaldo, debitarSaldo e ajustarSaldo devem usar a chave primária de usuarios")
+    void saldoPorId() {
+        assertUsaIndice("primary_key", "select u.saldo from usuarios u where u.id = 1");
+        assertUsaIndice("primary_key", "update usuarios set saldo = saldo - 10 where id = 1 and saldo >= 10");
+    }
+
+    private void assertUsaIndice(String indice, String sql) {
+        String plano = jdbcTemplate.queryForObject("explain " + sql, String.class).toLowerCase();
+        Assertions.assertTrue(plano.contains(indice), () -> "O plano não usa " + indice + ":\n" + plano);
+        Assertions.assertFalse(plano.contains("tablescan"), () -> "O plano faz varredura completa:\n" + plano);
+    }
+}
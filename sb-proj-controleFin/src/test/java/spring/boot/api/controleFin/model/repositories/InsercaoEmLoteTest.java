@@ -0,0 +1,180 @@
+package spring.boot.api.controleFin.model.repositories;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import spring.boot.api.controleFin.model.dto.LoteResultadoDTO;
+import spring.boot.api.controleFin.model.dto.MovimentacaoDTO;
+import spring.boot.api.controleFin.model.entities.Categoria;
+import spring.boot.api.controleFin.model.entities.Usuario;
+import spring.boot.api.controleFin.model.services.MovimentacaoService;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Conta os comandos JDBC que chegam ao driver (execuções isoladas e lotes) para conferir
+ * que os inserts de usuários e movimentações são agrupados pelo Hibernate.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext
+class InsercaoEmLoteTest {
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private MovimentacaoService movimentacaoService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ContadorComandos contador;
+
+    @Test
+    @DisplayName("Deve gravar os usuários em lotes JDBC de 50, com ids distintos reservados em blocos")
+    void usuariosEmLote() {
+        List<Usuario> usuarios = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            usuarios.add(new Usuario("Usuario " + i, String.format("%011d", i), new BigDecimal("100.00")));
+        }
+
+        contador.zerar();
+        List<Usuario> salvos = usuarioRepository.saveAll(usuarios);
+
+        Assertions.assertEquals(0, contador.execucoes("insert into usuarios"));
+        Assertions.assertEquals(3, contador.lotes("insert into usuarios")); // 50 + 50 + 20
+        Set<Long> ids = new HashSet<>();
+        salvos.forEach(u -> ids.add(u.getId()));
+        Assertions.assertEquals(120, ids.size());
+        Assertions.assertEquals(120, jdbcTemplate.queryForObject("select count(*) from usuarios", Long.class));
+    }
+
+    @Test
+    @DisplayName("Deve gravar o lote de movimentações em lotes JDBC de 50, e não um insert por movimentação")
+    void movimentacoesEmLote() {
+        Long idUsuario = usuarioRepository.save(new Usuario("Maria", "12345678900", new BigDecimal("100.00"))).getId();
+        List<MovimentacaoDTO> dtos = new ArrayList<>();
+        for (int i = 0; i < 230; i++) {
+            dtos.add(new MovimentacaoDTO("credito", LocalDate.of(2024, 1, 1).plusDays(i), new BigDecimal("1.00"), Categoria.EXTRA, idUsuario));
+        }
+
+        contador.zerar();
+        LoteResultadoDTO resultado = movimentacaoService.adicionarMovimentacoes(dtos);
+
+        Assertions.assertEquals(230, resultado.getAceitas());
+        Assertions.assertEquals(0, contador.execucoes("insert into movimentacoes"));
+        Assertions.assertEquals(5, contador.lotes("insert into movimentacoes")); // 4 x 50 + 30
+        Assertions.assertEquals(230, jdbcTemplate.queryForObject("select count(*) from movimentacoes where usuario_id = ?", Long.class, idUsuario));
+        Assertions.assertEquals(0, new BigDecimal("330.00").compareTo(
+                jdbcTemplate.queryForObject("select saldo from usuarios where id = ?", BigDecimal.class, idUsuario)));
+    }
+
+    //Envolve o DataSource da aplicação para contar, por início do SQL, os executeBatch e as execuções avulsas dos PreparedStatement
+    static class ContadorComandos {
+
+        private final Map<String, AtomicInteger> lotes = new ConcurrentHashMap<>();
+
+        private final Map<String, AtomicInteger> execucoes = new ConcurrentHashMap<>();
+
+        void zerar() {
+            lotes.clear();
+            execucoes.clear();
+        }
+
+        int lotes(String inicioSql) {
+            return contar(lotes, inicioSql);
+        }
+
+        int execucoes(String inicioSql) {
+            return contar(execucoes, inicioSql);
+        }
+
+        private int contar(Map<String, AtomicInteger> contagens, String inicioSql) {
+            return contagens.entrySet().stream()
+                    .filter(e -> e.getKey().toLowerCase().startsWith(inicioSql))
+                    .mapToInt(e -> e.getValue().get())
+                    .sum();
+        }
+
+        DataSource envolver(DataSource dataSource) {
+            return proxy(DataSource.class, dataSource, (metodo, argumentos, retorno) ->
+                    retorno instanceof Connection conexao ? envolver(conexao) : retorno);
+        }
+
+        private Connection envolver(Connection conexao) {
+            return proxy(Connection.class, conexao, (metodo, argumentos, retorno) ->
+                    retorno instanceof PreparedStatement comando && metodo.equals("prepareStatement") ? envolver(comando, (String) argumentos[0]) : retorno);
+        }
+
+        private PreparedStatement envolver(PreparedStatement comando, String sql) {
+            return proxy(PreparedStatement.class, comando, (metodo, argumentos, retorno) -> {
+                if (metodo.equals("executeBatch")) {
+                    lotes.computeIfAbsent(sql, s -> new AtomicInteger()).incrementAndGet();
+                } else if (metodo.equals("executeUpdate") || metodo.equals("execute")) {
+                    execucoes.computeIfAbsent(sql, s -> new AtomicInteger()).incrementAndGet();
+                }
+                return retorno;
+            });
+        }
+
+        private interface Interceptador {
+            Object depois(String metodo, Object[] argumentos, Object retorno);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> tipo, T alvo, Interceptador interceptador) {
+            InvocationHandler handler = (p, metodo, argumentos) -> {
+                try {
+                    return interceptador.depois(metodo.getName(), argumentos, metodo.invoke(alvo, argumentos));
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            };
+            return (T) Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, handler);
+        }
+    }
+
+    @TestConfiguration
+    static class Configuracao {
+
+        @Bean
+        ContadorComandos contadorComandos() {
+            return new ContadorComandos();
+        }
+
+        @Bean
+        static BeanPostProcessor envolverDataSource(ObjectProvider<ContadorComandos> contador) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String nome) {
+                    return bean instanceof DataSource dataSource && nome.equals("dataSource") ? contador.getObject().envolver(dataSource) : bean;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package spring.boot.api.controleFin.model.repositories;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/*
+ * Roda as migrations do Flyway em um banco que já existia antes delas: o schema é o que o ddl-auto do Hibernate 6.6 gerava no MySQL,
+ * com a categoria como ENUM das categorias de então, e o Flyway faz o baseline na V1 como em produção.
+ */
+class MigracoesBancoLegadoTest {
+
+    private String url;
+
+    private Connection conexao; // Mantém o banco em memória aberto entre as conexões do Flyway
+
+    @BeforeEach
+    void setup() throws SQLException {
+        url = "jdbc:h2:mem:legado-" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE";
+        conexao = DriverManager.getConnection(url, "sa", "");
+        try (Statement comando = conexao.createStatement()) {
+            comando.execute("create table usuarios (id bigint not null auto_increment, doc varchar(11), nome varchar(50), "
+                    + "saldo decimal(38,2), primary key (id))");
+            comando.execute("alter table usuarios add constraint uk_legado_doc unique (doc)");
+            comando.execute("create table movimentacoes (data date, valor decimal(38,2), id bigint not null auto_increment, usuario_id bigint, "
+                    + "categoria enum ('ALIMENTACAO','LAZER','TRANSPORTE','CASA','INTERNET','SEGURO','FINANCIAMENTO','SALARIO','EXTRA','SAUDE','COMISSAO'), "
+                    + "tipo_movimentacao varchar(255), primary key (id))");
+            comando.execute("alter table movimentacoes add constraint fk_legado_usuario foreign key (usuario_id) references usuarios (id)");
+            comando.execute("insert into usuarios (id, doc, nome, saldo) values (1, '12345678900', 'Maria', 100.00)");
+            comando.execute("insert into movimentacoes (id, usuario_id, tipo_movimentacao, valor, data, categoria) "
+                    + "values (1, 1, 'credito', 100.00, DATE '2024-04-20', 'SALARIO')");
+        }
+    }
+
+    @AfterEach
+    void fechar() throws SQLException {
+        conexao.close();
+    }
+
+    @Test
+    @DisplayName("Deve levar um banco legado com a categoria em ENUM até um estado em que uma movimentação de TRANSFERENCIA é gravada")
+    void transferenciaEmBancoLegado() throws SQLException {
+        // Antes das migrations o próprio banco recusa a categoria nova
+        try (Statement comando = conexao.createStatement()) {
+            Assertions.assertThrows(SQLException.class, () -> comando.execute("insert into movimentacoes (id, usuario_id, tipo_movimentacao, valor, data, categoria) "
+                    + "values (2, 1, 'debito', 10.00, DATE '2024-04-21', 'TRANSFERENCIA')"));
+        }
+
+        Flyway.configure()
+                .dataSource(url, "sa", "")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+
+        try (Statement comando = conexao.createStatement()) {
+            comando.execute("insert into movimentacoes (id, usuario_id, tipo, valor, data, categoria) "
+                    + "values (2, 1, 'D', 10.00, DATE '2024-04-21', 'TRANSFERENCIA')");
+            comando.execute("insert into resumo_mensal (usuario_id, ano, mes, categoria, tipo, total, quantidade) "
+                    + "values (1, 2024, 4, 'TRANSFERENCIA', 'D', 10.00, 1)");
+
+            try (ResultSet resultado = comando.executeQuery("select categoria, tipo from movimentacoes order by id")) {
+                Assertions.assertTrue(resultado.next());
+                Assertions.assertEquals("SALARIO", resultado.getString(1));
+                Assertions.assertEquals("C", resultado.getString(2));
+                Assertions.assertTrue(resultado.next());
+                Assertions.assertEquals("TRANSFERENCIA", resultado.getString(1));
+            }
+        }
+        Assertions.assertEquals("character varying", tipoDaColuna("categoria"));
+    }
+
+    @Test
+    @DisplayName("Deve igualar as colunas do banco legado às da V1 logo depois do baseline, antes da V6 converter o tipo da movimentação")
+    void colunasIguaisAsDaV1AntesDaV6() throws SQLException {
+        Flyway.configure()
+                .dataSource(url, "sa", "")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .target("1.1")
+                .load()
+                .migrate();
+
+        Assertions.assertEquals("character varying", tipoDaColuna("categoria"));
+        Assertions.assertEquals("character varying", tipoDaColuna("tipo_movimentacao"));
+    }
+
+    @Test
+    @DisplayName("Deve subir um banco que já tinha passado da V8 antes da V1.1 existir, ignorando a V1.1 e corrigindo a categoria pela V9")
+    void bancoQueJaPassouDaV1_1() throws SQLException, IOException, URISyntaxException {
+        // As migrations de então: todas as do projeto menos a V1.1
+        Path migrations = Path.of(getClass().getResource("/db/migration").toURI());
+        Path antigas = Files.createTempDirectory("migrations-antigas");
+        try (Stream<Path> arquivos = Files.list(migrations)) {
+            for (Path arquivo : arquivos.filter(arquivo -> !arquivo.getFileName().toString().startsWith("V1_1__")).toList()) {
+                Files.copy(arquivo, antigas.resolve(arquivo.getFileName()));
+            }
+        }
+        try {
+            Flyway.configure()
+                    .dataSource(url, "sa", "")
+                    .locations("filesystem:" + antigas)
+                    .baselineOnMigrate(true)
+                    .baselineVersion("1")
+                    .target("8")
+                    .load()
+                    .migrate();
+        } finally {
+            try (Stream<Path> arquivos = Files.walk(antigas)) {
+                arquivos.sorted(Comparator.reverseOrder()).forEach(arquivo -> arquivo.toFile().delete());
+            }
+        }
+
+        // Mesmas configurações do Flyway da aplicação
+        Properties configuracoes = new Properties();
+        try (InputStream entrada = getClass().getResourceAsStream("/application.properties")) {
+            configuracoes.load(entrada);
+        }
+        Flyway.configure()
+                .dataSource(url, "sa", "")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .ignoreMigrationPatterns(configuracoes.getProperty("spring.flyway.ignore-migration-patterns").split(","))
+                .load()
+                .migrate();
+
+        Assertions.assertEquals("character varying", tipoDaColuna("categoria"));
+        try (Statement comando = conexao.createStatement();
+             ResultSet resultado = comando.executeQuery("select count(*) from flyway_schema_history where \"version\" = '1.1'")) {
+            Assertions.assertTrue(resultado.next());
+            Assertions.assertEquals(0, resultado.getInt(1));
+        }
+    }
+
+    private String tipoDaColuna(String coluna) throws SQLException {
+        try (Statement comando = conexao.createStatement();
+             ResultSet resultado = comando.executeQuery("select data_type from information_schema.columns "
+                     + "where table_name = 'movimentacoes' and column_name = '" + coluna + "'")) {
+            Assertions.assertTrue(resultado.next());
+            return resultado.getString(1).toLowerCase();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package spring.boot.api.controleFin.model.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.util.unit.DataSize;
+import spring.boot.api.controleFin.model.dto.MovimentacaoDTO;
+import spring.boot.api.controleFin.model.entities.Categoria;
+import spring.boot.api.controleFin.model.repositories.MovimentacaoRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class CacheMesesFechadosServiceTest {
+
+    @Mock
+    private MovimentacaoRepository movimentacaoRepository;
+
+    private CacheMesesFechadosService cacheMeses;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        cacheMeses = new CacheMesesFechadosService();
+        cacheMeses.movimentacaoRepository = movimentacaoRepository;
+        cacheMeses.habilitado = true;
+        cacheMeses.tamanhoMaximo = DataSize.ofMegabytes(1);
+        cacheMeses.criarCache();
+    }
+
+    private static MovimentacaoDTO movimentacao(String data, String valor) {
+        return new MovimentacaoDTO("debito", LocalDate.parse(data), new BigDecimal(valor), Categoria.CASA, 1L);
+    }
+
+    @Test
+    @DisplayName("Deve consultar um mês fechado uma vez só e responder as próximas buscas com as mesmas movimentações do cache")
+    void mesFechadoVemDoCache() {
+        LocalDate inicio = LocalDate.parse("2024-04-01");
+        LocalDate fim = LocalDate.parse("2024-04-30");
+        when(movimentacaoRepository.listarPorUsuarioEPeriodo(1L, inicio, fim)).thenReturn(List.of(
+                movimentacao("2024-04-02", "30.00"), movimentacao("2024-04-20", "12.34")));
+
+        cacheMeses.listar(1L, inicio, fim);
+        List<MovimentacaoDTO> resultado = cacheMeses.listar(1L, inicio, fim);
+
+        assertEquals(2, resultado.size());
+        assertEquals(LocalDate.parse("2024-04-20"), resultado.get(1).getData());
+        assertEquals(new BigDecimal("12.34"), resultado.get(1).getValor());
+        assertEquals("debito", resultado.get(1).getTipoMovimentacao());
+        assertEquals(Categoria.CASA, resultado.get(1).getCategoria());
+        assertEquals(1L, resultado.get(1).getIdUsuario());
+        verify(movimentacaoRepository, times(1)).listarPorUsuarioEPeriodo(1L, inicio, fim);
+    }
+
+    @Test
+    @DisplayName("Deve montar o ano com os meses do cache e consultar só as sequências de meses que faltam, filtrando as datas do período")
+    void anoComMesesDoCacheEConsultas() {
+        when(movimentacaoRepository.listarPorUsuarioEPeriodo(1L, LocalDate.parse("2024-04-01"), LocalDate.parse("2024-04-30")))
+                .thenReturn(List.of(movimentacao("2024-04-10", "4.00")));
+        when(movimentacaoRepository.listarPorUsuarioEPeriodo(1L, LocalDate.parse("2024-01-01"), LocalDate.parse("2024-03-31")))
+                .thenReturn(List.of(movimentacao("2024-01-05", "1.00"), movimentacao("2024-03-31", "3.00")));
+        when(movimentacaoRepository.listarPorUsuarioEPeriodo(1L, LocalDate.parse("2024-05-01"), LocalDate.parse("2024-12-31")))
+                .thenReturn(List.of(movimentacao("2024-12-31", "12.00")));
+
+        cacheMeses.listar(1L, LocalDate.parse("2024-04-01"), LocalDate.parse("2024-04-30"));
+        List<MovimentacaoDTO> ano = cacheMeses.listar(1L, LocalDate.parse("2024-01-01"), LocalDate.parse("2024-12-31"));
+
+        assertEquals(List.of("1.00", "3.00", "4.00", "12.00"), ano.stream().map(m -> m.getValor().toPlainString()).toList());
+
+        // Todos os meses de 2024 já estão no cache: a busca personalizada só filtra as datas
+        List<MovimentacaoDTO> periodo = cacheMeses.listar(1L, LocalDate.parse("2024-01-06"), LocalDate.parse("2024-04-10"));
+        assertEquals(List.of("3.00", "4.00"), periodo.stream().map(m -> m.getValor().toPlainString()).toList());
+        verify(movimentacaoRepository, times(3)).listarPorUsuarioEPeriodo(eq(1L), any(), any());
+    }
+
+    @Test
+    @DisplayName("Deve consultar sempre o mês corrente no banco, só a partir do primeiro dia dele")
+    void mesCorrenteVemDoBanco() {
+        YearMonth atual = YearMonth.now();
+        LocalDate inicio = atual.minusMonths(1).atDay(1);
+        LocalDate hoje = LocalDate.now();
+        when(movimentacaoRepository.listarPorUsuarioEPeriodo(1L, inicio, atual.minusMonths(1).atEndOfMonth()))
+                .thenReturn(List.of(movimentacao(inicio.toString(), "1.00")));
+        when(movimentacaoRepository.listarPorUsuarioEPeriodo(1L, atual.atDay(1), hoje))
+                .thenReturn(List.of(movimentacao(hoje.toString(), "2.00")));
+
+        cacheMeses.listar(1L, inicio, hoje);
+        List<MovimentacaoDTO> resultado = cacheMeses.listar(1L, inicio, hoje);
+
+        assertEquals(List.of("1.00", "2.00"), resultado.stream().map(m -> m.getValor().toPlainString()).toList());
+        verify(movimentacaoRepository, times(1)).listarPorUsuarioEPeriodo(1L, inicio, atual.minusMonths(1).atEndOfMonth());
+        verify(movimentacaoRepository, times(2)).listarPorUsuarioEPeriodo(1L, atual.atDay(1), hoje);
+        verifyNoMoreInteractions(movimentacaoRepository);
+    }
+
+    @Test
+    @DisplayName("Deve tirar do cache só o mês invalidado do usuário")
+    void invalidarSoOMes() {
+        LocalDate inicio = LocalDate.parse("2024-04-01");
+        LocalDate fim = LocalDate.parse("2024-05-31");
+        when(movimentacaoRepository.listarPorUsuarioEPeriodo(1L, inicio, fim)).thenReturn(List.of(
+                movimentacao("2024-04-02", "30.00"), movimentacao("2024-05-20", "12.34")));
+        when(movimentacaoRepository.listarPorUsuarioEPeriodo(1L, inicio, LocalDate.parse("2024-04-30"))).thenReturn(List.of(
+                movimentacao("2024-04-02", "30.00"), movimentacao("2024-04-03", "1.00")));
+
+        cacheMeses.listar(1L, inicio, fim);
+        cacheMeses.invalidarAposCommit(2L, Set.of(YearMonth.of(2024, 4)));
+        cacheMeses.listar(1L, inicio, fim);
+        verify(movimentacaoRepository, times(1)).listarPorUsuarioEPeriodo(eq(1L), any(), any());
+
+        cacheMeses.invalidarAposCommit(1L, Set.of(YearMonth.of(2024, 4)));
+        List<MovimentacaoDTO> resultado = cacheMeses.listar(1L, inicio, fim);
+
+        assertEquals(List.of("30.00", "1.00", "12.34"), resultado.stream().map(m -> m.getValor().toPlainString()).toList());
+        verify(movimentacaoRepository).listarPorUsuarioEPeriodo(1L, inicio, LocalDate.parse("2024-04-30"));
+    }
+
+    @Test
+    @DisplayName("Não deve guardar um mês invalidado enquanto a consulta dele estava em andamento")
+    void invalidacaoDuranteCarga() {
+        LocalDate inicio = LocalDate.parse("2024-04-01");
+        LocalDate fim = LocalDate.parse("2024-04-30");
+        // Uma gravação no mês faz commit enquanto a consulta lê a versão anterior
+        when(movimentacaoRepository.listarPorUsuarioEPeriodo(1L, inicio, fim)).thenAnswer(invocacao -> {
+            cacheMeses.invalidarAposCommit(1L, Set.of(YearMonth.of(2024, 4)));
+            return List.of(movimentacao("2024-04-02", "30.00"));
+        });
+
+        assertEquals(1, cacheMeses.listar(1L, inicio, fim).size());
+        cacheMeses.listar(1L, inicio, fim);
+
+        verify(movimentacaoRepository, times(2)).listarPorUsuarioEPeriodo(1L, inicio, fim);
+    }
+
+}
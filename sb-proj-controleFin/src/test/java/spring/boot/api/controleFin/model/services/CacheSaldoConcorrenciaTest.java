@@ -0,0 +1,101 @@
+package spring.boot.api.controleFin.model.services;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+import spring.boot.api.controleFin.model.dto.MovimentacaoDTO;
+import spring.boot.api.controleFin.model.entities.Categoria;
+import spring.boot.api.controleFin.model.entities.Movimentacao;
+import spring.boot.api.controleFin.model.entities.Usuario;
+import spring.boot.api.controleFin.model.repositories.MovimentacaoRepository;
+import spring.boot.api.controleFin.model.repositories.UsuarioRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext
+class CacheSaldoConcorrenciaTest {
+
+    private static final int LEITORES = 8;
+    private static final int ESCRITAS = 200;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private MovimentacaoService movimentacaoService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private MovimentacaoRepository movimentacaoRepository;
+
+    @Test
+    @DisplayName("Não deve retornar saldo antigo do cache depois que a escrita fez commit, com várias threads lendo o saldo ao mesmo tempo")
+    void semSaldoAntigoDepoisDoCommit() throws Exception {
+        Long idUsuario = usuarioRepository.save(new Usuario("Maria", "12345678900", new BigDecimal("1000.00"))).getId();
+
+        AtomicBoolean escrevendo = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(LEITORES);
+        List<Future<?>> leitores = new ArrayList<>();
+        for (int t = 0; t < LEITORES; t++) {
+            leitores.add(executor.submit(() -> {
+                while (escrevendo.get()) {
+                    usuarioService.getSaldo(idUsuario); // Mantém o cache sendo carregado durante as escritas
+                }
+            }));
+        }
+
+        try {
+            for (int i = 0; i < ESCRITAS; i++) {
+                if (i % 3 == 2) {
+                    List<Movimentacao> existentes = movimentacaoRepository.findAll();
+                    movimentacaoService.deletarMovimentacao(idUsuario, existentes.get(existentes.size() - 1).getId());
+                } else {
+                    try {
+                        movimentacaoService.adicionarMovimentacao(new MovimentacaoDTO(
+                                i % 2 == 0 ? "credito" : "debito", LocalDate.parse("2024-04-20"), new BigDecimal("7.00"), Categoria.CASA, idUsuario));
+                    } catch (ResponseStatusException e) {
+                        Assertions.assertEquals("Saldo insuficiente para esta operação", e.getReason());
+                    }
+                }
+
+                // A escrita já fez commit: o saldo do cache tem que ser o do banco
+                BigDecimal noBanco = usuarioRepository.buscarSaldo(idUsuario).get();
+                Assertions.assertEquals(0, noBanco.compareTo(usuarioService.getSaldo(idUsuario)), "escrita " + i);
+            }
+        } finally {
+            escrevendo.set(false);
+            for (Future<?> leitor : leitores) {
+                leitor.get();
+            }
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve retornar o saldo do cache sem consultar o banco enquanto não houver escrita")
+    void saldoVemDoCache() {
+        Usuario usuario = usuarioRepository.save(new Usuario("Maria", "98765432100", new BigDecimal("50.00")));
+
+        Assertions.assertEquals(0, new BigDecimal("50.00").compareTo(usuarioService.getSaldo(usuario.getId())));
+
+        // Alteração direta no banco, sem passar pelas movimentações: o cache continua com o valor lido
+        usuarioRepository.save(new Usuario(usuario.getId(), "Maria", "98765432100", new BigDecimal("80.00")));
+        Assertions.assertEquals(0, new BigDecimal("50.00").compareTo(usuarioService.getSaldo(usuario.getId())));
+    }
+}
@@ -0,0 +1,114 @@
+package spring.boot.api.controleFin.model.services;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class CacheSaldoServiceTest {
+
+    private static final int USUARIOS = 4;
+    private static final int LEITORES = 64;
+
+    private CacheSaldoService cacheSaldo;
+
+    @BeforeEach
+    void setup() {
+        cacheSaldo = new CacheSaldoService();
+        cacheSaldo.habilitado = true;
+        cacheSaldo.tamanhoMaximo = 100;
+        cacheSaldo.expiracao = Duration.ofMinutes(1);
+        cacheSaldo.criarCache();
+    }
+
+    @Test
+    @DisplayName("Não deve prender as virtual threads à thread do sistema enquanto o saldo é consultado no banco, " +
+            "e deve consultar uma vez só por usuário com várias leituras simultâneas")
+    void cargaSemPrenderVirtualThreads() throws Exception {
+        Map<Long, AtomicInteger> cargas = new ConcurrentHashMap<>();
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Thread> leitores = new ArrayList<>();
+        List<Throwable> erros = new ArrayList<>();
+        Path arquivo = Files.createTempFile("saldo-pinned", ".jfr");
+
+        try (Recording gravacao = new Recording()) {
+            gravacao.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            gravacao.start();
+
+            for (int i = 0; i < LEITORES; i++) {
+                long idUsuario = i % USUARIOS;
+                leitores.add(Thread.ofVirtual().name("leitor-saldo-" + i).start(() -> {
+                    try {
+                        largada.await();
+                        BigDecimal saldo = cacheSaldo.buscar(idUsuario, () -> {
+                            cargas.computeIfAbsent(idUsuario, id -> new AtomicInteger()).incrementAndGet();
+                            try {
+                                Thread.sleep(50); // Consulta demorada: dentro de um lock do mapa a virtual thread ficaria presa durante a espera
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            return BigDecimal.valueOf(idUsuario);
+                        });
+                        Assertions.assertEquals(BigDecimal.valueOf(idUsuario), saldo);
+                    } catch (Throwable e) {
+                        synchronized (erros) {
+                            erros.add(e);
+                        }
+                    }
+                }));
+            }
+            largada.countDown();
+            for (Thread leitor : leitores) {
+                leitor.join();
+            }
+
+            gravacao.stop();
+            gravacao.dump(arquivo);
+        }
+
+        try {
+            List<RecordedEvent> presas = RecordingFile.readAllEvents(arquivo).stream()
+                    .filter(evento -> evento.getThread() != null && evento.getThread().getJavaName() != null
+                            && evento.getThread().getJavaName().startsWith("leitor-saldo-"))
+                    .toList();
+            Assertions.assertEquals(List.of(), erros);
+            Assertions.assertEquals(List.of(), presas);
+            for (long id = 0; id < USUARIOS; id++) {
+                Assertions.assertEquals(1, cargas.get(id).get(), "usuário " + id);
+            }
+        } finally {
+            Files.deleteIfExists(arquivo);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve repassar a exceção da carga para quem lê o saldo e não guardar nada no cache")
+    void excecaoDaCargaNaoFicaNoCache() {
+        ResponseStatusException erro = Assertions.assertThrows(ResponseStatusException.class, () -> cacheSaldo.buscar(1L, () -> {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Usuário não encontrado");
+        }));
+        Assertions.assertEquals("Usuário não encontrado", erro.getReason());
+
+        Assertions.assertEquals(BigDecimal.TEN, cacheSaldo.buscar(1L, () -> BigDecimal.TEN));
+        Assertions.assertEquals(BigDecimal.TEN, cacheSaldo.buscar(1L, () -> BigDecimal.ONE));
+
+        cacheSaldo.invalidarAposCommit(1L);
+        Assertions.assertEquals(BigDecimal.ONE, cacheSaldo.buscar(1L, () -> BigDecimal.ONE));
+    }
+}
@@ -0,0 +1,120 @@
+package spring.boot.api.controleFin.model.services;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+import spring.boot.api.controleFin.model.dto.MovimentacaoDTO;
+import spring.boot.api.controleFin.model.entities.Categoria;
+import spring.boot.api.controleFin.model.entities.Usuario;
+import spring.boot.api.controleFin.model.repositories.ChaveIdempotenciaRepository;
+import spring.boot.api.controleFin.model.repositories.MovimentacaoRepository;
+import spring.boot.api.controleFin.model.repositories.UsuarioRepository;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class IdempotenciaServiceTest {
+
+    @Autowired
+    private IdempotenciaService idempotenciaService;
+
+    @Autowired
+    private MovimentacaoService movimentacaoService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private MovimentacaoRepository movimentacaoRepository;
+
+    @Autowired
+    private ChaveIdempotenciaRepository chaveIdempotenciaRepository;
+
+    private boolean debitar(MovimentacaoDTO dto, String chave) {
+        return idempotenciaService.executar(dto.getIdUsuario(), chave, dto, () -> movimentacaoService.adicionarMovimentacao(dto));
+    }
+
+    @Test
+    @DisplayName("Deve aplicar a movimentação uma vez só e recusar a mesma chave com outra requisição")
+    void executarCase1() {
+        Long idUsuario = usuarioRepository.save(new Usuario("Maria", "12345678900", new BigDecimal("100.00"))).getId();
+        MovimentacaoDTO debito = new MovimentacaoDTO("debito", LocalDate.parse("2024-04-20"), new BigDecimal("30.00"), Categoria.CASA, idUsuario);
+
+        Assertions.assertTrue(debitar(debito, "chave-1"));
+        Assertions.assertFalse(debitar(debito, "chave-1"));
+        Assertions.assertFalse(debitar(new MovimentacaoDTO("debito", LocalDate.parse("2024-04-20"), new BigDecimal("30.00"), Categoria.CASA, idUsuario), "chave-1"));
+
+        ResponseStatusException e = Assertions.assertThrows(ResponseStatusException.class,
+                () -> debitar(new MovimentacaoDTO("debito", LocalDate.parse("2024-04-20"), new BigDecimal("31.00"), Categoria.CASA, idUsuario), "chave-1"));
+        Assertions.assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, e.getStatusCode());
+
+        Assertions.assertEquals(0, new BigDecimal("70.00").compareTo(usuarioRepository.findById(idUsuario).orElseThrow().getSaldo()));
+        Assertions.assertEquals(1, movimentacaoRepository.count());
+    }
+
+    @Test
+    @DisplayName("Não deve guardar a chave de uma requisição recusada, e deve apagar as chaves expiradas")
+    void executarCase2() {
+        Long idUsuario = usuarioRepository.save(new Usuario("Maria", "12345678900", new BigDecimal("10.00"))).getId();
+        MovimentacaoDTO debito = new MovimentacaoDTO("debito", LocalDate.parse("2024-04-20"), new BigDecimal("30.00"), Categoria.CASA, idUsuario);
+
+        Assertions.assertThrows(ResponseStatusException.class, () -> debitar(debito, "chave-1"));
+        Assertions.assertEquals(0, chaveIdempotenciaRepository.count());
+
+        movimentacaoService.adicionarMovimentacao(new MovimentacaoDTO("credito", LocalDate.parse("2024-04-19"), new BigDecimal("50.00"), Categoria.SALARIO, idUsuario));
+        Assertions.assertTrue(debitar(debito, "chave-1"));
+        Assertions.assertEquals(0, new BigDecimal("30.00").compareTo(usuarioRepository.findById(idUsuario).orElseThrow().getSaldo()));
+
+        Assertions.assertEquals(0, idempotenciaService.apagarExpiradas());
+        ReflectionTestUtils.setField(idempotenciaService, "validade", Duration.ofSeconds(-1));
+        Assertions.assertEquals(1, idempotenciaService.apagarExpiradas());
+    }
+
+    @Test
+    @DisplayName("Deve aplicar uma vez só a mesma requisição enviada ao mesmo tempo por 16 threads")
+    void executarCase3() throws Exception {
+        Long idUsuario = usuarioRepository.save(new Usuario("Maria", "12345678900", new BigDecimal("100.00"))).getId();
+        MovimentacaoDTO debito = new MovimentacaoDTO("debito", LocalDate.parse("2024-04-20"), new BigDecimal("30.00"), Categoria.CASA, idUsuario);
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<Boolean>> tarefas = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            tarefas.add(executor.submit(() -> {
+                largada.await();
+                return debitar(debito, "chave-concorrente");
+            }));
+        }
+        largada.countDown();
+
+        int executadas = 0;
+        for (Future<Boolean> tarefa : tarefas) {
+            if (tarefa.get()) {
+                executadas++;
+            }
+        }
+        executor.shutdown();
+
+        Assertions.assertEquals(1, executadas);
+        Assertions.assertEquals(1, movimentacaoRepository.count());
+        Assertions.assertEquals(0, new BigDecimal("70.00").compareTo(usuarioRepository.findById(idUsuario).orElseThrow().getSaldo()));
+    }
+
+}
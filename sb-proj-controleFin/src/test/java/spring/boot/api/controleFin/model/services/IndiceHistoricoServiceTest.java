@@ -0,0 +1,231 @@
+package spring.boot.api.controleFin.model.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+import spring.boot.api.controleFin.model.dto.MovimentacaoDTO;
+import spring.boot.api.controleFin.model.dto.MovimentacaoExportacaoDTO;
+import spring.boot.api.controleFin.model.entities.Categoria;
+import spring.boot.api.controleFin.model.entities.TipoMovimentacao;
+import spring.boot.api.controleFin.model.repositories.MovimentacaoRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IndiceHistoricoServiceTest {
+
+    @Mock
+    private MovimentacaoRepository movimentacaoRepository;
+
+    private IndiceHistoricoService indice;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        indice = new IndiceHistoricoService();
+        indice.movimentacaoRepository = movimentacaoRepository;
+        indice.transactionManager = mock(PlatformTransactionManager.class);
+        indice.habilitado = true;
+        indice.memoriaMaxima = DataSize.ofMegabytes(1);
+        indice.criarCache();
+    }
+
+    private static MovimentacaoExportacaoDTO movimentacao(long id, String data, TipoMovimentacao tipo, Categoria categoria, String valor) {
+        return new MovimentacaoExportacaoDTO(id, data == null ? null : LocalDate.parse(data), tipo, categoria, new BigDecimal(valor));
+    }
+
+    //Histórico como o banco devolve: ordenado por data e id, com a movimentação antiga sem data antes das outras
+    private void historico(MovimentacaoExportacaoDTO... movimentacoes) {
+        when(movimentacaoRepository.exportarPorUsuario(1L)).thenAnswer(invocacao -> Stream.of(movimentacoes));
+    }
+
+    private static List<String> valores(List<MovimentacaoDTO> movimentacoes) {
+        return movimentacoes.stream().map(m -> m.getValor().toPlainString()).toList();
+    }
+
+    @Test
+    @DisplayName("Deve carregar o histórico do usuário uma vez só e responder os períodos com as movimentações entre as datas, em ordem de data e id")
+    void periodoDoIndice() {
+        historico(movimentacao(9, null, TipoMovimentacao.DEBITO, Categoria.CASA, "9.00"),
+                movimentacao(3, "2024-03-31", TipoMovimentacao.CREDITO, Categoria.SALARIO, "3.00"),
+                movimentacao(1, "2024-04-01", TipoMovimentacao.DEBITO, Categoria.CASA, "1.00"),
+                movimentacao(2, "2024-04-01", TipoMovimentacao.DEBITO, Categoria.LAZER, "2.00"),
+                movimentacao(4, "2024-04-30", TipoMovimentacao.CREDITO, Categoria.EXTRA, "12.34"),
+                movimentacao(5, "2024-05-01", TipoMovimentacao.DEBITO, Categoria.CASA, "5.00"));
+
+        assertFalse(indice.contem(1L));
+        List<MovimentacaoDTO> abril = indice.listar(1L, LocalDate.parse("2024-04-01"), LocalDate.parse("2024-04-30"));
+
+        assertEquals(List.of("1.00", "2.00", "12.34"), valores(abril));
+        assertEquals(LocalDate.parse("2024-04-30"), abril.get(2).getData());
+        assertEquals("credito", abril.get(2).getTipoMovimentacao());
+        assertEquals(Categoria.EXTRA, abril.get(2).getCategoria());
+        assertEquals(1L, abril.get(2).getIdUsuario());
+
+        assertEquals(List.of("3.00", "1.00", "2.00", "12.34", "5.00"), valores(indice.listar(1L, LocalDate.parse("2024-01-01"), LocalDate.parse("2024-12-31"))));
+        assertEquals(List.of(), indice.listar(1L, LocalDate.parse("2024-04-02"), LocalDate.parse("2024-04-29")));
+        assertTrue(indice.contem(1L));
+        verify(movimentacaoRepository, times(1)).exportarPorUsuario(1L);
+    }
+
+    @Test
+    @DisplayName("Deve responder a busca por categoria com uma passada pelo histórico, incluindo movimentações antigas sem data")
+    void categoriaDoIndice() {
+        historico(movimentacao(9, null, TipoMovimentacao.DEBITO, Categoria.CASA, "9.00"),
+                movimentacao(1, "2024-04-01", TipoMovimentacao.DEBITO, Categoria.CASA, "1.00"),
+                movimentacao(2, "2024-04-01", TipoMovimentacao.DEBITO, Categoria.LAZER, "2.00"),
+                movimentacao(5, "2024-05-01", TipoMovimentacao.DEBITO, Categoria.CASA, "5.00"));
+
+        List<MovimentacaoDTO> casa = indice.listar(1L, Categoria.CASA);
+
+        assertEquals(List.of("9.00", "1.00", "5.00"), valores(casa));
+        assertNull(casa.get(0).getData());
+        assertEquals(List.of(), indice.listar(1L, Categoria.SAUDE));
+    }
+
+    @Test
+    @DisplayName("Deve aplicar as movimentações gravadas e apagadas no histórico carregado, sem repetir uma que já estava no índice")
+    void gravacoesAplicadasNoIndice() {
+        historico(movimentacao(1, "2024-04-01", TipoMovimentacao.DEBITO, Categoria.CASA, "1.00"),
+                movimentacao(4, "2024-04-30", TipoMovimentacao.CREDITO, Categoria.EXTRA, "4.00"));
+        LocalDate inicio = LocalDate.parse("2024-04-01");
+        LocalDate fim = LocalDate.parse("2024-04-30");
+        indice.listar(1L, inicio, fim);
+
+        indice.adicionarAposCommit(1L, List.of(movimentacao(7, "2024-04-15", TipoMovimentacao.DEBITO, Categoria.CASA, "7.00"),
+                movimentacao(4, "2024-04-30", TipoMovimentacao.CREDITO, Categoria.EXTRA, "4.00"),
+                movimentacao(6, "2024-04-01", TipoMovimentacao.DEBITO, Categoria.LAZER, "6.00")));
+        assertEquals(List.of("1.00", "6.00", "7.00", "4.00"), valores(indice.listar(1L, inicio, fim)));
+
+        indice.removerAposCommit(1L, List.of(movimentacao(1, "2024-04-01", TipoMovimentacao.DEBITO, Categoria.CASA, "1.00"),
+                movimentacao(4, "2024-04-30", TipoMovimentacao.CREDITO, Categoria.EXTRA, "4.00")));
+        assertEquals(List.of("6.00", "7.00"), valores(indice.listar(1L, inicio, fim)));
+        assertEquals(List.of("7.00"), valores(indice.listar(1L, Categoria.CASA)));
+
+        // Gravações de um usuário fora do índice não carregam o histórico dele
+        indice.adicionarAposCommit(2L, List.of(movimentacao(8, "2024-04-02", TipoMovimentacao.DEBITO, Categoria.CASA, "8.00")));
+        assertFalse(indice.contem(2L));
+        verify(movimentacaoRepository, times(1)).exportarPorUsuario(1L);
+    }
+
+    @Test
+    @DisplayName("Não deve guardar o histórico quando uma gravação do usuário faz commit enquanto ele carregava")
+    void gravacaoDuranteCarga() {
+        // A carga lê o histórico antes do commit da gravação
+        when(movimentacaoRepository.exportarPorUsuario(1L)).thenAnswer(invocacao -> {
+            indice.adicionarAposCommit(1L, List.of(movimentacao(2, "2024-04-02", TipoMovimentacao.DEBITO, Categoria.CASA, "2.00")));
+            return Stream.of(movimentacao(1, "2024-04-01", TipoMovimentacao.DEBITO, Categoria.CASA, "1.00"));
+        });
+        LocalDate inicio = LocalDate.parse("2024-04-01");
+        LocalDate fim = LocalDate.parse("2024-04-30");
+
+        assertEquals(List.of("1.00"), valores(indice.listar(1L, inicio, fim)));
+        assertFalse(indice.contem(1L));
+        indice.listar(1L, inicio, fim);
+
+        verify(movimentacaoRepository, times(2)).exportarPorUsuario(1L);
+    }
+
+    @Test
+    @DisplayName("Deve descartar o histórico quando a remoção de uma movimentação chega antes da inclusão dela, e carregar de novo na próxima busca")
+    void remocaoForaDeOrdem() {
+        historico(movimentacao(1, "2024-04-01", TipoMovimentacao.DEBITO, Categoria.CASA, "1.00"));
+        LocalDate inicio = LocalDate.parse("2024-04-01");
+        LocalDate fim = LocalDate.parse("2024-04-30");
+        indice.listar(1L, inicio, fim);
+
+        // O commit que gravou a movimentação 5 ainda não aplicou a inclusão quando o da remoção roda
+        indice.removerAposCommit(1L, List.of(movimentacao(1, "2024-04-01", TipoMovimentacao.DEBITO, Categoria.CASA, "1.00"),
+                movimentacao(5, "2024-04-02", TipoMovimentacao.DEBITO, Categoria.CASA, "5.00")));
+        assertFalse(indice.contem(1L));
+        indice.adicionarAposCommit(1L, List.of(movimentacao(5, "2024-04-02", TipoMovimentacao.DEBITO, Categoria.CASA, "5.00")));
+        assertFalse(indice.contem(1L));
+
+        historico();
+        assertEquals(List.of(), indice.listar(1L, inicio, fim));
+        verify(movimentacaoRepository, times(2)).exportarPorUsuario(1L);
+    }
+
+    @Test
+    @DisplayName("Deve responder igual antes e depois de a busca juntar as gravações acumuladas nas colunas do histórico")
+    void compactacaoDasGravacoes() {
+        historico(movimentacao(9, null, TipoMovimentacao.DEBITO, Categoria.CASA, "9.00"),
+                movimentacao(1, "2024-04-01", TipoMovimentacao.DEBITO, Categoria.CASA, "1.00"),
+                movimentacao(2, "2024-04-02", TipoMovimentacao.DEBITO, Categoria.LAZER, "2.00"),
+                movimentacao(3, "2024-04-03", TipoMovimentacao.DEBITO, Categoria.CASA, "3.00"));
+        LocalDate inicio = LocalDate.parse("2024-04-01");
+        LocalDate fim = LocalDate.parse("2024-04-30");
+        indice.listar(1L, inicio, fim);
+
+        // Uma movimentação carregada e uma gravada apagadas, e gravações até a busca seguinte compactar o histórico
+        indice.adicionarAposCommit(1L, List.of(movimentacao(100, "2024-04-02", TipoMovimentacao.CREDITO, Categoria.CASA, "100.00")));
+        indice.removerAposCommit(1L, List.of(movimentacao(2, "2024-04-02", TipoMovimentacao.DEBITO, Categoria.LAZER, "2.00"),
+                movimentacao(100, "2024-04-02", TipoMovimentacao.CREDITO, Categoria.CASA, "100.00")));
+        for (int i = 0; i < IndiceHistoricoService.COMPACTAR_COM; i++) {
+            indice.adicionarAposCommit(1L, List.of(movimentacao(200 + i, "2024-05-01", TipoMovimentacao.DEBITO, Categoria.SAUDE, "0.01")));
+        }
+        indice.adicionarAposCommit(1L, List.of(movimentacao(4, "2024-04-01", TipoMovimentacao.DEBITO, Categoria.CASA, "4.00")));
+
+        assertEquals(List.of("1.00", "4.00", "3.00"), valores(indice.listar(1L, inicio, fim)));
+        assertEquals(List.of("1.00", "4.00", "3.00"), valores(indice.listar(1L, inicio, fim)));
+        assertEquals(List.of("9.00", "1.00", "4.00", "3.00"), valores(indice.listar(1L, Categoria.CASA)));
+        assertEquals(IndiceHistoricoService.COMPACTAR_COM, indice.listar(1L, Categoria.SAUDE).size());
+
+        // Depois de compactado, as remoções acham as movimentações nas colunas novas
+        indice.removerAposCommit(1L, List.of(movimentacao(4, "2024-04-01", TipoMovimentacao.DEBITO, Categoria.CASA, "4.00")));
+        assertEquals(List.of("1.00", "3.00"), valores(indice.listar(1L, inicio, fim)));
+        verify(movimentacaoRepository, times(1)).exportarPorUsuario(1L);
+    }
+
+    @Test
+    @DisplayName("Deve descartar o histórico quando as gravações acumuladas sem nenhuma busca passam do limite, e carregar de novo na próxima busca")
+    void gravacoesDemaisSemBusca() {
+        historico(movimentacao(1, "2024-04-01", TipoMovimentacao.DEBITO, Categoria.CASA, "1.00"));
+        LocalDate inicio = LocalDate.parse("2024-04-01");
+        LocalDate fim = LocalDate.parse("2024-04-30");
+        indice.listar(1L, inicio, fim);
+
+        for (int i = 1; i < IndiceHistoricoService.DESCARTAR_COM; i++) {
+            indice.adicionarAposCommit(1L, List.of(movimentacao(100 + i, "2024-05-01", TipoMovimentacao.DEBITO, Categoria.CASA, "0.01")));
+        }
+        assertTrue(indice.contem(1L));
+        indice.adicionarAposCommit(1L, List.of(movimentacao(2, "2024-04-02", TipoMovimentacao.DEBITO, Categoria.CASA, "2.00")));
+        assertFalse(indice.contem(1L));
+
+        historico(movimentacao(1, "2024-04-01", TipoMovimentacao.DEBITO, Categoria.CASA, "1.00"),
+                movimentacao(2, "2024-04-02", TipoMovimentacao.DEBITO, Categoria.CASA, "2.00"));
+        assertEquals(List.of("1.00", "2.00"), valores(indice.listar(1L, inicio, fim)));
+        verify(movimentacaoRepository, times(2)).exportarPorUsuario(1L);
+    }
+
+    @Test
+    @DisplayName("Deve guardar os centavos do valor arredondados e, se a gravação não couber nas colunas, descartar o histórico sem lançar exceção depois do commit")
+    void gravacaoQueNaoCabeNoIndice() {
+        historico(movimentacao(1, "2024-04-01", TipoMovimentacao.DEBITO, Categoria.CASA, "1.00"));
+        LocalDate inicio = LocalDate.parse("2024-04-01");
+        LocalDate fim = LocalDate.parse("2024-04-30");
+        indice.listar(1L, inicio, fim);
+
+        indice.adicionarAposCommit(1L, List.of(movimentacao(2, "2024-04-02", TipoMovimentacao.DEBITO, Categoria.CASA, "2.005")));
+        assertEquals(List.of("1.00", "2.01"), valores(indice.listar(1L, inicio, fim)));
+
+        indice.adicionarAposCommit(1L, List.of(movimentacao(3, "2024-04-03", TipoMovimentacao.CREDITO, Categoria.EXTRA, "1E+30")));
+        assertFalse(indice.contem(1L));
+    }
+
+}
@@ -0,0 +1,103 @@
+package spring.boot.api.controleFin.model.services;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+import spring.boot.api.controleFin.model.dto.MovimentacaoDTO;
+import spring.boot.api.controleFin.model.entities.Categoria;
+import spring.boot.api.controleFin.model.entities.Usuario;
+import spring.boot.api.controleFin.model.repositories.MovimentacaoRepository;
+import spring.boot.api.controleFin.model.repositories.UsuarioRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext
+class MovimentacaoServiceConcorrenciaTest {
+
+    private static final int THREADS = 64;
+    private static final int OPERACOES_POR_THREAD = 25;
+
+    @Autowired
+    private MovimentacaoService movimentacaoService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private MovimentacaoRepository movimentacaoRepository;
+
+    @Test
+    @DisplayName("Deve manter o saldo consistente com 64 threads debitando e creditando o mesmo usuário ao mesmo tempo")
+    void saldoConsistenteSobConcorrencia() throws Exception {
+
+        Usuario usuario = usuarioRepository.save(new Usuario("Maria", "12345678900", new BigDecimal("500.00")));
+        Long idUsuario = usuario.getId();
+
+        BigDecimal valorDebito = new BigDecimal("3.00");
+        BigDecimal valorCredito = new BigDecimal("1.00");
+
+        AtomicInteger debitosAceitos = new AtomicInteger();
+        AtomicInteger debitosRecusados = new AtomicInteger();
+        AtomicInteger creditosAceitos = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> tarefas = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            boolean debita = t % 4 != 0; // 3 de cada 4 threads só debitam, para forçar a falta de saldo
+            tarefas.add(executor.submit(() -> {
+                largada.await();
+                for (int i = 0; i < OPERACOES_POR_THREAD; i++) {
+                    if (debita) {
+                        try {
+                            movimentacaoService.adicionarMovimentacao(new MovimentacaoDTO(
+                                    "debito", LocalDate.parse("2024-04-20"), valorDebito, Categoria.CASA, idUsuario));
+                            debitosAceitos.incrementAndGet();
+                        } catch (ResponseStatusException e) {
+                            Assertions.assertEquals("Saldo insuficiente para esta operação", e.getReason());
+                            debitosRecusados.incrementAndGet();
+                        }
+                    } else {
+                        movimentacaoService.adicionarMovimentacao(new MovimentacaoDTO(
+                                "credito", LocalDate.parse("2024-04-20"), valorCredito, Categoria.SALARIO, idUsuario));
+                        creditosAceitos.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        largada.countDown();
+        for (Future<?> tarefa : tarefas) {
+            tarefa.get();
+        }
+        executor.shutdown();
+
+        BigDecimal esperado = new BigDecimal("500.00")
+                .add(valorCredito.multiply(BigDecimal.valueOf(creditosAceitos.get())))
+                .subtract(valorDebito.multiply(BigDecimal.valueOf(debitosAceitos.get())));
+
+        BigDecimal saldoFinal = usuarioRepository.findById(idUsuario).orElseThrow().getSaldo();
+
+        Assertions.assertTrue(debitosRecusados.get() > 0, "O teste deve esgotar o saldo pelo menos uma vez");
+        Assertions.assertEquals(0, esperado.compareTo(saldoFinal));
+        Assertions.assertTrue(saldoFinal.signum() >= 0);
+        Assertions.assertEquals(debitosAceitos.get() + creditosAceitos.get(), movimentacaoRepository.count());
+    }
+}
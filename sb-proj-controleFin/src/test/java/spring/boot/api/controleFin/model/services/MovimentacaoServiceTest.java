@@ -7,22 +7,35 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
+import jakarta.persistence.EntityManager;
+import spring.boot.api.controleFin.model.dto.LoteResultadoDTO;
 import spring.boot.api.controleFin.model.dto.MovimentacaoDTO;
+import spring.boot.api.controleFin.model.dto.MovimentacaoExportacaoDTO;
+import spring.boot.api.controleFin.model.dto.PaginaMovimentacaoDTO;
+import spring.boot.api.controleFin.model.dto.ResumoMovimentacaoDTO;
+import spring.boot.api.controleFin.model.dto.TransferenciaDTO;
 import spring.boot.api.controleFin.model.entities.Categoria;
 import spring.boot.api.controleFin.model.entities.Movimentacao;
+import spring.boot.api.controleFin.model.entities.TipoMovimentacao;
 import spring.boot.api.controleFin.model.entities.Usuario;
 import spring.boot.api.controleFin.model.repositories.MovimentacaoRepository;
+import spring.boot.api.controleFin.model.repositories.ResumoMensalRepository;
 import spring.boot.api.controleFin.model.repositories.UsuarioRepository;
 
 import javax.xml.crypto.Data;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -36,12 +49,34 @@ class MovimentacaoServiceTest {
     @Mock
     private UsuarioRepository usuarioRepository;
 
+    @Mock
+    private ResumoMensalRepository resumoMensalRepository;
+
+    @Mock
+    private ResumoMensalService resumoMensalService;
+
+    @Mock
+    private SaldoMensalService saldoMensalService;
+
+    @Mock
+    private CacheSaldoService cacheSaldo;
+
+    @Spy
+    private CacheMesesFechadosService cacheMeses = new CacheMesesFechadosService(); // Sem o contexto do Spring o cache fica desligado e só repassa a consulta
+
+    @Spy
+    private IndiceHistoricoService indiceHistorico = new IndiceHistoricoService(); // Desligado sem o contexto do Spring: as buscas vão para o cache dos meses e o repositório
+
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private MovimentacaoService movimentacaoService;
 
     @BeforeEach
     void setup(){
         MockitoAnnotations.openMocks(this);
+        cacheMeses.movimentacaoRepository = movimentacaoRepository;
     }
 
     @Test
@@ -62,12 +97,16 @@ class MovimentacaoServiceTest {
                         "12345678900",
                         new BigDecimal("100.00")));
 
-        when(usuarioRepository.findById(dto.getIdUsuario())).thenReturn(usuario);
+        when(usuarioRepository.existsById(dto.getIdUsuario())).thenReturn(true);
 
         movimentacaoService.adicionarMovimentacao(dto);
 
         verify(movimentacaoRepository, times(1)).save(any());
-        verify(usuarioRepository, times(1)).save(any());
+        verify(usuarioRepository, times(1)).ajustarSaldo(1L, new BigDecimal("100.00"));
+        verify(usuarioRepository, never()).save(any());
+        verify(resumoMensalService).registrar(1L, LocalDate.parse("2024-04-20"), Categoria.SALARIO, TipoMovimentacao.CREDITO, new BigDecimal("100.00"), 1);
+        verify(saldoMensalService).registrar(1L, Map.of(YearMonth.of(2024, 4), new BigDecimal("100.00")));
+        verify(cacheSaldo).invalidarAposCommit(1L);
     }
 
     @Test
@@ -88,12 +127,15 @@ class MovimentacaoServiceTest {
                         "12345678900",
                         new BigDecimal("100.00")));
 
-        when(usuarioRepository.findById(dto.getIdUsuario())).thenReturn(usuario);
+        when(usuarioRepository.existsById(dto.getIdUsuario())).thenReturn(true);
+
+        when(usuarioRepository.debitarSaldo(1L, new BigDecimal("50.00"))).thenReturn(1);
 
         movimentacaoService.adicionarMovimentacao(dto);
 
         verify(movimentacaoRepository, times(1)).save(any());
-        verify(usuarioRepository, times(1)).save(any());
+        verify(usuarioRepository, times(1)).debitarSaldo(1L, new BigDecimal("50.00"));
+        verify(usuarioRepository, never()).save(any());
     }
 
     @Test
@@ -113,7 +155,7 @@ class MovimentacaoServiceTest {
                         "12345678900",
                         new BigDecimal("100.00")));
 
-        when(usuarioRepository.findById(usuario.get().getId())).thenReturn(Optional.empty());
+        when(usuarioRepository.existsById(usuario.get().getId())).thenReturn(false);
 
         ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
             movimentacaoService.adicionarMovimentacao(dto);
@@ -140,7 +182,7 @@ class MovimentacaoServiceTest {
                         "12345678900",
                         new BigDecimal("50.00")));
 
-        when(usuarioRepository.findById(dto.getIdUsuario())).thenReturn(usuario);
+        when(usuarioRepository.existsById(dto.getIdUsuario())).thenReturn(true);
 
         ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
             movimentacaoService.adicionarMovimentacao(dto);
@@ -168,7 +210,7 @@ class MovimentacaoServiceTest {
                         "12345678900",
                         new BigDecimal("50.00")));
 
-        when(usuarioRepository.findById(dto.getIdUsuario())).thenReturn(usuario);
+        when(usuarioRepository.existsById(dto.getIdUsuario())).thenReturn(true);
 
         ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
             movimentacaoService.adicionarMovimentacao(dto);
@@ -176,6 +218,234 @@ class MovimentacaoServiceTest {
 
         Assertions.assertEquals("Saldo insuficiente para esta operação", excecao.getReason());
         Assertions.assertEquals(HttpStatus.BAD_REQUEST, excecao.getStatusCode());
+
+        verify(movimentacaoRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Deve aceitar o tipo da movimentação em maiúsculas e gravar a movimentação com o tipo convertido")
+    void adicionarMovimentacaoCase6() {
+        MovimentacaoDTO dto = new MovimentacaoDTO(
+                "CREDITO",
+                LocalDate.parse("2024-04-20"),
+                new BigDecimal("100.00"),
+                Categoria.SALARIO,
+                1L);
+
+        when(usuarioRepository.existsById(dto.getIdUsuario())).thenReturn(true);
+
+        movimentacaoService.adicionarMovimentacao(dto);
+
+        verify(movimentacaoRepository).save(argThat(m -> m.getTipoMovimentacao() == TipoMovimentacao.CREDITO));
+        verify(usuarioRepository).ajustarSaldo(1L, new BigDecimal("100.00"));
+    }
+
+    @Test
+    @DisplayName("Deve lançar exceção quando o valor da movimentação for negativo, com a mesma mensagem do lote")
+    void adicionarMovimentacaoCase7() {
+        MovimentacaoDTO dto = new MovimentacaoDTO(
+                "credito",
+                LocalDate.parse("2024-04-20"),
+                new BigDecimal("-100.00"),
+                Categoria.SALARIO,
+                1L);
+
+        when(usuarioRepository.existsById(dto.getIdUsuario())).thenReturn(true);
+
+        ResponseStatusException exception = Assertions.assertThrows(ResponseStatusException.class, () -> {
+            movimentacaoService.adicionarMovimentacao(dto);
+        });
+
+        Assertions.assertEquals("Valor da movimentação inválido", exception.getReason());
+        verify(usuarioRepository, never()).ajustarSaldo(any(), any());
+        verify(movimentacaoRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Deve lançar exceção quando o valor tiver mais casas decimais ou dígitos do que a coluna DECIMAL(15,2) grava, " +
+            "e gravar com 2 casas o valor com zeros à direita")
+    void adicionarMovimentacaoCase8() {
+        when(usuarioRepository.existsById(1L)).thenReturn(true);
+
+        ResponseStatusException casas = Assertions.assertThrows(ResponseStatusException.class, () -> movimentacaoService.adicionarMovimentacao(
+                new MovimentacaoDTO("credito", LocalDate.parse("2024-04-20"), new BigDecimal("10.005"), Categoria.SALARIO, 1L)));
+        Assertions.assertEquals("O valor da movimentação deve ter no máximo 2 casas decimais", casas.getReason());
+
+        ResponseStatusException digitos = Assertions.assertThrows(ResponseStatusException.class, () -> movimentacaoService.adicionarMovimentacao(
+                new MovimentacaoDTO("credito", LocalDate.parse("2024-04-20"), new BigDecimal("12345678901234.00"), Categoria.SALARIO, 1L)));
+        Assertions.assertEquals("O valor da movimentação deve ter no máximo 13 dígitos antes da vírgula", digitos.getReason());
+        verify(usuarioRepository, never()).ajustarSaldo(any(), any());
+
+        movimentacaoService.adicionarMovimentacao(
+                new MovimentacaoDTO("credito", LocalDate.parse("2024-04-20"), new BigDecimal("10.500"), Categoria.SALARIO, 1L));
+        verify(usuarioRepository).ajustarSaldo(1L, new BigDecimal("10.50"));
+        verify(movimentacaoRepository).save(argThat(m -> m.getValor().scale() == 2));
+    }
+
+    @Test
+    @DisplayName("Deve gravar o lote inteiro em uma chamada só, carregando e bloqueando cada usuário uma única vez " +
+            "e aplicando o saldo líquido das movimentações")
+    void adicionarMovimentacoesCase1() {
+        Usuario maria = new Usuario(1L, "Maria", "12345678900", new BigDecimal("100.00"));
+        Usuario joao = new Usuario(2L, "João", "98765432100", new BigDecimal("10.00"));
+
+        List<MovimentacaoDTO> dtos = List.of(
+                new MovimentacaoDTO("credito", LocalDate.parse("2024-04-20"), new BigDecimal("50.00"), Categoria.SALARIO, 1L),
+                new MovimentacaoDTO("debito", LocalDate.parse("2024-04-21"), new BigDecimal("5.00"), Categoria.LAZER, 2L),
+                new MovimentacaoDTO("debito", LocalDate.parse("2024-04-22"), new BigDecimal("120.00"), Categoria.CASA, 1L));
+
+        when(usuarioRepository.bloquearPorIds(any())).thenReturn(List.of(maria, joao));
+        when(usuarioRepository.debitarSaldo(any(), any())).thenReturn(1);
+
+        LoteResultadoDTO resultado = movimentacaoService.adicionarMovimentacoes(dtos);
+
+        Assertions.assertEquals(3, resultado.getAceitas());
+        Assertions.assertEquals(0, resultado.getRejeitadas());
+
+        verify(usuarioRepository, times(1)).debitarSaldo(1L, new BigDecimal("70.00"));
+        verify(usuarioRepository, times(1)).debitarSaldo(2L, new BigDecimal("5.00"));
+
+        verify(usuarioRepository, times(1)).bloquearPorIds(Set.of(1L, 2L));
+        verify(usuarioRepository, never()).findAllById(any());
+        verify(usuarioRepository, never()).findById(any());
+        verify(movimentacaoRepository, times(1)).saveAll(any());
+        verify(movimentacaoRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar apenas as movimentações inválidas do lote, informando o motivo de cada uma")
+    void adicionarMovimentacoesCase2() {
+        Usuario maria = new Usuario(1L, "Maria", "12345678900", new BigDecimal("100.00"));
+
+        List<MovimentacaoDTO> dtos = List.of(
+                new MovimentacaoDTO("debito", LocalDate.parse("2024-04-20"), new BigDecimal("80.00"), Categoria.CASA, 1L),
+                new MovimentacaoDTO("debito", LocalDate.parse("2024-04-21"), new BigDecimal("30.00"), Categoria.LAZER, 1L),
+                new MovimentacaoDTO("cred", LocalDate.parse("2024-04-22"), new BigDecimal("10.00"), Categoria.EXTRA, 1L),
+                new MovimentacaoDTO("credito", LocalDate.parse("2024-04-23"), new BigDecimal("10.00"), Categoria.EXTRA, 99L));
+
+        when(usuarioRepository.bloquearPorIds(any())).thenReturn(List.of(maria));
+        when(usuarioRepository.debitarSaldo(any(), any())).thenReturn(1);
+
+        LoteResultadoDTO resultado = movimentacaoService.adicionarMovimentacoes(dtos);
+
+        Assertions.assertEquals(1, resultado.getAceitas());
+        Assertions.assertEquals(3, resultado.getRejeitadas());
+        Assertions.assertTrue(resultado.getItens().get(0).isAceito());
+        Assertions.assertEquals("Saldo insuficiente para esta operação", resultado.getItens().get(1).getMotivo());
+        Assertions.assertEquals("Tipo de movimentação inválido", resultado.getItens().get(2).getMotivo());
+        Assertions.assertEquals("Usuário não encontrado!", resultado.getItens().get(3).getMotivo());
+
+        verify(usuarioRepository, times(1)).debitarSaldo(1L, new BigDecimal("80.00"));
+    }
+
+    @Test
+    @DisplayName("Deve julgar cada movimentação contra o saldo bloqueado do usuário, recusando só o débito que ele não cobre " +
+            "e gravando as outras, inclusive as que vêm depois dele")
+    void adicionarMovimentacoesCase3() {
+        Usuario maria = new Usuario(1L, "Maria", "12345678900", new BigDecimal("50.00"));
+
+        List<MovimentacaoDTO> dtos = List.of(
+                new MovimentacaoDTO("debito", LocalDate.parse("2024-04-20"), new BigDecimal("80.00"), Categoria.CASA, 1L),
+                new MovimentacaoDTO("credito", LocalDate.parse("2024-04-21"), new BigDecimal("10.00"), Categoria.EXTRA, 1L),
+                new MovimentacaoDTO("debito", LocalDate.parse("2024-04-22"), new BigDecimal("40.00"), Categoria.LAZER, 1L),
+                new MovimentacaoDTO("debito", LocalDate.parse("2024-04-23"), new BigDecimal("-1.00"), Categoria.LAZER, 1L));
+
+        when(usuarioRepository.bloquearPorIds(any())).thenReturn(List.of(maria));
+        when(usuarioRepository.debitarSaldo(any(), any())).thenReturn(1);
+
+        LoteResultadoDTO resultado = movimentacaoService.adicionarMovimentacoes(dtos);
+
+        Assertions.assertEquals(2, resultado.getAceitas());
+        Assertions.assertEquals(2, resultado.getRejeitadas());
+        Assertions.assertEquals("Saldo insuficiente para esta operação", resultado.getItens().get(0).getMotivo());
+        Assertions.assertTrue(resultado.getItens().get(1).isAceito());
+        Assertions.assertTrue(resultado.getItens().get(2).isAceito());
+        Assertions.assertEquals("Valor da movimentação inválido", resultado.getItens().get(3).getMotivo());
+
+        verify(usuarioRepository).bloquearPorIds(Set.of(1L));
+        verify(usuarioRepository).debitarSaldo(1L, new BigDecimal("30.00"));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar no lote, com o mesmo motivo do método unitário, só as movimentações com valor que a coluna não grava")
+    void adicionarMovimentacoesCase4() {
+        Usuario maria = new Usuario(1L, "Maria", "12345678900", new BigDecimal("100.00"));
+
+        List<MovimentacaoDTO> dtos = List.of(
+                new MovimentacaoDTO("credito", LocalDate.parse("2024-04-20"), new BigDecimal("0.001"), Categoria.EXTRA, 1L),
+                new MovimentacaoDTO("credito", LocalDate.parse("2024-04-21"), new BigDecimal("99999999999999"), Categoria.EXTRA, 1L),
+                new MovimentacaoDTO("credito", LocalDate.parse("2024-04-22"), new BigDecimal("2"), Categoria.EXTRA, 1L));
+
+        when(usuarioRepository.bloquearPorIds(any())).thenReturn(List.of(maria));
+
+        LoteResultadoDTO resultado = movimentacaoService.adicionarMovimentacoes(dtos);
+
+        Assertions.assertEquals(1, resultado.getAceitas());
+        Assertions.assertEquals("O valor da movimentação deve ter no máximo 2 casas decimais", resultado.getItens().get(0).getMotivo());
+        Assertions.assertEquals("O valor da movimentação deve ter no máximo 13 dígitos antes da vírgula", resultado.getItens().get(1).getMotivo());
+        Assertions.assertTrue(resultado.getItens().get(2).isAceito());
+
+        verify(usuarioRepository).ajustarSaldo(1L, new BigDecimal("2.00"));
+    }
+
+    @Test
+    @DisplayName("Deve transferir entre dois usuários, bloqueando os dois em ordem de id e gravando o débito e o crédito " +
+            "com os saldos, o resumo mensal e os checkpoints dos dois")
+    void transferirCase1() {
+        Usuario maria = new Usuario(1L, "Maria", "12345678900", new BigDecimal("100.00"));
+        Usuario joao = new Usuario(2L, "João", "98765432100", new BigDecimal("10.00"));
+        when(usuarioRepository.bloquearPorIds(any())).thenReturn(List.of(maria, joao));
+        when(usuarioRepository.debitarSaldo(any(), any())).thenReturn(1);
+
+        movimentacaoService.transferir(new TransferenciaDTO(2L, 1L, new BigDecimal("10.00"), LocalDate.parse("2024-04-20")));
+
+        verify(usuarioRepository).bloquearPorIds(List.of(2L, 1L));
+        verify(usuarioRepository).debitarSaldo(2L, new BigDecimal("10.00"));
+        verify(usuarioRepository).ajustarSaldo(1L, new BigDecimal("10.00"));
+        verify(movimentacaoRepository, times(1)).saveAll(argThat(pernas -> {
+            List<Movimentacao> lista = new ArrayList<>();
+            pernas.forEach(lista::add);
+            return lista.size() == 2
+                    && lista.get(0).getUsuario() == joao && lista.get(0).getTipoMovimentacao() == TipoMovimentacao.DEBITO
+                    && lista.get(1).getUsuario() == maria && lista.get(1).getTipoMovimentacao() == TipoMovimentacao.CREDITO
+                    && lista.stream().allMatch(m -> m.getCategoria() == Categoria.TRANSFERENCIA);
+        }));
+        verify(resumoMensalService).registrar(2L, LocalDate.parse("2024-04-20"), Categoria.TRANSFERENCIA, TipoMovimentacao.DEBITO, new BigDecimal("10.00"), 1);
+        verify(resumoMensalService).registrar(1L, LocalDate.parse("2024-04-20"), Categoria.TRANSFERENCIA, TipoMovimentacao.CREDITO, new BigDecimal("10.00"), 1);
+        verify(saldoMensalService).registrar(2L, Map.of(YearMonth.of(2024, 4), new BigDecimal("-10.00")));
+        verify(saldoMensalService).registrar(1L, Map.of(YearMonth.of(2024, 4), new BigDecimal("10.00")));
+    }
+
+    @Test
+    @DisplayName("Deve recusar a transferência sem alterar nenhum saldo quando a origem não tiver saldo suficiente")
+    void transferirCase2() {
+        Usuario maria = new Usuario(1L, "Maria", "12345678900", new BigDecimal("100.00"));
+        Usuario joao = new Usuario(2L, "João", "98765432100", new BigDecimal("10.00"));
+        when(usuarioRepository.bloquearPorIds(any())).thenReturn(List.of(maria, joao));
+
+        ResponseStatusException excecao = assertThrows(ResponseStatusException.class,
+                () -> movimentacaoService.transferir(new TransferenciaDTO(2L, 1L, new BigDecimal("10.01"), LocalDate.parse("2024-04-20"))));
+
+        assertEquals("Saldo insuficiente para esta operação", excecao.getReason());
+        verify(usuarioRepository, never()).debitarSaldo(any(), any());
+        verify(usuarioRepository, never()).ajustarSaldo(any(), any());
+        verify(movimentacaoRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("Deve lançar uma exceção ResponseStatusException quando a transferência for para o próprio usuário, " +
+            "sem valor positivo ou com um usuário que não existe")
+    void transferirCase3() {
+        when(usuarioRepository.bloquearPorIds(any())).thenReturn(List.of(new Usuario(1L, "Maria", "12345678900", new BigDecimal("100.00"))));
+
+        assertEquals("A origem e o destino da transferência devem ser usuários diferentes", assertThrows(ResponseStatusException.class,
+                () -> movimentacaoService.transferir(new TransferenciaDTO(1L, 1L, new BigDecimal("10.00"), null))).getReason());
+        assertEquals("O valor da transferência deve ser maior que zero", assertThrows(ResponseStatusException.class,
+                () -> movimentacaoService.transferir(new TransferenciaDTO(1L, 2L, BigDecimal.ZERO, null))).getReason());
+        assertEquals("Usuário não encontrado!", assertThrows(ResponseStatusException.class,
+                () -> movimentacaoService.transferir(new TransferenciaDTO(1L, 99L, new BigDecimal("10.00"), null))).getReason());
+        verify(usuarioRepository, never()).debitarSaldo(any(), any());
+        verify(movimentacaoRepository, never()).saveAll(any());
     }
 
     @Test
@@ -196,22 +466,25 @@ class MovimentacaoServiceTest {
         Movimentacao movimentacao = new Movimentacao(
                 idMovimentacao,
                 usuario,
-                "credito",
+                TipoMovimentacao.CREDITO,
                 new BigDecimal("100.00"),
                 LocalDate.parse("2024-04-20"),
                 Categoria.SALARIO);
 
         usuario.getMovimentacoes().add(movimentacao);
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario));
-        when(movimentacaoRepository.findByIdAndUsuarioId(idMovimentacao, idUsuario)).thenReturn(Optional.of(movimentacao));
+        when(movimentacaoRepository.buscarParaRemocao(idUsuario, List.of(idMovimentacao))).thenReturn(List.of(paraRemocao(movimentacao)));
+        when(movimentacaoRepository.removerPorUsuario(idUsuario, List.of(idMovimentacao))).thenReturn(1);
 
         movimentacaoService.deletarMovimentacao(idUsuario, idMovimentacao);
 
-        verify(movimentacaoRepository, times(1)).deleteById(any());
-        verify(usuarioRepository, times(1)).save(any());
-
-        Assertions.assertEquals(new BigDecimal("100.00"), usuario.getSaldo());
+        verify(movimentacaoRepository, times(1)).removerPorUsuario(idUsuario, List.of(idMovimentacao));
+        verify(usuarioRepository, never()).existsById(any());
+        verify(movimentacaoRepository, never()).deleteById(any());
+        verify(usuarioRepository, times(1)).ajustarSaldo(idUsuario, new BigDecimal("-100.00"));
+        verify(resumoMensalService).registrar(idUsuario, LocalDate.parse("2024-04-20"), Categoria.SALARIO, TipoMovimentacao.CREDITO, new BigDecimal("-100.00"), -1);
+        verify(saldoMensalService).registrar(idUsuario, Map.of(YearMonth.of(2024, 4), new BigDecimal("-100.00")));
+        verify(cacheSaldo).invalidarAposCommit(idUsuario);
     }
 
     @Test
@@ -232,22 +505,22 @@ class MovimentacaoServiceTest {
         Movimentacao movimentacao = new Movimentacao(
                 idMovimentacao,
                 usuario,
-                "debito",
+                TipoMovimentacao.DEBITO,
                 new BigDecimal("100.00"),
                 LocalDate.parse("2024-04-20"),
                 Categoria.SALARIO);
 
         usuario.getMovimentacoes().add(movimentacao);
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario));
-        when(movimentacaoRepository.findByIdAndUsuarioId(idMovimentacao, idUsuario)).thenReturn(Optional.of(movimentacao));
+        when(movimentacaoRepository.buscarParaRemocao(idUsuario, List.of(idMovimentacao))).thenReturn(List.of(paraRemocao(movimentacao)));
+        when(movimentacaoRepository.removerPorUsuario(idUsuario, List.of(idMovimentacao))).thenReturn(1);
 
         movimentacaoService.deletarMovimentacao(idUsuario, idMovimentacao);
 
-        verify(movimentacaoRepository, times(1)).deleteById(any());
-        verify(usuarioRepository, times(1)).save(any());
-
-        Assertions.assertEquals(new BigDecimal("300.00"), usuario.getSaldo());
+        verify(movimentacaoRepository, times(1)).removerPorUsuario(idUsuario, List.of(idMovimentacao));
+        verify(usuarioRepository, never()).existsById(any());
+        verify(movimentacaoRepository, never()).deleteById(any());
+        verify(usuarioRepository, times(1)).ajustarSaldo(idUsuario, new BigDecimal("100.00"));
     }
 
     @Test
@@ -269,12 +542,12 @@ class MovimentacaoServiceTest {
         Movimentacao movimentacao = new Movimentacao(
                 idMovimentacao,
                 usuario,
-                "debito",
+                TipoMovimentacao.DEBITO,
                 new BigDecimal("100.00"),
                 LocalDate.parse("2024-04-20"),
                 Categoria.SALARIO);
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.empty());
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(false);
 
         ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
             movimentacaoService.deletarMovimentacao(idUsuario, idMovimentacao);
@@ -283,7 +556,7 @@ class MovimentacaoServiceTest {
         Assertions.assertEquals("Usuário não encontrado!", excecao.getReason());
         Assertions.assertEquals(HttpStatus.BAD_REQUEST, excecao.getStatusCode());
 
-        verify(usuarioRepository).findById(idUsuario);
+        verify(usuarioRepository).existsById(idUsuario);
     }
 
     @Test
@@ -305,13 +578,13 @@ class MovimentacaoServiceTest {
         Movimentacao movimentacao = new Movimentacao(
                 idMovimentacao,
                 usuario,
-                "debito",
+                TipoMovimentacao.DEBITO,
                 new BigDecimal("100.00"),
                 LocalDate.parse("2024-04-20"),
                 Categoria.SALARIO);
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario));
-        when(movimentacaoRepository.findByIdAndUsuarioId(idMovimentacao, idUsuario)).thenReturn(Optional.empty());
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(true);
+        when(movimentacaoRepository.buscarParaRemocao(idUsuario, List.of(idMovimentacao))).thenReturn(List.of());
 
         ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
             movimentacaoService.deletarMovimentacao(idUsuario, idMovimentacao);
@@ -320,8 +593,9 @@ class MovimentacaoServiceTest {
         Assertions.assertEquals("Movimentação não encontrada ou não pertence a este usuário!", excecao.getReason());
         Assertions.assertEquals(HttpStatus.BAD_REQUEST, excecao.getStatusCode());
 
-        verify(usuarioRepository).findById(idUsuario);
-        verify(movimentacaoRepository).findByIdAndUsuarioId(idMovimentacao, idUsuario);
+        verify(usuarioRepository).existsById(idUsuario);
+        verify(movimentacaoRepository).buscarParaRemocao(idUsuario, List.of(idMovimentacao));
+        verify(movimentacaoRepository, never()).removerPorUsuario(any(), any());
     }
 
     @Test
@@ -343,13 +617,12 @@ class MovimentacaoServiceTest {
         Movimentacao movimentacao = new Movimentacao(
                 idMovimentacao,
                 usuario,
-                "deb",
+                null,
                 new BigDecimal("100.00"),
                 LocalDate.parse("2024-04-20"),
                 Categoria.SALARIO);
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario));
-        when(movimentacaoRepository.findByIdAndUsuarioId(idMovimentacao, idUsuario)).thenReturn(Optional.of(movimentacao));
+        when(movimentacaoRepository.buscarParaRemocao(idUsuario, List.of(idMovimentacao))).thenReturn(List.of(paraRemocao(movimentacao)));
 
         ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
             movimentacaoService.deletarMovimentacao(idUsuario, idMovimentacao);
@@ -358,8 +631,102 @@ class MovimentacaoServiceTest {
         Assertions.assertEquals("Tipo de movimentação inválido", excecao.getReason());
         Assertions.assertEquals(HttpStatus.BAD_REQUEST, excecao.getStatusCode());
 
-        verify(usuarioRepository).findById(idUsuario);
-        verify(movimentacaoRepository).findByIdAndUsuarioId(idMovimentacao, idUsuario);
+        verify(movimentacaoRepository).buscarParaRemocao(idUsuario, List.of(idMovimentacao));
+        verify(movimentacaoRepository, never()).removerPorUsuario(any(), any());
+        verify(usuarioRepository, never()).ajustarSaldo(any(), any());
+    }
+
+    @Test
+    @DisplayName("Deve lançar uma exceção ResponseStatusException quando a movimentação " +
+            "for apagada por outra requisição antes do DELETE, sem ajustar o saldo")
+    void deletarMovimentacaoCase6() {
+
+        Long idUsuario = 1L;
+        Long idMovimentacao = 1L;
+
+        when(movimentacaoRepository.buscarParaRemocao(idUsuario, List.of(idMovimentacao))).thenReturn(List.of(
+                new MovimentacaoExportacaoDTO(idMovimentacao, LocalDate.parse("2024-04-20"), TipoMovimentacao.DEBITO, Categoria.CASA, new BigDecimal("100.00"))));
+        when(movimentacaoRepository.removerPorUsuario(idUsuario, List.of(idMovimentacao))).thenReturn(0);
+
+        ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
+            movimentacaoService.deletarMovimentacao(idUsuario, idMovimentacao);
+        });
+
+        Assertions.assertEquals("Movimentação não encontrada ou não pertence a este usuário!", excecao.getReason());
+        verify(usuarioRepository, never()).ajustarSaldo(any(), any());
+        verify(resumoMensalService, never()).registrar(any(), any(), any(), any(), any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve deletar o lote com um único DELETE e desfazer o efeito líquido no saldo com um único UPDATE, " +
+            "recusando ids repetidos e de outros usuários")
+    void deletarMovimentacoesCase1() {
+
+        Long idUsuario = 1L;
+        List<Long> ids = List.of(10L, 11L, 12L, 10L, 99L);
+
+        when(movimentacaoRepository.buscarParaRemocao(eq(idUsuario), any())).thenReturn(List.of(
+                new MovimentacaoExportacaoDTO(10L, LocalDate.parse("2024-04-20"), TipoMovimentacao.CREDITO, Categoria.SALARIO, new BigDecimal("300.00")),
+                new MovimentacaoExportacaoDTO(11L, LocalDate.parse("2024-04-21"), TipoMovimentacao.DEBITO, Categoria.CASA, new BigDecimal("50.00")),
+                new MovimentacaoExportacaoDTO(12L, LocalDate.parse("2024-05-02"), TipoMovimentacao.DEBITO, Categoria.CASA, new BigDecimal("20.00"))));
+        when(movimentacaoRepository.removerPorUsuario(idUsuario, List.of(10L, 11L, 12L))).thenReturn(3);
+
+        LoteResultadoDTO resultado = movimentacaoService.deletarMovimentacoes(idUsuario, ids);
+
+        Assertions.assertEquals(3, resultado.getAceitas());
+        Assertions.assertEquals(2, resultado.getRejeitadas());
+        Assertions.assertEquals("Movimentação repetida no lote", resultado.getItens().get(3).getMotivo());
+        Assertions.assertEquals("Movimentação não encontrada ou não pertence a este usuário!", resultado.getItens().get(4).getMotivo());
+
+        verify(movimentacaoRepository, times(1)).removerPorUsuario(idUsuario, List.of(10L, 11L, 12L));
+        verify(usuarioRepository, times(1)).ajustarSaldo(idUsuario, new BigDecimal("-230.00"));
+        verify(resumoMensalService).registrar(idUsuario, LocalDate.parse("2024-04-20"), Categoria.SALARIO, TipoMovimentacao.CREDITO, new BigDecimal("-300.00"), -1);
+        verify(resumoMensalService).registrar(idUsuario, LocalDate.parse("2024-04-21"), Categoria.CASA, TipoMovimentacao.DEBITO, new BigDecimal("-50.00"), -1);
+        verify(resumoMensalService).registrar(idUsuario, LocalDate.parse("2024-05-02"), Categoria.CASA, TipoMovimentacao.DEBITO, new BigDecimal("-20.00"), -1);
+        verify(saldoMensalService).registrar(idUsuario, Map.of(YearMonth.of(2024, 4), new BigDecimal("-250.00"), YearMonth.of(2024, 5), new BigDecimal("20.00")));
+        verify(cacheSaldo).invalidarAposCommit(idUsuario);
+    }
+
+    @Test
+    @DisplayName("Deve lançar uma exceção ResponseStatusException (409) quando outra requisição apagar " +
+            "alguma movimentação do lote antes do DELETE")
+    void deletarMovimentacoesCase2() {
+
+        Long idUsuario = 1L;
+
+        when(movimentacaoRepository.buscarParaRemocao(eq(idUsuario), any())).thenReturn(List.of(
+                new MovimentacaoExportacaoDTO(10L, LocalDate.parse("2024-04-20"), TipoMovimentacao.CREDITO, Categoria.SALARIO, new BigDecimal("300.00")),
+                new MovimentacaoExportacaoDTO(11L, LocalDate.parse("2024-04-21"), TipoMovimentacao.DEBITO, Categoria.CASA, new BigDecimal("50.00"))));
+        when(movimentacaoRepository.removerPorUsuario(idUsuario, List.of(10L, 11L))).thenReturn(1);
+
+        ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
+            movimentacaoService.deletarMovimentacoes(idUsuario, List.of(10L, 11L));
+        });
+
+        Assertions.assertEquals(HttpStatus.CONFLICT, excecao.getStatusCode());
+        verify(usuarioRepository, never()).ajustarSaldo(any(), any());
+    }
+
+    @Test
+    @DisplayName("Deve lançar uma exceção ResponseStatusException quando o lote vier vazio ou o usuário não existir")
+    void deletarMovimentacoesCase3() {
+
+        ResponseStatusException vazio = assertThrows(ResponseStatusException.class, () ->{
+            movimentacaoService.deletarMovimentacoes(1L, List.of());
+        });
+        Assertions.assertEquals("Informe ao menos uma movimentação para deletar", vazio.getReason());
+
+        when(usuarioRepository.existsById(2L)).thenReturn(false);
+        ResponseStatusException semUsuario = assertThrows(ResponseStatusException.class, () ->{
+            movimentacaoService.deletarMovimentacoes(2L, List.of(10L));
+        });
+        Assertions.assertEquals("Usuário não encontrado!", semUsuario.getReason());
+        verify(movimentacaoRepository, never()).removerPorUsuario(any(), any());
+    }
+
+    private static MovimentacaoExportacaoDTO paraRemocao(Movimentacao movimentacao) {
+        return new MovimentacaoExportacaoDTO(movimentacao.getId(), movimentacao.getData(), movimentacao.getTipoMovimentacao(),
+                movimentacao.getCategoria(), movimentacao.getValor());
     }
 
     @Test
@@ -380,7 +747,7 @@ class MovimentacaoServiceTest {
         Movimentacao movimentacao = new Movimentacao(
                 1L,
                 usuario,
-                "debito",
+                TipoMovimentacao.DEBITO,
                 new BigDecimal("100.00"),
                 LocalDate.parse("2024-04-20"),
                 Categoria.SALARIO);
@@ -390,8 +757,8 @@ class MovimentacaoServiceTest {
         LocalDate inicio = LocalDate.of(ano, mes, 1);
         LocalDate fim = inicio.withDayOfMonth(inicio.lengthOfMonth());
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario));
-        when(movimentacaoRepository.findByUsuarioIdAndDataBetween(idUsuario, inicio, fim)).thenReturn(movimentacoes);
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(true);
+        when(movimentacaoRepository.listarPorUsuarioEPeriodo(idUsuario, inicio, fim)).thenReturn(paraDTO(movimentacoes));
 
         List<MovimentacaoDTO> resultado = movimentacaoService.buscarPorMes(mes, ano, idUsuario);
 
@@ -400,8 +767,8 @@ class MovimentacaoServiceTest {
         Assertions.assertEquals(new BigDecimal("100.00"), resultado.get(0).getValor());
         Assertions.assertEquals(Categoria.SALARIO, resultado.get(0).getCategoria());
 
-        verify(usuarioRepository).findById(idUsuario);
-        verify(movimentacaoRepository).findByUsuarioIdAndDataBetween(idUsuario, inicio, fim);
+        verify(usuarioRepository).existsById(idUsuario);
+        verify(movimentacaoRepository).listarPorUsuarioEPeriodo(idUsuario, inicio, fim);
 
     }
 
@@ -423,7 +790,7 @@ class MovimentacaoServiceTest {
         Movimentacao movimentacao = new Movimentacao(
                 1L,
                 usuario,
-                "debito",
+                TipoMovimentacao.DEBITO,
                 new BigDecimal("100.00"),
                 LocalDate.parse("2024-04-20"),
                 Categoria.SALARIO);
@@ -433,7 +800,7 @@ class MovimentacaoServiceTest {
         LocalDate inicio = LocalDate.of(ano, mes, 1);
         LocalDate fim = inicio.withDayOfMonth(inicio.lengthOfMonth());
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.empty());
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(false);
 
         ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
             movimentacaoService.buscarPorMes(mes, ano, idUsuario);
@@ -442,7 +809,7 @@ class MovimentacaoServiceTest {
         Assertions.assertEquals("Usuário não encontrado!", excecao.getReason());
         Assertions.assertEquals(HttpStatus.BAD_REQUEST, excecao.getStatusCode());
 
-        verify(usuarioRepository).findById(idUsuario);
+        verify(usuarioRepository).existsById(idUsuario);
         verifyNoInteractions(movimentacaoRepository);
 
     }
@@ -462,7 +829,7 @@ class MovimentacaoServiceTest {
                 new ArrayList<>(),
                 new BigDecimal("200.00"));
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario));
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(true);
 
         ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
             movimentacaoService.buscarPorMes(mes, ano, idUsuario);
@@ -471,7 +838,7 @@ class MovimentacaoServiceTest {
         Assertions.assertEquals("O mês deve ser entre 1 (Janeiro) e 12 (Dezembro)", excecao.getReason());
         Assertions.assertEquals(HttpStatus.BAD_REQUEST, excecao.getStatusCode());
 
-        verify(usuarioRepository).findById(idUsuario);
+        verify(usuarioRepository).existsById(idUsuario);
         verifyNoInteractions(movimentacaoRepository);
 
     }
@@ -491,7 +858,7 @@ class MovimentacaoServiceTest {
                 new ArrayList<>(),
                 new BigDecimal("200.00"));
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario));
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(true);
 
         ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
             movimentacaoService.buscarPorMes(mes, ano, idUsuario);
@@ -500,7 +867,7 @@ class MovimentacaoServiceTest {
         Assertions.assertEquals("O mês deve ser entre 1 (Janeiro) e 12 (Dezembro)", excecao.getReason());
         Assertions.assertEquals(HttpStatus.BAD_REQUEST, excecao.getStatusCode());
 
-        verify(usuarioRepository).findById(idUsuario);
+        verify(usuarioRepository).existsById(idUsuario);
         verifyNoInteractions(movimentacaoRepository);
 
     }
@@ -520,7 +887,7 @@ class MovimentacaoServiceTest {
                 new ArrayList<>(),
                 new BigDecimal("200.00"));
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario));
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(true);
 
         ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
             movimentacaoService.buscarPorMes(mes, ano, idUsuario);
@@ -529,7 +896,7 @@ class MovimentacaoServiceTest {
         Assertions.assertEquals("O ano não pode ser maior que o ano atual!", excecao.getReason());
         Assertions.assertEquals(HttpStatus.BAD_REQUEST, excecao.getStatusCode());
 
-        verify(usuarioRepository).findById(idUsuario);
+        verify(usuarioRepository).existsById(idUsuario);
         verifyNoInteractions(movimentacaoRepository);
 
     }
@@ -550,7 +917,7 @@ class MovimentacaoServiceTest {
         Movimentacao movimentacao = new Movimentacao(
                 1L,
                 usuario,
-                "debito",
+                TipoMovimentacao.DEBITO,
                 new BigDecimal("100.00"),
                 LocalDate.parse("2024-04-20"),
                 Categoria.SALARIO);
@@ -560,8 +927,8 @@ class MovimentacaoServiceTest {
         LocalDate inicio = LocalDate.of(ano, 1, 1);
         LocalDate fim = LocalDate.of(ano, 12, 31);
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario));
-        when(movimentacaoRepository.findByUsuarioIdAndDataBetween(idUsuario, inicio, fim)).thenReturn(movimentacoes);
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(true);
+        when(movimentacaoRepository.listarPorUsuarioEPeriodo(idUsuario, inicio, fim)).thenReturn(paraDTO(movimentacoes));
 
         List<MovimentacaoDTO> resultado = movimentacaoService.buscarPorAno(ano, idUsuario);
 
@@ -570,8 +937,8 @@ class MovimentacaoServiceTest {
         Assertions.assertEquals(new BigDecimal("100.00"), resultado.get(0).getValor());
         Assertions.assertEquals(Categoria.SALARIO, resultado.get(0).getCategoria());
 
-        verify(usuarioRepository).findById(idUsuario);
-        verify(movimentacaoRepository).findByUsuarioIdAndDataBetween(idUsuario, inicio, fim);
+        verify(usuarioRepository).existsById(idUsuario);
+        verify(movimentacaoRepository).listarPorUsuarioEPeriodo(idUsuario, inicio, fim);
 
     }
 
@@ -592,7 +959,7 @@ class MovimentacaoServiceTest {
         Movimentacao movimentacao = new Movimentacao(
                 1L,
                 usuario,
-                "debito",
+                TipoMovimentacao.DEBITO,
                 new BigDecimal("100.00"),
                 LocalDate.parse("2024-04-20"),
                 Categoria.SALARIO);
@@ -602,7 +969,7 @@ class MovimentacaoServiceTest {
         LocalDate inicio = LocalDate.of(ano, 1, 1);
         LocalDate fim = LocalDate.of(ano, 12, 31);
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.empty());
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(false);
 
         ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
             movimentacaoService.buscarPorAno(ano, idUsuario);
@@ -611,7 +978,7 @@ class MovimentacaoServiceTest {
         Assertions.assertEquals("Usuário não encontrado!", excecao.getReason());
         Assertions.assertEquals(HttpStatus.BAD_REQUEST, excecao.getStatusCode());
 
-        verify(usuarioRepository).findById(idUsuario);
+        verify(usuarioRepository).existsById(idUsuario);
         verifyNoInteractions(movimentacaoRepository);
 
     }
@@ -630,7 +997,7 @@ class MovimentacaoServiceTest {
                 new ArrayList<>(),
                 new BigDecimal("200.00"));
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario));
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(true);
 
         ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
             movimentacaoService.buscarPorAno(ano, idUsuario);
@@ -639,7 +1006,7 @@ class MovimentacaoServiceTest {
         Assertions.assertEquals("O ano não pode ser maior que o ano atual!", excecao.getReason());
         Assertions.assertEquals(HttpStatus.BAD_REQUEST, excecao.getStatusCode());
 
-        verify(usuarioRepository).findById(idUsuario);
+        verify(usuarioRepository).existsById(idUsuario);
         verifyNoInteractions(movimentacaoRepository);
 
     }
@@ -662,12 +1029,12 @@ class MovimentacaoServiceTest {
                 new ArrayList<>(),
                 new BigDecimal("200.00"));
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario));
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(true);
 
         Movimentacao movimentacao = new Movimentacao(
                 1L,
                 usuario,
-                "debito",
+                TipoMovimentacao.DEBITO,
                 new BigDecimal("100.00"),
                 LocalDate.parse("2024-04-20"),
                 Categoria.SALARIO);
@@ -677,8 +1044,8 @@ class MovimentacaoServiceTest {
         LocalDate inicio = LocalDate.of(anoIni, mesIni, diaIni);
         LocalDate fim = LocalDate.of(anoFim, mesFim, diaFim);
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario));
-        when(movimentacaoRepository.findByUsuarioIdAndDataBetween(idUsuario, inicio, fim)).thenReturn(movimentacoes);
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(true);
+        when(movimentacaoRepository.listarPorUsuarioEPeriodo(idUsuario, inicio, fim)).thenReturn(paraDTO(movimentacoes));
 
         List<MovimentacaoDTO> resultado = movimentacaoService.buscarPersonalizada(
                 anoIni, anoFim, mesIni, mesFim, diaIni, diaFim, idUsuario);
@@ -688,8 +1055,8 @@ class MovimentacaoServiceTest {
         Assertions.assertEquals(new BigDecimal("100.00"), resultado.get(0).getValor());
         Assertions.assertEquals(Categoria.SALARIO, resultado.get(0).getCategoria());
 
-        verify(usuarioRepository).findById(idUsuario);
-        verify(movimentacaoRepository).findByUsuarioIdAndDataBetween(idUsuario, inicio, fim);
+        verify(usuarioRepository).existsById(idUsuario);
+        verify(movimentacaoRepository).listarPorUsuarioEPeriodo(idUsuario, inicio, fim);
     }
 
     @Test
@@ -710,12 +1077,12 @@ class MovimentacaoServiceTest {
                 new ArrayList<>(),
                 new BigDecimal("200.00"));
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario));
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(true);
 
         Movimentacao movimentacao = new Movimentacao(
                 1L,
                 usuario,
-                "debito",
+                TipoMovimentacao.DEBITO,
                 new BigDecimal("100.00"),
                 LocalDate.parse("2024-04-20"),
                 Categoria.SALARIO);
@@ -725,7 +1092,7 @@ class MovimentacaoServiceTest {
         LocalDate inicio = LocalDate.of(anoIni, mesIni, diaIni);
         LocalDate fim = LocalDate.of(anoFim, mesFim, diaFim);
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.empty());
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(false);
 
         ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
             movimentacaoService.buscarPersonalizada(anoIni, anoFim, mesIni, mesFim, diaIni, diaFim, idUsuario);
@@ -734,7 +1101,7 @@ class MovimentacaoServiceTest {
         Assertions.assertEquals("Usuário não encontrado!", excecao.getReason());
         Assertions.assertEquals(HttpStatus.BAD_REQUEST, excecao.getStatusCode());
 
-        verify(usuarioRepository).findById(idUsuario);
+        verify(usuarioRepository).existsById(idUsuario);
         verifyNoInteractions(movimentacaoRepository);
     }
 
@@ -756,7 +1123,7 @@ class MovimentacaoServiceTest {
                 new ArrayList<>(),
                 new BigDecimal("200.00"));
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario));
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(true);
 
         ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
             movimentacaoService.buscarPersonalizada(anoIni, anoFim, mesIni, mesFim, diaIni, diaFim, idUsuario);
@@ -765,7 +1132,7 @@ class MovimentacaoServiceTest {
         Assertions.assertEquals("O mês inicial deve ser entre 1 e 12!", excecao.getReason());
         Assertions.assertEquals(HttpStatus.BAD_REQUEST, excecao.getStatusCode());
 
-        verify(usuarioRepository).findById(idUsuario);
+        verify(usuarioRepository).existsById(idUsuario);
         verifyNoInteractions(movimentacaoRepository);
     }
 
@@ -787,7 +1154,7 @@ class MovimentacaoServiceTest {
                 new ArrayList<>(),
                 new BigDecimal("200.00"));
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario));
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(true);
 
         ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
             movimentacaoService.buscarPersonalizada(anoIni, anoFim, mesIni, mesFim, diaIni, diaFim, idUsuario);
@@ -796,7 +1163,7 @@ class MovimentacaoServiceTest {
         Assertions.assertEquals("O mês inicial deve ser entre 1 e 12!", excecao.getReason());
         Assertions.assertEquals(HttpStatus.BAD_REQUEST, excecao.getStatusCode());
 
-        verify(usuarioRepository).findById(idUsuario);
+        verify(usuarioRepository).existsById(idUsuario);
         verifyNoInteractions(movimentacaoRepository);
     }
 
@@ -818,7 +1185,7 @@ class MovimentacaoServiceTest {
                 new ArrayList<>(),
                 new BigDecimal("200.00"));
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario));
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(true);
 
         ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
             movimentacaoService.buscarPersonalizada(anoIni, anoFim, mesIni, mesFim, diaIni, diaFim, idUsuario);
@@ -827,7 +1194,7 @@ class MovimentacaoServiceTest {
         Assertions.assertEquals("O mês final deve ser entre 1 e 12!", excecao.getReason());
         Assertions.assertEquals(HttpStatus.BAD_REQUEST, excecao.getStatusCode());
 
-        verify(usuarioRepository).findById(idUsuario);
+        verify(usuarioRepository).existsById(idUsuario);
         verifyNoInteractions(movimentacaoRepository);
     }
 
@@ -849,7 +1216,7 @@ class MovimentacaoServiceTest {
                 new ArrayList<>(),
                 new BigDecimal("200.00"));
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario));
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(true);
 
         ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
             movimentacaoService.buscarPersonalizada(anoIni, anoFim, mesIni, mesFim, diaIni, diaFim, idUsuario);
@@ -858,7 +1225,7 @@ class MovimentacaoServiceTest {
         Assertions.assertEquals("O mês final deve ser entre 1 e 12!", excecao.getReason());
         Assertions.assertEquals(HttpStatus.BAD_REQUEST, excecao.getStatusCode());
 
-        verify(usuarioRepository).findById(idUsuario);
+        verify(usuarioRepository).existsById(idUsuario);
         verifyNoInteractions(movimentacaoRepository);
     }
 
@@ -880,7 +1247,7 @@ class MovimentacaoServiceTest {
                 new ArrayList<>(),
                 new BigDecimal("200.00"));
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario));
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(true);
 
         ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
             movimentacaoService.buscarPersonalizada(anoIni, anoFim, mesIni, mesFim, diaIni, diaFim, idUsuario);
@@ -889,7 +1256,7 @@ class MovimentacaoServiceTest {
         Assertions.assertEquals("O mês inicial não pode ser maior que o mês final!", excecao.getReason());
         Assertions.assertEquals(HttpStatus.BAD_REQUEST, excecao.getStatusCode());
 
-        verify(usuarioRepository).findById(idUsuario);
+        verify(usuarioRepository).existsById(idUsuario);
         verifyNoInteractions(movimentacaoRepository);
     }
 
@@ -911,7 +1278,7 @@ class MovimentacaoServiceTest {
                 new ArrayList<>(),
                 new BigDecimal("200.00"));
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario));
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(true);
 
         ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
             movimentacaoService.buscarPersonalizada(anoIni, anoFim, mesIni, mesFim, diaIni, diaFim, idUsuario);
@@ -920,7 +1287,7 @@ class MovimentacaoServiceTest {
         Assertions.assertEquals("O ano final não pode ser maior que o ano atual!", excecao.getReason());
         Assertions.assertEquals(HttpStatus.BAD_REQUEST, excecao.getStatusCode());
 
-        verify(usuarioRepository).findById(idUsuario);
+        verify(usuarioRepository).existsById(idUsuario);
         verifyNoInteractions(movimentacaoRepository);
     }
 
@@ -942,7 +1309,7 @@ class MovimentacaoServiceTest {
                 new ArrayList<>(),
                 new BigDecimal("200.00"));
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario));
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(true);
 
         ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
             movimentacaoService.buscarPersonalizada(anoIni, anoFim, mesIni, mesFim, diaIni, diaFim, idUsuario);
@@ -951,7 +1318,7 @@ class MovimentacaoServiceTest {
         Assertions.assertEquals("O ano inicial não pode ser maior que o ano final!", excecao.getReason());
         Assertions.assertEquals(HttpStatus.BAD_REQUEST, excecao.getStatusCode());
 
-        verify(usuarioRepository).findById(idUsuario);
+        verify(usuarioRepository).existsById(idUsuario);
         verifyNoInteractions(movimentacaoRepository);
     }
 
@@ -973,7 +1340,7 @@ class MovimentacaoServiceTest {
                 new ArrayList<>(),
                 new BigDecimal("200.00"));
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario));
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(true);
 
         ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
             movimentacaoService.buscarPersonalizada(anoIni, anoFim, mesIni, mesFim, diaIni, diaFim, idUsuario);
@@ -982,7 +1349,7 @@ class MovimentacaoServiceTest {
         Assertions.assertEquals("O dia inicial não pode ser menor que 1!", excecao.getReason());
         Assertions.assertEquals(HttpStatus.BAD_REQUEST, excecao.getStatusCode());
 
-        verify(usuarioRepository).findById(idUsuario);
+        verify(usuarioRepository).existsById(idUsuario);
         verifyNoInteractions(movimentacaoRepository);
     }
 
@@ -1005,7 +1372,7 @@ class MovimentacaoServiceTest {
                 new ArrayList<>(),
                 new BigDecimal("200.00"));
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario));
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(true);
 
         ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
             movimentacaoService.buscarPersonalizada(anoIni, anoFim, mesIni, mesFim, diaIni, diaFim, idUsuario);
@@ -1014,7 +1381,7 @@ class MovimentacaoServiceTest {
         Assertions.assertEquals("O dia final não pode ser maior que " + ultimoDiaDoMesFim + " para " + mesFim + "/" + anoFim, excecao.getReason());
         Assertions.assertEquals(HttpStatus.BAD_REQUEST, excecao.getStatusCode());
 
-        verify(usuarioRepository).findById(idUsuario);
+        verify(usuarioRepository).existsById(idUsuario);
         verifyNoInteractions(movimentacaoRepository);
     }
 
@@ -1036,7 +1403,7 @@ class MovimentacaoServiceTest {
                 new ArrayList<>(),
                 new BigDecimal("200.00"));
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario));
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(true);
 
         ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
             movimentacaoService.buscarPersonalizada(anoIni, anoFim, mesIni, mesFim, diaIni, diaFim, idUsuario);
@@ -1045,7 +1412,7 @@ class MovimentacaoServiceTest {
         Assertions.assertEquals("O dia inicial não pode ser maior que o dia final!", excecao.getReason());
         Assertions.assertEquals(HttpStatus.BAD_REQUEST, excecao.getStatusCode());
 
-        verify(usuarioRepository).findById(idUsuario);
+        verify(usuarioRepository).existsById(idUsuario);
         verifyNoInteractions(movimentacaoRepository);
     }
 
@@ -1066,15 +1433,15 @@ class MovimentacaoServiceTest {
         Movimentacao movimentacao = new Movimentacao(
                 1L,
                 usuario,
-                "debito",
+                TipoMovimentacao.DEBITO,
                 new BigDecimal("100.00"),
                 LocalDate.parse("2024-04-20"),
                 Categoria.SALARIO);
 
         List<Movimentacao> movimentacoes = List.of(movimentacao);
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario));
-        when(movimentacaoRepository.findByUsuarioIdAndCategoria(idUsuario, categoria)).thenReturn(movimentacoes);
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(true);
+        when(movimentacaoRepository.listarPorUsuarioECategoria(idUsuario, categoria)).thenReturn(paraDTO(movimentacoes));
 
         List<MovimentacaoDTO> resultado = movimentacaoService.buscarPorCategoria(idUsuario, categoria);
 
@@ -1083,8 +1450,8 @@ class MovimentacaoServiceTest {
         Assertions.assertEquals(new BigDecimal("100.00"), resultado.get(0).getValor());
         Assertions.assertEquals(Categoria.SALARIO, resultado.get(0).getCategoria());
 
-        verify(usuarioRepository).findById(idUsuario);
-        verify(movimentacaoRepository).findByUsuarioIdAndCategoria(idUsuario, categoria);
+        verify(usuarioRepository).existsById(idUsuario);
+        verify(movimentacaoRepository).listarPorUsuarioECategoria(idUsuario, categoria);
 
     }
 
@@ -1103,7 +1470,7 @@ class MovimentacaoServiceTest {
                 new BigDecimal("200.00"));
 
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.empty());
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(false);
 
         ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
             movimentacaoService.buscarPorCategoria(idUsuario, categoria);
@@ -1112,7 +1479,7 @@ class MovimentacaoServiceTest {
         Assertions.assertEquals("Usuário não encontrado!", excecao.getReason());
         Assertions.assertEquals(HttpStatus.BAD_REQUEST, excecao.getStatusCode());
 
-        verify(usuarioRepository).findById(idUsuario);
+        verify(usuarioRepository).existsById(idUsuario);
         verifyNoInteractions(movimentacaoRepository);
     }
 
@@ -1133,23 +1500,23 @@ class MovimentacaoServiceTest {
         Movimentacao movimentacao = new Movimentacao(
                 idMovimentacao,
                 usuario,
-                "debito",
+                TipoMovimentacao.DEBITO,
                 new BigDecimal("100.00"),
                 LocalDate.parse("2024-04-20"),
                 Categoria.SALARIO);
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario));
-        when(movimentacaoRepository.findByIdAndUsuarioId(idMovimentacao, idUsuario)).thenReturn(Optional.of(movimentacao));
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(true);
+        when(movimentacaoRepository.buscarPorIdEUsuario(idMovimentacao, idUsuario)).thenReturn(Optional.of(paraDTO(movimentacao)));
 
         MovimentacaoDTO dto = movimentacaoService.buscarPorId(idMovimentacao, idUsuario);
 
-        Assertions.assertEquals(1L, movimentacao.getId());
-        Assertions.assertEquals("debito", movimentacao.getTipoMovimentacao());
-        Assertions.assertEquals(new BigDecimal("100.00"), movimentacao.getValor());
-        Assertions.assertEquals(Categoria.SALARIO, movimentacao.getCategoria());
+        Assertions.assertEquals("debito", dto.getTipoMovimentacao());
+        Assertions.assertEquals(new BigDecimal("100.00"), dto.getValor());
+        Assertions.assertEquals(Categoria.SALARIO, dto.getCategoria());
+        Assertions.assertEquals(idUsuario, dto.getIdUsuario());
 
-        verify(usuarioRepository).findById(idUsuario);
-        verify(movimentacaoRepository).findByIdAndUsuarioId(idMovimentacao, idUsuario);
+        verify(usuarioRepository).existsById(idUsuario);
+        verify(movimentacaoRepository).buscarPorIdEUsuario(idMovimentacao, idUsuario);
 
     }
 
@@ -1170,12 +1537,12 @@ class MovimentacaoServiceTest {
         Movimentacao movimentacao = new Movimentacao(
                 idMovimentacao,
                 usuario,
-                "debito",
+                TipoMovimentacao.DEBITO,
                 new BigDecimal("100.00"),
                 LocalDate.parse("2024-04-20"),
                 Categoria.SALARIO);
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.empty());
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(false);
 
         ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
             movimentacaoService.buscarPorId(idMovimentacao, idUsuario);
@@ -1184,7 +1551,7 @@ class MovimentacaoServiceTest {
         Assertions.assertEquals("Usuário não encontrado!", excecao.getReason());
         Assertions.assertEquals(HttpStatus.BAD_REQUEST, excecao.getStatusCode());
 
-        verify(usuarioRepository).findById(idUsuario);
+        verify(usuarioRepository).existsById(idUsuario);
         verifyNoInteractions(movimentacaoRepository);
 
     }
@@ -1206,13 +1573,13 @@ class MovimentacaoServiceTest {
         Movimentacao movimentacao = new Movimentacao(
                 idMovimentacao,
                 usuario,
-                "debito",
+                TipoMovimentacao.DEBITO,
                 new BigDecimal("100.00"),
                 LocalDate.parse("2024-04-20"),
                 Categoria.SALARIO);
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario));
-        when(movimentacaoRepository.findByIdAndUsuarioId(idMovimentacao, idUsuario)).thenReturn(Optional.empty());
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(true);
+        when(movimentacaoRepository.buscarPorIdEUsuario(idMovimentacao, idUsuario)).thenReturn(Optional.empty());
 
         ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
             movimentacaoService.buscarPorId(idMovimentacao, idUsuario);
@@ -1221,52 +1588,71 @@ class MovimentacaoServiceTest {
         Assertions.assertEquals("Movimentação não encontrada ou não pertence a este usuário!", excecao.getReason());
         Assertions.assertEquals(HttpStatus.BAD_REQUEST, excecao.getStatusCode());
 
-        verify(usuarioRepository).findById(idUsuario);
-        verify(movimentacaoRepository).findByIdAndUsuarioId(idMovimentacao, idUsuario);
+        verify(usuarioRepository).existsById(idUsuario);
+        verify(movimentacaoRepository).buscarPorIdEUsuario(idMovimentacao, idUsuario);
 
     }
 
     @Test
-    @DisplayName("Caso de sucesso, onde o ID do usuário é passado de forma válida")
-    void buscarPorIdUsuarioCase1() {
+    @DisplayName("Deve retornar o resumo de meses inteiros direto do resumo mensal, sem somar as movimentações")
+    void resumirCase1() {
+        Long idUsuario = 1L;
+        LocalDate inicio = LocalDate.parse("2024-01-01");
+        LocalDate fim = LocalDate.parse("2024-12-31");
 
-        List<Movimentacao> movimentacoes = new ArrayList<>();
+        List<ResumoMovimentacaoDTO> resumo = List.of(
+                new ResumoMovimentacaoDTO(2024, 1, Categoria.SALARIO, new BigDecimal("500.00"), BigDecimal.ZERO));
+
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(true);
+        when(resumoMensalRepository.resumirPorMesECategoria(idUsuario, 202401, 202412)).thenReturn(resumo);
+
+        List<ResumoMovimentacaoDTO> resultado = movimentacaoService.resumir(idUsuario, inicio, fim);
+
+        Assertions.assertEquals(resumo, resultado);
+        verify(resumoMensalRepository).resumirPorMesECategoria(idUsuario, 202401, 202412);
+        verifyNoInteractions(movimentacaoRepository);
+    }
+
+    @Test
+    @DisplayName("Deve somar pelas movimentações apenas os meses cortados pelas datas e usar o resumo mensal nos meses inteiros")
+    void resumirCase3() {
         Long idUsuario = 1L;
-        Long idMovimentacao = 1L;
+        LocalDate inicio = LocalDate.parse("2024-01-15");
+        LocalDate fim = LocalDate.parse("2024-04-10");
 
-        Usuario usuario = new Usuario(
-                idUsuario,
-                "Maria",
-                "12345678900",
-                movimentacoes,
-                new BigDecimal("200.00"));
+        ResumoMovimentacaoDTO janeiro = new ResumoMovimentacaoDTO(2024, 1, Categoria.CASA, BigDecimal.ZERO, new BigDecimal("30.00"));
+        ResumoMovimentacaoDTO fevereiro = new ResumoMovimentacaoDTO(2024, 2, Categoria.SALARIO, new BigDecimal("500.00"), BigDecimal.ZERO);
+        ResumoMovimentacaoDTO abril = new ResumoMovimentacaoDTO(2024, 4, Categoria.LAZER, BigDecimal.ZERO, new BigDecimal("10.00"));
 
-        Movimentacao movimentacao = new Movimentacao(
-                idMovimentacao,
-                usuario,
-                "debito",
-                new BigDecimal("100.00"),
-                LocalDate.parse("2024-04-20"),
-                Categoria.SALARIO);
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(true);
+        when(movimentacaoRepository.resumirPorMesECategoria(idUsuario, inicio, LocalDate.parse("2024-01-31"))).thenReturn(List.of(janeiro));
+        when(resumoMensalRepository.resumirPorMesECategoria(idUsuario, 202402, 202403)).thenReturn(List.of(fevereiro));
+        when(movimentacaoRepository.resumirPorMesECategoria(idUsuario, LocalDate.parse("2024-04-01"), fim)).thenReturn(List.of(abril));
 
-        usuario.getMovimentacoes().add(movimentacao);
+        List<ResumoMovimentacaoDTO> resultado = movimentacaoService.resumir(idUsuario, inicio, fim);
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.of(usuario));
+        Assertions.assertEquals(List.of(janeiro, fevereiro, abril), resultado);
+    }
 
-        List<MovimentacaoDTO> dtoList = movimentacaoService.buscarPorIdUsuario(idUsuario);
+    @Test
+    @DisplayName("Deve lançar uma exceção ResponseStatusException quando a data inicial do resumo for maior que a final")
+    void resumirCase2() {
+        Long idUsuario = 1L;
 
-        Assertions.assertEquals(1L, movimentacao.getId());
-        Assertions.assertEquals("debito", movimentacao.getTipoMovimentacao());
-        Assertions.assertEquals(new BigDecimal("100.00"), movimentacao.getValor());
-        Assertions.assertEquals(Categoria.SALARIO, movimentacao.getCategoria());
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(true);
 
-        verify(usuarioRepository).findById(idUsuario);
+        ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
+            movimentacaoService.resumir(idUsuario, LocalDate.parse("2024-12-31"), LocalDate.parse("2024-01-01"));
+        });
 
+        Assertions.assertEquals("A data inicial não pode ser maior que a data final!", excecao.getReason());
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST, excecao.getStatusCode());
+        verifyNoInteractions(movimentacaoRepository);
     }
 
     @Test
-    @DisplayName("Deve lançar uma exceção ResponseStatusException quando o id do usuário for inválido")
-    void buscarPorIdUsuarioCase2() {
+    @DisplayName("Caso de sucesso, onde o ID do usuário é passado de forma válida e a primeira página é retornada com o cursor da próxima")
+    void buscarPorIdUsuarioCase1() {
 
         Long idUsuario = 1L;
 
@@ -1277,16 +1663,90 @@ class MovimentacaoServiceTest {
                 new ArrayList<>(),
                 new BigDecimal("200.00"));
 
-        when(usuarioRepository.findById(idUsuario)).thenReturn(Optional.empty());
+        List<Movimentacao> movimentacoes = List.of(
+                new Movimentacao(1L, usuario, TipoMovimentacao.DEBITO, new BigDecimal("100.00"), LocalDate.parse("2024-04-20"), Categoria.SALARIO),
+                new Movimentacao(2L, usuario, TipoMovimentacao.CREDITO, new BigDecimal("50.00"), LocalDate.parse("2024-04-21"), Categoria.EXTRA),
+                new Movimentacao(3L, usuario, TipoMovimentacao.CREDITO, new BigDecimal("10.00"), LocalDate.parse("2024-04-22"), Categoria.EXTRA));
+
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(true);
+        when(movimentacaoRepository.buscarPrimeiraPagina(idUsuario, Limit.of(3))).thenReturn(movimentacoes);
+
+        PaginaMovimentacaoDTO pagina = movimentacaoService.buscarPorIdUsuario(idUsuario, null, 2);
+
+        Assertions.assertEquals(2, pagina.getMovimentacoes().size());
+        Assertions.assertEquals("debito", pagina.getMovimentacoes().get(0).getTipoMovimentacao());
+        Assertions.assertEquals(new BigDecimal("100.00"), pagina.getMovimentacoes().get(0).getValor());
+        Assertions.assertEquals(Categoria.SALARIO, pagina.getMovimentacoes().get(0).getCategoria());
+        Assertions.assertEquals("2024-04-21_2", pagina.getNextCursor());
+
+        verify(usuarioRepository).existsById(idUsuario);
+        verify(usuarioRepository, never()).findById(any());
+
+    }
+
+    @Test
+    @DisplayName("Deve lançar uma exceção ResponseStatusException quando o id do usuário for inválido")
+    void buscarPorIdUsuarioCase2() {
+
+        Long idUsuario = 1L;
+
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(false);
 
         ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
-            movimentacaoService.buscarPorIdUsuario(idUsuario);
+            movimentacaoService.buscarPorIdUsuario(idUsuario, null, 100);
         });
 
         Assertions.assertEquals("Usuário não encontrado!", excecao.getReason());
         Assertions.assertEquals(HttpStatus.BAD_REQUEST, excecao.getStatusCode());
 
-        verify(usuarioRepository).findById(idUsuario);
+        verify(usuarioRepository).existsById(idUsuario);
+        verifyNoInteractions(movimentacaoRepository);
+
+    }
+
+    @Test
+    @DisplayName("Deve continuar a partir do cursor informado e retornar cursor nulo na última página")
+    void buscarPorIdUsuarioCase3() {
+
+        Long idUsuario = 1L;
+
+        Usuario usuario = new Usuario(idUsuario, "Maria", "12345678900", new BigDecimal("200.00"));
+
+        List<Movimentacao> movimentacoes = List.of(
+                new Movimentacao(3L, usuario, TipoMovimentacao.CREDITO, new BigDecimal("10.00"), LocalDate.parse("2024-04-22"), Categoria.EXTRA));
+
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(true);
+        when(movimentacaoRepository.buscarPaginaApos(idUsuario, LocalDate.parse("2024-04-21"), 2L, Limit.of(3))).thenReturn(movimentacoes);
+
+        PaginaMovimentacaoDTO pagina = movimentacaoService.buscarPorIdUsuario(idUsuario, "2024-04-21_2", 2);
+
+        Assertions.assertEquals(1, pagina.getMovimentacoes().size());
+        Assertions.assertNull(pagina.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("Deve lançar uma exceção ResponseStatusException quando o cursor estiver fora do formato data_id")
+    void buscarPorIdUsuarioCase4() {
+
+        Long idUsuario = 1L;
+
+        when(usuarioRepository.existsById(idUsuario)).thenReturn(true);
+
+        ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () ->{
+            movimentacaoService.buscarPorIdUsuario(idUsuario, "abc", 100);
+        });
+
+        Assertions.assertEquals("Cursor inválido!", excecao.getReason());
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST, excecao.getStatusCode());
+        verifyNoInteractions(movimentacaoRepository);
+    }
+
+    // Simula o retorno das queries do repositório, que já trazem as movimentações como DTO
+    private static MovimentacaoDTO paraDTO(Movimentacao m) {
+        return new MovimentacaoDTO(m.getTipoMovimentacao(), m.getData(), m.getValor(), m.getCategoria(), m.getUsuario().getId());
+    }
 
+    private static List<MovimentacaoDTO> paraDTO(List<Movimentacao> movimentacoes) {
+        return movimentacoes.stream().map(MovimentacaoServiceTest::paraDTO).collect(Collectors.toList());
     }
 }
\ No newline at end of file
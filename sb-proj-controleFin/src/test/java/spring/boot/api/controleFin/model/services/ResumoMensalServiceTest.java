@@ -0,0 +1,172 @@
+package spring.boot.api.controleFin.model.services;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+import spring.boot.api.controleFin.model.dto.MovimentacaoDTO;
+import spring.boot.api.controleFin.model.dto.ReconstrucaoResumoDTO;
+import spring.boot.api.controleFin.model.dto.ResumoMovimentacaoDTO;
+import spring.boot.api.controleFin.model.entities.Categoria;
+import spring.boot.api.controleFin.model.entities.Movimentacao;
+import spring.boot.api.controleFin.model.entities.ResumoMensal;
+import spring.boot.api.controleFin.model.entities.ResumoMensalId;
+import spring.boot.api.controleFin.model.entities.Usuario;
+import spring.boot.api.controleFin.model.repositories.MovimentacaoRepository;
+import spring.boot.api.controleFin.model.repositories.ResumoMensalRepository;
+import spring.boot.api.controleFin.model.repositories.UsuarioRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ResumoMensalServiceTest {
+
+    private static final Categoria[] CATEGORIAS = {Categoria.CASA, Categoria.LAZER, Categoria.SALARIO, Categoria.EXTRA};
+
+    @Autowired
+    private MovimentacaoService movimentacaoService;
+
+    @Autowired
+    private ResumoMensalService resumoMensalService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private MovimentacaoRepository movimentacaoRepository;
+
+    @Autowired
+    private ResumoMensalRepository resumoMensalRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Deve manter o resumo mensal igual às movimentações depois de inclusões, lotes e exclusões aleatórias")
+    void resumoIgualAsMovimentacoes() {
+        List<Long> ids = criarUsuarios(3);
+        Random aleatorio = new Random(42);
+
+        for (int i = 0; i < 400; i++) {
+            int operacao = aleatorio.nextInt(10);
+            if (operacao < 5) {
+                try {
+                    movimentacaoService.adicionarMovimentacao(movimentacaoAleatoria(aleatorio, ids));
+                } catch (ResponseStatusException e) {
+                    Assertions.assertEquals("Saldo insuficiente para esta operação", e.getReason());
+                }
+            } else if (operacao < 7) {
+                List<MovimentacaoDTO> lote = new ArrayList<>();
+                for (int j = 0; j < 1 + aleatorio.nextInt(8); j++) {
+                    lote.add(movimentacaoAleatoria(aleatorio, ids));
+                }
+                movimentacaoService.adicionarMovimentacoes(lote);
+            } else {
+                List<Movimentacao> existentes = movimentacaoRepository.findAll();
+                if (!existentes.isEmpty()) {
+                    Movimentacao escolhida = existentes.get(aleatorio.nextInt(existentes.size()));
+                    movimentacaoService.deletarMovimentacao(escolhida.getUsuario().getId(), escolhida.getId());
+                }
+            }
+        }
+
+        Map<ResumoMensalId, ResumoMensal> calculado = porChave(resumoMensalRepository.calcularPelasMovimentacoes(ids));
+        Map<ResumoMensalId, ResumoMensal> gravado = porChave(resumoMensalRepository.buscarPorUsuarios(ids).stream()
+                .filter(r -> r.getQuantidade() > 0)
+                .collect(Collectors.toList()));
+
+        Assertions.assertFalse(calculado.isEmpty());
+        Assertions.assertEquals(calculado.keySet(), gravado.keySet());
+        calculado.forEach((chave, linha) -> {
+            Assertions.assertEquals(0, linha.getTotal().compareTo(gravado.get(chave).getTotal()), chave.toString());
+            Assertions.assertEquals(linha.getQuantidade(), gravado.get(chave).getQuantidade(), chave.toString());
+        });
+
+        //O resumo pelo rollup (com meses cortados nas pontas) tem que bater com a soma direta das movimentações
+        for (Long id : ids) {
+            LocalDate inicio = LocalDate.parse("2023-02-14");
+            LocalDate fim = LocalDate.parse("2024-11-03");
+            assertResumosIguais(movimentacaoRepository.resumirPorMesECategoria(id, inicio, fim), movimentacaoService.resumir(id, inicio, fim));
+        }
+
+        ReconstrucaoResumoDTO reconstrucao = resumoMensalService.reconstruir();
+        Assertions.assertEquals(3, reconstrucao.getUsuariosVerificados());
+        Assertions.assertEquals(0, reconstrucao.getLinhasCorrigidas());
+    }
+
+    @Test
+    @DisplayName("Deve apontar e corrigir as linhas do resumo mensal que divergem das movimentações")
+    void reconstruirCorrigeDivergencia() {
+        List<Long> ids = criarUsuarios(450); // Mais de um lote de reconstrução
+        Long idUsuario = ids.get(300);
+
+        movimentacaoService.adicionarMovimentacao(new MovimentacaoDTO("credito", LocalDate.parse("2024-03-05"), new BigDecimal("80.00"), Categoria.SALARIO, idUsuario));
+        movimentacaoService.adicionarMovimentacao(new MovimentacaoDTO("debito", LocalDate.parse("2024-03-06"), new BigDecimal("20.00"), Categoria.CASA, idUsuario));
+
+        jdbcTemplate.update("update resumo_mensal set total = 999 where usuario_id = ? and tipo = 'C'", idUsuario);
+        jdbcTemplate.update("delete from resumo_mensal where usuario_id = ? and tipo = 'D'", idUsuario);
+        Long versao = movimentacaoService.buscarVersao(idUsuario);
+        Long versaoOutro = movimentacaoService.buscarVersao(ids.get(0));
+
+        ReconstrucaoResumoDTO reconstrucao = resumoMensalService.reconstruir();
+
+        Assertions.assertEquals(450, reconstrucao.getUsuariosVerificados());
+        Assertions.assertEquals(2, reconstrucao.getLinhasCorrigidas());
+        Assertions.assertEquals(List.of(idUsuario), reconstrucao.getUsuariosComDivergencia());
+        //Só o usuário corrigido muda de versão (a ETag das buscas dele deixa de valer)
+        Assertions.assertEquals(versao + 1, movimentacaoService.buscarVersao(idUsuario));
+        Assertions.assertEquals(versaoOutro, movimentacaoService.buscarVersao(ids.get(0)));
+
+        List<ResumoMovimentacaoDTO> resumo = movimentacaoService.resumir(idUsuario, LocalDate.parse("2024-03-01"), LocalDate.parse("2024-03-31"));
+        Assertions.assertEquals(2, resumo.size());
+        Assertions.assertEquals(0, new BigDecimal("20.00").compareTo(resumo.get(0).getTotalDebitos()));
+        Assertions.assertEquals(0, new BigDecimal("80.00").compareTo(resumo.get(1).getTotalCreditos()));
+
+        Assertions.assertEquals(0, resumoMensalService.reconstruir().getLinhasCorrigidas());
+    }
+
+    private List<Long> criarUsuarios(int quantidade) {
+        List<Usuario> usuarios = new ArrayList<>();
+        for (int i = 0; i < quantidade; i++) {
+            usuarios.add(new Usuario("Usuario " + i, String.format("%011d", i), new BigDecimal("300.00")));
+        }
+        return usuarioRepository.saveAll(usuarios).stream().map(Usuario::getId).collect(Collectors.toList());
+    }
+
+    private MovimentacaoDTO movimentacaoAleatoria(Random aleatorio, List<Long> ids) {
+        return new MovimentacaoDTO(
+                aleatorio.nextBoolean() ? "credito" : "Debito",
+                LocalDate.of(2023, 1, 1).plusDays(aleatorio.nextInt(730)),
+                new BigDecimal(aleatorio.nextInt(5000)).movePointLeft(2),
+                CATEGORIAS[aleatorio.nextInt(CATEGORIAS.length)],
+                ids.get(aleatorio.nextInt(ids.size())));
+    }
+
+    private Map<ResumoMensalId, ResumoMensal> porChave(List<ResumoMensal> linhas) {
+        return linhas.stream().collect(Collectors.toMap(ResumoMensal::getId, r -> r));
+    }
+
+    private void assertResumosIguais(List<ResumoMovimentacaoDTO> esperado, List<ResumoMovimentacaoDTO> obtido) {
+        Assertions.assertEquals(esperado.size(), obtido.size());
+        for (int i = 0; i < esperado.size(); i++) {
+            Assertions.assertEquals(esperado.get(i).getAno(), obtido.get(i).getAno());
+            Assertions.assertEquals(esperado.get(i).getMes(), obtido.get(i).getMes());
+            Assertions.assertEquals(esperado.get(i).getCategoria(), obtido.get(i).getCategoria());
+            Assertions.assertEquals(0, esperado.get(i).getTotalCreditos().compareTo(obtido.get(i).getTotalCreditos()));
+            Assertions.assertEquals(0, esperado.get(i).getTotalDebitos().compareTo(obtido.get(i).getTotalDebitos()));
+        }
+    }
+}
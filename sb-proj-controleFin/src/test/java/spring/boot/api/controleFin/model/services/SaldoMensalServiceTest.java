@@ -0,0 +1,109 @@
+package spring.boot.api.controleFin.model.services;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+import spring.boot.api.controleFin.model.dto.MovimentacaoDTO;
+import spring.boot.api.controleFin.model.entities.Categoria;
+import spring.boot.api.controleFin.model.entities.Movimentacao;
+import spring.boot.api.controleFin.model.entities.TipoMovimentacao;
+import spring.boot.api.controleFin.model.entities.Usuario;
+import spring.boot.api.controleFin.model.repositories.MovimentacaoRepository;
+import spring.boot.api.controleFin.model.repositories.UsuarioRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class SaldoMensalServiceTest {
+
+    private static final BigDecimal SALDO_INICIAL = new BigDecimal("1000.00");
+
+    @Autowired
+    private MovimentacaoService movimentacaoService;
+
+    @Autowired
+    private SaldoMensalService saldoMensalService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private MovimentacaoRepository movimentacaoRepository;
+
+    @Test
+    @DisplayName("Deve retornar o mesmo saldo em qualquer data que a soma de todas as movimentações até ela, com inclusões e exclusões em datas passadas")
+    void saldoEmIgualAoReprocessamento() {
+        Long idUsuario = usuarioRepository.save(new Usuario("Maria", "12345678900", SALDO_INICIAL)).getId();
+        Random aleatorio = new Random(7);
+
+        for (int i = 0; i < 300; i++) {
+            int operacao = aleatorio.nextInt(10);
+            if (operacao < 5) {
+                try {
+                    movimentacaoService.adicionarMovimentacao(movimentacaoAleatoria(aleatorio, idUsuario));
+                } catch (ResponseStatusException e) {
+                    Assertions.assertEquals("Saldo insuficiente para esta operação", e.getReason());
+                }
+            } else if (operacao < 7) {
+                List<MovimentacaoDTO> lote = new ArrayList<>();
+                for (int j = 0; j < 1 + aleatorio.nextInt(6); j++) {
+                    lote.add(movimentacaoAleatoria(aleatorio, idUsuario));
+                }
+                movimentacaoService.adicionarMovimentacoes(lote);
+            } else {
+                List<Movimentacao> existentes = movimentacaoRepository.findAll();
+                if (!existentes.isEmpty()) {
+                    movimentacaoService.deletarMovimentacao(idUsuario, existentes.get(aleatorio.nextInt(existentes.size())).getId());
+                }
+            }
+        }
+
+        List<Movimentacao> movimentacoes = movimentacaoRepository.findAll();
+        Assertions.assertFalse(movimentacoes.isEmpty());
+
+        for (LocalDate data = LocalDate.parse("2022-12-15"); data.isBefore(LocalDate.parse("2025-02-01")); data = data.plusDays(11)) {
+            Assertions.assertEquals(0, reprocessar(movimentacoes, data).compareTo(saldoMensalService.saldoEm(idUsuario, data)), data.toString());
+        }
+        Assertions.assertEquals(0, usuarioRepository.buscarSaldo(idUsuario).get()
+                .compareTo(saldoMensalService.saldoEm(idUsuario, LocalDate.parse("2030-01-01"))));
+    }
+
+    @Test
+    @DisplayName("Deve retornar o saldo atual quando o usuário não tem movimentações")
+    void saldoEmSemMovimentacoes() {
+        Long idUsuario = usuarioRepository.save(new Usuario("Maria", "12345678900", SALDO_INICIAL)).getId();
+
+        Assertions.assertEquals(0, SALDO_INICIAL.compareTo(saldoMensalService.saldoEm(idUsuario, LocalDate.parse("2025-03-31"))));
+    }
+
+    private MovimentacaoDTO movimentacaoAleatoria(Random aleatorio, Long idUsuario) {
+        return new MovimentacaoDTO(
+                aleatorio.nextInt(3) == 0 ? "credito" : "debito",
+                LocalDate.of(2023, 1, 1).plusDays(aleatorio.nextInt(730)),
+                new BigDecimal(aleatorio.nextInt(20000)).movePointLeft(2),
+                Categoria.CASA,
+                idUsuario);
+    }
+
+    //Saldo esperado: saldo inicial mais o efeito de todas as movimentações até a data
+    private BigDecimal reprocessar(List<Movimentacao> movimentacoes, LocalDate data) {
+        BigDecimal saldo = SALDO_INICIAL;
+        for (Movimentacao m : movimentacoes) {
+            if (!m.getData().isAfter(data)) {
+                saldo = m.getTipoMovimentacao() == TipoMovimentacao.CREDITO ? saldo.add(m.getValor()) : saldo.subtract(m.getValor());
+            }
+        }
+        return saldo;
+    }
+}
@@ -0,0 +1,152 @@
+package spring.boot.api.controleFin.model.services;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+import spring.boot.api.controleFin.model.dto.ItemLoteDTO;
+import spring.boot.api.controleFin.model.dto.LoteResultadoDTO;
+import spring.boot.api.controleFin.model.dto.MovimentacaoDTO;
+import spring.boot.api.controleFin.model.entities.Categoria;
+import spring.boot.api.controleFin.model.entities.Usuario;
+import spring.boot.api.controleFin.model.repositories.MovimentacaoRepository;
+import spring.boot.api.controleFin.model.repositories.UsuarioRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext
+class SequenciadorMovimentacoesServiceTest {
+
+    private static final int THREADS = 8;
+    private static final int OPERACOES_POR_THREAD = 50;
+
+    @Autowired
+    private SequenciadorMovimentacoesService sequenciador;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private MovimentacaoRepository movimentacaoRepository;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    @DisplayName("Deve gravar as movimentações de várias threads no mesmo usuário em menos transações que movimentações, com o saldo correto")
+    void agrupaPorUsuario() throws Exception {
+
+        Long idUsuario = usuarioRepository.save(new Usuario("Maria", "12345678900", new BigDecimal("0.00"))).getId();
+        DistributionSummary lote = registry.get("controlefin.sequenciador.lote").summary();
+        long transacoesAntes = lote.count();
+        double pedidosAntes = lote.totalAmount();
+        long movimentacoesAntes = movimentacaoRepository.count();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<List<CompletableFuture<Void>>>> tarefas = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            tarefas.add(executor.submit(() -> {
+                largada.await();
+                List<CompletableFuture<Void>> futuros = new ArrayList<>();
+                for (int i = 0; i < OPERACOES_POR_THREAD; i++) {
+                    futuros.add(sequenciador.enviar(new MovimentacaoDTO(
+                            "credito", LocalDate.parse("2024-04-20"), new BigDecimal("2.00"), Categoria.SALARIO, idUsuario)));
+                }
+                return futuros;
+            }));
+        }
+        largada.countDown();
+        for (Future<List<CompletableFuture<Void>>> tarefa : tarefas) {
+            tarefa.get().forEach(CompletableFuture::join);
+        }
+        executor.shutdown();
+
+        int total = THREADS * OPERACOES_POR_THREAD;
+        Assertions.assertEquals(total, (long) (lote.totalAmount() - pedidosAntes));
+        Assertions.assertTrue(lote.count() - transacoesAntes < total, "As movimentações pendentes do usuário devem ser gravadas juntas");
+        Assertions.assertEquals(0, new BigDecimal("800.00").compareTo(usuarioRepository.findById(idUsuario).orElseThrow().getSaldo()));
+        Assertions.assertEquals(total, movimentacaoRepository.count() - movimentacoesAntes);
+        Assertions.assertEquals(0.0, registry.get("controlefin.sequenciador.fila").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Deve aplicar os pedidos do usuário na ordem da fila e terminar com erro só o débito sem saldo")
+    void recusaDebitoSemSaldo() {
+
+        Long idUsuario = usuarioRepository.save(new Usuario("Joao", "98765432100", new BigDecimal("10.00"))).getId();
+
+        CompletableFuture<Void> debito = sequenciador.enviar(new MovimentacaoDTO(
+                "debito", LocalDate.parse("2024-04-20"), new BigDecimal("8.00"), Categoria.CASA, idUsuario));
+        CompletableFuture<Void> semSaldo = sequenciador.enviar(new MovimentacaoDTO(
+                "debito", LocalDate.parse("2024-04-21"), new BigDecimal("5.00"), Categoria.CASA, idUsuario));
+        CompletableFuture<Void> credito = sequenciador.enviar(new MovimentacaoDTO(
+                "credito", LocalDate.parse("2024-04-22"), new BigDecimal("1.00"), Categoria.SALARIO, idUsuario));
+
+        debito.join();
+        credito.join();
+        CompletionException erro = Assertions.assertThrows(CompletionException.class, semSaldo::join);
+        Assertions.assertEquals("Saldo insuficiente para esta operação", ((ResponseStatusException) erro.getCause()).getReason());
+        Assertions.assertEquals(0, new BigDecimal("3.00").compareTo(usuarioRepository.findById(idUsuario).orElseThrow().getSaldo()));
+    }
+
+    @Test
+    @DisplayName("Deve recusar na hora, sem passar pela fila, a movimentação sem data ou de usuário inexistente")
+    void validaAntesDaFila() {
+
+        ResponseStatusException semData = Assertions.assertThrows(ResponseStatusException.class, () -> sequenciador.gravar(
+                new MovimentacaoDTO("credito", null, new BigDecimal("1.00"), Categoria.SALARIO, 1L)));
+        Assertions.assertEquals("A data da movimentação é obrigatória", semData.getReason());
+
+        ResponseStatusException semUsuario = Assertions.assertThrows(ResponseStatusException.class, () -> sequenciador.gravar(
+                new MovimentacaoDTO("credito", LocalDate.parse("2024-04-20"), new BigDecimal("1.00"), Categoria.SALARIO, 999L)));
+        Assertions.assertEquals("Usuário não encontrado!", semUsuario.getReason());
+    }
+
+    @Test
+    @DisplayName("Deve terminar com erro os pedidos do lote quando a gravação lança um Error, e continuar atendendo a fila da faixa")
+    void errorNaoPrendeOsPedidos() throws Exception {
+
+        // Sequenciador fora do Spring, com uma faixa só e a gravação simulada
+        SequenciadorMovimentacoesService sequenciadorIsolado = new SequenciadorMovimentacoesService();
+        sequenciadorIsolado.habilitado = true;
+        sequenciadorIsolado.faixas = 1;
+        sequenciadorIsolado.capacidade = 10;
+        sequenciadorIsolado.movimentacaoService = mock(MovimentacaoService.class);
+        when(sequenciadorIsolado.movimentacaoService.adicionarMovimentacoes(anyList()))
+                .thenThrow(new StackOverflowError())
+                .thenReturn(new LoteResultadoDTO(1, 0, List.of(new ItemLoteDTO(0, true, null))));
+        sequenciadorIsolado.iniciar();
+        try {
+            MovimentacaoDTO dto = new MovimentacaoDTO("credito", LocalDate.parse("2024-04-20"), new BigDecimal("1.00"), Categoria.SALARIO, 1L);
+
+            CompletionException erro = Assertions.assertThrows(CompletionException.class, () -> sequenciadorIsolado.gravar(dto));
+            Assertions.assertInstanceOf(StackOverflowError.class, erro.getCause());
+
+            sequenciadorIsolado.gravar(dto);
+        } finally {
+            sequenciadorIsolado.parar();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package spring.boot.api.controleFin.model.services;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+import spring.boot.api.controleFin.model.dto.TransferenciaDTO;
+import spring.boot.api.controleFin.model.entities.Movimentacao;
+import spring.boot.api.controleFin.model.entities.Usuario;
+import spring.boot.api.controleFin.model.repositories.MovimentacaoRepository;
+import spring.boot.api.controleFin.model.repositories.UsuarioRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext
+class TransferenciaConcorrenciaTest {
+
+    private static final int USUARIOS = 6;
+    private static final int THREADS = 16;
+    private static final int TRANSFERENCIAS_POR_THREAD = 250;
+    private static final BigDecimal SALDO_INICIAL = new BigDecimal("100.00");
+
+    @Autowired
+    private MovimentacaoService movimentacaoService;
+
+    @Autowired
+    private ResumoMensalService resumoMensalService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private MovimentacaoRepository movimentacaoRepository;
+
+    @Test
+    @DisplayName("Deve manter o total de dinheiro do sistema com milhares de transferências aleatórias simultâneas " +
+            "entre poucos usuários, nos dois sentidos, sem deadlock")
+    void totalConstanteSobConcorrencia() throws Exception {
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < USUARIOS; i++) {
+            ids.add(usuarioRepository.save(new Usuario("Usuario " + i, String.format("%011d", i), SALDO_INICIAL)).getId());
+        }
+
+        AtomicInteger aceitas = new AtomicInteger();
+        AtomicInteger recusadas = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> tarefas = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            tarefas.add(executor.submit(() -> {
+                largada.await();
+                ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERENCIAS_POR_THREAD; i++) {
+                    int origem = aleatorio.nextInt(USUARIOS);
+                    int destino = (origem + 1 + aleatorio.nextInt(USUARIOS - 1)) % USUARIOS;
+                    BigDecimal valor = BigDecimal.valueOf(aleatorio.nextLong(1, 5001), 2); // De 0,01 a 50,00: as origens ficam sem saldo de vez em quando
+                    try {
+                        movimentacaoService.transferir(new TransferenciaDTO(ids.get(origem), ids.get(destino), valor, LocalDate.parse("2024-04-20")));
+                        aceitas.incrementAndGet();
+                    } catch (ResponseStatusException e) {
+                        Assertions.assertEquals("Saldo insuficiente para esta operação", e.getReason());
+                        recusadas.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        // Qualquer outra exceção (deadlock ou tempo de espera do bloqueio) aparece aqui e falha o teste
+        largada.countDown();
+        for (Future<?> tarefa : tarefas) {
+            tarefa.get();
+        }
+        executor.shutdown();
+
+        Assertions.assertEquals(THREADS * TRANSFERENCIAS_POR_THREAD, aceitas.get() + recusadas.get());
+        Assertions.assertTrue(recusadas.get() > 0, "O teste deve esgotar o saldo de alguma origem pelo menos uma vez");
+
+        List<Usuario> usuarios = usuarioRepository.findAllById(ids);
+        BigDecimal total = usuarios.stream().map(Usuario::getSaldo).reduce(BigDecimal.ZERO, BigDecimal::add);
+        Assertions.assertEquals(0, SALDO_INICIAL.multiply(BigDecimal.valueOf(USUARIOS)).compareTo(total));
+
+        // O saldo de cada usuário é o inicial mais o efeito das movimentações gravadas para ele
+        Map<Long, BigDecimal> efeitos = new HashMap<>();
+        List<Movimentacao> movimentacoes = movimentacaoRepository.findAll();
+        for (Movimentacao movimentacao : movimentacoes) {
+            efeitos.merge(movimentacao.getUsuario().getId(), movimentacao.getTipoMovimentacao().efeito(movimentacao.getValor()), BigDecimal::add);
+        }
+        for (Usuario usuario : usuarios) {
+            Assertions.assertTrue(usuario.getSaldo().signum() >= 0);
+            Assertions.assertEquals(0, SALDO_INICIAL.add(efeitos.getOrDefault(usuario.getId(), BigDecimal.ZERO)).compareTo(usuario.getSaldo()));
+        }
+        Assertions.assertEquals(2L * aceitas.get(), movimentacoes.size());
+
+        // O resumo mensal somado durante as transferências bate com o recalculado a partir das movimentações
+        Assertions.assertEquals(0, resumoMensalService.reconstruir().getLinhasCorrigidas());
+    }
+}
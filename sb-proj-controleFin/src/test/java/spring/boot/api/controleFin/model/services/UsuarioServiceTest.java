@@ -7,6 +7,10 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.web.server.ResponseStatusException;
@@ -15,6 +19,7 @@ import spring.boot.api.controleFin.model.entities.Usuario;
 import spring.boot.api.controleFin.model.repositories.UsuarioRepository;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -26,6 +31,12 @@ class UsuarioServiceTest {
     @Mock
     private UsuarioRepository repository;
 
+    @Mock
+    private SaldoMensalService saldoMensalService;
+
+    @Spy
+    private CacheSaldoService cacheSaldo = new CacheSaldoService(); // Sem o contexto do Spring o cache fica desligado e só repassa a consulta
+
     @InjectMocks
     private UsuarioService usuarioService;
 
@@ -86,22 +97,47 @@ class UsuarioServiceTest {
     }
 
     @Test
-    @DisplayName("Deve retornar a lista de usuários convertidos para DTO")
+    @DisplayName("Deve retornar a página de usuários já projetada em DTO, ordenada pelo campo pedido e desempatada pelo id")
     void getUsuariosCase1() {
-        List<Usuario> usuarios = List.of(
-                new Usuario(1L, "Maria", "12345678900", new BigDecimal("100.00")),
-                new Usuario(2L, "João", "98765432100", new BigDecimal("200.00"))
+        List<UsuarioDTO> usuarios = List.of(
+                new UsuarioDTO("Maria", "12345678900", new BigDecimal("100.00")),
+                new UsuarioDTO("João", "98765432100", new BigDecimal("200.00"))
         );
 
-        when(repository.findAll()).thenReturn(usuarios);
+        PageRequest pagina = PageRequest.of(0, 20, Sort.by(Sort.Direction.ASC, "nome").and(Sort.by("id")));
 
-        List<UsuarioDTO> resultado = usuarioService.getUsuarios();
+        when(repository.listarUsuarios(pagina)).thenReturn(new SliceImpl<>(usuarios, pagina, false));
+
+        List<UsuarioDTO> resultado = usuarioService.getUsuarios(0, 20, "nome", "asc");
 
         assertEquals(2, resultado.size());
         assertEquals("Maria", resultado.get(0).getNome());
         assertEquals("João", resultado.get(1).getNome());
 
-        verify(repository, times(1)).findAll();
+        verify(repository, times(1)).listarUsuarios(pagina);
+        verify(repository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("Deve limitar o tamanho da página a 100 usuários")
+    void getUsuariosCase2() {
+        when(repository.listarUsuarios(any())).thenReturn(new SliceImpl<>(List.of()));
+
+        usuarioService.getUsuarios(3, 5000, "saldo", "desc");
+
+        verify(repository).listarUsuarios(PageRequest.of(3, 100, Sort.by(Sort.Direction.DESC, "saldo").and(Sort.by("id"))));
+    }
+
+    @Test
+    @DisplayName("Deve lançar uma exceção ResponseStatusException quando o campo de ordenação não for permitido")
+    void getUsuariosCase3() {
+        ResponseStatusException excecao = assertThrows(ResponseStatusException.class, () -> {
+            usuarioService.getUsuarios(0, 20, "movimentacoes", "asc");
+        });
+
+        assertEquals("Campo de ordenação inválido! Use: nome, doc ou saldo", excecao.getReason());
+        assertEquals(HttpStatus.BAD_REQUEST, excecao.getStatusCode());
+        verifyNoInteractions(repository);
     }
 
     @Test
@@ -109,13 +145,14 @@ class UsuarioServiceTest {
     void getSaldoCase1() {
         Optional<Usuario> usuario = Optional.of(new Usuario(1L, "Maria", "12345678900", new BigDecimal("100.00")));
 
-        when(repository.findById(usuario.get().getId())).thenReturn(usuario);
+        when(repository.buscarSaldo(usuario.get().getId())).thenReturn(Optional.of(usuario.get().getSaldo()));
 
         BigDecimal resultado = usuarioService.getSaldo(1L);
 
         assertEquals(new BigDecimal("100.00"), resultado);
 
-        verify(repository, times(1)).findById(any());
+        verify(repository, times(1)).buscarSaldo(any());
+        verify(repository, never()).findById(any());
     }
 
     @Test
@@ -131,4 +168,18 @@ class UsuarioServiceTest {
 
         assertEquals(HttpStatus.BAD_REQUEST, excecao.getStatusCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Deve retornar o saldo em uma data calculado pelos checkpoints mensais, sem ler o saldo atual")
+    void getSaldoCase3() {
+        LocalDate data = LocalDate.parse("2025-03-31");
+
+        when(saldoMensalService.saldoEm(1L, data)).thenReturn(new BigDecimal("42.00"));
+
+        BigDecimal resultado = usuarioService.getSaldo(1L, data);
+
+        assertEquals(new BigDecimal("42.00"), resultado);
+        verify(saldoMensalService).saldoEm(1L, data);
+        verifyNoInteractions(repository);
+    }
+}